@@ -25,10 +25,11 @@ import com.biglybt.android.client.dialog.DialogFragmentNumberPicker;
 import com.biglybt.android.client.dialog.DialogFragmentRemoteAccessQR;
 import com.biglybt.android.client.rpc.RPC;
 import com.biglybt.android.client.session.Session;
+import com.biglybt.android.client.service.CoreParamCache;
 import com.biglybt.android.client.session.SessionSettings;
 
 import android.content.pm.PackageManager;
-import android.os.RemoteException;
+import android.os.Bundle;
 import android.text.InputType;
 import android.text.TextUtils;
 import android.util.Log;
@@ -440,26 +441,21 @@ public class PrefFragmentHandlerCore
 		if (prefEncryptScreen != null) {
 			String s = "";
 
-			IBiglyCoreInterface coreInterface = BiglyCoreFlavorUtils.getCoreInterface();
-			if (coreInterface != null) {
-				try {
-					boolean req = coreInterface.getParamBool(
-							CoreParamKeys.BPARAM_CONN_ENCRYPT_REQ);
-					@StringRes
-					int id;
-					if (req) {
-						String minLevel = coreInterface.getParamString(
-								CoreParamKeys.SPARAM_CONN_ENCRYPT_MIN_LEVEL);
-						id = minLevel.equals("RC4")
-								? R.string.pref_conn_trans_encryption_RC4
-								: R.string.pref_conn_trans_encryption_plain;
-					} else {
-						id = R.string.pref_conn_trans_encryption_none;
-					}
-					s = activity.getString(id);
-				} catch (RemoteException e) {
-					e.printStackTrace();
+			Bundle params = CoreParamCache.getParams(getConnEncryptParamTypes());
+			if (params != null) {
+				boolean req = params.getBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_REQ);
+				@StringRes
+				int id;
+				if (req) {
+					String minLevel = params.getString(
+							CoreParamKeys.SPARAM_CONN_ENCRYPT_MIN_LEVEL);
+					id = "RC4".equals(minLevel)
+							? R.string.pref_conn_trans_encryption_RC4
+							: R.string.pref_conn_trans_encryption_plain;
+				} else {
+					id = R.string.pref_conn_trans_encryption_none;
 				}
+				s = activity.getString(id);
 			}
 			prefEncryptScreen.setSummary(s);
 		}
@@ -701,26 +697,28 @@ public class PrefFragmentHandlerCore
 					+ AndroidUtils.getCompressedStackTrace());
 		}
 
-		IBiglyCoreInterface coreInterface = BiglyCoreFlavorUtils.getCoreInterface();
-		if (coreInterface == null) {
-			return;
-		}
-		try {
-			coreInterface.setParamBool(CoreParamKeys.BPARAM_CONN_ENCRYPT_REQ,
-					ds.getBoolean(KEY_CONN_ENCRYPT_REQ));
-			coreInterface.setParamString(CoreParamKeys.SPARAM_CONN_ENCRYPT_MIN_LEVEL,
-					ds.getString(KEY_CONN_ENCRYPT_MIN_LEVEL));
-			coreInterface.setParamBool(CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_INCOMING,
-					ds.getBoolean(KEY_CONN_ENCRYPT_FB_INCOMING));
-			coreInterface.setParamBool(CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_OUTGOING,
-					ds.getBoolean(KEY_CONN_ENCRYPT_FB_OUTGOING));
-			coreInterface.setParamBool(
-					CoreParamKeys.BPARAM_CONN_ENCRYPT_USE_CRYPTOPORT,
-					ds.getBoolean(KEY_CONN_ENCRYPT_USE_CRYPTOPORT));
-		} catch (RemoteException e) {
-			e.printStackTrace();
-		}
+		Bundle params = new Bundle();
+		params.putBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_REQ,
+				ds.getBoolean(KEY_CONN_ENCRYPT_REQ));
+		params.putString(CoreParamKeys.SPARAM_CONN_ENCRYPT_MIN_LEVEL,
+				ds.getString(KEY_CONN_ENCRYPT_MIN_LEVEL));
+		params.putBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_INCOMING,
+				ds.getBoolean(KEY_CONN_ENCRYPT_FB_INCOMING));
+		params.putBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_OUTGOING,
+				ds.getBoolean(KEY_CONN_ENCRYPT_FB_OUTGOING));
+		params.putBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_USE_CRYPTOPORT,
+				ds.getBoolean(KEY_CONN_ENCRYPT_USE_CRYPTOPORT));
+		CoreParamCache.setParams(params);
+	}
 
+	private static Bundle getConnEncryptParamTypes() {
+		Bundle types = new Bundle();
+		types.putBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_REQ, false);
+		types.putString(CoreParamKeys.SPARAM_CONN_ENCRYPT_MIN_LEVEL, "");
+		types.putBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_INCOMING, false);
+		types.putBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_OUTGOING, false);
+		types.putBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_USE_CRYPTOPORT, false);
+		return types;
 	}
 
 	private void saveProxyPrefs() {
@@ -783,25 +781,20 @@ public class PrefFragmentHandlerCore
 			ds.putString(KEY_PROXY_PW, proxyPrefs.pw);
 			ds.putInt(KEY_PROXY_PORT, proxyPrefs.port);
 		} else if (KEY_CONN_ENCRYPT_SCREEN.equals(screenKey)) {
-			IBiglyCoreInterface coreInterface = BiglyCoreFlavorUtils.getCoreInterface();
-			if (coreInterface == null) {
+			Bundle params = CoreParamCache.getParams(getConnEncryptParamTypes());
+			if (params == null) {
 				return;
 			}
-			try {
-				ds.putBoolean(KEY_CONN_ENCRYPT_REQ,
-						coreInterface.getParamBool(CoreParamKeys.BPARAM_CONN_ENCRYPT_REQ));
-				ds.putString(KEY_CONN_ENCRYPT_MIN_LEVEL, coreInterface.getParamString(
-						CoreParamKeys.SPARAM_CONN_ENCRYPT_MIN_LEVEL));
-				ds.putBoolean(KEY_CONN_ENCRYPT_FB_INCOMING, coreInterface.getParamBool(
-						CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_INCOMING));
-				ds.putBoolean(KEY_CONN_ENCRYPT_FB_OUTGOING, coreInterface.getParamBool(
-						CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_OUTGOING));
-				ds.putBoolean(KEY_CONN_ENCRYPT_USE_CRYPTOPORT,
-						coreInterface.getParamBool(
-								CoreParamKeys.BPARAM_CONN_ENCRYPT_USE_CRYPTOPORT));
-			} catch (RemoteException e) {
-				e.printStackTrace();
-			}
+			ds.putBoolean(KEY_CONN_ENCRYPT_REQ,
+					params.getBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_REQ));
+			ds.putString(KEY_CONN_ENCRYPT_MIN_LEVEL,
+					params.getString(CoreParamKeys.SPARAM_CONN_ENCRYPT_MIN_LEVEL));
+			ds.putBoolean(KEY_CONN_ENCRYPT_FB_INCOMING,
+					params.getBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_INCOMING));
+			ds.putBoolean(KEY_CONN_ENCRYPT_FB_OUTGOING,
+					params.getBoolean(CoreParamKeys.BPARAM_CONN_ENCRYPT_FB_OUTGOING));
+			ds.putBoolean(KEY_CONN_ENCRYPT_USE_CRYPTOPORT, params.getBoolean(
+					CoreParamKeys.BPARAM_CONN_ENCRYPT_USE_CRYPTOPORT));
 		} else {
 			CorePrefs corePrefs = CorePrefs.getInstance();
 			ds.putBoolean(KEY_ONLY_PLUGGEDIN, corePrefs.getPrefOnlyPluggedIn());
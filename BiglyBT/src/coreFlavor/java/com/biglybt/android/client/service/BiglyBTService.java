@@ -31,6 +31,7 @@ import com.biglybt.android.util.NetworkState;
 import com.biglybt.android.util.NetworkState.NetworkStateListener;
 import com.biglybt.core.*;
 import com.biglybt.core.config.COConfigurationManager;
+import com.biglybt.core.config.impl.TransferSpeedValidator;
 import com.biglybt.core.download.DownloadManager;
 import com.biglybt.core.global.GlobalManager;
 import com.biglybt.core.global.GlobalManagerListener;
@@ -42,6 +43,8 @@ import com.biglybt.core.pairing.impl.PairingManagerImpl.UIAdapter;
 import com.biglybt.core.tag.*;
 import com.biglybt.core.util.*;
 import com.biglybt.pif.PluginInterface;
+import com.biglybt.pif.PluginManager;
+import com.biglybt.pif.PluginState;
 import com.biglybt.pif.ui.config.BooleanParameter;
 import com.biglybt.util.DisplayFormatters;
 import com.biglybt.util.Thunk;
@@ -130,6 +133,8 @@ public class BiglyBTService
 
 	public static final int MSG_OUT_SERVICE_DESTROY = 400;
 
+	public static final int MSG_OUT_PARAMS_CHANGED = 500;
+
 	static final String TAG = "BiglyBTService";
 
 	public static final String INTENT_ACTION_START = "com.biglybt.android.client.START_SERVICE";
@@ -153,6 +158,28 @@ public class BiglyBTService
 
 	private static final int NOTIFICATION_ID = 1;
 
+	/**
+	 * Config keys holding the global upload and download limits (KB/s) from
+	 * before we went to sleep.  -1 when not asleep.
+	 */
+	private static final String CONFIG_SLEEP_SAVED_UP = "android.sleep.saved.up";
+
+	private static final String CONFIG_SLEEP_SAVED_DOWN = "android.sleep.saved.down";
+
+	/**
+	 * Global rate limit while asleep, in KB/s.  The core treats 0 as
+	 * unlimited, so this is the lowest real limit.
+	 */
+	private static final int SLEEP_RATE_LIMIT_KBS = 1;
+
+	/**
+	 * Plugins that don't run while asleep
+	 */
+	private static final String[] SLEEP_PLUGIN_IDS = {
+		"mldht",
+		"azextseed"
+	};
+
 	@SuppressWarnings("RedundantThrows")
 	private final IBiglyCoreInterface.Stub mBinder = new IBiglyCoreInterface.Stub() {
 
@@ -292,6 +319,18 @@ public class BiglyBTService
 				throws RemoteException {
 			return COConfigurationManager.setParameter(key, val);
 		}
+
+		@Override
+		public Bundle getParams(Bundle types)
+				throws RemoteException {
+			return paramHandler.getParams(types);
+		}
+
+		@Override
+		public boolean setParams(Bundle params)
+				throws RemoteException {
+			return paramHandler.setParams(params);
+		}
 	};
 
 	@Thunk
@@ -310,6 +349,9 @@ public class BiglyBTService
 				screenOff = false;
 				updateNotification();
 			}
+			if (profileMonitor != null) {
+				profileMonitor.setScreenOn(!screenOff);
+			}
 		}
 	}
 
@@ -332,6 +374,10 @@ public class BiglyBTService
 			coreStarted = true;
 			sendStuff(MSG_OUT_CORE_STARTED, "MSG_OUT_CORE_STARTED");
 
+			if (!bindToLocalHost) {
+				restoreSleepThrottle();
+			}
+
 			updateNotification();
 
 			core.getGlobalManager().addListener(new GlobalManagerListener() {
@@ -497,10 +543,16 @@ public class BiglyBTService
 
 	private Boolean lastOnline = null;
 
-	private boolean bindToLocalHost = false;
+	@Thunk
+	boolean bindToLocalHost = false;
 
 	private int bindToLocalHostReasonID = R.string.core_noti_sleeping;
 
+	/**
+	 * Plugins unloaded by {@link #applySleepMode(boolean)}, by plugin id
+	 */
+	private final Map<String, PluginInterface> unloadedSleepPlugins = new HashMap<>();
+
 	private boolean allowNotificationUpdate = true;
 
 	@Thunk
@@ -529,6 +581,12 @@ public class BiglyBTService
 
 	private ScreenReceiver screenReceiver;
 
+	@Thunk
+	CoreProfileMonitor profileMonitor;
+
+	@Thunk
+	final CoreParamHandler paramHandler = new CoreParamHandler(this);
+
 	/**
 	 * Can we actually display notifications?  Who knows, can't find an API for it
 	 * Tried:
@@ -558,18 +616,22 @@ public class BiglyBTService
 
 	}
 
-	private static boolean wouldBindToLocalHost(CorePrefs corePrefs) {
+	/**
+	 * @return String resource id of why the core should be bound to localhost,
+	 * or 0 if it shouldn't be
+	 */
+	private static int getBindToLocalHostReasonID(CorePrefs corePrefs) {
 		NetworkState networkState = BiglyBTApp.getNetworkState();
 		if (corePrefs.getPrefOnlyPluggedIn()
 				&& !AndroidUtils.isPowerConnected(BiglyBTApp.getContext())) {
-			return true;
+			return R.string.core_noti_sleeping_battery;
 		} else if (!corePrefs.getPrefAllowCellData()
 				&& networkState.isOnlineMobile()) {
-			return true;
+			return R.string.core_noti_sleeping_oncellular;
 		} else if (!networkState.isOnline()) {
-			return true;
+			return R.string.core_noti_sleeping;
 		}
-		return false;
+		return 0;
 	}
 
 	private void buildCustomFile() {
@@ -581,19 +643,10 @@ public class BiglyBTService
 
 			fw.write("Send\\ Version\\ Info=bool:false\n");
 
-			NetworkState networkState = BiglyBTApp.getNetworkState();
-			bindToLocalHost = false;
-			if (corePrefs.getPrefOnlyPluggedIn()
-					&& !AndroidUtils.isPowerConnected(BiglyBTApp.getContext())) {
-				bindToLocalHost = true;
-				bindToLocalHostReasonID = R.string.core_noti_sleeping_battery;
-			} else if (!corePrefs.getPrefAllowCellData()
-					&& networkState.isOnlineMobile()) {
-				bindToLocalHost = true;
-				bindToLocalHostReasonID = R.string.core_noti_sleeping_oncellular;
-			} else if (!networkState.isOnline()) {
-				bindToLocalHost = true;
-				bindToLocalHostReasonID = R.string.core_noti_sleeping;
+			int reasonID = getBindToLocalHostReasonID(corePrefs);
+			bindToLocalHost = reasonID != 0;
+			if (bindToLocalHost) {
+				bindToLocalHostReasonID = reasonID;
 			}
 
 			fw.write("Plugin.xmwebui.Port=long:" + RPC.LOCAL_BIGLYBT_PORT + "\n");
@@ -691,9 +744,7 @@ public class BiglyBTService
 
 	@Override
 	public void corePrefAllowCellDataChanged(boolean allowCellData) {
-		if (biglyBTManager != null) {
-			sendRestartServiceIntent();
-		}
+		checkForSleepModeChange();
 	}
 
 	@Override
@@ -1072,6 +1123,10 @@ public class BiglyBTService
 		screenReceiver = new ScreenReceiver();
 		registerReceiver(screenReceiver, filter);
 		initChannels(this);
+		// Before the core starts, so it starts with the right profile
+		profileMonitor = new CoreProfileMonitor(this, this::updateNotification);
+		profileMonitor.start();
+
 	}
 
 	public void initChannels(Context context) {
@@ -1320,6 +1375,8 @@ public class BiglyBTService
 					subTitle = resources.getQuantityString(R.plurals.core_noti_running,
 							numActive, downSpeed, upSpeed,
 							DisplayFormatters.formatNumber(numActive));
+					builder.setSubText(
+							resources.getString(CoreProfileMonitor.getProfileNameID()));
 				} else {
 					subTitle = resources.getString(R.string.core_noti_starting);
 				}
@@ -1384,6 +1441,13 @@ public class BiglyBTService
 			unregisterReceiver(screenReceiver);
 		}
 
+		if (profileMonitor != null) {
+			profileMonitor.stop();
+			profileMonitor = null;
+		}
+
+		paramHandler.destroy();
+
 		boolean hadBiglyBTManager = biglyBTManager != null;
 		if (hadBiglyBTManager) {
 			Core core = biglyBTManager.getCore();
@@ -1485,7 +1549,7 @@ public class BiglyBTService
 
 	@Override
 	public void onlineStateChanged(boolean isOnline, boolean isOnlineMobile) {
-		// delay restarting core due to loss of internet, in case the internet
+		// delay putting core to sleep due to loss of internet, in case the internet
 		// comes back.  For example, our chromebook, when shut with wifi access,
 		// will send a disconnect upon being opened, followed almost immediately
 		// by a connect.
@@ -1503,13 +1567,13 @@ public class BiglyBTService
 
 	public void onlineStateChangedNoDelay(boolean isOnline,
 			boolean isOnlineMobile) {
-		boolean requireRestart = false;
+		boolean stateChanged = false;
 
 		if (lastOnline == null) {
 			lastOnline = isOnline;
 		} else if (lastOnline != isOnline) {
 			lastOnline = isOnline;
-			requireRestart = true;
+			stateChanged = true;
 			if (CorePrefs.DEBUG_CORE) {
 				Log.d(TAG, "onlineStateChanged: isOnline changed");
 			}
@@ -1520,24 +1584,204 @@ public class BiglyBTService
 				lastOnlineMobile = isOnlineMobile;
 			} else if (lastOnlineMobile != isOnlineMobile) {
 				lastOnlineMobile = isOnlineMobile;
-				requireRestart = true;
+				stateChanged = true;
 				if (CorePrefs.DEBUG_CORE) {
 					Log.d(TAG, "onlineStateChanged: isOnlineMobile changed");
 				}
 			}
 		}
 
-		if (requireRestart && wouldBindToLocalHost(corePrefs) != bindToLocalHost) {
-			sendRestartServiceIntent();
+		if (stateChanged) {
+			checkForSleepModeChange();
 		}
 	}
 
+	/**
+	 * Moves the running core in or out of "sleep" (bound to localhost) when
+	 * power or network state calls for it, without restarting the core.
+	 */
 	public void checkForSleepModeChange() {
-		if (wouldBindToLocalHost(corePrefs) != bindToLocalHost) {
-			sendRestartServiceIntent();
+		int reasonID = getBindToLocalHostReasonID(corePrefs);
+		boolean sleep = reasonID != 0;
+		if (sleep) {
+			if (bindToLocalHostReasonID != reasonID) {
+				bindToLocalHostReasonID = reasonID;
+				if (bindToLocalHost) {
+					updateNotification();
+				}
+			}
+		}
+		if (sleep == bindToLocalHost || biglyBTManager == null) {
+			// No core yet: buildCustomFile picks up the state when it starts
+			return;
+		}
+		bindToLocalHost = sleep;
+		new Thread(() -> applySleepMode(sleep), "SleepMode").start();
+	}
+
+	/**
+	 * Live equivalent of the binding part of {@link #buildCustomFile()}.
+	 * Changing the bind IP makes the core rebind its listeners.  Torrents keep
+	 * running and keep their peer connections, so a short network flap doesn't
+	 * cost anything; global transfer rates are throttled to
+	 * {@link #SLEEP_RATE_LIMIT_KBS} instead, and restored on wake.
+	 * <p>
+	 * The DHT and extseed plugins are disabled and, when they support it,
+	 * unloaded, then reloaded on wake.  A plugin that can't be brought back
+	 * live (ie. the core started asleep, so it was never loaded) makes waking
+	 * fall back to a restart.
+	 */
+	@Thunk
+	synchronized void applySleepMode(boolean sleep) {
+		if (CorePrefs.DEBUG_CORE) {
+			Log.d(TAG, "applySleepMode: " + sleep);
+		}
+		COConfigurationManager.setParameter(CoreParamKeys.BPARAM_ENFORCE_BIND_IP,
+				sleep);
+		COConfigurationManager.setParameter(
+				CoreParamKeys.BPARAM_CHECK_BIND_IP_ONSTART, sleep);
+		COConfigurationManager.setParameter(CoreParamKeys.BPARAM_BIND_IP,
+				sleep ? "127.0.0.1" : "");
+
+		Core core = this.core;
+		if (core == null || !core.isStarted()) {
+			// Plugins aren't up yet; these are read when they load
+			for (String id : SLEEP_PLUGIN_IDS) {
+				COConfigurationManager.setParameter("PluginInfo." + id + ".enabled",
+						!sleep);
+			}
+			updateNotification();
+			return;
+		}
+
+		if (sleep) {
+			throttleForSleep();
+			unloadSleepPlugins(core);
+		} else {
+			if (!reloadSleepPlugins(core)) {
+				if (CorePrefs.DEBUG_CORE) {
+					Log.d(TAG, "applySleepMode: plugins not operational, restarting");
+				}
+				// Rates throttled for sleep get restored in started()
+				sendRestartServiceIntent();
+				return;
+			}
+			restoreSleepThrottle();
+		}
+		updateNotification();
+	}
+
+	/**
+	 * Disable the plugins {@link #buildCustomFile()} disables while asleep, and
+	 * unload the ones that can be.  The rest stay loaded, with only localhost
+	 * to talk to.
+	 */
+	private void unloadSleepPlugins(Core core) {
+		PluginManager pm = core.getPluginManager();
+		for (String id : SLEEP_PLUGIN_IDS) {
+			PluginInterface pi = pm.getPluginInterfaceByID(id, false);
+			if (pi == null) {
+				COConfigurationManager.setParameter("PluginInfo." + id + ".enabled",
+						false);
+				continue;
+			}
+			PluginState state = pi.getPluginState();
+			state.setDisabled(true);
+			if (!state.isUnloadable() || state.isUnloaded()) {
+				continue;
+			}
+			try {
+				state.unload();
+				// Unloaded plugins may drop out of the PluginManager's list
+				unloadedSleepPlugins.put(id, pi);
+			} catch (Throwable t) {
+				Log.e(TAG, "unloadSleepPlugins: " + id, t);
+			}
 		}
 	}
 
+	/**
+	 * Enable, and reload if needed, the plugins
+	 * {@link #unloadSleepPlugins(Core)} took down.
+	 *
+	 * @return false if a plugin isn't operational afterwards, and the core
+	 * needs a restart
+	 */
+	private boolean reloadSleepPlugins(Core core) {
+		PluginManager pm = core.getPluginManager();
+		boolean ok = true;
+		for (String id : SLEEP_PLUGIN_IDS) {
+			PluginInterface pi = pm.getPluginInterfaceByID(id, false);
+			PluginInterface unloaded = unloadedSleepPlugins.remove(id);
+			if (pi == null) {
+				pi = unloaded;
+			}
+			if (pi == null) {
+				// Never loaded, because the core started asleep
+				COConfigurationManager.setParameter("PluginInfo." + id + ".enabled",
+						true);
+				ok = false;
+				continue;
+			}
+			PluginState state = pi.getPluginState();
+			state.setDisabled(false);
+			if (state.isUnloaded()) {
+				try {
+					state.reload();
+				} catch (Throwable t) {
+					Log.e(TAG, "reloadSleepPlugins: " + id, t);
+					ok = false;
+					continue;
+				}
+			}
+			if (pm.getPluginInterfaceByID(id, true) == null) {
+				ok = false;
+			}
+		}
+		return ok;
+	}
+
+	/**
+	 * Throttle global transfer rates, remembering the user's limits in config
+	 * so they survive a service restart while asleep
+	 */
+	private static void throttleForSleep() {
+		if (COConfigurationManager.getIntParameter(CONFIG_SLEEP_SAVED_UP,
+				-1) >= 0) {
+			// Already throttled
+			return;
+		}
+		COConfigurationManager.setParameter(CONFIG_SLEEP_SAVED_UP,
+				COConfigurationManager.getIntParameter(
+						TransferSpeedValidator.UPLOAD_CONFIGKEY));
+		COConfigurationManager.setParameter(CONFIG_SLEEP_SAVED_DOWN,
+				COConfigurationManager.getIntParameter(
+						TransferSpeedValidator.DOWNLOAD_CONFIGKEY));
+		COConfigurationManager.setParameter(TransferSpeedValidator.UPLOAD_CONFIGKEY,
+				SLEEP_RATE_LIMIT_KBS);
+		COConfigurationManager.setParameter(
+				TransferSpeedValidator.DOWNLOAD_CONFIGKEY, SLEEP_RATE_LIMIT_KBS);
+	}
+
+	/**
+	 * Put back the limits {@link #throttleForSleep()} saved, if any
+	 */
+	@Thunk
+	static void restoreSleepThrottle() {
+		int up = COConfigurationManager.getIntParameter(CONFIG_SLEEP_SAVED_UP,
+				-1);
+		if (up < 0) {
+			return;
+		}
+		int down = COConfigurationManager.getIntParameter(CONFIG_SLEEP_SAVED_DOWN,
+				0);
+		COConfigurationManager.setParameter(TransferSpeedValidator.UPLOAD_CONFIGKEY,
+				up);
+		COConfigurationManager.setParameter(
+				TransferSpeedValidator.DOWNLOAD_CONFIGKEY, down);
+		COConfigurationManager.setParameter(CONFIG_SLEEP_SAVED_UP, -1);
+	}
+
 	private void acquirePowerLock() {
 		if (wifiLock == null || !wifiLock.isHeld()) {
 			if (!AndroidUtils.hasPermisssion(BiglyBTApp.getContext(),
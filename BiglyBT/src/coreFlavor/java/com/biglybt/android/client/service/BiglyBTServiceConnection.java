@@ -28,6 +28,7 @@ import com.biglybt.util.Thunk;
 
 import android.content.ComponentName;
 import android.content.ServiceConnection;
+import android.os.Bundle;
 import android.os.IBinder;
 import android.os.RemoteException;
 import android.util.Log;
@@ -95,7 +96,15 @@ class BiglyBTServiceConnection
 					}
 					break;
 
+				case BiglyBTService.MSG_OUT_PARAMS_CHANGED:
+					Object params = data == null ? null : data.get("params");
+					if (params instanceof Bundle) {
+						CoreParamCache.paramsChanged((Bundle) params);
+					}
+					break;
+
 				case BiglyBTService.MSG_OUT_SERVICE_DESTROY:
+					CoreParamCache.clear();
 					cb.coreServiceRestarting = MapUtils.getMapBoolean(data, "restarting",
 							false);
 					// trigger a powerUp, so that we attach our listeners to the
@@ -125,6 +134,7 @@ class BiglyBTServiceConnection
 
 	@Override
 	public void binderDied() {
+		CoreParamCache.clear();
 		BiglyBTServiceInitImpl cb = callback.get();
 		if (cb != null) {
 			if (CorePrefs.DEBUG_CORE) {
@@ -196,6 +206,7 @@ class BiglyBTServiceConnection
 
 	@Override
 	public void onServiceDisconnected(ComponentName name) {
+		CoreParamCache.clear();
 		BiglyBTServiceInitImpl cb = callback.get();
 		if (cb != null) {
 			if (CorePrefs.DEBUG_CORE) {
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.service;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.BiglyCoreFlavorUtils;
+import com.biglybt.android.client.IBiglyCoreInterface;
+
+import android.os.Bundle;
+import android.os.RemoteException;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * UI process copy of core params.
+ * <p>
+ * Keys not yet cached are read from the core in one Binder call.  The core
+ * then watches them and sends {@link BiglyBTService#MSG_OUT_PARAMS_CHANGED}
+ * when they change, so cached values stay current without polling.  The
+ * cache is dropped when the service goes away.
+ */
+public class CoreParamCache
+{
+	private static final String TAG = "CoreParamCache";
+
+	private static final Bundle cache = new Bundle();
+
+	private CoreParamCache() {
+	}
+
+	/**
+	 * @param types Key to a value of the type to read (Boolean, Integer, Long,
+	 *              Float or String)
+	 * @return Key to value, or null if the core isn't bound
+	 */
+	@Nullable
+	public static Bundle getParams(@NonNull Bundle types) {
+		Bundle values = new Bundle();
+		Bundle missing = new Bundle();
+		synchronized (cache) {
+			for (String key : types.keySet()) {
+				if (cache.containsKey(key)) {
+					copy(cache, key, values);
+				} else {
+					copy(types, key, missing);
+				}
+			}
+		}
+		if (missing.isEmpty()) {
+			return values;
+		}
+
+		IBiglyCoreInterface coreInterface = BiglyCoreFlavorUtils.getCoreInterface();
+		if (coreInterface == null) {
+			return null;
+		}
+		Bundle fetched;
+		try {
+			fetched = coreInterface.getParams(missing);
+		} catch (RemoteException e) {
+			Log.e(TAG, "getParams", e);
+			return null;
+		}
+		if (fetched == null) {
+			return null;
+		}
+		synchronized (cache) {
+			cache.putAll(fetched);
+		}
+		values.putAll(fetched);
+		return values;
+	}
+
+	/**
+	 * Set params in the core in one Binder call
+	 *
+	 * @return false if the core isn't bound or rejected the values
+	 */
+	public static boolean setParams(@NonNull Bundle params) {
+		IBiglyCoreInterface coreInterface = BiglyCoreFlavorUtils.getCoreInterface();
+		if (coreInterface == null) {
+			return false;
+		}
+		try {
+			if (!coreInterface.setParams(params)) {
+				return false;
+			}
+		} catch (RemoteException e) {
+			Log.e(TAG, "setParams", e);
+			return false;
+		}
+		// Only keys already cached are watched by the core
+		synchronized (cache) {
+			for (String key : params.keySet()) {
+				if (cache.containsKey(key)) {
+					copy(params, key, cache);
+				}
+			}
+		}
+		return true;
+	}
+
+	static void paramsChanged(@NonNull Bundle params) {
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "paramsChanged: " + params.keySet());
+		}
+		synchronized (cache) {
+			cache.putAll(params);
+		}
+	}
+
+	static void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	private static void copy(Bundle from, String key, Bundle to) {
+		Object o = from.get(key);
+		if (o instanceof Boolean) {
+			to.putBoolean(key, (Boolean) o);
+		} else if (o instanceof Integer) {
+			to.putInt(key, (Integer) o);
+		} else if (o instanceof Long) {
+			to.putLong(key, (Long) o);
+		} else if (o instanceof Float) {
+			to.putFloat(key, (Float) o);
+		} else if (o instanceof String) {
+			to.putString(key, (String) o);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.service;
+
+import java.util.*;
+
+import com.biglybt.android.client.CorePrefs;
+import com.biglybt.core.config.COConfigurationManager;
+import com.biglybt.core.config.ParameterListener;
+import com.biglybt.util.Thunk;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Service side of {@link com.biglybt.android.client.IBiglyCoreInterface#getParams(Bundle)}
+ * and {@link com.biglybt.android.client.IBiglyCoreInterface#setParams(Bundle)}.
+ * <p>
+ * Every key read through {@link #getParams(Bundle)} is watched.  Changes,
+ * whether from {@link #setParams(Bundle)}, RPC, or the core itself, are
+ * gathered for {@link #NOTIFY_DELAY_MS} and sent to clients as one
+ * {@link BiglyBTService#MSG_OUT_PARAMS_CHANGED}.  Changes made by
+ * {@link #setParams(Bundle)} are held until every param is set, and then
+ * sent right away.
+ */
+class CoreParamHandler
+	implements ParameterListener
+{
+	private static final String TAG = "CoreParams";
+
+	private static final long NOTIFY_DELAY_MS = 100;
+
+	private final BiglyBTService service;
+
+	/**
+	 * Key to a value of the type clients read it as
+	 */
+	private final Map<String, Object> mapWatchedTypes = new HashMap<>();
+
+	private final Set<String> changedKeys = new HashSet<>();
+
+	private final Handler handler = new Handler(Looper.getMainLooper());
+
+	private boolean notifyScheduled;
+
+	/** True while setParams is applying its params */
+	private boolean applyingParams;
+
+	CoreParamHandler(BiglyBTService service) {
+		this.service = service;
+	}
+
+	@NonNull
+	synchronized Bundle getParams(@NonNull Bundle types) {
+		Bundle values = new Bundle();
+		for (String key : types.keySet()) {
+			Object type = types.get(key);
+			if (!putParam(values, key, type)) {
+				continue;
+			}
+			if (!mapWatchedTypes.containsKey(key)) {
+				mapWatchedTypes.put(key, type);
+				COConfigurationManager.addParameterListener(key, this);
+			}
+		}
+		return values;
+	}
+
+	synchronized boolean setParams(@NonNull Bundle params) {
+		Set<String> keys = params.keySet();
+		for (String key : keys) {
+			if (!isSupportedType(params.get(key))) {
+				Log.e(TAG, "setParams: " + key + " has unsupported type");
+				return false;
+			}
+		}
+		// Core listeners fire for each key as it's set.  Ours just collect.
+		applyingParams = true;
+		try {
+			for (String key : keys) {
+				setParam(key, params.get(key));
+			}
+		} finally {
+			applyingParams = false;
+		}
+		if (!changedKeys.isEmpty()) {
+			// Replaces any delayed send, which would have all of these keys too
+			handler.removeCallbacksAndMessages(null);
+			notifyScheduled = true;
+			handler.post(this::sendChanges);
+		}
+		if (CorePrefs.DEBUG_CORE) {
+			Log.d(TAG, "setParams: " + keys);
+		}
+		return true;
+	}
+
+	private static void setParam(String key, Object val) {
+		if (val instanceof Boolean) {
+			COConfigurationManager.setParameter(key,
+					((Boolean) val).booleanValue());
+		} else if (val instanceof Integer) {
+			COConfigurationManager.setParameter(key,
+					((Integer) val).intValue());
+		} else if (val instanceof Long) {
+			COConfigurationManager.setParameter(key,
+					((Long) val).longValue());
+		} else if (val instanceof Float) {
+			COConfigurationManager.setParameter(key,
+					((Float) val).floatValue());
+		} else {
+			COConfigurationManager.setParameter(key, (String) val);
+		}
+	}
+
+	synchronized void destroy() {
+		for (String key : mapWatchedTypes.keySet()) {
+			COConfigurationManager.removeParameterListener(key, this);
+		}
+		mapWatchedTypes.clear();
+		changedKeys.clear();
+		handler.removeCallbacksAndMessages(null);
+	}
+
+	@Override
+	public synchronized void parameterChanged(String key) {
+		if (!mapWatchedTypes.containsKey(key)) {
+			return;
+		}
+		changedKeys.add(key);
+		if (!notifyScheduled && !applyingParams) {
+			notifyScheduled = true;
+			handler.postDelayed(this::sendChanges, NOTIFY_DELAY_MS);
+		}
+	}
+
+	@Thunk
+	void sendChanges() {
+		Bundle values = new Bundle();
+		synchronized (this) {
+			notifyScheduled = false;
+			for (String key : changedKeys) {
+				putParam(values, key, mapWatchedTypes.get(key));
+			}
+			changedKeys.clear();
+		}
+		if (values.isEmpty()) {
+			return;
+		}
+		Map<String, Object> map = new HashMap<>();
+		map.put("data", "MSG_OUT_PARAMS_CHANGED");
+		map.put("params", values);
+		service.sendStuff(BiglyBTService.MSG_OUT_PARAMS_CHANGED, map);
+	}
+
+	private static boolean isSupportedType(Object type) {
+		return (type instanceof Boolean) || (type instanceof Integer)
+				|| (type instanceof Long) || (type instanceof Float)
+				|| (type instanceof String);
+	}
+
+	private static boolean putParam(Bundle values, String key, Object type) {
+		if (type instanceof Boolean) {
+			values.putBoolean(key, COConfigurationManager.getBooleanParameter(key));
+		} else if (type instanceof Integer) {
+			values.putInt(key, COConfigurationManager.getIntParameter(key));
+		} else if (type instanceof Long) {
+			values.putLong(key, COConfigurationManager.getLongParameter(key));
+		} else if (type instanceof Float) {
+			values.putFloat(key, COConfigurationManager.getFloatParameter(key));
+		} else if (type instanceof String) {
+			values.putString(key, COConfigurationManager.getStringParameter(key));
+		} else {
+			return false;
+		}
+		return true;
+	}
+}
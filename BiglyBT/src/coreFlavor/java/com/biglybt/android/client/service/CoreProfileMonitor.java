@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.service;
+
+import com.biglybt.android.client.CorePrefs;
+import com.biglybt.android.client.R;
+import com.biglybt.android.core.az.CoreTuning;
+import com.biglybt.util.Thunk;
+
+import android.app.ActivityManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.StringRes;
+
+/**
+ * Picks the {@link CoreTuning} profile from charger state, battery level and
+ * temperature, screen state and device RAM, and switches it live as they
+ * change.
+ */
+class CoreProfileMonitor
+{
+	private static final String TAG = "CoreProfile";
+
+	/** Devices with less total RAM than this never get the big disk cache */
+	private static final long LOW_RAM_BYTES = 2L * 1024 * 1024 * 1024;
+
+	private final Context context;
+
+	private final Runnable onProfileChanged;
+
+	private final boolean lowRam;
+
+	@Thunk
+	boolean charging;
+
+	@Thunk
+	int batteryPct = -1;
+
+	@Thunk
+	int batteryTemp = -1;
+
+	private boolean screenOn = true;
+
+	private BroadcastReceiver batteryReceiver;
+
+	CoreProfileMonitor(Context context, Runnable onProfileChanged) {
+		this.context = context;
+		this.onProfileChanged = onProfileChanged;
+		lowRam = isLowRam(context);
+	}
+
+	void start() {
+		if (batteryReceiver != null) {
+			return;
+		}
+		batteryReceiver = new BroadcastReceiver() {
+			@Override
+			public void onReceive(Context context, Intent intent) {
+				readBatteryIntent(intent);
+				evaluate();
+			}
+		};
+		// Sticky, so the current state comes back right away
+		Intent intent = context.registerReceiver(batteryReceiver,
+				new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+		if (intent != null) {
+			readBatteryIntent(intent);
+		}
+		evaluate();
+	}
+
+	void stop() {
+		if (batteryReceiver != null) {
+			context.unregisterReceiver(batteryReceiver);
+			batteryReceiver = null;
+		}
+	}
+
+	void setScreenOn(boolean screenOn) {
+		if (this.screenOn == screenOn) {
+			return;
+		}
+		this.screenOn = screenOn;
+		evaluate();
+	}
+
+	@Thunk
+	void readBatteryIntent(Intent intent) {
+		charging = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+		int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+		int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+		batteryPct = level >= 0 && scale > 0 ? level * 100 / scale : -1;
+		batteryTemp = intent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, -1);
+	}
+
+	@Thunk
+	void evaluate() {
+		int profile = CoreTuning.chooseProfile(CoreTuning.getProfile(), charging,
+				batteryPct, batteryTemp, screenOn, lowRam);
+		if (CoreTuning.setProfile(profile)) {
+			if (CorePrefs.DEBUG_CORE) {
+				Log.d(TAG, "profile " + profile + "; charging=" + charging
+						+ ", battery=" + batteryPct + "%, temp=" + batteryTemp
+						+ ", screenOn=" + screenOn + ", lowRam=" + lowRam);
+			}
+			onProfileChanged.run();
+		}
+	}
+
+	@StringRes
+	static int getProfileNameID() {
+		switch (CoreTuning.getProfile()) {
+			case CoreTuning.PROFILE_MAX_THROUGHPUT:
+				return R.string.core_noti_profile_max;
+			case CoreTuning.PROFILE_LOW_POWER:
+				return R.string.core_noti_profile_low_power;
+			default:
+				return R.string.core_noti_profile_balanced;
+		}
+	}
+
+	private static boolean isLowRam(Context context) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+			return true;
+		}
+		ActivityManager am = (ActivityManager) context.getSystemService(
+				Context.ACTIVITY_SERVICE);
+		if (am == null) {
+			return true;
+		}
+		ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+		am.getMemoryInfo(memoryInfo);
+		return memoryInfo.totalMem < LOW_RAM_BYTES;
+	}
+}
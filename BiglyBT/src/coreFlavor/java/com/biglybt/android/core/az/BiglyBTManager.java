@@ -317,36 +317,14 @@ public class BiglyBTManager
 		COConfigurationManager.setParameter("dht.net.main_v6.enable", false);
 
 		coreDefaults.addParameter("Listen.Port.Randomize.Enable", true);
-		COConfigurationManager.setParameter("network.tcp.read.select.time", 500);
-		COConfigurationManager.setParameter("network.tcp.read.select.min.time",
-				500);
-		COConfigurationManager.setParameter("network.tcp.write.select.time", 500);
-		COConfigurationManager.setParameter("network.tcp.write.select.min.time",
-				500);
-		COConfigurationManager.setParameter("network.tcp.connect.select.time", 500);
-		COConfigurationManager.setParameter("network.tcp.connect.select.min.time",
-				500);
-
-		COConfigurationManager.setParameter("network.udp.poll.time", 100);
-
-		COConfigurationManager.setParameter("network.utp.poll.time", 100);
-
-		COConfigurationManager.setParameter("network.control.read.idle.time", 100);
-		COConfigurationManager.setParameter("network.control.write.idle.time", 100);
-
 		COConfigurationManager.setParameter("diskmanager.perf.cache.enable", true);
-		COConfigurationManager.setParameter("diskmanager.perf.cache.size", 2);
 		COConfigurationManager.setParameter("diskmanager.perf.cache.flushpieces",
 				false);
 		COConfigurationManager.setParameter("diskmanager.perf.cache.enable.read",
 				false);
 
-		COConfigurationManager.setParameter("diskmanager.perf.read.maxthreads", 2);
-		COConfigurationManager.setParameter("diskmanager.perf.read.maxmb", 2);
-		COConfigurationManager.setParameter("diskmanager.perf.write.maxthreads", 2);
-		COConfigurationManager.setParameter("diskmanager.perf.write.maxmb", 2);
-
-		COConfigurationManager.setParameter("peermanager.schedule.time", 500);
+		// select/poll times, disk cache and threads, peer schedule
+		CoreTuning.applyOnInit();
 
 		PluginManagerDefaults defaults = PluginManager.getDefaults();
 
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.core.az;
+
+import com.biglybt.android.client.CorePrefs;
+import com.biglybt.core.config.COConfigurationManager;
+
+import android.util.Log;
+
+/**
+ * Network/disk/peer tuning of the core, in three profiles.  {@link #PROFILE_BALANCED}
+ * is what {@link BiglyBTManager} always used.
+ * <p>
+ * Select, poll, idle and peer schedule times are picked up live by the core.
+ * The disk cache size and thread counts may only be read when the disk
+ * manager starts, in which case they take effect on the next core start.
+ * <p>
+ * Like {@link BiglyBTManager}, no Android calls here; the device state comes
+ * from the service.
+ */
+public class CoreTuning
+{
+	private static final String TAG = "CoreTuning";
+
+	public static final int PROFILE_MAX_THROUGHPUT = 0;
+
+	public static final int PROFILE_BALANCED = 1;
+
+	public static final int PROFILE_LOW_POWER = 2;
+
+	// Indexed by profile
+
+	private static final int[] SELECT_MS = {
+		100,
+		500,
+		1000
+	};
+
+	private static final int[] POLL_MS = {
+		50,
+		100,
+		250
+	};
+
+	private static final int[] CACHE_MB = {
+		8,
+		2,
+		1
+	};
+
+	private static final int[] DISK_THREADS = {
+		4,
+		2,
+		1
+	};
+
+	private static final int[] SCHEDULE_MS = {
+		100,
+		500,
+		1000
+	};
+
+	/** Battery at or below this goes to {@link #PROFILE_LOW_POWER} */
+	private static final int BATTERY_LOW_PCT = 20;
+
+	/** Battery at or above this leaves {@link #PROFILE_LOW_POWER} */
+	private static final int BATTERY_LOW_EXIT_PCT = 25;
+
+	/** On battery with the screen off, below this goes to {@link #PROFILE_LOW_POWER} */
+	private static final int BATTERY_SCREEN_OFF_LOW_PCT = 50;
+
+	/** On battery with the screen off, at or above this leaves {@link #PROFILE_LOW_POWER} */
+	private static final int BATTERY_SCREEN_OFF_LOW_EXIT_PCT = 55;
+
+	/** Battery temperature, in tenths of a degree C, that caps at {@link #PROFILE_BALANCED} */
+	private static final int TEMP_WARM = 380;
+
+	/** Battery temperature below which the {@link #TEMP_WARM} cap is lifted */
+	private static final int TEMP_WARM_EXIT = 360;
+
+	/** Battery temperature, in tenths of a degree C, that forces {@link #PROFILE_LOW_POWER} */
+	private static final int TEMP_HOT = 420;
+
+	/** Battery temperature below which {@link #TEMP_HOT} stops applying */
+	private static final int TEMP_HOT_EXIT = 400;
+
+	private static int profile = PROFILE_BALANCED;
+
+	private static boolean configReady = false;
+
+	private CoreTuning() {
+	}
+
+	/**
+	 * Thresholds have hysteresis: leaving a profile takes a margin past the
+	 * threshold that entered it, so a battery level or temperature sitting on
+	 * a threshold doesn't flip the profile on every battery broadcast.
+	 *
+	 * @param currentProfile Profile in use now
+	 * @param batteryPct 0-100, or -1 if unknown
+	 * @param batteryTemp Tenths of a degree C, or -1 if unknown
+	 * @param lowRam Device has too little RAM for the bigger disk cache
+	 */
+	public static int chooseProfile(int currentProfile, boolean charging,
+			int batteryPct, int batteryTemp, boolean screenOn, boolean lowRam) {
+		boolean lowPower = currentProfile == PROFILE_LOW_POWER;
+		if (batteryTemp >= (lowPower ? TEMP_HOT_EXIT : TEMP_HOT)) {
+			return PROFILE_LOW_POWER;
+		}
+		if (charging) {
+			int tempWarm = currentProfile == PROFILE_MAX_THROUGHPUT ? TEMP_WARM
+					: TEMP_WARM_EXIT;
+			return lowRam || batteryTemp >= tempWarm ? PROFILE_BALANCED
+					: PROFILE_MAX_THROUGHPUT;
+		}
+		if (batteryPct < 0) {
+			return PROFILE_BALANCED;
+		}
+		if (lowPower ? batteryPct < BATTERY_LOW_EXIT_PCT
+				: batteryPct <= BATTERY_LOW_PCT) {
+			return PROFILE_LOW_POWER;
+		}
+		if (!screenOn && (lowPower ? batteryPct < BATTERY_SCREEN_OFF_LOW_EXIT_PCT
+				: batteryPct < BATTERY_SCREEN_OFF_LOW_PCT)) {
+			return PROFILE_LOW_POWER;
+		}
+		return PROFILE_BALANCED;
+	}
+
+	public static synchronized int getProfile() {
+		return profile;
+	}
+
+	/**
+	 * Switch profile, applying it right away if the core's config is loaded.
+	 *
+	 * @return true if the profile changed
+	 */
+	public static synchronized boolean setProfile(int newProfile) {
+		if (newProfile == profile) {
+			return false;
+		}
+		profile = newProfile;
+		if (configReady) {
+			apply();
+		}
+		return true;
+	}
+
+	/**
+	 * Called by {@link BiglyBTManager} once COConfigurationManager is usable
+	 */
+	static synchronized void applyOnInit() {
+		configReady = true;
+		apply();
+	}
+
+	private static void apply() {
+		if (CorePrefs.DEBUG_CORE) {
+			Log.d(TAG, "apply: profile " + profile);
+		}
+		int selectMS = SELECT_MS[profile];
+		COConfigurationManager.setParameter("network.tcp.read.select.time",
+				selectMS);
+		COConfigurationManager.setParameter("network.tcp.read.select.min.time",
+				selectMS);
+		COConfigurationManager.setParameter("network.tcp.write.select.time",
+				selectMS);
+		COConfigurationManager.setParameter("network.tcp.write.select.min.time",
+				selectMS);
+		COConfigurationManager.setParameter("network.tcp.connect.select.time",
+				selectMS);
+		COConfigurationManager.setParameter("network.tcp.connect.select.min.time",
+				selectMS);
+
+		int pollMS = POLL_MS[profile];
+		COConfigurationManager.setParameter("network.udp.poll.time", pollMS);
+
+		COConfigurationManager.setParameter("network.utp.poll.time", pollMS);
+
+		COConfigurationManager.setParameter("network.control.read.idle.time",
+				pollMS);
+		COConfigurationManager.setParameter("network.control.write.idle.time",
+				pollMS);
+
+		int cacheMB = CACHE_MB[profile];
+		int threads = DISK_THREADS[profile];
+		COConfigurationManager.setParameter("diskmanager.perf.cache.size",
+				cacheMB);
+		COConfigurationManager.setParameter("diskmanager.perf.read.maxthreads",
+				threads);
+		COConfigurationManager.setParameter("diskmanager.perf.read.maxmb",
+				cacheMB);
+		COConfigurationManager.setParameter("diskmanager.perf.write.maxthreads",
+				threads);
+		COConfigurationManager.setParameter("diskmanager.perf.write.maxmb",
+				cacheMB);
+
+		COConfigurationManager.setParameter("peermanager.schedule.time",
+				SCHEDULE_MS[profile]);
+	}
+}
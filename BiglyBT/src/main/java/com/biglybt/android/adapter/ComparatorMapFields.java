@@ -17,23 +17,44 @@
 package com.biglybt.android.adapter;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Map;
+import java.util.*;
 
 import com.biglybt.android.client.AndroidUtils;
 
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 public abstract class ComparatorMapFields<T>
 	implements Comparator<T>
 {
+	private static final byte KIND_NULL = 0;
+
+	private static final byte KIND_STRING = 1;
+
+	private static final byte KIND_LONG = 2;
+
+	private static final byte KIND_DOUBLE = 3;
+
+	private static final byte KIND_BIGDECIMAL = 4;
+
+	private static final byte KIND_OTHER = 5;
+
+	/** Runs shorter than this are insertion sorted */
+	private static final int INSERTION_SORT_THRESHOLD = 7;
+
 	private SortDefinition sortDefinition;
 
 	private Comparator<? super Map<?, ?>> comparator;
 
 	private boolean isAsc = true;
 
+	/**
+	 * Sort keys of the last {@link #sort(List)}, by {@link #getSortKeyID(Object)}
+	 */
+	private volatile KeyRowCache keyRowCache;
+
 	public ComparatorMapFields() {
 	}
 
@@ -70,6 +91,7 @@ public abstract class ComparatorMapFields<T>
 				isAsc = sortDefinition.isSortAsc();
 				sortDefinition.sortEventTriggered(SortDefinition.SORTEVENT_ACTIVATING);
 			}
+			keyRowCache = null;
 		}
 		this.comparator = null;
 	}
@@ -77,6 +99,7 @@ public abstract class ComparatorMapFields<T>
 	public void setComparator(Comparator<? super Map<?, ?>> comparator) {
 		this.comparator = comparator;
 		sortDefinition = null;
+		keyRowCache = null;
 	}
 
 	public boolean isValid() {
@@ -179,4 +202,328 @@ public abstract class ComparatorMapFields<T>
 	public Comparable modifyField(String fieldID, Map<?, ?> map, Comparable o) {
 		return o;
 	}
+
+	/**
+	 * Identifies an item across sorts, so the sort keys built for it can be
+	 * reused by the next {@link #sort(List)} when its sort field values haven't
+	 * changed.  Items are often recreated for each filter pass, so this should
+	 * be something like a database id, not the item itself.
+	 *
+	 * @return null to not reuse keys (default)
+	 */
+	@Nullable
+	protected Object getSortKeyID(T item) {
+		return null;
+	}
+
+	/**
+	 * Sorts items into the order {@link #compare(Object, Object)} gives.
+	 * <p>
+	 * Instead of looking up and converting the sort fields of both items on
+	 * every comparison, each item's fields are pulled from its map once, into
+	 * primitive arrays (or case folded Strings) which are then sorted on.
+	 * Strings are folded the same way {@link String#compareToIgnoreCase(String)}
+	 * does, so the order doesn't change.  The sort is stable.
+	 * <p>
+	 * Items without a map are moved to the end, keeping their order.
+	 */
+	@SuppressWarnings({
+		"unchecked",
+		"rawtypes"
+	})
+	public void sort(@NonNull List<T> items) {
+		SortDefinition sortDefinition = this.sortDefinition;
+		if (sortDefinition == null) {
+			Collections.sort(items, this);
+			return;
+		}
+		int num = items.size();
+		if (num < 2) {
+			return;
+		}
+
+		String[] fieldIDs = sortDefinition.sortFieldIDs;
+		int numFields = fieldIDs.length;
+		boolean[] flip = new boolean[numFields];
+		for (int f = 0; f < numFields; f++) {
+			flip[f] = isAsc != sortDefinition.sortOrderNatural[f];
+		}
+
+		KeyRowCache oldCache = keyRowCache;
+		if (oldCache != null && oldCache.fieldIDs != fieldIDs) {
+			oldCache = null;
+		}
+		KeyRowCache newCache = null;
+
+		Object[] array = items.toArray();
+		KeyColumns[] columns = new KeyColumns[numFields];
+		for (int f = 0; f < numFields; f++) {
+			columns[f] = new KeyColumns(num);
+		}
+		Object[][] values = new Object[num][];
+
+		int[] order = new int[num];
+		int numWithMap = 0;
+		int numWithoutMap = 0;
+		for (int i = 0; i < num; i++) {
+			T item = (T) array[i];
+			Map<?, ?> map = mapGetter(item);
+			if (map == null) {
+				// fill from the end, reversed below
+				order[num - 1 - numWithoutMap] = i;
+				numWithoutMap++;
+				continue;
+			}
+			order[numWithMap++] = i;
+
+			Object[] rowValues = new Object[numFields];
+			for (int f = 0; f < numFields; f++) {
+				String fieldID = fieldIDs[f];
+				rowValues[f] = modifyField(fieldID, map,
+						(Comparable) map.get(fieldID));
+			}
+			values[i] = rowValues;
+
+			Object[] rowKeys = null;
+			Object keyID = getSortKeyID(item);
+			if (keyID != null) {
+				KeyRow cached = oldCache == null ? null : oldCache.rows.get(keyID);
+				if (cached != null && Arrays.equals(cached.values, rowValues)) {
+					rowKeys = cached.keys;
+				}
+				if (rowKeys == null) {
+					rowKeys = buildKeys(rowValues);
+				}
+				if (newCache == null) {
+					newCache = new KeyRowCache(fieldIDs, num);
+				}
+				newCache.rows.put(keyID, new KeyRow(rowValues, rowKeys));
+			} else {
+				rowKeys = buildKeys(rowValues);
+			}
+
+			for (int f = 0; f < numFields; f++) {
+				columns[f].set(i, rowValues[f], rowKeys[f]);
+			}
+		}
+		keyRowCache = newCache;
+
+		for (int i = numWithMap, j = num - 1; i < j; i++, j--) {
+			int t = order[i];
+			order[i] = order[j];
+			order[j] = t;
+		}
+
+		KeyComparer comparer = new KeyComparer(columns, values, flip);
+		int[] temp = new int[numWithMap];
+		mergeSort(order, temp, 0, numWithMap, comparer);
+
+		ListIterator<T> it = items.listIterator();
+		for (int i = 0; i < num; i++) {
+			it.next();
+			it.set((T) array[order[i]]);
+		}
+	}
+
+	private static Object[] buildKeys(Object[] rowValues) {
+		Object[] keys = new Object[rowValues.length];
+		for (int f = 0; f < rowValues.length; f++) {
+			Object o = rowValues[f];
+			keys[f] = (o instanceof String) ? foldCase((String) o) : o;
+		}
+		return keys;
+	}
+
+	/**
+	 * Folds a String so that {@link String#compareTo(String)} on two folded
+	 * Strings matches {@link String#compareToIgnoreCase(String)} on the
+	 * originals.
+	 */
+	private static String foldCase(String s) {
+		int len = s.length();
+		char[] chars = null;
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+			char folded = Character.toLowerCase(Character.toUpperCase(c));
+			if (folded != c) {
+				if (chars == null) {
+					chars = s.toCharArray();
+				}
+				chars[i] = folded;
+			}
+		}
+		return chars == null ? s : new String(chars);
+	}
+
+	/**
+	 * Stable merge sort of positions [from, to) of order
+	 */
+	private void mergeSort(int[] order, int[] temp, int from, int to,
+			KeyComparer comparer) {
+		int len = to - from;
+		if (len < INSERTION_SORT_THRESHOLD) {
+			for (int i = from + 1; i < to; i++) {
+				int v = order[i];
+				int j = i - 1;
+				while (j >= from && comparer.compare(order[j], v) > 0) {
+					order[j + 1] = order[j];
+					j--;
+				}
+				order[j + 1] = v;
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		mergeSort(order, temp, from, mid, comparer);
+		mergeSort(order, temp, mid, to, comparer);
+		if (comparer.compare(order[mid - 1], order[mid]) <= 0) {
+			// already in order
+			return;
+		}
+		System.arraycopy(order, from, temp, from, len);
+		int l = from;
+		int r = mid;
+		for (int i = from; i < to; i++) {
+			if (r >= to || (l < mid && comparer.compare(temp[l], temp[r]) <= 0)) {
+				order[i] = temp[l++];
+			} else {
+				order[i] = temp[r++];
+			}
+		}
+	}
+
+	/**
+	 * One sort field of every item, by item position
+	 */
+	private static final class KeyColumns
+	{
+		final byte[] kinds;
+
+		final long[] longs;
+
+		final double[] doubles;
+
+		/** Folded String, BigDecimal or other Comparable */
+		final Object[] objects;
+
+		KeyColumns(int num) {
+			kinds = new byte[num];
+			longs = new long[num];
+			doubles = new double[num];
+			objects = new Object[num];
+		}
+
+		void set(int i, Object value, Object key) {
+			if (value == null) {
+				kinds[i] = KIND_NULL;
+			} else if (value instanceof String) {
+				kinds[i] = KIND_STRING;
+				objects[i] = key;
+			} else if (value instanceof Number) {
+				Number n = (Number) value;
+				doubles[i] = n.doubleValue();
+				if (value instanceof BigDecimal) {
+					kinds[i] = KIND_BIGDECIMAL;
+					objects[i] = value;
+				} else if ((value instanceof Double) || (value instanceof Float)) {
+					kinds[i] = KIND_DOUBLE;
+				} else {
+					kinds[i] = KIND_LONG;
+					longs[i] = n.longValue();
+				}
+			} else {
+				if (AndroidUtils.DEBUG && !(value instanceof Boolean)) {
+					Log.d("CMP", "sort using generic " + value.getClass());
+				}
+				kinds[i] = KIND_OTHER;
+				objects[i] = value;
+			}
+		}
+	}
+
+	private final class KeyComparer
+	{
+		private final KeyColumns[] columns;
+
+		/** Unfolded values, for mixed type comparisons */
+		private final Object[][] values;
+
+		private final boolean[] flip;
+
+		KeyComparer(KeyColumns[] columns, Object[][] values, boolean[] flip) {
+			this.columns = columns;
+			this.values = values;
+			this.flip = flip;
+		}
+
+		@SuppressWarnings({
+			"unchecked",
+			"rawtypes"
+		})
+		int compare(int a, int b) {
+			for (int f = 0; f < columns.length; f++) {
+				KeyColumns col = columns[f];
+				byte kindA = col.kinds[a];
+				byte kindB = col.kinds[b];
+				if (kindA == KIND_NULL || kindB == KIND_NULL) {
+					if (kindA != kindB) {
+						return kindA == KIND_NULL ? -1 : 1;
+					}
+					continue;
+				}
+
+				int comp;
+				if (kindA == KIND_STRING && kindB == KIND_STRING) {
+					comp = ((String) col.objects[a]).compareTo(
+							(String) col.objects[b]);
+				} else if (kindA == KIND_LONG && kindB == KIND_LONG) {
+					long lA = col.longs[a];
+					long lB = col.longs[b];
+					comp = lA > lB ? 1 : lA == lB ? 0 : -1;
+				} else if (kindA == KIND_BIGDECIMAL && kindB == KIND_BIGDECIMAL) {
+					comp = ((BigDecimal) col.objects[a]).compareTo(
+							(BigDecimal) col.objects[b]);
+				} else if (kindA >= KIND_LONG && kindA <= KIND_BIGDECIMAL
+						&& kindB >= KIND_LONG && kindB <= KIND_BIGDECIMAL) {
+					comp = Double.compare(col.doubles[a], col.doubles[b]);
+				} else {
+					Comparable oA = (Comparable) values[a][f];
+					Comparable oB = (Comparable) values[b][f];
+					try {
+						comp = oA.compareTo(oB);
+					} catch (Throwable t) {
+						comp = reportError(oA, oB, t);
+					}
+				}
+				if (comp != 0) {
+					return flip[f] ? -comp : comp;
+				}
+			}
+			return 0;
+		}
+	}
+
+	private static final class KeyRow
+	{
+		final Object[] values;
+
+		final Object[] keys;
+
+		KeyRow(Object[] values, Object[] keys) {
+			this.values = values;
+			this.keys = keys;
+		}
+	}
+
+	private static final class KeyRowCache
+	{
+		final String[] fieldIDs;
+
+		final Map<Object, KeyRow> rows;
+
+		KeyRowCache(String[] fieldIDs, int num) {
+			this.fieldIDs = fieldIDs;
+			rows = new HashMap<>(num * 4 / 3 + 1);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,457 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.adapter;
+
+import java.util.*;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Upper cased copies of the Strings a {@link LetterFilter} constrains, kept
+ * between filter passes so that each keystroke doesn't upper case every name
+ * again.
+ * <p>
+ * Each name also gets two 64 bit n-gram signatures, one of its chars and one
+ * of its char pairs.  A name can only contain the constraint if its
+ * signatures have every bit the constraint's do, which rejects most names
+ * without looking at them.
+ * <p>
+ * When the names haven't changed and the new constraint contains the previous
+ * one (typing another letter), only the previous matches are checked.
+ */
+class ConstraintIndex
+{
+	private static final byte CLASS_LETTER = 0;
+
+	private static final byte CLASS_NUMBER = 1;
+
+	private static final byte CLASS_PUNCTUATION = 2;
+
+	private static final byte CLASS_NON = 3;
+
+	private static final String[] EMPTY = new String[0];
+
+	/** Names as passed in, by position */
+	private String[] names = EMPTY;
+
+	/** Upper cased names, null when the name is null */
+	private String[] normalized = EMPTY;
+
+	private long[] charSigs = new long[0];
+
+	private long[] pairSigs = new long[0];
+
+	private String lastConstraint;
+
+	private BitSet lastMatches;
+
+	private BitSet lastCountPositions;
+
+	private int lastCountFlags;
+
+	private HashMap<String, Integer> lastCounts;
+
+	/**
+	 * Drop everything, for when no filtering is being done
+	 */
+	synchronized void clear() {
+		names = EMPTY;
+		normalized = EMPTY;
+		charSigs = new long[0];
+		pairSigs = new long[0];
+		invalidateResults();
+	}
+
+	private void invalidateResults() {
+		lastConstraint = null;
+		lastMatches = null;
+		lastCountPositions = null;
+		lastCounts = null;
+	}
+
+	/**
+	 * @param constraint Upper cased constraint
+	 * @param newNames   Strings to constrain, by position.  null never matches,
+	 *                   "" always matches
+	 * @return Positions of newNames that contain constraint
+	 */
+	@NonNull
+	synchronized BitSet match(@NonNull String constraint,
+			@NonNull String[] newNames) {
+		update(newNames);
+
+		int num = names.length;
+		BitSet previous = null;
+		if (lastConstraint != null && lastMatches != null) {
+			if (lastConstraint.equals(constraint)) {
+				return (BitSet) lastMatches.clone();
+			}
+			if (constraint.contains(lastConstraint)) {
+				previous = lastMatches;
+			}
+		}
+
+		BitSet matches = new BitSet(num);
+		if (constraint.isEmpty()) {
+			for (int i = 0; i < num; i++) {
+				if (normalized[i] != null) {
+					matches.set(i);
+				}
+			}
+		} else {
+			long constraintCharSig = charSignature(constraint);
+			long constraintPairSig = pairSignature(constraint);
+			if (previous == null) {
+				for (int i = 0; i < num; i++) {
+					if (matches(i, constraint, constraintCharSig, constraintPairSig)) {
+						matches.set(i);
+					}
+				}
+			} else {
+				for (int i = previous.nextSetBit(0); i >= 0; i = previous.nextSetBit(
+						i + 1)) {
+					if (matches(i, constraint, constraintCharSig, constraintPairSig)) {
+						matches.set(i);
+					}
+				}
+			}
+		}
+
+		lastConstraint = constraint;
+		lastMatches = matches;
+		return (BitSet) matches.clone();
+	}
+
+	private boolean matches(int i, String constraint, long constraintCharSig,
+			long constraintPairSig) {
+		String s = normalized[i];
+		if (s == null) {
+			return false;
+		}
+		if (s.isEmpty()) {
+			return true;
+		}
+		return (charSigs[i] & constraintCharSig) == constraintCharSig
+				&& (pairSigs[i] & constraintPairSig) == constraintPairSig
+				&& s.contains(constraint);
+	}
+
+	/**
+	 * Counts, for the names at positions, the chars that follow the last
+	 * {@link #match(String, String[])} constraint (or all chars when there's no
+	 * constraint).  A name adds at most 1 to each letter.
+	 */
+	@NonNull
+	synchronized HashMap<String, Integer> countLetters(@NonNull BitSet positions,
+			boolean compactDigits, boolean compactPunctuation,
+			boolean compactNonLetters) {
+		int flags = (compactDigits ? 1 : 0) | (compactPunctuation ? 2 : 0)
+				| (compactNonLetters ? 4 : 0);
+		if (lastCounts != null && flags == lastCountFlags
+				&& positions.equals(lastCountPositions)) {
+			return new HashMap<>(lastCounts);
+		}
+
+		String constraint = lastConstraint == null ? "" : lastConstraint;
+		int constraintLength = constraint.length();
+		LetterCounter counter = new LetterCounter(compactDigits,
+				compactPunctuation, compactNonLetters);
+
+		int num = normalized.length;
+		for (int i = positions.nextSetBit(0); i >= 0
+				&& i < num; i = positions.nextSetBit(i + 1)) {
+			String s = normalized[i];
+			if (s == null) {
+				continue;
+			}
+			int len = s.length();
+			if (constraintLength == 0) {
+				for (int j = 0; j < len; j++) {
+					counter.add(s.charAt(j), i);
+				}
+			} else {
+				int pos = s.indexOf(constraint);
+				while (pos >= 0) {
+					int end = pos + constraintLength;
+					if (end < len) {
+						counter.add(s.charAt(end), i);
+					}
+					pos = s.indexOf(constraint, pos + 1);
+				}
+			}
+		}
+
+		HashMap<String, Integer> counts = counter.toMap();
+		lastCounts = counts;
+		lastCountFlags = flags;
+		lastCountPositions = (BitSet) positions.clone();
+		return new HashMap<>(counts);
+	}
+
+	/**
+	 * Point the index at newNames, keeping the normalized entries of names that
+	 * haven't changed.
+	 */
+	private void update(String[] newNames) {
+		int num = newNames.length;
+		String[] oldNames = names;
+		int numOld = oldNames.length;
+
+		boolean same = num == numOld;
+		if (same) {
+			for (int i = 0; i < num; i++) {
+				String name = newNames[i];
+				if (name == null ? oldNames[i] != null : !name.equals(oldNames[i])) {
+					same = false;
+					break;
+				}
+			}
+		}
+		if (same) {
+			names = newNames;
+			return;
+		}
+
+		String[] newNormalized = new String[num];
+		long[] newCharSigs = new long[num];
+		long[] newPairSigs = new long[num];
+		HashMap<String, Integer> mapOldPositions = null;
+		for (int i = 0; i < num; i++) {
+			String name = newNames[i];
+			if (name == null) {
+				continue;
+			}
+			int oldPos = -1;
+			if (i < numOld && name.equals(oldNames[i])) {
+				oldPos = i;
+			} else if (numOld > 0) {
+				// names moved around; look them up instead
+				if (mapOldPositions == null) {
+					mapOldPositions = new HashMap<>(numOld * 4 / 3 + 1);
+					for (int j = 0; j < numOld; j++) {
+						if (oldNames[j] != null) {
+							mapOldPositions.put(oldNames[j], j);
+						}
+					}
+				}
+				Integer pos = mapOldPositions.get(name);
+				if (pos != null) {
+					oldPos = pos;
+				}
+			}
+			if (oldPos >= 0) {
+				newNormalized[i] = normalized[oldPos];
+				newCharSigs[i] = charSigs[oldPos];
+				newPairSigs[i] = pairSigs[oldPos];
+			} else {
+				String s = name.toUpperCase(Locale.US);
+				newNormalized[i] = s;
+				newCharSigs[i] = charSignature(s);
+				newPairSigs[i] = pairSignature(s);
+			}
+		}
+
+		names = newNames;
+		normalized = newNormalized;
+		charSigs = newCharSigs;
+		pairSigs = newPairSigs;
+		invalidateResults();
+	}
+
+	private static int charBit(char c) {
+		if (c >= 'A' && c <= 'Z') {
+			return c - 'A';
+		}
+		if (c >= '0' && c <= '9') {
+			return 26 + (c - '0');
+		}
+		return 36 + (c % 28);
+	}
+
+	private static long charSignature(String s) {
+		long sig = 0;
+		for (int i = 0, len = s.length(); i < len; i++) {
+			sig |= 1L << charBit(s.charAt(i));
+		}
+		return sig;
+	}
+
+	private static long pairSignature(String s) {
+		long sig = 0;
+		for (int i = 1, len = s.length(); i < len; i++) {
+			int hash = (s.charAt(i - 1) * 31 + s.charAt(i)) * 0x9E3779B1;
+			sig |= 1L << (hash >>> 26);
+		}
+		return sig;
+	}
+
+	@SuppressWarnings("BooleanMethodIsAlwaysInverted")
+	private static boolean isAlphabetic(int c) {
+		// Seems to return symbolic languages
+//		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+//			return Character.isAlphabetic(c);
+//		}
+		if (!Character.isLetter(c)) {
+			return false;
+		}
+		int type = Character.getType(c);
+		return type == Character.UPPERCASE_LETTER
+				|| type == Character.LOWERCASE_LETTER;
+		// Simple, but doesn't include letters with hats on them ;)
+		//return ('A' <= c && c <= 'Z') || ('a' <= c && c <= 'z');
+	}
+
+	private static boolean isStandardPuncuation(int c) {
+		int type = Character.getType(c);
+		return type == Character.START_PUNCTUATION
+				|| type == Character.END_PUNCTUATION
+				|| type == Character.OTHER_PUNCTUATION;
+	}
+
+	/**
+	 * Counts names per letter, without boxing or a String per char.  Each
+	 * letter remembers the last name that counted it, so a name only counts
+	 * once per letter.
+	 */
+	private static final class LetterCounter
+	{
+		private final boolean compactDigits;
+
+		private final boolean compactPunctuation;
+
+		private final boolean compactNonLetters;
+
+		/** Open addressed by char, -1 for empty */
+		private int[] keys = new int[64];
+
+		private int[] counts = new int[64];
+
+		private int[] lastNames = new int[64];
+
+		private byte[] classes = new byte[64];
+
+		private int size;
+
+		private final int[] classCounts = new int[4];
+
+		private final int[] classLastNames = {
+			-1,
+			-1,
+			-1,
+			-1
+		};
+
+		LetterCounter(boolean compactDigits, boolean compactPunctuation,
+				boolean compactNonLetters) {
+			this.compactDigits = compactDigits;
+			this.compactPunctuation = compactPunctuation;
+			this.compactNonLetters = compactNonLetters;
+			Arrays.fill(keys, -1);
+		}
+
+		void add(char c, int name) {
+			int slot = findSlot(c);
+			if (keys[slot] < 0) {
+				keys[slot] = c;
+				classes[slot] = classify(c);
+				lastNames[slot] = -1;
+				size++;
+				if (size * 2 > keys.length) {
+					grow();
+					slot = findSlot(c);
+				}
+			}
+			byte charClass = classes[slot];
+			if (charClass != CLASS_LETTER) {
+				if (classLastNames[charClass] != name) {
+					classLastNames[charClass] = name;
+					classCounts[charClass]++;
+				}
+			} else if (lastNames[slot] != name) {
+				lastNames[slot] = name;
+				counts[slot]++;
+			}
+		}
+
+		private int findSlot(int c) {
+			int mask = keys.length - 1;
+			int slot = (c * 0x9E3779B1 >>> 16) & mask;
+			while (keys[slot] >= 0 && keys[slot] != c) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			int[] oldCounts = counts;
+			int[] oldLastNames = lastNames;
+			byte[] oldClasses = classes;
+			int newLength = oldKeys.length * 2;
+			keys = new int[newLength];
+			Arrays.fill(keys, -1);
+			counts = new int[newLength];
+			lastNames = new int[newLength];
+			classes = new byte[newLength];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] < 0) {
+					continue;
+				}
+				int slot = findSlot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				counts[slot] = oldCounts[i];
+				lastNames[slot] = oldLastNames[i];
+				classes[slot] = oldClasses[i];
+			}
+		}
+
+		private byte classify(char c) {
+			boolean isDigit = Character.isDigit(c);
+			if (compactDigits && isDigit) {
+				return CLASS_NUMBER;
+			}
+			if (compactPunctuation && isStandardPuncuation(c)) {
+				return CLASS_PUNCTUATION;
+			}
+			if (compactNonLetters && !isDigit && !isAlphabetic(c)
+					&& !isStandardPuncuation(c)) {
+				return CLASS_NON;
+			}
+			return CLASS_LETTER;
+		}
+
+		HashMap<String, Integer> toMap() {
+			HashMap<String, Integer> map = new HashMap<>();
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] >= 0 && counts[i] > 0) {
+					map.put(String.valueOf((char) keys[i]), counts[i]);
+				}
+			}
+			if (classCounts[CLASS_NUMBER] > 0) {
+				map.put(FilterConstants.LETTERS_NUMBERS, classCounts[CLASS_NUMBER]);
+			}
+			if (classCounts[CLASS_PUNCTUATION] > 0) {
+				map.put(FilterConstants.LETTERS_PUNCTUATION,
+						classCounts[CLASS_PUNCTUATION]);
+			}
+			if (classCounts[CLASS_NON] > 0) {
+				map.put(FilterConstants.LETTERS_NON, classCounts[CLASS_NON]);
+			}
+			return map;
+		}
+	}
+}
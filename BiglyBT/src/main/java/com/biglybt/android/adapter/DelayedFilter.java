@@ -18,18 +18,30 @@ package com.biglybt.android.adapter;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.biglybt.android.client.AndroidUtils;
 import com.biglybt.util.Thunk;
 
 import android.annotation.SuppressLint;
+import android.os.Handler;
+import android.os.Looper;
 import androidx.annotation.*;
 import android.util.Log;
 import android.widget.Filter;
 
 /**
+ * A {@link Filter} that runs on a small thread pool shared by all filters,
+ * after a configurable debounce delay.
+ * <p>
+ * Each filter runs at most one pass at a time, and passes of different
+ * filters run in parallel without waiting on each other.  A
+ * {@link #refilter(boolean)} that arrives while a pass is filtering or sorting
+ * makes that pass stale: it stops at its next {@link #checkCancelled()}, its
+ * results are never published, and a new pass is started.
+ * <p>
  * Created by TuxPaper on 8/4/18.
  */
 public abstract class DelayedFilter
@@ -62,23 +74,68 @@ public abstract class DelayedFilter
 	public @interface FilterState {
 	}
 
+	public static final int DEFAULT_DEBOUNCE_MS = 200;
+
+	private static final int NUM_FILTER_THREADS = 2;
+
+	private static final long FILTER_THREAD_KEEPALIVE_SECS = 10;
+
+	private static ScheduledThreadPoolExecutor executor;
+
+	private static Handler mainHandler;
+
+	/**
+	 * Thrown by {@link #checkCancelled()} to unwind a stale filter pass
+	 */
+	private static final class FilterCancelledException
+		extends RuntimeException
+	{
+		FilterCancelledException() {
+			super("Filter pass superseded");
+		}
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			// Only used for unwinding; skip the expensive stack capture
+			return this;
+		}
+	}
+
 	private final PerformingFilteringListener performingFilteringListener;
 
 	@Thunk
 	protected CharSequence constraint;
 
+	@Thunk
+	final Object lock = new Object();
+
+	/** A pass has been scheduled and hasn't started yet */
 	@Thunk
 	boolean refilteringSoon;
 
-	private @FilterState int filterState;
+	@Thunk
+	boolean refilteringSoonSkipIfFiltering;
+
+	/** Run another pass once this one is idle */
+	private boolean scheduledRefilter;
+
+	/**
+	 * Bumped when the running pass is superseded.  The pass compares it with
+	 * the value it started with.
+	 */
+	private volatile int generation;
+
+	private volatile int runningGeneration;
+
+	private volatile @FilterState int filterState;
+
+	private int debounceMS = DEFAULT_DEBOUNCE_MS;
 
 	private long debugLastFilterStateSetOn;
 
 	private String classSimpleName;
 
-	private boolean isDestroyed;
-
-	private boolean scheduledRefilter;
+	private volatile boolean isDestroyed;
 
 	public CharSequence getConstraint() {
 		return constraint;
@@ -89,72 +146,177 @@ public abstract class DelayedFilter
 	}
 
 	public void destroy() {
-		isDestroyed = true;
+		synchronized (lock) {
+			isDestroyed = true;
+			generation++;
+		}
+	}
+
+	/**
+	 * @param debounceMS Delay between {@link #refilter(boolean)} and the start
+	 *                   of filtering.  Calls made in the meantime are merged
+	 *                   into the same pass.
+	 */
+	public void setDebounceDelay(int debounceMS) {
+		this.debounceMS = debounceMS;
+	}
+
+	public int getDebounceDelay() {
+		return debounceMS;
 	}
 
 	/**
-	 * Runs filter with a delay.  
+	 * Runs filter after the debounce delay.
+	 *
+	 * @param skipIfFiltering When a pass is already in progress, let it finish
+	 *                        instead of replacing it with a new one
 	 */
 	public void refilter(boolean skipIfFiltering) {
-		refilter(skipIfFiltering, 200);
+		refilter(skipIfFiltering, debounceMS);
 	}
 
 	public void refilter(boolean skipIfFiltering, int delay) {
-		synchronized (TAG) {
+		synchronized (lock) {
+			if (isDestroyed) {
+				return;
+			}
 			if (refilteringSoon) {
+				if (!skipIfFiltering) {
+					refilteringSoonSkipIfFiltering = false;
+				}
 				if (AndroidUtils.DEBUG_ADAPTER) {
 					log(TAG, "refilter: skip refilter, refiltering soon. "
 							+ AndroidUtils.getCompressedStackTrace(4));
 				}
 				return;
 			}
+			if (filterState != FILTERSTATE_IDLE) {
+				if (skipIfFiltering) {
+					if (AndroidUtils.DEBUG_ADAPTER) {
+						log(TAG, "refilter() skipped because filterstate was "
+								+ FILTERSTATE_DEBUGSTRINGS[filterState]);
+					}
+					return;
+				}
+				scheduledRefilter = true;
+				if (filterState != FILTERSTATE_PUBLISHING) {
+					// results of the running pass are stale
+					generation++;
+				}
+				if (AndroidUtils.DEBUG_ADAPTER) {
+					log(TAG, "refilter() superseding pass in state "
+							+ FILTERSTATE_DEBUGSTRINGS[filterState]);
+				}
+				return;
+			}
 			refilteringSoon = true;
+			refilteringSoonSkipIfFiltering = skipIfFiltering;
 		}
 		if (AndroidUtils.DEBUG_ADAPTER) {
 			log(TAG, "refilter() via " + AndroidUtils.getCompressedStackTrace());
 		}
-		new Timer().schedule(new TimerTask() {
-			@Override
-			public void run() {
-				synchronized (TAG) {
-					refilteringSoon = false;
-				}
-				if (getFilterState() != FILTERSTATE_IDLE) {
-					if (AndroidUtils.DEBUG_ADAPTER) {
-						log(TAG, "refilter() skipped because filterstate was "
-								+ FILTERSTATE_DEBUGSTRINGS[getFilterState()]);
-					}
-					// Could schedule a new one
-					if (!skipIfFiltering) {
-						scheduledRefilter = true;
-					}
-					return;
+		getExecutor().schedule(this::runFilterPass, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private static synchronized ScheduledThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			AtomicInteger count = new AtomicInteger();
+			executor = new ScheduledThreadPoolExecutor(NUM_FILTER_THREADS, r -> {
+				Thread thread = new Thread(r, "Filter-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.setKeepAliveTime(FILTER_THREAD_KEEPALIVE_SECS,
+					TimeUnit.SECONDS);
+			executor.allowCoreThreadTimeOut(true);
+			mainHandler = new Handler(Looper.getMainLooper());
+		}
+		return executor;
+	}
+
+	@WorkerThread
+	@Thunk
+	void runFilterPass() {
+		final int passGeneration;
+		final CharSequence passConstraint;
+		synchronized (lock) {
+			refilteringSoon = false;
+			if (isDestroyed) {
+				return;
+			}
+			if (filterState != FILTERSTATE_IDLE) {
+				// Still publishing the previous pass; go again once it's done
+				if (!refilteringSoonSkipIfFiltering) {
+					scheduledRefilter = true;
 				}
-				if (!isDestroyed) {
-					scheduledRefilter = false;
-					filter(constraint);
+				return;
+			}
+			scheduledRefilter = false;
+			passGeneration = generation;
+			runningGeneration = passGeneration;
+			passConstraint = constraint;
+			setFilterState(FILTERSTATE_FILTERING);
+		}
+
+		final FilterResults results;
+		try {
+			results = performFiltering2(passConstraint);
+			checkCancelled();
+		} catch (FilterCancelledException e) {
+			if (AndroidUtils.DEBUG_ADAPTER) {
+				log(TAG, "runFilterPass: superseded in state "
+						+ FILTERSTATE_DEBUGSTRINGS[filterState]);
+			}
+			setFilterState(FILTERSTATE_IDLE);
+			return;
+		} catch (Throwable t) {
+			log(TAG, "performFiltering", t);
+			setFilterState(FILTERSTATE_IDLE);
+			return;
+		}
+
+		mainHandler.post(() -> {
+			if (isDestroyed || generation != passGeneration) {
+				if (AndroidUtils.DEBUG_ADAPTER) {
+					log(TAG, "publishResults: superseded, skipping publish");
 				}
+				setFilterState(FILTERSTATE_IDLE);
+				return;
 			}
-		}, delay);
+			publishResults(passConstraint, results);
+		});
+	}
+
+	/**
+	 * Checkpoint for long running filter work.  Stops the current pass if a
+	 * newer one has been requested.
+	 */
+	@WorkerThread
+	protected final void checkCancelled() {
+		if (isDestroyed || generation != runningGeneration) {
+			throw new FilterCancelledException();
+		}
 	}
 
 	@Override
 	protected final FilterResults performFiltering(CharSequence constraint) {
-		synchronized (TAG) {
+		synchronized (lock) {
 			if (AndroidUtils.DEBUG_ADAPTER && (filterState == FILTERSTATE_FILTERING
 					|| filterState == FILTERSTATE_SORTING)) {
 				log(Log.ERROR, TAG, "performFiltering: ALREADY PERFORMING FILTERING "
 						+ DelayedFilter.FILTERSTATE_DEBUGSTRINGS[filterState]);
 			}
 
+			runningGeneration = generation;
 			setFilterState(FILTERSTATE_FILTERING);
 		}
 		try {
 			return performFiltering2(constraint);
+		} catch (FilterCancelledException e) {
+			setFilterState(FILTERSTATE_IDLE);
+			return null;
 		} catch (Throwable t) {
-			synchronized (TAG) {
-				setFilterState(FILTERSTATE_IDLE);
-			}
+			setFilterState(FILTERSTATE_IDLE);
 			throw t;
 		}
 	}
@@ -188,12 +350,10 @@ public abstract class DelayedFilter
 			if (AndroidUtils.DEBUG_ADAPTER) {
 				log(TAG, "publishResults: no result values.  Skipping publish.");
 			}
-			synchronized (TAG) {
-				setFilterState(FILTERSTATE_IDLE);
-			}
+			setFilterState(FILTERSTATE_IDLE);
 			return;
 		}
-		synchronized (TAG) {
+		synchronized (lock) {
 			if (filterState != FILTERSTATE_FILTERING
 					&& filterState != FILTERSTATE_SORTING) {
 				if (AndroidUtils.DEBUG_ADAPTER) {
@@ -203,22 +363,16 @@ public abstract class DelayedFilter
 				}
 				return;
 			}
-			synchronized (TAG) {
-				setFilterState(FILTERSTATE_PUBLISHING);
-			}
+			setFilterState(FILTERSTATE_PUBLISHING);
 		}
 		try {
 			boolean complete = publishResults2(constraint, results);
 			if (complete) {
-				synchronized (TAG) {
-					setFilterState(FILTERSTATE_IDLE);
-				}
+				setFilterState(FILTERSTATE_IDLE);
 			}
 		} catch (Throwable t) {
 			log(TAG, "publishResults2", t);
-			synchronized (TAG) {
-				setFilterState(FILTERSTATE_IDLE);
-			}
+			setFilterState(FILTERSTATE_IDLE);
 		}
 	}
 
@@ -283,6 +437,29 @@ public abstract class DelayedFilter
 	}
 
 	void setFilterState(@FilterState int filterState) {
+		@FilterState
+		int oldState;
+		boolean refilter;
+		synchronized (lock) {
+			oldState = this.filterState;
+			if (!changeFilterState(filterState)) {
+				return;
+			}
+			refilter = scheduledRefilter && filterState == FILTERSTATE_IDLE;
+			if (refilter) {
+				scheduledRefilter = false;
+			}
+		}
+		if (performingFilteringListener != null) {
+			performingFilteringListener.performingFilteringChanged(filterState,
+					oldState);
+		}
+		if (refilter) {
+			refilter(false);
+		}
+	}
+
+	private boolean changeFilterState(@FilterState int filterState) {
 		if (filterState == this.filterState) {
 			if (filterState != FILTERSTATE_IDLE) {
 				log(Log.ERROR, TAG,
@@ -290,7 +467,7 @@ public abstract class DelayedFilter
 								+ DelayedFilter.FILTERSTATE_DEBUGSTRINGS[filterState] + " via "
 								+ AndroidUtils.getCompressedStackTrace());
 			}
-			return;
+			return false;
 		}
 		if (AndroidUtils.DEBUG_ADAPTER) {
 			String s = "setFilterState "
@@ -303,19 +480,11 @@ public abstract class DelayedFilter
 			}
 			log(TAG, s + ". " + AndroidUtils.getCompressedStackTrace());
 		}
-		@FilterState
-		int oldState = this.filterState;
 		this.filterState = filterState;
 		if (AndroidUtils.DEBUG_ADAPTER) {
 			debugLastFilterStateSetOn = System.currentTimeMillis();
 		}
-		if (performingFilteringListener != null) {
-			performingFilteringListener.performingFilteringChanged(filterState,
-					oldState);
-		}
-		if (scheduledRefilter && filterState == FILTERSTATE_IDLE) {
-			refilter(false);
-		}
+		return true;
 	}
 
 	public interface PerformingFilteringListener
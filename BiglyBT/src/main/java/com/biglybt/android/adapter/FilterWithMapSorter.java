@@ -58,6 +58,8 @@ public abstract class FilterWithMapSorter<T>
 			return;
 		}
 
+		checkCancelled();
+
 		setFilterState(FILTERSTATE_SORTING);
 
 		if (AndroidUtils.DEBUG_ADAPTER) {
@@ -71,11 +73,16 @@ public abstract class FilterWithMapSorter<T>
 
 		// java.lang.IllegalArgumentException: Comparison method violates its
 		// general contract!
+		long start = AndroidUtils.DEBUG_ADAPTER ? System.currentTimeMillis() : 0;
 		try {
-			Collections.sort(items, sorter);
+			sorter.sort(items);
 		} catch (Throwable t) {
 			log(TAG, "doSort: ", t);
 		}
+		if (AndroidUtils.DEBUG_ADAPTER) {
+			log(TAG, "Sorted " + items.size() + " in "
+					+ (System.currentTimeMillis() - start) + "ms");
+		}
 
 		// We could setFilterState back to original (FILTERSTATE_FILTERING),
 		// but typically sort is done just before going to FILTERSTATE_PUBLISHING
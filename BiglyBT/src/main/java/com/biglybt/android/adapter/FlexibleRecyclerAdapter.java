@@ -28,6 +28,7 @@ import android.annotation.SuppressLint;
 import androidx.lifecycle.*;
 import android.os.*;
 import androidx.annotation.*;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
@@ -718,6 +719,38 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 		boolean areContentsTheSame(T oldItem, T newItem);
 	}
 
+	/**
+	 * A {@link SetItemsCallBack} that can also say what changed in an item,
+	 * for adapters that get field-level change sets.  Only used by the keyed
+	 * diff (see {@link #getItemKey(Comparable)}).
+	 */
+	public interface SetItemsPayloadCallBack<T>
+		extends SetItemsCallBack<T>
+	{
+		/**
+		 * @return Payload passed to notifyItemChanged for the item, or null to
+		 * fall back to {@link #areContentsTheSame(Object, Object)}
+		 */
+		@Nullable
+		Object getChangePayload(T oldItem, T newItem);
+	}
+
+	/**
+	 * Key that stays the same for an item across {@link #setItems} calls, and
+	 * is unique within the list.  When every item has one, lists are diffed
+	 * with {@link KeyedListDiff} (linear, with move detection) instead of
+	 * {@link DiffUtil}.
+	 * <p>
+	 * Must agree with compareTo: two items with the same key are the same item.
+	 *
+	 * @return null to use DiffUtil (default)
+	 */
+	@Nullable
+	@AnyThread
+	public Object getItemKey(T item) {
+		return null;
+	}
+
 	private class SetItemsAsyncTask
 		extends AsyncTask<Void, Void, Void>
 	{
@@ -732,6 +765,14 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 		@Thunk
 		DiffUtil.DiffResult diffResult;
 
+		/** null when using DiffUtil, or when there are too many moves to animate */
+		@Thunk
+		KeyedListDiff keyedDiff;
+
+		/** Only DiffUtil can take long enough for the watchdog to step in */
+		@Thunk
+		volatile boolean usingDiffUtil;
+
 		@Thunk
 		List<T> notifyUncheckedList;
 
@@ -772,34 +813,17 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 				newCount = newItems.size();
 			}
 
-			diffResult = DiffUtil.calculateDiff(new DiffUtil.Callback() {
-				@Override
-				public int getOldListSize() {
-					return oldItems.size();
-				}
-
-				@Override
-				public int getNewListSize() {
-					return newItems.size();
-				}
-
-				@Override
-				public boolean areItemsTheSame(int oldItemPosition,
-						int newItemPosition) {
-					// oldItems.get(oldItemPosition).compareTo(items.get(newItemPosition)) == 0
-					// is slower than the code below
-					T oldItem = oldItems.get(oldItemPosition);
-					T newItem = newItems.get(newItemPosition);
-					return oldItem.compareTo(newItem) == 0;
-				}
-
-				@Override
-				public boolean areContentsTheSame(int oldItemPosition,
-						int newItemPosition) {
-					return callback.areContentsTheSame(oldItems.get(oldItemPosition),
-							newItems.get(newItemPosition));
+			keyedDiff = calculateKeyedDiff(oldItems);
+			if (keyedDiff == null) {
+				usingDiffUtil = true;
+				diffResult = calculateDiffUtil(oldItems);
+			} else if (keyedDiff.hasTooManyMoves()) {
+				if (AndroidUtils.DEBUG_ADAPTER) {
+					log(TAG, "SetItemsAsyncTask: " + keyedDiff.getMoveCount()
+							+ " moves, refreshing whole list");
 				}
-			});
+				keyedDiff = null;
+			}
 
 			if (isCancelled()) {
 				if (AndroidUtils.DEBUG_ADAPTER) {
@@ -826,7 +850,7 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 						"SetItemsAsyncTask: oldCount=" + oldCount + ";new=" + newCount + ";"
 								+ this + " in " + (System.currentTimeMillis() - start) + "ms");
 
-				diffResult.dispatchUpdatesTo(new ListUpdateCallback() {
+				ListUpdateCallback debugCallback = new ListUpdateCallback() {
 					@Override
 					public void onInserted(int position, int count) {
 						log(TAG, "-->Insert " + count + " at " + position);
@@ -847,13 +871,72 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 						T t = position < newItems.size() ? newItems.get(position) : null;
 						log(TAG, "-->Change " + count + " at " + position + "; " + t);
 					}
-				});
+				};
+				if (diffResult != null) {
+					diffResult.dispatchUpdatesTo(debugCallback);
+				} else if (keyedDiff != null) {
+					keyedDiff.dispatchUpdatesTo(debugCallback);
+				} else {
+					log(TAG, "-->Refresh all");
+				}
 			}
 
 			complete = true;
 			return null;
 		}
 
+		private KeyedListDiff calculateKeyedDiff(List<T> oldItems) {
+			KeyedListDiff.ChangeChecker<T> changeChecker = null;
+			if (callback instanceof SetItemsPayloadCallBack) {
+				final SetItemsPayloadCallBack<T> payloadCallBack = (SetItemsPayloadCallBack<T>) callback;
+				changeChecker = (oldItem, newItem) -> {
+					Object payload = payloadCallBack.getChangePayload(oldItem, newItem);
+					if (payload != null) {
+						return payload;
+					}
+					return payloadCallBack.areContentsTheSame(oldItem, newItem) ? null
+							: KeyedListDiff.NO_PAYLOAD;
+				};
+			} else if (callback != null) {
+				changeChecker = (oldItem,
+						newItem) -> callback.areContentsTheSame(oldItem, newItem) ? null
+								: KeyedListDiff.NO_PAYLOAD;
+			}
+			return KeyedListDiff.calculate(oldItems, newItems,
+					FlexibleRecyclerAdapter.this::getItemKey, changeChecker);
+		}
+
+		private DiffUtil.DiffResult calculateDiffUtil(final List<T> oldItems) {
+			return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+				@Override
+				public int getOldListSize() {
+					return oldItems.size();
+				}
+
+				@Override
+				public int getNewListSize() {
+					return newItems.size();
+				}
+
+				@Override
+				public boolean areItemsTheSame(int oldItemPosition,
+						int newItemPosition) {
+					// oldItems.get(oldItemPosition).compareTo(items.get(newItemPosition)) == 0
+					// is slower than the code below
+					T oldItem = oldItems.get(oldItemPosition);
+					T newItem = newItems.get(newItemPosition);
+					return oldItem.compareTo(newItem) == 0;
+				}
+
+				@Override
+				public boolean areContentsTheSame(int oldItemPosition,
+						int newItemPosition) {
+					return callback.areContentsTheSame(oldItems.get(oldItemPosition),
+							newItems.get(newItemPosition));
+				}
+			});
+		}
+
 		@Override
 		protected void onPostExecute(Void aVoid) {
 			if (selector != null) {
@@ -864,7 +947,13 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 
 			if (recyclerView != null) {
 				boolean isAtTop = recyclerView.computeVerticalScrollOffset() == 0;
-				diffResult.dispatchUpdatesTo(adapter);
+				if (diffResult != null) {
+					diffResult.dispatchUpdatesTo(adapter);
+				} else if (keyedDiff != null) {
+					keyedDiff.dispatchUpdatesTo(new AdapterListUpdateCallback(adapter));
+				} else {
+					notifyDataSetChanged();
+				}
 				if (isAtTop) {
 					// it's really confusing when you are at the top, flip sort,
 					// and nothing changes (the scrollbar does, but who notices that?)
@@ -951,7 +1040,7 @@ public abstract class FlexibleRecyclerAdapter<ADAPTERTYPE extends RecyclerView.A
 			}
 
 			if (ourTask != setItemsAsyncTask || ourTask.isComplete()
-					|| oldItems != mItems) {
+					|| !ourTask.usingDiffUtil || oldItems != mItems) {
 				return;
 			}
 
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.adapter;
+
+import java.util.*;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+/**
+ * List diff for items that have a unique, stable key (torrent id, file
+ * index..).
+ * <p>
+ * Unlike {@link androidx.recyclerview.widget.DiffUtil}, which is O(N + D^2),
+ * items are matched by key in one hashed pass.  Of the items in both lists,
+ * the longest run that kept its relative order (longest increasing
+ * subsequence of old positions, O(N log N)) stays put, and only the rest are
+ * reported as moves.  Move positions are tracked with a Fenwick tree, so
+ * building the update list is O((N + M) log N) for M moves.
+ * <p>
+ * Updates are dispatched as removals (from the bottom up), then inserts and
+ * moves in new list order, then changes at their final positions.
+ */
+public class KeyedListDiff
+{
+	/**
+	 * Give up and let the caller do a full refresh when more than this many
+	 * items move, since RecyclerView doesn't cope well with thousands of move
+	 * animations.
+	 */
+	private static final int MAX_MOVES = 500;
+
+	private static final int OP_REMOVE = 0;
+
+	private static final int OP_INSERT = 1;
+
+	private static final int OP_MOVE = 2;
+
+	private static final int OP_CHANGE = 3;
+
+	public interface KeyGetter<T>
+	{
+		/**
+		 * @return Key unique to the item within the list, or null if the item
+		 * has none (disables the keyed diff)
+		 */
+		@Nullable
+		Object getItemKey(T item);
+	}
+
+	public interface ChangeChecker<T>
+	{
+		/**
+		 * @return Payload for {@link ListUpdateCallback#onChanged}, null if
+		 * unchanged, or {@link #NO_PAYLOAD} if changed without a payload
+		 */
+		@Nullable
+		Object getChange(T oldItem, T newItem);
+	}
+
+	/**
+	 * Returned from {@link ChangeChecker#getChange(Object, Object)} for a change
+	 * without a payload
+	 */
+	public static final Object NO_PAYLOAD = new Object();
+
+	private int[] ops = new int[48];
+
+	private Object[] payloads = new Object[16];
+
+	private int numOps;
+
+	private int numMoves;
+
+	private boolean tooManyMoves;
+
+	private KeyedListDiff() {
+	}
+
+	/**
+	 * @return null if any item has no key, or a key is in a list twice
+	 */
+	@Nullable
+	public static <T> KeyedListDiff calculate(@NonNull List<T> oldItems,
+			@NonNull List<T> newItems, @NonNull KeyGetter<T> keyGetter,
+			@Nullable ChangeChecker<T> changeChecker) {
+		int numOld = oldItems.size();
+		int numNew = newItems.size();
+
+		Map<Object, Integer> mapOldPositions = new HashMap<>(numOld * 4 / 3 + 1);
+		for (int o = 0; o < numOld; o++) {
+			Object key = keyGetter.getItemKey(oldItems.get(o));
+			if (key == null || mapOldPositions.put(key, o) != null) {
+				return null;
+			}
+		}
+
+		int[] newToOld = new int[numNew];
+		int[] oldToNew = new int[numOld];
+		Arrays.fill(oldToNew, -1);
+		for (int i = 0; i < numNew; i++) {
+			Object key = keyGetter.getItemKey(newItems.get(i));
+			if (key == null) {
+				return null;
+			}
+			Integer o = mapOldPositions.get(key);
+			if (o == null) {
+				newToOld[i] = -1;
+			} else {
+				if (oldToNew[o] >= 0) {
+					return null;
+				}
+				newToOld[i] = o;
+				oldToNew[o] = i;
+			}
+		}
+
+		KeyedListDiff diff = new KeyedListDiff();
+
+		// Removals, bottom up so positions don't shift
+		for (int o = numOld - 1; o >= 0; o--) {
+			if (oldToNew[o] >= 0) {
+				continue;
+			}
+			int end = o;
+			while (o > 0 && oldToNew[o - 1] < 0) {
+				o--;
+			}
+			diff.addOp(OP_REMOVE, o, end - o + 1, null);
+		}
+
+		boolean[] inLIS = longestIncreasing(newToOld);
+
+		// For each moving item, the new position of the next item (in old order)
+		// that stays put.  Moving items sit just before that item until moved.
+		int[] nextAnchor = new int[numNew];
+		int[] numBeforeAnchor = new int[numNew + 1];
+		int anchor = numNew;
+		int numMoves = 0;
+		for (int o = numOld - 1; o >= 0; o--) {
+			int i = oldToNew[o];
+			if (i < 0) {
+				continue;
+			}
+			if (inLIS[i]) {
+				anchor = i;
+			} else {
+				nextAnchor[i] = anchor;
+				numBeforeAnchor[anchor]++;
+				numMoves++;
+			}
+		}
+		diff.numMoves = numMoves;
+		if (numMoves > MAX_MOVES) {
+			diff.tooManyMoves = true;
+			return diff;
+		}
+
+		// Lay out every position an item can be in: for each new position k, the
+		// moving items waiting before anchor k (in old order), then k itself
+		int[] slot = new int[numNew + 1];
+		int[] groupNext = new int[numNew + 1];
+		int next = 0;
+		for (int k = 0; k <= numNew; k++) {
+			groupNext[k] = next;
+			next += numBeforeAnchor[k];
+			slot[k] = next;
+			next++;
+		}
+		int[] waitingSlot = new int[numNew];
+		for (int o = 0; o < numOld; o++) {
+			int i = oldToNew[o];
+			if (i >= 0 && !inLIS[i]) {
+				waitingSlot[i] = groupNext[nextAnchor[i]]++;
+			}
+		}
+
+		FenwickTree present = new FenwickTree(next);
+		for (int i = 0; i < numNew; i++) {
+			if (newToOld[i] < 0) {
+				continue;
+			}
+			present.add(inLIS[i] ? slot[i] : waitingSlot[i], 1);
+		}
+
+		for (int i = 0; i < numNew; i++) {
+			if (newToOld[i] < 0) {
+				present.add(slot[i], 1);
+				diff.addOp(OP_INSERT, present.countBefore(slot[i]), 1, null);
+			} else if (!inLIS[i]) {
+				int from = present.countBefore(waitingSlot[i]);
+				present.add(waitingSlot[i], -1);
+				present.add(slot[i], 1);
+				int to = present.countBefore(slot[i]);
+				if (from != to) {
+					diff.addOp(OP_MOVE, from, to, null);
+				}
+			}
+		}
+
+		if (changeChecker != null) {
+			for (int i = 0; i < numNew; i++) {
+				int o = newToOld[i];
+				if (o < 0) {
+					continue;
+				}
+				Object change = changeChecker.getChange(oldItems.get(o),
+						newItems.get(i));
+				if (change != null) {
+					diff.addOp(OP_CHANGE, i, 1, change == NO_PAYLOAD ? null : change);
+				}
+			}
+		}
+
+		return diff;
+	}
+
+	/**
+	 * @return Whether each position is part of the longest strictly increasing
+	 * subsequence of its non-negative values
+	 */
+	private static boolean[] longestIncreasing(int[] values) {
+		int num = values.length;
+		boolean[] result = new boolean[num];
+		// tails[len] = position of smallest tail of an increasing run of len + 1
+		int[] tails = new int[num];
+		int[] prev = new int[num];
+		int length = 0;
+		for (int i = 0; i < num; i++) {
+			int v = values[i];
+			if (v < 0) {
+				continue;
+			}
+			int lo = 0;
+			int hi = length;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (values[tails[mid]] < v) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			prev[i] = lo > 0 ? tails[lo - 1] : -1;
+			tails[lo] = i;
+			if (lo == length) {
+				length++;
+			}
+		}
+		if (length > 0) {
+			for (int i = tails[length - 1]; i >= 0; i = prev[i]) {
+				result[i] = true;
+			}
+		}
+		return result;
+	}
+
+	private void addOp(int type, int a, int b, Object payload) {
+		if (numOps > 0) {
+			// merge with previous op when it's a continuation
+			int last = (numOps - 1) * 3;
+			int lastType = ops[last];
+			if (type == lastType && type == OP_REMOVE && a + b == ops[last + 1]) {
+				ops[last + 1] = a;
+				ops[last + 2] += b;
+				return;
+			}
+			if (type == lastType && type == OP_INSERT
+					&& a == ops[last + 1] + ops[last + 2]) {
+				ops[last + 2] += b;
+				return;
+			}
+			if (type == lastType && type == OP_CHANGE && payload == null
+					&& payloads[numOps - 1] == null
+					&& a == ops[last + 1] + ops[last + 2]) {
+				ops[last + 2] += b;
+				return;
+			}
+		}
+		if (numOps * 3 + 3 > ops.length) {
+			ops = Arrays.copyOf(ops, ops.length * 2);
+		}
+		if (numOps >= payloads.length) {
+			payloads = Arrays.copyOf(payloads, payloads.length * 2);
+		}
+		int pos = numOps * 3;
+		ops[pos] = type;
+		ops[pos + 1] = a;
+		ops[pos + 2] = b;
+		payloads[numOps] = payload;
+		numOps++;
+	}
+
+	/**
+	 * When true, no updates were built; the caller should refresh the whole
+	 * list instead.
+	 */
+	public boolean hasTooManyMoves() {
+		return tooManyMoves;
+	}
+
+	public int getMoveCount() {
+		return numMoves;
+	}
+
+	public void dispatchUpdatesTo(@NonNull ListUpdateCallback callback) {
+		for (int i = 0; i < numOps; i++) {
+			int pos = i * 3;
+			int a = ops[pos + 1];
+			int b = ops[pos + 2];
+			switch (ops[pos]) {
+				case OP_REMOVE:
+					callback.onRemoved(a, b);
+					break;
+				case OP_INSERT:
+					callback.onInserted(a, b);
+					break;
+				case OP_MOVE:
+					callback.onMoved(a, b);
+					break;
+				case OP_CHANGE:
+					callback.onChanged(a, b, payloads[i]);
+					break;
+			}
+		}
+	}
+
+	private static final class FenwickTree
+	{
+		private final int[] tree;
+
+		FenwickTree(int size) {
+			tree = new int[size + 1];
+		}
+
+		void add(int index, int delta) {
+			for (int i = index + 1; i < tree.length; i += i & -i) {
+				tree[i] += delta;
+			}
+		}
+
+		/** Sum of [0, index) */
+		int countBefore(int index) {
+			int sum = 0;
+			for (int i = index; i > 0; i -= i & -i) {
+				sum += tree[i];
+			}
+			return sum;
+		}
+	}
+}
@@ -48,6 +48,8 @@ public abstract class LetterFilter<T>
 
 	private LettersUpdatedListener lettersUpdatedListener;
 
+	private final ConstraintIndex constraintIndex = new ConstraintIndex();
+
 	public LetterFilter(PerformingFilteringListener l) {
 		super(l);
 	}
@@ -96,82 +98,38 @@ public abstract class LetterFilter<T>
 		return compactPunctuation;
 	}
 
-	protected boolean constraintCheck(@NonNull String constraint,
-			String stringToConstrain, @Nullable HashSet<String> setLetters,
-			HashMap<String, Integer> mapLetterCount) {
-		if (stringToConstrain == null) {
-			return false;
-		}
-
-		boolean hasConstraint = !constraint.isEmpty();
-		boolean buildLetters = setLetters != null;
-
-		int nameLength = stringToConstrain.length();
-		boolean matches;
-		if (!hasConstraint || nameLength == 0) {
-			if (buildLetters) {
-				stringToConstrain = stringToConstrain.toUpperCase(Locale.US);
-			}
-			matches = true;
-		} else {
-			stringToConstrain = stringToConstrain.toUpperCase(Locale.US);
-			matches = stringToConstrain.contains(constraint);
-		}
-		if (buildLetters && matches) {
-			if (hasConstraint) {
-				int pos = stringToConstrain.indexOf(constraint);
-				while (pos >= 0) {
-					int end = pos + constraint.length();
-					if (end < nameLength) {
-						char c = stringToConstrain.charAt(end);
-						boolean isDigit = Character.isDigit(c);
-						if (compactDigits && isDigit) {
-							setLetters.add(FilterConstants.LETTERS_NUMBERS);
-						} else if (compactPunctuation && isStandardPuncuation(c)) {
-							setLetters.add(FilterConstants.LETTERS_PUNCTUATION);
-						} else if (compactNonLetters && !isDigit && !isAlphabetic(c)
-								&& !isStandardPuncuation(c)) {
-							setLetters.add(FilterConstants.LETTERS_NON);
-						} else {
-							setLetters.add(Character.toString(c));
-						}
-					}
-					pos = stringToConstrain.indexOf(constraint, pos + 1);
-				}
-			} else {
-				for (int i = 0; i < nameLength; i++) {
-					char c = stringToConstrain.charAt(i);
-					boolean isDigit = Character.isDigit(c);
-					if (compactDigits && isDigit) {
-						setLetters.add(FilterConstants.LETTERS_NUMBERS);
-					} else if (compactPunctuation && isStandardPuncuation(c)) {
-						setLetters.add(FilterConstants.LETTERS_PUNCTUATION);
-					} else if (compactNonLetters && !isDigit && !isAlphabetic(c)
-							&& !isStandardPuncuation(c)) {
-						setLetters.add(FilterConstants.LETTERS_NON);
-					} else {
-						setLetters.add(Character.toString(c));
-					}
-				}
-			}
-		}
+	/**
+	 * Matches names against the constraint using an index that is kept between
+	 * calls, so repeated filtering of mostly the same names is cheap.
+	 * Call {@link #buildLetterCounts(BitSet)} afterwards to get letter counts.
+	 *
+	 * @param names Strings to constrain, by position.  null never matches, ""
+	 *              always matches
+	 * @return Positions of names that contain the constraint
+	 */
+	@NonNull
+	protected BitSet constraintMatches(@NonNull String constraint,
+			@NonNull String[] names) {
+		return constraintIndex.match(constraint.toUpperCase(Locale.US), names);
+	}
 
-		//noinspection ConstantConditions
-		if (buildLetters && setLetters.size() > 0) {
-			for (String letter : setLetters) {
-				@SuppressWarnings("ConstantConditions")
-				Integer count = mapLetterCount.get(letter);
-				if (count == null) {
-					count = 1;
-				} else {
-					count++;
-				}
-				mapLetterCount.put(letter, count);
-			}
-			setLetters.clear();
-		}
+	/**
+	 * @param positions Positions of the names last passed to
+	 *                  {@link #constraintMatches(String, String[])} to count
+	 * @return Count of names per letter following the constraint
+	 */
+	@NonNull
+	protected HashMap<String, Integer> buildLetterCounts(
+			@NonNull BitSet positions) {
+		return constraintIndex.countLetters(positions, compactDigits,
+				compactPunctuation, compactNonLetters);
+	}
 
-		return matches;
+	/**
+	 * Release the constraint index when nothing needs it
+	 */
+	protected void clearConstraintIndex() {
+		constraintIndex.clear();
 	}
 
 	/**
@@ -179,29 +137,6 @@ public abstract class LetterFilter<T>
 	 */
 	protected abstract String getStringToConstrain(T key);
 
-	@SuppressWarnings("BooleanMethodIsAlwaysInverted")
-	private static boolean isAlphabetic(int c) {
-		// Seems to return symbolic languages
-//		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-//			return Character.isAlphabetic(c);
-//		}
-		if (!Character.isLetter(c)) {
-			return false;
-		}
-		int type = Character.getType(c);
-		return type == Character.UPPERCASE_LETTER
-				|| type == Character.LOWERCASE_LETTER;
-		// Simple, but doesn't include letters with hats on them ;)
-		//return ('A' <= c && c <= 'Z') || ('a' <= c && c <= 'z');
-	}
-
-	private static boolean isStandardPuncuation(int c) {
-		int type = Character.getType(c);
-		return type == Character.START_PUNCTUATION
-				|| type == Character.END_PUNCTUATION
-				|| type == Character.OTHER_PUNCTUATION;
-	}
-
 	/**
 	 * @return List of items removed
 	 */
@@ -224,6 +159,7 @@ public abstract class LetterFilter<T>
 		// HashSet is faster than ArrayList for .contains(), which removeAll uses
 		HashSet<T> toRemove = new HashSet<>();
 		if (size <= 0 || (!buildLetters && !hasConstraint)) {
+			clearConstraintIndex();
 			return toRemove;
 		}
 
@@ -231,20 +167,18 @@ public abstract class LetterFilter<T>
 			Log.d(TAG, "filtering " + searchResultList.size());
 		}
 
-		HashSet<String> setLetters = null;
-		HashMap<String, Integer> mapLetterCount = null;
-		if (buildLetters) {
-			setLetters = new HashSet<>();
-			mapLetterCount = new HashMap<>();
+		String[] names = new String[size];
+		for (int i = 0; i < size; i++) {
+			names[i] = getStringToConstrain(searchResultList.get(i));
 		}
-		if (buildLetters || hasConstraint) {
-			for (T key : searchResultList) {
-				if (!constraintCheck(constraint, getStringToConstrain(key), setLetters,
-						mapLetterCount)) {
-					toRemove.add(key);
-				}
-			}
+		checkCancelled();
+		BitSet matches = constraintMatches(constraint, names);
+		for (int i = matches.nextClearBit(0); i < size; i = matches.nextClearBit(
+				i + 1)) {
+			toRemove.add(searchResultList.get(i));
 		}
+		HashMap<String, Integer> mapLetterCount = buildLetters
+				? buildLetterCounts(matches) : null;
 		if (DEBUG && hasConstraint) {
 			Log.d(TAG, "filter removing " + toRemove.size());
 		}
@@ -21,6 +21,7 @@ import java.util.*;
 
 import com.biglybt.android.client.session.RemoteProfile;
 import com.biglybt.android.client.session.RemoteProfileFactory;
+import com.biglybt.android.client.session.TorrentListSnapshot;
 import com.biglybt.android.util.FileUtils;
 import com.biglybt.android.util.JSONUtils;
 import com.biglybt.android.util.MapUtils;
@@ -461,6 +462,8 @@ public class AppPreferences
 				savePrefs();
 			}
 
+			TorrentListSnapshot.delete(profileID);
+
 			if (mapRemote instanceof Map) {
 				RemoteProfile rp = RemoteProfileFactory.create((Map) mapRemote);
 				AnalyticsTracker.getInstance().sendEvent(AnalyticsTracker.CAT_PROFILE,
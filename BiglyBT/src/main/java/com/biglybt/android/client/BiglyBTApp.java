@@ -27,6 +27,7 @@ import com.biglybt.util.Thunk;
 import com.jaredrummler.android.device.DeviceName;
 import com.squareup.picasso.*;
 
+import android.app.ActivityManager;
 import android.app.Application;
 import android.app.UiModeManager;
 import android.content.*;
@@ -345,10 +346,12 @@ public class BiglyBTApp
 			Log.d(TAG, sbFeatures.toString());
 		}
 
+		ImageMemoryCache imageCache = initMemoryGovernor();
+
 		// Picasso init accesses disk
 		new Thread(() -> {
 			picassoInstance = new Picasso.Builder(
-					applicationContext).addRequestHandler(
+					applicationContext).memoryCache(imageCache).addRequestHandler(
 							new IcoRequestHandler()).build();
 			if (AndroidUtils.DEBUG) {
 				Log.d(TAG, "initMainApp: picassoInstance now initialized");
@@ -375,6 +378,27 @@ public class BiglyBTApp
 		}
 	}
 
+	/**
+	 * Budget UI process caches as shares of our heap limit.
+	 *
+	 * @return Memory cache for Picasso
+	 */
+	private ImageMemoryCache initMemoryGovernor() {
+		ActivityManager am = (ActivityManager) getSystemService(
+				Context.ACTIVITY_SERVICE);
+		long heapBytes = (am == null ? 32 : am.getMemoryClass()) * 1024L * 1024L;
+
+		long imageBudget = heapBytes / 8;
+		ImageMemoryCache imageCache = new ImageMemoryCache((int) imageBudget);
+		if (!isCoreProcess) {
+			MemoryGovernor governor = MemoryGovernor.getInstance();
+			governor.register(imageCache, imageBudget);
+			governor.register(SessionManager.TORRENT_MAPS_CACHE, heapBytes / 8);
+			governor.register(SessionManager.TORRENT_FILES_CACHE, heapBytes / 16);
+		}
+		return imageCache;
+	}
+
 	@Override
 	public void onTrimMemory(int level) {
 		super.onTrimMemory(level);
@@ -382,59 +406,7 @@ public class BiglyBTApp
 			return;
 		}
 
-		switch (level) {
-			case TRIM_MEMORY_UI_HIDDEN: // not really a low memory event
-				if (AndroidUtils.DEBUG) {
-					Log.d(TAG, "onTrimMemory TRIM_MEMORY_UI_HIDDEN");
-				}
-				break;
-			case TRIM_MEMORY_BACKGROUND: // app moved to background
-				if (AndroidUtils.DEBUG) {
-					Log.d(TAG, "onTrimMemory TRIM_MEMORY_BACKGROUND");
-				}
-				break;
-			case TRIM_MEMORY_MODERATE:
-				// app in middle of background list 
-				if (AndroidUtils.DEBUG) {
-					Log.d(TAG, "onTrimMemory Moderate");
-				}
-				SessionManager.clearTorrentFilesCaches(true);
-				break;
-			case TRIM_MEMORY_COMPLETE:
-				if (AndroidUtils.DEBUG) {
-					Log.d(TAG, "onTrimMemory Complete");
-				}
-				// app next to be killed unless more mem found
-				SessionManager.clearTorrentCaches(false); // clear all
-				break;
-			case TRIM_MEMORY_RUNNING_MODERATE:
-				if (AndroidUtils.DEBUG) {
-					Log.d(TAG, "onTrimMemory RunningModerate");
-				}
-				SessionManager.clearTorrentCaches(true); // clear all except
-				// current
-				break;
-			case TRIM_MEMORY_RUNNING_LOW: // Low memory
-				if (AndroidUtils.DEBUG) {
-					Log.d(TAG, "onTrimMemory RunningLow");
-				}
-				SessionManager.clearTorrentCaches(true); // clear all except
-				// current
-				SessionManager.clearTorrentFilesCaches(true); // clear all except last file
-				break;
-			case TRIM_MEMORY_RUNNING_CRITICAL:
-				if (AndroidUtils.DEBUG) {
-					Log.d(TAG, "onTrimMemory RunningCritical");
-				}
-				SessionManager.clearTorrentCaches(true); // clear all except
-				// current
-				SessionManager.clearTorrentFilesCaches(true); // clear all except last file
-				break;
-			default:
-				if (AndroidUtils.DEBUG) {
-					Log.d(TAG, "onTrimMemory " + level);
-				}
-		}
+		MemoryGovernor.getInstance().onTrimMemory(level);
 	}
 
 	@Override
@@ -446,7 +418,7 @@ public class BiglyBTApp
 		if (AndroidUtils.DEBUG) {
 			Log.d(TAG, "onLowMemory");
 		}
-		SessionManager.clearTorrentCaches(false);
+		MemoryGovernor.getInstance().onLowMemory();
 		super.onLowMemory();
 	}
 
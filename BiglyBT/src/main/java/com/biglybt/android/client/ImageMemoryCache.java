@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client;
+
+import com.squareup.picasso.Cache;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.collection.LruCache;
+
+/**
+ * Picasso's memory cache, sized in bytes and trimmable by
+ * {@link MemoryGovernor}.  Its max size is its governor budget, so
+ * {@link LruCache} keeps it within budget as bitmaps are added.
+ */
+class ImageMemoryCache
+	implements Cache, MemoryGovernor.TrimmableCache
+{
+	private final LruCache<String, Bitmap> cache;
+
+	ImageMemoryCache(int maxBytes) {
+		cache = new LruCache<String, Bitmap>(Math.max(1, maxBytes)) {
+			@Override
+			protected int sizeOf(@NonNull String key, @NonNull Bitmap value) {
+				return getBitmapBytes(value);
+			}
+		};
+	}
+
+	static int getBitmapBytes(Bitmap bitmap) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			return bitmap.getAllocationByteCount();
+		}
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+
+	// Picasso Cache
+
+	@Override
+	public Bitmap get(String key) {
+		return cache.get(key);
+	}
+
+	@Override
+	public void set(String key, Bitmap bitmap) {
+		if (key == null || bitmap == null) {
+			return;
+		}
+		cache.put(key, bitmap);
+	}
+
+	@Override
+	public int size() {
+		return cache.size();
+	}
+
+	@Override
+	public int maxSize() {
+		return cache.maxSize();
+	}
+
+	@Override
+	public void clear() {
+		cache.evictAll();
+	}
+
+	@Override
+	public void clearKeyUri(String keyPrefix) {
+		for (String key : cache.snapshot().keySet()) {
+			if (key.startsWith(keyPrefix)) {
+				cache.remove(key);
+			}
+		}
+	}
+
+	// MemoryGovernor.TrimmableCache
+
+	@NonNull
+	@Override
+	public String getCacheName() {
+		return "images";
+	}
+
+	@Override
+	public long getBytesUsed() {
+		return cache.size();
+	}
+
+	@Override
+	public long trimToBytes(long targetBytes) {
+		cache.trimToSize((int) Math.min(Integer.MAX_VALUE, targetBytes));
+		return cache.size();
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Keeps the caches of a process within byte budgets, and shrinks them on
+ * {@link ComponentCallbacks2#onTrimMemory(int)} in proportion to the trim
+ * level, instead of dropping everything.
+ * <p>
+ * Only the UI process registers caches (torrent maps, file lists and
+ * images).  Sizes are estimates, good enough to compare caches and trim
+ * levels.
+ * <p>
+ * The core process isn't covered and still ignores trim events.  Its largest
+ * cache, the disk cache, is sized once when the disk manager starts, so
+ * there's nothing it can shrink live to report here.  Caches call {@link #enforceBudget(TrimmableCache)} after adding
+ * entries, so they don't grow past their budget between trims.
+ */
+public class MemoryGovernor
+{
+	private static final String TAG = "MemoryGovernor";
+
+	public interface TrimmableCache
+	{
+		@NonNull
+		String getCacheName();
+
+		/**
+		 * @return Estimated bytes used
+		 */
+		long getBytesUsed();
+
+		/**
+		 * Evict least recently used entries until no more than targetBytes
+		 * are used.
+		 *
+		 * @return Estimated bytes used afterwards
+		 */
+		long trimToBytes(long targetBytes);
+	}
+
+	public static final class CacheUsage
+	{
+		@NonNull
+		public final String name;
+
+		public final long budgetBytes;
+
+		public final long usedBytes;
+
+		CacheUsage(@NonNull String name, long budgetBytes, long usedBytes) {
+			this.name = name;
+			this.budgetBytes = budgetBytes;
+			this.usedBytes = usedBytes;
+		}
+
+		@Override
+		public String toString() {
+			return name + " " + (usedBytes / 1024) + "/" + (budgetBytes / 1024)
+					+ "KiB";
+		}
+	}
+
+	private static final class Entry
+	{
+		final TrimmableCache cache;
+
+		final long budgetBytes;
+
+		Entry(TrimmableCache cache, long budgetBytes) {
+			this.cache = cache;
+			this.budgetBytes = budgetBytes;
+		}
+	}
+
+	private static MemoryGovernor instance;
+
+	private final List<Entry> entries = new CopyOnWriteArrayList<>();
+
+	public static synchronized MemoryGovernor getInstance() {
+		if (instance == null) {
+			instance = new MemoryGovernor();
+		}
+		return instance;
+	}
+
+	private MemoryGovernor() {
+	}
+
+	public void register(@NonNull TrimmableCache cache, long budgetBytes) {
+		unregister(cache);
+		entries.add(new Entry(cache, budgetBytes));
+	}
+
+	public void unregister(@NonNull TrimmableCache cache) {
+		for (Entry entry : entries) {
+			if (entry.cache == cache) {
+				entries.remove(entry);
+			}
+		}
+	}
+
+	/**
+	 * Portion of its budget (or current use, if lower) each cache may keep
+	 */
+	static float getKeepFraction(int level) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+			return 0f;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+			return 0.5f;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+			return 0.75f;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+			// Not really a low memory event; just keep to budget
+			return 1f;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+			return 0.25f;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			return 0.5f;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+			return 0.75f;
+		}
+		return 1f;
+	}
+
+	public void onTrimMemory(int level) {
+		trim(getKeepFraction(level));
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "onTrimMemory " + level + ": " + getUsage());
+		}
+	}
+
+	public void onLowMemory() {
+		trim(0f);
+	}
+
+	/**
+	 * Trim cache if it has grown past its budget.  No-op if the cache isn't
+	 * registered.
+	 */
+	public void enforceBudget(@NonNull TrimmableCache cache) {
+		for (Entry entry : entries) {
+			if (entry.cache == cache) {
+				trim(entry, 1f);
+			}
+		}
+	}
+
+	private void trim(float keepFraction) {
+		for (Entry entry : entries) {
+			trim(entry, keepFraction);
+		}
+	}
+
+	private static void trim(Entry entry, float keepFraction) {
+		long used = entry.cache.getBytesUsed();
+		long target = (long) (Math.min(used, entry.budgetBytes) * keepFraction);
+		if (used > target) {
+			long after = entry.cache.trimToBytes(target);
+			if (AndroidUtils.DEBUG) {
+				Log.d(TAG, entry.cache.getCacheName() + ": " + (used / 1024)
+						+ "KiB -> " + (after / 1024) + "KiB (target " + (target / 1024)
+						+ "KiB)");
+			}
+		}
+	}
+
+	/**
+	 * @return Budget and current use of each registered cache, for diagnostics
+	 */
+	@NonNull
+	public List<CacheUsage> getUsage() {
+		List<CacheUsage> list = new ArrayList<>();
+		for (Entry entry : entries) {
+			list.add(new CacheUsage(entry.cache.getCacheName(), entry.budgetBytes,
+					entry.cache.getBytesUsed()));
+		}
+		return list;
+	}
+}
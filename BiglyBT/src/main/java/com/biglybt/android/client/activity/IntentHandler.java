@@ -22,6 +22,7 @@ import com.biglybt.android.client.dialog.DialogFragmentAbout;
 import com.biglybt.android.client.dialog.DialogFragmentGenericRemoteProfile;
 import com.biglybt.android.client.dialog.DialogFragmentGenericRemoteProfile.GenericRemoteProfileListener;
 import com.biglybt.android.client.dialog.DialogFragmentGiveback;
+import com.biglybt.android.client.dialog.DialogFragmentRPCMetrics;
 import com.biglybt.android.client.rpc.RPC;
 import com.biglybt.android.client.session.RemoteProfile;
 import com.biglybt.android.client.session.RemoteProfileFactory;
@@ -400,6 +401,9 @@ public class IntentHandler
 		} else if (itemId == R.id.action_about) {
 			return AndroidUtilsUI.showDialog(new DialogFragmentAbout(),
 					getSupportFragmentManager(), "About");
+		} else if (itemId == R.id.action_rpc_metrics) {
+			return AndroidUtilsUI.showDialog(new DialogFragmentRPCMetrics(),
+					getSupportFragmentManager(), "RPCMetrics");
 		} else if (itemId == R.id.action_giveback) {
 			DialogFragmentGiveback.openDialog(this, getSupportFragmentManager(), true,
 					TAG);
@@ -26,7 +26,6 @@ import com.biglybt.android.client.*;
 import com.biglybt.android.client.adapter.*;
 import com.biglybt.android.client.dialog.DialogFragmentDateRange;
 import com.biglybt.android.client.dialog.DialogFragmentSizeRange;
-import com.biglybt.android.client.rpc.SuccessReplyMapRecievedListener;
 import com.biglybt.android.client.rpc.TransmissionRPC;
 import com.biglybt.android.client.session.RemoteProfile;
 import com.biglybt.android.client.session.Session;
@@ -103,11 +102,8 @@ public class MetaSearchActivity
 	@Thunk
 	MetaSearchResultsAdapter metaSearchResultsAdapter;
 
-	/**
-	 * <HashString, Map of Fields>
-	 */
 	@Thunk
-	final HashMap<String, Map> mapResults = new HashMap<>();
+	final MetaSearchResultIndex resultIndex = new MetaSearchResultIndex();
 
 	@Thunk
 	HashMap<String, MetaSearchEnginesInfo> mapEngines;
@@ -120,8 +116,6 @@ public class MetaSearchActivity
 
 	private TextView tvFilterTop;
 
-	private long maxSize;
-
 	@Thunk
 	TextView tvDrawerFilter;
 
@@ -254,12 +248,12 @@ public class MetaSearchActivity
 
 			@Override
 			public Map getSearchResultMap(String id) {
-				return mapResults.get(id);
+				return resultIndex.getResult(id);
 			}
 
 			@Override
 			public List<String> getSearchResultList() {
-				return new ArrayList<>(mapResults.keySet());
+				return resultIndex.getKeys();
 			}
 
 			@Override
@@ -412,53 +406,22 @@ public class MetaSearchActivity
 				Map<String, Object> map = JSONUtils.decodeJSONnoException(list);
 
 				if (map != null) {
-					for (String key : map.keySet()) {
-						Object o = map.get(key);
-						if (o instanceof Map) {
-							mapResults.put(key, (Map) o);
-						}
-					}
+					resultIndex.restoreResults(map);
+					metaSearchResultsAdapter.getFilter().refilter(false);
 				}
 
 				mapEngines = savedEngines;
 
 				updateEngineList();
 
-				// hackkkkk.. should call a function like TransmissionRPC.continueMetaSearch(searchID, listener)
-				final Map<String, Object> mapResultsRequest = new HashMap<>();
-				mapResultsRequest.put(TransmissionVars.FIELD_SEARCHRESULT_SEARCH_ID,
-						searchID);
-				session.executeRpc(rpc -> rpc.simpleRpcCall(
-						TransmissionVars.METHOD_VUZE_SEARCH_GET_RESULTS, mapResultsRequest,
-						new SuccessReplyMapRecievedListener() {
-
-							@Override
-							public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
-
-								boolean complete = MapUtils.getMapBoolean(optionalMap,
-										TransmissionVars.FIELD_SEARCHRESULT_COMPLETE, true);
-								if (!complete) {
-									try {
-										Thread.sleep(1500);
-									} catch (InterruptedException ignored) {
-									}
-									rpc.simpleRpcCall(
-											TransmissionVars.METHOD_VUZE_SEARCH_GET_RESULTS,
-											mapResultsRequest, this);
-								}
-
-								List listEngines = MapUtils.getMapList(optionalMap,
-										SAVESTATE_ENGINES, Collections.emptyList());
-
-								onMetaSearchGotResults(searchID, listEngines, complete);
-							}
-
-						}));
+				if (searchID != null) {
+					session.executeRpc(
+							rpc -> rpc.continueMetaSearch(searchID, MetaSearchActivity.this));
+				}
 			}
-			// What if the search was not done?
 		}
 
-		if (mapResults.size() == 0) {
+		if (resultIndex.size() == 0) {
 			doMySearch();
 		}
 	}
@@ -470,7 +433,8 @@ public class MetaSearchActivity
 			metaSearchResultsAdapter.onSaveInstanceState(outState);
 		}
 		Bundle tmpBundle = new Bundle();
-		tmpBundle.putString(SAVESTATE_LIST, JSONUtils.encodeToJSON(mapResults));
+		tmpBundle.putString(SAVESTATE_LIST,
+				JSONUtils.encodeToJSON(resultIndex.copyResults()));
 		tmpBundle.putSerializable(SAVESTATE_ENGINES, mapEngines);
 		tmpBundle.putSerializable(SAVESTATE_SEARCH_ID, searchID);
 		AndroidUtils.addToBundleIf(tmpBundle, outState, 1024 * 200L);
@@ -570,103 +534,14 @@ public class MetaSearchActivity
 								TransmissionVars.FIELD_SEARCHRESULT_COMPLETE, false),
 						error == null ? count : -1);
 			}
-
-			if (listResults != null) {
-				for (Object oResult : listResults) {
-					if (!(oResult instanceof Map)) {
-						if (AndroidUtils.DEBUG) {
-							Log.d(TAG, "onMetaSearchGotResults: NOT A MAP: " + oResult);
-						}
-						continue;
-					}
-
-					//noinspection unchecked
-					Map<String, Object> mapResult = fixupResultMap(
-							(Map<String, Object>) oResult);
-
-					long size = MapUtils.getMapLong(mapResult,
-							TransmissionVars.FIELD_SEARCHRESULT_SIZE, 0);
-					if (size > maxSize) {
-						maxSize = size;
-					}
-
-					String hash = MapUtils.getMapString(mapResult,
-							TransmissionVars.FIELD_SEARCHRESULT_HASH, null);
-					if (hash == null) {
-						hash = MapUtils.getMapString(mapResult,
-								TransmissionVars.FIELD_SEARCHRESULT_URL, null);
-					}
-					if (hash != null) {
-						mapResult.put(TransmissionVars.FIELD_SEARCHRESULT_ENGINE_ID,
-								engineID);
-						Map mapExisting = mapResults.get(hash);
-						if (mapExisting != null) {
-							List others = MapUtils.getMapList(mapExisting, "others", null);
-							if (others == null) {
-								others = new ArrayList();
-								//noinspection unchecked
-								mapExisting.put("others", others);
-							}
-							//noinspection unchecked
-							others.add(mapResult);
-							//noinspection unchecked
-							mapExisting.put(TransmissionVars.FIELD_LAST_UPDATED,
-									System.currentTimeMillis());
-						} else {
-							mapResults.put(hash, mapResult);
-						}
-					} else {
-						if (AndroidUtils.DEBUG) {
-							Log.d(TAG, "onMetaSearchGotResults: No hash for " + mapResult);
-						}
-					}
-				}
-			}
 		}
 
-		runOnUiThread(() -> metaSearchResultsAdapter.getFilter().refilter(false));
-		return true;
-	}
-
-	/**
-	 * Unfortunately, the search results map returns just about everything in
-	 * Strings, including numbers.
-	 */
-	private static Map<String, Object> fixupResultMap(
-			Map<String, Object> mapResult) {
-		final String[] IDS_LONG = {
-			TransmissionVars.FIELD_SEARCHRESULT_PUBLISHDATE,
-			TransmissionVars.FIELD_SEARCHRESULT_PEERS,
-			TransmissionVars.FIELD_SEARCHRESULT_SIZE,
-			TransmissionVars.FIELD_SEARCHRESULT_SEEDS,
-		};
-		final String[] IDS_FLOAT = {
-			TransmissionVars.FIELD_SEARCHRESULT_RANK,
-		};
-
-		for (String id : IDS_LONG) {
-			Object o = mapResult.get(id);
-			if (o instanceof String) {
-				try {
-					Long l = Long.valueOf((String) o);
-					mapResult.put(id, l);
-				} catch (Throwable ignore) {
-				}
-			}
+		MetaSearchResultIndex.Update update = resultIndex.ingest(engines);
+		if (!update.isEmpty()) {
+			metaSearchResultsAdapter.getFilter().addResults(update.added,
+					update.changed);
 		}
-
-		for (String id : IDS_FLOAT) {
-			Object o = mapResult.get(id);
-			if (o instanceof String) {
-				try {
-					Double d = Double.valueOf((String) o);
-					mapResult.put(id, d);
-				} catch (Throwable ignore) {
-				}
-			}
-		}
-
-		return mapResult;
+		return true;
 	}
 
 	@Thunk
@@ -679,7 +554,7 @@ public class MetaSearchActivity
 			ActionBar ab = getSupportActionBar();
 
 			int filteredCount = metaSearchResultsAdapter.getItemCount();
-			int count = mapResults.size();
+			int count = resultIndex.size();
 			String countString = DisplayFormatters.formatNumber(count);
 
 			String sResultsCount;
@@ -993,7 +868,7 @@ public class MetaSearchActivity
 		long[] sizeRange = filter.getFilterSizes();
 
 		DialogFragmentSizeRange.openDialog(getSupportFragmentManager(), null, null,
-				remoteProfileID, maxSize, sizeRange[0], sizeRange[1]);
+				remoteProfileID, resultIndex.getMaxSize(), sizeRange[0], sizeRange[1]);
 	}
 
 	@SuppressWarnings("UnusedParameters")
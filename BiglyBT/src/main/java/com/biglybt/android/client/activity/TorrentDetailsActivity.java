@@ -16,7 +16,6 @@
 
 package com.biglybt.android.client.activity;
 
-import java.util.List;
 import java.util.Map;
 
 import com.biglybt.android.adapter.SortableRecyclerAdapter;
@@ -25,8 +24,9 @@ import com.biglybt.android.client.adapter.TorrentListRowFiller;
 import com.biglybt.android.client.fragment.ActionModeBeingReplacedListener;
 import com.biglybt.android.client.fragment.TorrentDetailsFragment;
 import com.biglybt.android.client.fragment.TorrentListFragment;
-import com.biglybt.android.client.rpc.TorrentListReceivedListener;
 import com.biglybt.android.client.session.RemoteProfile;
+import com.biglybt.android.client.session.TorrentListChangeSet;
+import com.biglybt.android.client.session.TorrentListChangedListener;
 import com.biglybt.android.client.sidelist.SideActionSelectionListener;
 import com.biglybt.android.client.sidelist.SideListActivity;
 import com.biglybt.android.client.sidelist.SideListFragment;
@@ -35,6 +35,7 @@ import com.biglybt.util.Thunk;
 
 import android.annotation.SuppressLint;
 import android.os.Bundle;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.view.ActionMode;
 import androidx.appcompat.widget.Toolbar;
@@ -50,7 +51,7 @@ import android.view.*;
  */
 public class TorrentDetailsActivity
 	extends SideListActivity
-	implements TorrentListReceivedListener, ActionModeBeingReplacedListener,
+	implements TorrentListChangedListener, ActionModeBeingReplacedListener,
 	NetworkStateListener
 {
 	private static final String TAG = "TorrentDetailsView";
@@ -96,14 +97,16 @@ public class TorrentDetailsActivity
 	protected void onPause() {
 		BiglyBTApp.getNetworkState().removeListener(this);
 		super.onPause();
-		session.torrent.removeListReceivedListener(this);
+		session.torrent.removeListChangedListener(this);
 	}
 
 	@Override
 	protected void onResume() {
 		BiglyBTApp.getNetworkState().addListener(this);
 		super.onResume();
-		session.torrent.addListReceivedListener(TAG, this);
+		session.torrent.addListChangedListener(this);
+		// We may have missed changes while paused
+		fillTorrentRow();
 	}
 
 	/**
@@ -120,39 +123,41 @@ public class TorrentDetailsActivity
 	 */
 
 	@Override
-	public void rpcTorrentListReceived(String callID, List<?> addedTorrentMaps,
-			List<String> fields, final int[] fileIndexes,
-			final List<?> removedTorrentIDs) {
+	public void torrentListChanged(@NonNull TorrentListChangeSet changeSet) {
+		if (!changeSet.isTorrentAffected(torrentID)) {
+			return;
+		}
+		final boolean removed = changeSet.wasRemoved(torrentID);
 		runOnUiThread(() -> {
 			if (isFinishing()) {
 				return;
 			}
 
-			if (removedTorrentIDs != null) {
-				boolean found = false;
-				for (Object removedItem : removedTorrentIDs) {
-					if (removedItem instanceof Number) {
-						found = torrentID == ((Number) removedItem).longValue();
-						if (found) {
-							break;
-						}
-					}
-				}
-				if (found) {
-					if (AndroidUtils.DEBUG) {
-						Log.d(TAG, "Closing Details View- torrent rmeoved");
-					}
-					finish();
-					return;
+			if (removed) {
+				if (AndroidUtils.DEBUG) {
+					Log.d(TAG, "Closing Details View- torrent rmeoved");
 				}
+				finish();
+				return;
 			}
-			Map<?, ?> mapTorrent = session.torrent.getCachedTorrent(torrentID);
-			torrentListRowFiller.fillHolder(mapTorrent, session);
-
-			AndroidUtilsUI.invalidateOptionsMenuHC(TorrentDetailsActivity.this);
+			fillTorrentRow();
 		});
 	}
 
+	@Thunk
+	void fillTorrentRow() {
+		if (torrentListRowFiller == null) {
+			return;
+		}
+		Map<?, ?> mapTorrent = session.torrent.getCachedTorrent(torrentID);
+		if (mapTorrent == null) {
+			return;
+		}
+		torrentListRowFiller.fillHolder(mapTorrent, session);
+
+		AndroidUtilsUI.invalidateOptionsMenuHC(TorrentDetailsActivity.this);
+	}
+
 	private void setupActionBar() {
 		Toolbar toolBar = findViewById(R.id.actionbar);
 		if (toolBar != null) {
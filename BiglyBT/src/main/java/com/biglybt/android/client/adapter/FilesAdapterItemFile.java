@@ -16,13 +16,11 @@
 
 package com.biglybt.android.client.adapter;
 
-import java.util.List;
 import java.util.Map;
 
 import com.biglybt.android.client.AndroidUtils;
-import com.biglybt.android.client.TransmissionVars;
 import com.biglybt.android.client.session.Session;
-import com.biglybt.android.util.MapUtils;
+import com.biglybt.android.client.session.TorrentFileStore;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -40,22 +38,14 @@ public class FilesAdapterItemFile
 
 	final long length;
 
-	@SuppressWarnings({
-		"unchecked",
-		"rawtypes"
-	})
 	FilesAdapterItemFile(int fileIndex, @Nullable FilesAdapterItemFolder parent,
-			String path, String name, boolean want, Map<String, Object> mapFile) {
+			String path, String name, boolean want, TorrentFileStore files) {
 		super(parent, path, name);
 		this.fileIndex = fileIndex;
 		this.want = want;
-		priority = MapUtils.getMapInt(mapFile,
-				TransmissionVars.FIELD_TORRENT_FILES_PRIORITY,
-				TransmissionVars.TR_PRI_NORMAL);
-		bytesComplete = MapUtils.getMapLong(mapFile,
-				TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED, 0);
-		length = MapUtils.getMapLong(mapFile, TransmissionVars.FIELD_FILES_LENGTH,
-				-1);
+		priority = files.getPriority(fileIndex);
+		bytesComplete = files.getBytesCompleted(fileIndex);
+		length = files.getLength(fileIndex);
 	}
 
 	@Override
@@ -64,17 +54,11 @@ public class FilesAdapterItemFile
 		if (session == null) {
 			return null;
 		}
-		Map<String, Object> mapTorrent = session.torrent.getCachedTorrent(
-				torrentID);
-
-		List<?> listFiles = MapUtils.getMapList(mapTorrent,
-				TransmissionVars.FIELD_TORRENT_FILES, null);
-
-		if (listFiles == null || fileIndex >= listFiles.size()) {
+		TorrentFileStore files = session.torrent.getCachedFiles(torrentID);
+		if (files == null || fileIndex >= files.size()) {
 			return null;
 		}
-		//noinspection unchecked
-		return (Map<String, Object>) listFiles.get(fileIndex);
+		return files.get(fileIndex);
 	}
 
 	@Override
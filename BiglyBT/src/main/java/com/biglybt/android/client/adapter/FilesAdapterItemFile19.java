@@ -16,7 +16,7 @@
 
 package com.biglybt.android.client.adapter;
 
-import java.util.Map;
+import com.biglybt.android.client.session.TorrentFileStore;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -28,8 +28,8 @@ public class FilesAdapterItemFile19
 	extends FilesAdapterItemFile
 {
 	FilesAdapterItemFile19(int fileIndex, @Nullable FilesAdapterItemFolder parent,
-			String path, String name, boolean want, Map<String, Object> mapFile) {
-		super(fileIndex, parent, path, name, want, mapFile);
+			String path, String name, boolean want, TorrentFileStore files) {
+		super(fileIndex, parent, path, name, want, files);
 	}
 
 	@Override
@@ -20,6 +20,7 @@ import java.util.*;
 
 import com.biglybt.android.client.TransmissionVars;
 import com.biglybt.android.client.session.Session;
+import com.biglybt.android.client.session.TorrentFolderTree;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -37,9 +38,9 @@ public class FilesAdapterItemFolder
 
 	public int numFilesFilteredWanted;
 
-	private List<Integer> fileIndexes = new ArrayList<>();
+	private int numFiles;
 
-	private List<Integer> filteredFileIndexes = new ArrayList<>();
+	private int numFilteredFiles;
 
 	public long size;
 
@@ -49,6 +50,15 @@ public class FilesAdapterItemFolder
 
 	public final String folder;
 
+	@Nullable
+	private TorrentFolderTree tree;
+
+	private int node;
+
+	/** File positions that passed the filter, or null if all did */
+	@Nullable
+	private BitSet filteredFiles;
+
 	FilesAdapterItemFolder(String folder, @Nullable FilesAdapterItemFolder parent,
 			String path, String name) {
 		super(parent, path, name);
@@ -67,47 +77,61 @@ public class FilesAdapterItemFolder
 		return parent == null || parent.expand && parent.parentsExpanded();
 	}
 
-	void summarizeFile(int index, long length, boolean wanted, boolean allowed) {
-		size += length;
-		fileIndexes.add(index);
-		if (allowed) {
-			filteredFileIndexes.add(index);
-		}
-		if (wanted) {
-			sizeWanted += length;
-			numFilesWanted++;
-			if (allowed) {
-				numFilesFilteredWanted++;
-				sizeWantedFiltered += length;
-			}
-		}
-		if (parent != null) {
-			parent.summarizeFile(index, length, wanted, allowed);
-		}
+	/**
+	 * Take the unfiltered totals from the folder's node in the tree
+	 */
+	void setTotals(@NonNull TorrentFolderTree tree, int node) {
+		this.tree = tree;
+		this.node = node;
+		size = tree.getSize(node);
+		sizeWanted = tree.getSizeWanted(node);
+		numFiles = tree.getNumFiles(node);
+		numFilesWanted = tree.getNumFilesWanted(node);
+	}
+
+	/**
+	 * No filter is active, so filtered totals are the same as unfiltered
+	 */
+	void setFilteredAll() {
+		filteredFiles = null;
+		numFilteredFiles = numFiles;
+		numFilesFilteredWanted = numFilesWanted;
+		sizeWantedFiltered = sizeWanted;
+	}
+
+	void setFiltered(@NonNull BitSet filteredFiles, int numFilteredFiles,
+			int numFilesFilteredWanted, long sizeWantedFiltered) {
+		this.filteredFiles = filteredFiles;
+		this.numFilteredFiles = numFilteredFiles;
+		this.numFilesFilteredWanted = numFilesFilteredWanted;
+		this.sizeWantedFiltered = sizeWantedFiltered;
 	}
 
 	public int getNumFiles() {
-		return fileIndexes.size();
+		return numFiles;
 	}
 
 	public int[] getFileIndexes() {
-		int[] indexesArray = new int[fileIndexes.size()];
-		for (int i = 0; i < fileIndexes.size(); i++) {
-			indexesArray[i] = fileIndexes.get(i);
-		}
-		return indexesArray;
+		return tree == null ? new int[0] : tree.getAllFiles(node);
 	}
 
 	public int getNumFilteredFiles() {
-		return filteredFileIndexes.size();
+		return numFilteredFiles;
 	}
 
 	public int[] getFilteredFileIndexes() {
-		int[] indexesArray = new int[filteredFileIndexes.size()];
-		for (int i = 0; i < filteredFileIndexes.size(); i++) {
-			indexesArray[i] = filteredFileIndexes.get(i);
+		int[] fileIndexes = getFileIndexes();
+		if (filteredFiles == null) {
+			return fileIndexes;
+		}
+		int[] indexesArray = new int[fileIndexes.length];
+		int num = 0;
+		for (int fileIndex : fileIndexes) {
+			if (filteredFiles.get(fileIndex)) {
+				indexesArray[num++] = fileIndex;
+			}
 		}
-		return indexesArray;
+		return Arrays.copyOf(indexesArray, num);
 	}
 
 	@Override
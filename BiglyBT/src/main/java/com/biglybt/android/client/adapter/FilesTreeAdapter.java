@@ -17,16 +17,14 @@
 package com.biglybt.android.client.adapter;
 
 import java.text.NumberFormat;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Pattern;
 
 import com.biglybt.android.adapter.*;
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.rpc.ReplyMapReceivedListener;
 import com.biglybt.android.client.session.Session;
-import com.biglybt.android.util.MapUtils;
+import com.biglybt.android.client.session.TorrentFileStore;
 import com.biglybt.android.util.TextViewFlipper;
 import com.biglybt.util.DisplayFormatters;
 import com.biglybt.util.Thunk;
@@ -314,13 +312,8 @@ public class FilesTreeAdapter
 			ReplyMapReceivedListener replyMapReceivedListener,
 			FilesAdapterItemFolder folderItem) {
 		Session session = sessionGetter.getSession();
-		Map<?, ?> torrent = session.torrent.getCachedTorrent(torrentID);
-		if (torrent == null) {
-			return;
-		}
-		//noinspection unchecked
-		final List<Map<String, Object>> listFiles = MapUtils.getMapList(torrent,
-				TransmissionVars.FIELD_TORRENT_FILES, null);
+		final TorrentFileStore listFiles = session.torrent.getCachedFiles(
+				torrentID);
 		if (listFiles == null) {
 			return;
 		}
@@ -328,12 +321,10 @@ public class FilesTreeAdapter
 		int[] fileIndexes = filtered ? folderItem.getFilteredFileIndexes()
 				: folderItem.getFileIndexes();
 		for (int index : fileIndexes) {
-			Map<String, Object> map = listFiles.get(index);
 			if (toWantStat == null) {
-				toWantStat = !MapUtils.getMapBoolean(map,
-						TransmissionVars.FIELD_FILESTATS_WANTED, true);
+				toWantStat = !listFiles.isWanted(index);
 			}
-			map.put(TransmissionVars.FIELD_FILESTATS_WANTED, toWantStat);
+			listFiles.setWanted(index, toWantStat);
 		}
 
 		if (fileIndexes.length == 0) {
@@ -402,10 +393,10 @@ public class FilesTreeAdapter
 		}
 		if (holder.tvInfo != null) {
 			String s = inEditMode || oFile.bytesComplete == oFile.length
-					? DisplayFormatters.formatByteCountToKiBEtc(oFile.length)
+					? holder.lengthText.get(oFile.length)
 					: holder.tvInfo.getResources().getString(R.string.generic_x_of_y,
-							DisplayFormatters.formatByteCountToKiBEtc(oFile.bytesComplete),
-							DisplayFormatters.formatByteCountToKiBEtc(oFile.length));
+							holder.completeText.get(oFile.bytesComplete),
+							holder.lengthText.get(oFile.length));
 			flipper.changeText(holder.tvInfo, s, animateFlip, validator);
 		}
 		if (holder.tvStatus != null) {
@@ -466,13 +457,15 @@ public class FilesTreeAdapter
 		int[] fileIndexes = new int[fileItems.length];
 		int i = 0;
 
+		Session session = sessionGetter.getSession();
+		TorrentFileStore listFiles = session.torrent.getCachedFiles(torrentID);
+		if (listFiles == null) {
+			return;
+		}
+
 		for (FilesAdapterItemFile oFile : fileItems) {
 			int fileIndex = oFile.fileIndex;
-			if (fileIndex < 0) {
-				continue;
-			}
-			Map<String, Object> map = getFileMap(oFile);
-			if (map == null) {
+			if (fileIndex < 0 || fileIndex >= listFiles.size()) {
 				continue;
 			}
 
@@ -481,15 +474,13 @@ public class FilesTreeAdapter
 			if (toWantState == null) {
 				toWantState = !oFile.want;
 			}
-			//noinspection unchecked
-			map.put(TransmissionVars.FIELD_FILESTATS_WANTED, toWantState);
+			listFiles.setWanted(fileIndex, toWantState);
 			oFile.want = toWantState;
 			notifyItemChanged(getPositionForItem(oFile));
 
 			if (oFile.path == null || oFile.path.length() == 0) {
 				FilesTreeFilter filter = getFilter();
-				long length = MapUtils.getMapLong(map,
-						TransmissionVars.FIELD_FILES_LENGTH, 0);
+				long length = listFiles.getLength(fileIndex);
 				if (toWantState) {
 					filter.totalFilteredNumFilesWanted++;
 					filter.totalNumFilesWanted++;
@@ -522,34 +513,10 @@ public class FilesTreeAdapter
 			System.arraycopy(old, 0, fileIndexes, 0, i);
 		}
 
-		Session session = sessionGetter.getSession();
 		session.torrent.setFileWantState("FileWant" + i, torrentID, fileIndexes,
 				toWantState, replyMapReceivedListener);
 	}
 
-	@SuppressWarnings("rawtypes")
-	@Thunk
-	static Map<?, ?> getFileMap(FilesAdapterItem o, @NonNull List<?> mapList) {
-		if (o instanceof FilesAdapterItemFile) {
-			FilesAdapterItemFile file = (FilesAdapterItemFile) o;
-			return (Map<?, ?>) mapList.get(file.fileIndex);
-		}
-		if (o instanceof FilesAdapterItemFolder) {
-			return ((FilesAdapterItemFolder) o).map;
-		}
-		return Collections.EMPTY_MAP;
-	}
-
-	@SuppressWarnings("rawtypes")
-	private Map<String, Object> getFileMap(
-			FilesAdapterItem filesAdapterDisplayObject) {
-
-		Session session = sessionGetter.getSession();
-		//noinspection unchecked
-		return (Map<String, Object>) filesAdapterDisplayObject.getMap(session,
-				torrentID);
-	}
-
 	public void setTorrentID(long torrentID, boolean alwaysRefilter) {
 		if (torrentID != this.torrentID) {
 			this.torrentID = torrentID;
@@ -560,6 +527,17 @@ public class FilesTreeAdapter
 		}
 	}
 
+	@Override
+	public Object getItemKey(FilesAdapterItem item) {
+		if (item instanceof FilesAdapterItemFile) {
+			return ((FilesAdapterItemFile) item).fileIndex;
+		}
+		if (item instanceof FilesAdapterItemFolder) {
+			return ((FilesAdapterItemFolder) item).folder;
+		}
+		return null;
+	}
+
 	@Override
 	public long getItemId(int position) {
 		FilesAdapterItem filesAdapterDisplayObject = getItem(position);
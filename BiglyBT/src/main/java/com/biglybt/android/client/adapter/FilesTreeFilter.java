@@ -21,6 +21,8 @@ import java.util.*;
 import com.biglybt.android.adapter.*;
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.session.Session;
+import com.biglybt.android.client.session.TorrentFileStore;
+import com.biglybt.android.client.session.TorrentFolderTree;
 import com.biglybt.android.util.MapUtils;
 import com.biglybt.util.Thunk;
 import com.simplecityapps.recyclerview_fastscroll.views.FastScrollRecyclerView;
@@ -88,7 +90,7 @@ public class FilesTreeFilter
 	int totalNumFilesWanted;
 
 	@Thunk
-	Map<String, Object>[] files = null;
+	TorrentFileStore files = null;
 
 	private long sizeStart = -1;
 
@@ -126,12 +128,13 @@ public class FilesTreeFilter
 	}
 
 	@Thunk
-	static Map<?, ?> getFileMap(FilesAdapterItem o, Object[] files) {
+	static Map<?, ?> getFileMap(FilesAdapterItem o, TorrentFileStore files) {
 		if (o instanceof FilesAdapterItemFile) {
-			if (files == null) {
+			int fileIndex = ((FilesAdapterItemFile) o).fileIndex;
+			if (files == null || fileIndex >= files.size()) {
 				return Collections.EMPTY_MAP;
 			}
-			return (Map<?, ?>) files[((FilesAdapterItemFile) o).fileIndex];
+			return files.get(fileIndex);
 		}
 		if (o instanceof FilesAdapterItemFolder) {
 			return ((FilesAdapterItemFolder) o).map;
@@ -149,18 +152,11 @@ public class FilesTreeFilter
 		boolean useTree = sortDefinition.id == 0;
 
 		Session session = talkback.getSession();
-		Map<?, ?> torrent = session.torrent.getCachedTorrent(torrentID);
-		if (torrent == null) {
-			if (AndroidUtils.DEBUG_ADAPTER) {
-				log(TAG, "No torrent for " + torrentID);
-			}
-			return results;
-		}
-		final List<?> listFiles = MapUtils.getMapList(torrent,
-				TransmissionVars.FIELD_TORRENT_FILES, null);
+		final TorrentFileStore listFiles = session.torrent.getCachedFiles(
+				torrentID);
 		if (listFiles == null) {
 			if (AndroidUtils.DEBUG_ADAPTER) {
-				log(TAG, "No files");
+				log(TAG, "No files for " + torrentID);
 			}
 			return results;
 		}
@@ -168,10 +164,7 @@ public class FilesTreeFilter
 			log(TAG, "listFiles=" + listFiles.size());
 		}
 
-		if (files == null) {
-			//noinspection unchecked,SuspiciousToArrayCall
-			files = (Map<String, Object>[]) listFiles.toArray(new Map[0]);
-		}
+		files = listFiles;
 
 		List<FilesAdapterItem> list = useTree ? performTreeFiltering(map, listFiles)
 				: performNonTreeFiltering(map, listFiles);
@@ -179,7 +172,7 @@ public class FilesTreeFilter
 		doSort(list);
 
 		map.put(RESULTFIELD_LIST, list);
-		//refreshSections(torrent, list, map);
+		//refreshSections(listFiles, list, map);
 
 		results.values = map;
 		results.count = list.size();
@@ -188,7 +181,7 @@ public class FilesTreeFilter
 	}
 
 	private List<FilesAdapterItem> performNonTreeFiltering(
-			Map<String, Object> map, List<?> listFiles) {
+			Map<String, Object> map, TorrentFileStore listFiles) {
 		long totalFilteredSizeWanted = 0;
 		int totalFilteredNumFilesWanted = 0;
 		long totalSizeWanted = 0;
@@ -197,36 +190,44 @@ public class FilesTreeFilter
 		List<FilesAdapterItem> list = new ArrayList<>();
 		int listFilesSize = listFiles.size();
 
-		HashSet<String> setLetters = null;
-		HashMap<String, Integer> mapLetterCount = null;
-		if (isBuildLetters()) {
-			setLetters = new HashSet<>();
-			mapLetterCount = new HashMap<>();
-		}
+		boolean buildLetters = isBuildLetters();
 		String constraintString = constraint == null ? "" : constraint.toString();
+		String[] names = null;
+		BitSet constraintMatches = null;
+		BitSet allowedFiles = null;
+		if (buildLetters || !constraintString.isEmpty()) {
+			names = new String[listFilesSize];
+			for (int i = 0; i < listFilesSize; i++) {
+				names[i] = listFiles.getName(i);
+			}
+			constraintMatches = constraintMatches(constraintString, names);
+			allowedFiles = new BitSet(listFilesSize);
+		} else {
+			clearConstraintIndex();
+		}
 
 		for (int i = 0; i < listFilesSize; i++) {
-			@SuppressWarnings("unchecked")
-			Map<String, Object> mapFile = (Map<String, Object>) listFiles.get(i);
-
-			boolean wanted = MapUtils.getMapBoolean(mapFile,
-					TransmissionVars.FIELD_FILESTATS_WANTED, true);
-			long length = MapUtils.getMapLong(mapFile,
-					TransmissionVars.FIELD_FILES_LENGTH, 0);
+			if ((i & 0xFFF) == 0) {
+				checkCancelled();
+			}
+			boolean wanted = listFiles.isWanted(i);
+			long length = listFiles.getLength(i);
 
-			String shortName = MapUtils.getMapString(mapFile,
-					TransmissionVars.FIELD_FILES_NAME, "");
+			String shortName = names == null ? listFiles.getName(i) : names[i];
 			String path = "";
 
-			boolean allowed = filterCheck(mapFile) && constraintCheck(
-					constraintString, shortName, setLetters, mapLetterCount);
+			boolean allowed = filterCheck(listFiles, i)
+					&& (constraintMatches == null || constraintMatches.get(i));
 
 			if (allowed) {
+				if (allowedFiles != null) {
+					allowedFiles.set(i);
+				}
 				FilesAdapterItemFile f = Build.VERSION.SDK_INT >= 19
 						? new FilesAdapterItemFile19(i, null, path, shortName, wanted,
-								mapFile)
+								listFiles)
 						: new FilesAdapterItemFile(i, null, path, shortName, wanted,
-								mapFile);
+								listFiles);
 				list.add(f);
 				totalFilteredNumFiles++;
 			}
@@ -250,10 +251,10 @@ public class FilesTreeFilter
 		map.put(RESULTFIELD_TOTAL_SIZE_WANTED, totalSizeWanted);
 		map.put(RESULTFIELD_TOTAL_NUM_FILES_WANTED, totalNumFilesWanted);
 
-		if (mapLetterCount != null) {
+		if (buildLetters && allowedFiles != null) {
 			LettersUpdatedListener lettersUpdatedListener = getLettersUpdatedListener();
 			if (lettersUpdatedListener != null) {
-				lettersUpdatedListener.lettersUpdated(mapLetterCount);
+				lettersUpdatedListener.lettersUpdated(buildLetterCounts(allowedFiles));
 			}
 		}
 
@@ -261,7 +262,7 @@ public class FilesTreeFilter
 	}
 
 	private List<FilesAdapterItem> performTreeFiltering(Map<String, Object> map,
-			List<?> listFiles) {
+			TorrentFileStore listFiles) {
 		long totalSizeWanted = 0;
 		int totalNumFilesWanted = 0;
 
@@ -272,50 +273,106 @@ public class FilesTreeFilter
 		List<FilesAdapterItem> list = new ArrayList<>();
 		int listFilesSize = listFiles.size();
 
+		boolean buildLetters = isBuildLetters();
+		String constraintString = constraint == null ? "" : constraint.toString();
+		BitSet allowedFiles = null;
+
+		// Folder totals are kept up to date by the tree, so we only need to
+		// create the folder items
+		TorrentFolderTree tree = listFiles.getFolderTree();
+		int numNodes = tree.getNodeCount();
+		FilesAdapterItemFolder[] folderItems = new FilesAdapterItemFolder[numNodes];
+		boolean[] nodeShowsFiles = new boolean[numNodes];
+		nodeShowsFiles[TorrentFolderTree.ROOT] = true;
 		Map<String, FilesAdapterItemFolder> mapFoldersNew = new HashMap<>();
+		for (int node = 1; node < numNodes; node++) {
+			int parentNode = tree.getParent(node);
+			String folderWalk = tree.getPath(node);
+			FilesAdapterItemFolder folderItem = new FilesAdapterItemFolder(
+					folderWalk, folderItems[parentNode], tree.getParentPath(node),
+					tree.getName(node));
+			if (mapFolders != null) {
+				FilesAdapterItemFolder oldFolder = mapFolders.get(folderWalk);
+				if (oldFolder != null) {
+					folderItem.expand = oldFolder.expand;
+				}
+			}
+			folderItem.setTotals(tree, node);
+			folderItems[node] = folderItem;
+			// parents come before children, so parent's flag is already set
+			nodeShowsFiles[node] = folderItem.expand
+					&& (parentNode == TorrentFolderTree.ROOT
+							|| nodeShowsFiles[parentNode]);
+			mapFoldersNew.put(folderWalk, folderItem);
+		}
 
-		HashSet<String> setLetters = null;
-		HashMap<String, Integer> mapLetterCount = null;
-		if (isBuildLetters()) {
-			setLetters = new HashSet<>();
-			mapLetterCount = new HashMap<>();
+		long treeMaxLength = tree.getMaxLength();
+		if (treeMaxLength > maxSize) {
+			maxSize = treeMaxLength;
 		}
-		String constraintString = constraint == null ? "" : constraint.toString();
 
-		for (int i = 0; i < listFilesSize; i++) {
-			@SuppressWarnings("unchecked")
-			Map<String, Object> mapFile = (Map<String, Object>) listFiles.get(i);
-
-			boolean wanted = MapUtils.getMapBoolean(mapFile,
-					TransmissionVars.FIELD_FILESTATS_WANTED, true);
-			long length = MapUtils.getMapLong(mapFile,
-					TransmissionVars.FIELD_FILES_LENGTH, 0);
-			String name = MapUtils.getMapString(mapFile,
-					TransmissionVars.FIELD_FILES_NAME, "");
-
-			// Get the folder name and see if we added it yet
-			int folderBreaksAt = AndroidUtils.lastindexOfAny(name,
-					TorrentUtils.ANYSLASH, -1);
-			String folderWithSlash = folderBreaksAt <= 0 ? ""
-					: name.substring(0, folderBreaksAt + 1);
-			FilesAdapterItemFolder folderItem = ensureParentFolders(folderWithSlash,
-					mapFoldersNew, mapFolders, list);
-
-			String shortName = name.substring(folderWithSlash.length(),
-					name.length());
-
-			boolean allowed = filterCheck(mapFile) && constraintCheck(
-					constraintString, shortName, setLetters, mapLetterCount);
-
-			boolean addFile = false;
-
-			if (folderItem == null) {
-				// probably root
-				if (allowed) {
-					addFile = true;
-					totalFilteredNumFiles++;
+		boolean filtering = buildLetters || !constraintString.isEmpty()
+				|| sizeStart > 0 || sizeEnd > 0 || showOnlyComplete || showOnlyWanted;
+
+		if (!filtering) {
+			clearConstraintIndex();
+			// Every file passes, so only visit the files that will be shown
+			for (int node = 0; node < numNodes; node++) {
+				FilesAdapterItemFolder folderItem = folderItems[node];
+				if (folderItem != null) {
+					folderItem.setFilteredAll();
+				}
+				if (!nodeShowsFiles[node]) {
+					continue;
+				}
+				String folderWithSlash = tree.getPath(node);
+				for (int i : tree.getFiles(node)) {
+					boolean wanted = listFiles.isWanted(i);
+					list.add(createFileItem(i, folderItem, folderWithSlash,
+							listFiles.getShortName(i), wanted, listFiles));
+					if (folderItem == null) {
+						totalFilteredNumFiles++;
+						if (wanted) {
+							totalFilteredNumFilesWanted++;
+							totalFilteredSizeWanted += listFiles.getLength(i);
+						}
+					}
+				}
+			}
+		} else {
+			BitSet constraintMatches = null;
+			if (buildLetters || !constraintString.isEmpty()) {
+				String[] names = new String[listFilesSize];
+				for (int i = 0; i < listFilesSize; i++) {
+					names[i] = listFiles.getShortName(i);
 				}
-				if (folderWithSlash.length() == 0) {
+				constraintMatches = constraintMatches(constraintString, names);
+			} else {
+				clearConstraintIndex();
+			}
+
+			BitSet filteredFiles = new BitSet(listFilesSize);
+			allowedFiles = filteredFiles;
+			int[] nodeNumFiltered = new int[numNodes];
+			int[] nodeNumFilteredWanted = new int[numNodes];
+			long[] nodeSizeFilteredWanted = new long[numNodes];
+
+			for (int i = 0; i < listFilesSize; i++) {
+				if ((i & 0xFFF) == 0) {
+					checkCancelled();
+				}
+				boolean wanted = listFiles.isWanted(i);
+				long length = listFiles.getLength(i);
+				int node = tree.getNode(i);
+				String shortName = listFiles.getShortName(i);
+
+				boolean allowed = filterCheck(listFiles, i)
+						&& (constraintMatches == null || constraintMatches.get(i));
+
+				if (node == TorrentFolderTree.ROOT) {
+					if (allowed) {
+						totalFilteredNumFiles++;
+					}
 					if (wanted) {
 						if (allowed) {
 							totalFilteredNumFilesWanted++;
@@ -326,26 +383,38 @@ public class FilesTreeFilter
 						}
 					}
 				}
-			} else {
-				folderItem.summarizeFile(i, length, wanted, allowed);
-				addFile = allowed && folderItem.expand && folderItem.parentsExpanded();
+
+				if (!allowed) {
+					continue;
+				}
+
+				filteredFiles.set(i);
+				for (int n = node; n > TorrentFolderTree.ROOT; n = tree.getParent(n)) {
+					nodeNumFiltered[n]++;
+					if (wanted) {
+						nodeNumFilteredWanted[n]++;
+						nodeSizeFilteredWanted[n] += length;
+					}
+				}
+
+				if (nodeShowsFiles[node]) {
+					list.add(createFileItem(i, folderItems[node], tree.getPath(node),
+							shortName, wanted, listFiles));
+				}
 			}
 
-			if (addFile) {
-				FilesAdapterItemFile f = Build.VERSION.SDK_INT >= 19
-						? new FilesAdapterItemFile19(i, folderItem, folderWithSlash,
-								shortName, wanted, mapFile)
-						: new FilesAdapterItemFile(i, folderItem, folderWithSlash,
-								shortName, wanted, mapFile);
-				list.add(f);
+			for (int node = 1; node < numNodes; node++) {
+				folderItems[node].setFiltered(filteredFiles, nodeNumFiltered[node],
+						nodeNumFilteredWanted[node], nodeSizeFilteredWanted[node]);
 			}
 		}
 
 		// calculate global totals
-		// remove empty folders
-		for (String key : mapFoldersNew.keySet()) {
-			FilesAdapterItemFolder folderItem = mapFoldersNew.get(key);
-			if (folderItem.level == 0) {
+		// skip empty folders
+		for (int node = 1; node < numNodes; node++) {
+			FilesAdapterItemFolder folderItem = folderItems[node];
+			int parentNode = tree.getParent(node);
+			if (parentNode == TorrentFolderTree.ROOT) {
 				totalFilteredSizeWanted += folderItem.sizeWantedFiltered;
 				totalFilteredNumFilesWanted += folderItem.numFilesFilteredWanted;
 				totalFilteredNumFiles += folderItem.getNumFilteredFiles();
@@ -353,8 +422,9 @@ public class FilesTreeFilter
 				totalSizeWanted += folderItem.sizeWanted;
 				totalNumFilesWanted += folderItem.numFilesWanted;
 			}
-			if (folderItem.getNumFilteredFiles() == 0) {
-				list.remove(folderItem);
+			if (folderItem.getNumFilteredFiles() > 0
+					&& nodeShowsFiles[parentNode]) {
+				list.add(folderItem);
 			}
 		}
 
@@ -368,74 +438,32 @@ public class FilesTreeFilter
 
 		map.put(RESULTFIELD_FOLDERS, mapFoldersNew);
 
-		if (mapLetterCount != null) {
+		if (buildLetters && allowedFiles != null) {
 			LettersUpdatedListener lettersUpdatedListener = getLettersUpdatedListener();
 			if (lettersUpdatedListener != null) {
-				lettersUpdatedListener.lettersUpdated(mapLetterCount);
+				lettersUpdatedListener.lettersUpdated(buildLetterCounts(allowedFiles));
 			}
 		}
 
 		return list;
 	}
 
-	private static FilesAdapterItemFolder ensureParentFolders(
-			String folderWithSlash, Map<String, FilesAdapterItemFolder> mapFoldersNew,
-			Map<String, FilesAdapterItemFolder> mapFolders,
-			List<FilesAdapterItem> list) {
-		if (folderWithSlash.isEmpty()) {
-			return null;
-		}
-		FilesAdapterItemFolder existing = mapFoldersNew.get(folderWithSlash);
-		if (existing != null) {
-			return existing;
-		}
-
-		// add folder and parents
-		String[] folderSplit = FilesTreeAdapter.patternFolderSplit.split(
-				folderWithSlash);
-		int startAt = folderSplit[0].length() == 0 ? 1 : 0;
-		int pos = startAt;
-		FilesAdapterItemFolder last = null;
-		for (int j = startAt; j < folderSplit.length; j++) {
-			int oldPos = pos;
-			pos += folderSplit[j].length() + 1;
-			String folderWalk = folderWithSlash.substring(0, pos);
-
-			existing = mapFoldersNew.get(folderWalk);
-			if (existing == null) {
-				String path = folderWithSlash.substring(0, oldPos);
-				String folderName = folderSplit[j];
-
-				FilesAdapterItemFolder displayFolder = new FilesAdapterItemFolder(
-						folderWalk, last, path, folderName);
-				last = displayFolder;
-//						Log.e(TAG, i + "." + j + "] " + folderName + "] " + folderWalk
-//								+ " for " + name);
-				if (mapFolders != null) {
-					FilesAdapterItemFolder oldFolder = mapFolders.get(folderWalk);
-					if (oldFolder != null) {
-						displayFolder.expand = oldFolder.expand;
-					}
-				}
-				mapFoldersNew.put(folderWalk, displayFolder);
-				if (displayFolder.getNumFiles() == 0
-						&& displayFolder.parentsExpanded()) {
-					list.add(displayFolder);
-				}
-			} else {
-				last = existing;
-			}
-		}
-		return last;
+	private static FilesAdapterItemFile createFileItem(int fileIndex,
+			FilesAdapterItemFolder folderItem, String path, String shortName,
+			boolean wanted, TorrentFileStore listFiles) {
+		return Build.VERSION.SDK_INT >= 19
+				? new FilesAdapterItemFile19(fileIndex, folderItem, path, shortName,
+						wanted, listFiles)
+				: new FilesAdapterItemFile(fileIndex, folderItem, path, shortName,
+						wanted, listFiles);
 	}
 
 	@SuppressWarnings({
 		"RedundantIfStatement",
 		"BooleanMethodIsAlwaysInverted"
 	})
-	private boolean filterCheck(Map<?, ?> mapFile) {
-		long size = MapUtils.getMapLong(mapFile,
-				TransmissionVars.FIELD_FILES_LENGTH, -1);
+	private boolean filterCheck(TorrentFileStore listFiles, int position) {
+		long size = listFiles.getLength(position);
 
 		if (size > maxSize) {
 			maxSize = size;
@@ -449,12 +477,10 @@ public class FilesTreeFilter
 			}
 		}
 
-		if (showOnlyComplete && MapUtils.getMapLong(mapFile,
-				TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED, -1) != size) {
+		if (showOnlyComplete && listFiles.getBytesCompleted(position) != size) {
 			return false;
 		}
-		if (showOnlyWanted && !MapUtils.getMapBoolean(mapFile,
-				TransmissionVars.FIELD_FILESTATS_WANTED, true)) {
+		if (showOnlyWanted && !listFiles.isWanted(position)) {
 			return false;
 		}
 
@@ -502,26 +528,23 @@ public class FilesTreeFilter
 	}
 
 	@Thunk
-	static void refreshSections(Map torrent, List<FilesAdapterItem> displayList,
-			Map<String, Object> map) {
+	static void refreshSections(TorrentFileStore listFiles,
+			List<FilesAdapterItem> displayList, Map<String, Object> map) {
 
 		List<String> categories = new ArrayList<>();
 		List<Integer> categoriesStart = new ArrayList<>();
 		String lastFullCat = " ";
-		List<?> listFiles = MapUtils.getMapList(torrent,
-				TransmissionVars.FIELD_TORRENT_FILES, null);
 
 		if (listFiles == null) {
 			return;
 		}
 		for (int i = 0; i < displayList.size(); i++) {
 			FilesAdapterItem displayObject = displayList.get(i);
-			if (displayObject instanceof FilesAdapterItemFolder) {
+			if (!(displayObject instanceof FilesAdapterItemFile)) {
 				continue;
 			}
-			Map<?, ?> mapFile = FilesTreeAdapter.getFileMap(displayObject, listFiles);
-			String name = MapUtils.getMapString(mapFile,
-					TransmissionVars.FIELD_FILES_NAME, "");
+			String name = listFiles.getName(
+					((FilesAdapterItemFile) displayObject).fileIndex);
 			//.toUpperCase(Locale.US); adds a lot of time on large lists
 			if (!name.startsWith(lastFullCat)) {
 				final int MAX_CATS = 3;
@@ -633,7 +656,7 @@ public class FilesTreeFilter
 
 	@Override
 	public boolean showLetterUI() {
-		return files != null && files.length > 3;
+		return files != null && files.size() > 3;
 	}
 
 	@Override
@@ -744,7 +767,7 @@ public class FilesTreeFilter
 	}
 
 	public int getUnfilteredFileCount() {
-		return files == null ? 0 : files.length;
+		return files == null ? 0 : files.size();
 	}
 
 	@Override
@@ -18,6 +18,7 @@ package com.biglybt.android.client.adapter;
 
 import com.biglybt.android.adapter.FlexibleRecyclerViewHolder;
 import com.biglybt.android.client.R;
+import com.biglybt.android.util.FormattedLongCache;
 
 import android.view.View;
 import android.widget.*;
@@ -43,6 +44,10 @@ public class FilesTreeViewHolder
 
 	final RelativeLayout layout;
 
+	final FormattedLongCache lengthText = FormattedLongCache.forByteCount();
+
+	final FormattedLongCache completeText = FormattedLongCache.forByteCount();
+
 	public int fileIndex = -1;
 
 	public long torrentID = -1;
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.adapter;
+
+import java.util.*;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.MapUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import android.util.Log;
+
+/**
+ * MetaSearch results, keyed by hash (or URL when there's no hash).
+ * <p>
+ * Each poll of "vuze-search-get-results" sends every engine's result list
+ * again.  Per engine, the index remembers how many results it has taken,
+ * and the key of the last one, so the next poll only looks at what was
+ * appended.  If the list doesn't line up with what was taken (the engine
+ * restarted, or the remote only sent new results), the whole list is looked
+ * at, and the hash index drops the ones already known.
+ * <p>
+ * A result found by more than one engine is kept once, with the other
+ * engines' copies in its "others" list.  No more than {@link #maxResults}
+ * unique results are kept; later ones are counted and dropped.
+ * <p>
+ * Thread safe.  Results are ingested on an RPC thread and read by the
+ * filter and UI.
+ */
+public class MetaSearchResultIndex
+{
+	private static final String TAG = "MetaSearchResultIndex";
+
+	public static final int DEFAULT_MAX_RESULTS = 5000;
+
+	private static final String FIELD_OTHERS = "others";
+
+	private static final String[] IDS_LONG = {
+		TransmissionVars.FIELD_SEARCHRESULT_PUBLISHDATE,
+		TransmissionVars.FIELD_SEARCHRESULT_PEERS,
+		TransmissionVars.FIELD_SEARCHRESULT_SIZE,
+		TransmissionVars.FIELD_SEARCHRESULT_SEEDS,
+	};
+
+	private static final String[] IDS_FLOAT = {
+		TransmissionVars.FIELD_SEARCHRESULT_RANK,
+	};
+
+	private static final class EngineProgress
+	{
+		int numTaken;
+
+		String lastKey;
+	}
+
+	/**
+	 * Keys touched by one {@link #ingest(List)}
+	 */
+	public static final class Update
+	{
+		/** Results not in the index before */
+		@NonNull
+		public final List<String> added = new ArrayList<>();
+
+		/** Existing results that another engine also found */
+		@NonNull
+		public final List<String> changed = new ArrayList<>();
+
+		public boolean isEmpty() {
+			return added.isEmpty() && changed.isEmpty();
+		}
+	}
+
+	/**
+	 * <HashString, Map of Fields>
+	 */
+	private final HashMap<String, Map> mapResults = new HashMap<>();
+
+	private final HashMap<String, EngineProgress> mapEngineProgress = new HashMap<>();
+
+	private final int maxResults;
+
+	private int numDropped;
+
+	private long maxSize;
+
+	public MetaSearchResultIndex() {
+		this(DEFAULT_MAX_RESULTS);
+	}
+
+	public MetaSearchResultIndex(int maxResults) {
+		this.maxResults = maxResults;
+	}
+
+	/**
+	 * Take the new results from the engine list of a
+	 * "vuze-search-get-results" reply
+	 */
+	@NonNull
+	public synchronized Update ingest(@NonNull List engines) {
+		Update update = new Update();
+		for (Object oEngine : engines) {
+			if (!(oEngine instanceof Map)) {
+				continue;
+			}
+			Map mapEngine = (Map) oEngine;
+			List listResults = MapUtils.getMapList(mapEngine, "results", null);
+			if (listResults == null) {
+				continue;
+			}
+			String engineID = MapUtils.getMapString(mapEngine, "id", null);
+
+			EngineProgress progress = mapEngineProgress.get(engineID);
+			if (progress == null) {
+				progress = new EngineProgress();
+				mapEngineProgress.put(engineID, progress);
+			}
+
+			int size = listResults.size();
+			int start = 0;
+			if (progress.numTaken > 0 && progress.numTaken <= size) {
+				Object oLast = listResults.get(progress.numTaken - 1);
+				if ((oLast instanceof Map) && progress.lastKey != null
+						&& progress.lastKey.equals(getKey((Map) oLast))) {
+					start = progress.numTaken;
+				}
+			}
+
+			for (int i = start; i < size; i++) {
+				Object oResult = listResults.get(i);
+				if (!(oResult instanceof Map)) {
+					if (AndroidUtils.DEBUG) {
+						Log.d(TAG, "ingest: NOT A MAP: " + oResult);
+					}
+					continue;
+				}
+				//noinspection unchecked
+				ingestResult(engineID, (Map<String, Object>) oResult, update);
+			}
+
+			if (size > 0) {
+				Object oLast = listResults.get(size - 1);
+				progress.numTaken = size;
+				progress.lastKey = (oLast instanceof Map) ? getKey((Map) oLast)
+						: null;
+			}
+		}
+
+		if (AndroidUtils.DEBUG && !update.isEmpty()) {
+			Log.d(TAG, "ingest: " + update.added.size() + " added, "
+					+ update.changed.size() + " changed; " + mapResults.size()
+					+ " total" + (numDropped > 0 ? ", " + numDropped + " dropped" : ""));
+		}
+		return update;
+	}
+
+	private void ingestResult(String engineID, Map<String, Object> mapResult,
+			Update update) {
+		String key = getKey(mapResult);
+		if (key == null) {
+			if (AndroidUtils.DEBUG) {
+				Log.d(TAG, "ingest: No hash for " + mapResult);
+			}
+			return;
+		}
+
+		Map mapExisting = mapResults.get(key);
+		if (mapExisting == null) {
+			if (mapResults.size() >= maxResults) {
+				numDropped++;
+				return;
+			}
+			fixupResultMap(mapResult);
+			mapResult.put(TransmissionVars.FIELD_SEARCHRESULT_ENGINE_ID, engineID);
+			long size = MapUtils.getMapLong(mapResult,
+					TransmissionVars.FIELD_SEARCHRESULT_SIZE, 0);
+			if (size > maxSize) {
+				maxSize = size;
+			}
+			mapResults.put(key, mapResult);
+			update.added.add(key);
+			return;
+		}
+
+		if (hasEngine(mapExisting, engineID)) {
+			return;
+		}
+
+		fixupResultMap(mapResult);
+		mapResult.put(TransmissionVars.FIELD_SEARCHRESULT_ENGINE_ID, engineID);
+		List others = MapUtils.getMapList(mapExisting, FIELD_OTHERS, null);
+		if (others == null) {
+			others = new ArrayList();
+			//noinspection unchecked
+			mapExisting.put(FIELD_OTHERS, others);
+		}
+		//noinspection unchecked
+		others.add(mapResult);
+		//noinspection unchecked
+		mapExisting.put(TransmissionVars.FIELD_LAST_UPDATED,
+				System.currentTimeMillis());
+		update.changed.add(key);
+	}
+
+	private static boolean hasEngine(Map mapResult, String engineID) {
+		if (engineID == null) {
+			// can't tell engines apart; don't keep piling up copies
+			return true;
+		}
+		if (engineID.equals(MapUtils.getMapString(mapResult,
+				TransmissionVars.FIELD_SEARCHRESULT_ENGINE_ID, null))) {
+			return true;
+		}
+		List others = MapUtils.getMapList(mapResult, FIELD_OTHERS, null);
+		if (others != null) {
+			for (Object other : others) {
+				if ((other instanceof Map) && engineID.equals(MapUtils.getMapString(
+						(Map) other, TransmissionVars.FIELD_SEARCHRESULT_ENGINE_ID,
+						null))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Nullable
+	private static String getKey(Map mapResult) {
+		String key = MapUtils.getMapString(mapResult,
+				TransmissionVars.FIELD_SEARCHRESULT_HASH, null);
+		if (key == null) {
+			key = MapUtils.getMapString(mapResult,
+					TransmissionVars.FIELD_SEARCHRESULT_URL, null);
+		}
+		return key;
+	}
+
+	/**
+	 * Unfortunately, the search results map returns just about everything in
+	 * Strings, including numbers.
+	 */
+	private static void fixupResultMap(Map<String, Object> mapResult) {
+		for (String id : IDS_LONG) {
+			Object o = mapResult.get(id);
+			if (o instanceof String) {
+				try {
+					Long l = Long.valueOf((String) o);
+					mapResult.put(id, l);
+				} catch (Throwable ignore) {
+				}
+			}
+		}
+
+		for (String id : IDS_FLOAT) {
+			Object o = mapResult.get(id);
+			if (o instanceof String) {
+				try {
+					Double d = Double.valueOf((String) o);
+					mapResult.put(id, d);
+				} catch (Throwable ignore) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Put back results saved with {@link #copyResults()}.  Engine progress
+	 * isn't saved, so the next poll goes through every list once more.
+	 */
+	public synchronized void restoreResults(@NonNull Map<String, Object> map) {
+		for (String key : map.keySet()) {
+			Object o = map.get(key);
+			if (o instanceof Map) {
+				Map mapResult = (Map) o;
+				mapResults.put(key, mapResult);
+				long size = MapUtils.getMapLong(mapResult,
+						TransmissionVars.FIELD_SEARCHRESULT_SIZE, 0);
+				if (size > maxSize) {
+					maxSize = size;
+				}
+			}
+		}
+	}
+
+	@NonNull
+	public synchronized Map<String, Map> copyResults() {
+		return new HashMap<>(mapResults);
+	}
+
+	@Nullable
+	public synchronized Map getResult(String key) {
+		return mapResults.get(key);
+	}
+
+	@NonNull
+	public synchronized List<String> getKeys() {
+		return new ArrayList<>(mapResults.keySet());
+	}
+
+	public synchronized int size() {
+		return mapResults.size();
+	}
+
+	public synchronized long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return Number of unique results not kept because the index was full
+	 */
+	public synchronized int getNumDropped() {
+		return numDropped;
+	}
+}
@@ -282,6 +282,11 @@ public class MetaSearchResultsAdapter
 		return new MetaSearchViewResultsHolder(this, rowView);
 	}
 
+	@Override
+	public Object getItemKey(String item) {
+		return item;
+	}
+
 	@Override
 	public LetterFilter<String> createFilter() {
 		return new MetaSearchResultsAdapterFilter(ID_SORT_FILTER, this, rs, mLock);
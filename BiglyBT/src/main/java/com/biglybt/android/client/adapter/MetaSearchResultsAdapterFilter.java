@@ -16,8 +16,7 @@
 
 package com.biglybt.android.client.adapter;
 
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import com.biglybt.android.adapter.*;
 import com.biglybt.android.client.*;
@@ -34,6 +33,13 @@ import android.util.SparseArray;
 /**
  * Filter for MetaSearch Results Adapter
  * <p/>
+ * While a search is running, results arrive every poll.  Rather than filter
+ * and sort every result again, results passed to
+ * {@link #addResults(List, List)} are filtered on their own, sorted, and
+ * merged into the last published list.  Any other {@link #refilter(boolean)}
+ * (filter or sort change, or a caller that doesn't say what changed) does a
+ * full pass.
+ * <p/>
  * Created by TuxPaper on 6/30/16.
  */
 public class MetaSearchResultsAdapterFilter
@@ -65,6 +71,36 @@ public class MetaSearchResultsAdapterFilter
 
 	private int defaultSortID;
 
+	/**
+	 * Keys added or changed since the last publish.  Guarded by mLock, as are
+	 * the other pending/published fields.
+	 */
+	private final LinkedHashSet<String> pendingKeys = new LinkedHashSet<>();
+
+	/** Bumped on every request for a full pass */
+	private int fullPassRequests;
+
+	private int publishedFullPassRequests = -1;
+
+	private List<String> publishedList;
+
+	private HashSet<String> publishedKeys;
+
+	private String publishedConstraint;
+
+	private static final class ResultsUpdate
+	{
+		List<String> list;
+
+		HashSet<String> keys;
+
+		List<String> mergedPendingKeys;
+
+		int fullPassRequests;
+
+		String constraint;
+	}
+
 	MetaSearchResultsAdapterFilter(String ID_SORT_FILTER,
 			SessionAdapterFilterTalkback<String> adapterFilterTalkbalk,
 			MetaSearchResultsAdapter.MetaSearchSelectionListener rs, Object mLock) {
@@ -153,11 +189,68 @@ public class MetaSearchResultsAdapterFilter
 		return filterOnlyUnseen;
 	}
 
+	/**
+	 * Merge results into the list on the next pass, without filtering and
+	 * sorting the ones already in it.
+	 *
+	 * @param added Results that are new
+	 * @param changed Results that may now pass the filter when they didn't
+	 *                before (such as when another engine found them)
+	 */
+	public void addResults(@NonNull List<String> added,
+			@NonNull List<String> changed) {
+		synchronized (mLock) {
+			pendingKeys.addAll(added);
+			pendingKeys.addAll(changed);
+		}
+		super.refilter(false, getDebounceDelay());
+	}
+
+	@Override
+	public void refilter(boolean skipIfFiltering, int delay) {
+		synchronized (mLock) {
+			fullPassRequests++;
+		}
+		super.refilter(skipIfFiltering, delay);
+	}
+
 	@Override
 	protected FilterResults performFiltering2(CharSequence _constraint) {
 
 		FilterResults results = new FilterResults();
+		ResultsUpdate update = new ResultsUpdate();
+		update.constraint = _constraint == null ? "" : _constraint.toString();
+
+		List<String> baseList = null;
+		HashSet<String> baseKeys = null;
+		synchronized (mLock) {
+			update.mergedPendingKeys = new ArrayList<>(pendingKeys);
+			update.fullPassRequests = fullPassRequests;
+			if (publishedList != null
+					&& fullPassRequests == publishedFullPassRequests
+					&& update.constraint.equals(publishedConstraint)
+					&& !isBuildLetters()) {
+				baseList = publishedList;
+				baseKeys = publishedKeys;
+			}
+		}
+
+		if (baseList != null) {
+			update.keys = new HashSet<>(baseKeys);
+			update.list = mergeKeys(baseList, update.keys, update.mergedPendingKeys,
+					update.constraint);
+		} else {
+			update.list = filterAll(_constraint);
+			update.keys = new HashSet<>(update.list);
+		}
 
+		results.values = update;
+		results.count = update.list.size();
+
+		return results;
+	}
+
+	private List<String> filterAll(CharSequence _constraint) {
 		final List<String> searchResultList = rs.getSearchResultList();
 		int size = searchResultList.size();
 
@@ -190,11 +283,80 @@ public class MetaSearchResultsAdapterFilter
 		}
 
 		doSort(searchResultList);
+		return searchResultList;
+	}
 
-		results.values = searchResultList;
-		results.count = searchResultList.size();
+	/**
+	 * Filter and sort only the pending keys, then merge them into the
+	 * already sorted base list.
+	 *
+	 * @param keys Keys of baseList.  Pending keys that get merged are added.
+	 */
+	private List<String> mergeKeys(List<String> baseList, HashSet<String> keys,
+			List<String> pending, String constraint) {
+		String upperConstraint = constraint.toUpperCase(Locale.US);
+		List<String> newKeys = new ArrayList<>();
+		synchronized (mLock) {
+			boolean hasEngines = engineIDs != null && engineIDs.size() > 0;
+			for (String key : pending) {
+				if (keys.contains(key) || !filterCheck(engineIDs, key, hasEngines)) {
+					continue;
+				}
+				if (!upperConstraint.isEmpty()) {
+					String name = getStringToConstrain(key);
+					if (name == null
+							|| !name.toUpperCase(Locale.US).contains(upperConstraint)) {
+						continue;
+					}
+				}
+				newKeys.add(key);
+				keys.add(key);
+			}
+		}
 
-		return results;
+		if (DEBUG) {
+			Log.d(TAG, "merging " + newKeys.size() + " of " + pending.size()
+					+ " into " + baseList.size());
+		}
+
+		if (newKeys.isEmpty()) {
+			return baseList;
+		}
+
+		ComparatorMapFields<String> sorter = getSorter();
+		if (sorter == null || !sorter.isValid()) {
+			List<String> list = new ArrayList<>(baseList.size() + newKeys.size());
+			list.addAll(baseList);
+			list.addAll(newKeys);
+			return list;
+		}
+
+		doSort(newKeys);
+
+		// Merge, keeping base items first on ties so existing rows don't move
+		List<String> list = new ArrayList<>(baseList.size() + newKeys.size());
+		int iBase = 0;
+		int iNew = 0;
+		int numBase = baseList.size();
+		int numNew = newKeys.size();
+		while (iBase < numBase && iNew < numNew) {
+			String baseKey = baseList.get(iBase);
+			String newKey = newKeys.get(iNew);
+			if (sorter.compare(newKey, baseKey) < 0) {
+				list.add(newKey);
+				iNew++;
+			} else {
+				list.add(baseKey);
+				iBase++;
+			}
+		}
+		while (iBase < numBase) {
+			list.add(baseList.get(iBase++));
+		}
+		while (iNew < numNew) {
+			list.add(newKeys.get(iNew++));
+		}
+		return list;
 	}
 
 	@NonNull
@@ -203,23 +365,31 @@ public class MetaSearchResultsAdapterFilter
 		return "";
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	protected boolean publishResults2(CharSequence constraint,
 			FilterResults results) {
+		if (!(results.values instanceof ResultsUpdate)) {
+			return true;
+		}
+		ResultsUpdate update = (ResultsUpdate) results.values;
+		synchronized (mLock) {
+			pendingKeys.removeAll(update.mergedPendingKeys);
+			publishedFullPassRequests = update.fullPassRequests;
+			publishedList = update.list;
+			publishedKeys = update.keys;
+			publishedConstraint = update.constraint;
+		}
 		// Now we have to inform the adapter about the new list filtered
 		if (results.count == 0) {
 			adapterFilterTalkbalk.removeAllItems();
 			return true;
 		} else {
 			synchronized (mLock) {
-				if (results.values instanceof List) {
-					return adapterFilterTalkbalk.setItems((List<String>) results.values,
-							null);
-				}
+				// adapter keeps the list it's given, so give it a copy
+				return adapterFilterTalkbalk.setItems(new ArrayList<>(update.list),
+						null);
 			}
 		}
-		return true;
 	}
 
 	public void setEngines(List<String> engines) {
@@ -16,6 +16,8 @@
 
 package com.biglybt.android.client.adapter;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.text.NumberFormat;
 import java.util.*;
 
@@ -23,32 +25,68 @@ import com.biglybt.android.adapter.DelayedFilter;
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.session.Session;
 import com.biglybt.android.client.session.SessionManager;
+import com.biglybt.android.util.FormattedLongCache;
 import com.biglybt.android.util.MapUtils;
 import com.biglybt.android.util.TextViewFlipper;
 import com.biglybt.android.util.TextViewFlipper.FlipValidator;
-import com.biglybt.util.DisplayFormatters;
 import com.biglybt.util.Thunk;
 
 import android.content.Context;
+import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.BaseAdapter;
-import android.widget.Filterable;
-import android.widget.TextView;
-
+import android.widget.*;
+
+/**
+ * Peers of one torrent.
+ * <p>
+ * The remote client only sends whole peer lists, so {@link PeerFilter} keys
+ * each peer by address and port, and merges every list into the peers it
+ * already has.  Peers keep their row across refreshes (unless a sort moves
+ * them), and when no peer was added, removed or moved, only the visible rows
+ * of peers that changed are rebound.
+ */
 public class PeersAdapter
 	extends BaseAdapter
 	implements Filterable
 {
+	@Retention(RetentionPolicy.SOURCE)
+	@IntDef({
+		SORT_NONE,
+		SORT_RATE_DOWNLOAD,
+		SORT_RATE_UPLOAD,
+		SORT_PROGRESS
+	})
+	public @interface SortBy {
+	}
+
+	/** Order the remote sent peers in, with new peers at the end */
+	public static final int SORT_NONE = 0;
+
+	/** Rate we download from the peer */
+	public static final int SORT_RATE_DOWNLOAD = 1;
+
+	/** Rate we upload to the peer */
+	public static final int SORT_RATE_UPLOAD = 2;
+
+	public static final int SORT_PROGRESS = 3;
+
 	public interface PeerFilterCommunication
 		extends SessionGetter, DelayedFilter.PerformingFilteringListener
 	{
-		void doSort();
+		long getTorrentID();
 
 		void notifyDataSetChanged();
 
+		/**
+		 * Rows at these positions have new values, and nothing else changed
+		 */
+		void notifyItemsChanged(@NonNull int[] positions);
+
 		void setDisplayList(List<Object> list);
 	}
 
@@ -66,6 +104,10 @@ public class PeersAdapter
 
 		TextView tvCC;
 
+		final FormattedLongCache ulRateText = FormattedLongCache.forRate("\u25B2 ");
+
+		final FormattedLongCache dlRateText = FormattedLongCache.forRate("\u25BC ");
+
 		@NonNull
 		public String peerID = "";
 
@@ -100,7 +142,7 @@ public class PeersAdapter
 
 	private PeerFilter filter;
 
-	/** List of they keys of all entries displayed, in the display order */
+	/** Peer Maps of all entries displayed, in the display order */
 	@Thunk
 	List<Object> displayList;
 
@@ -108,22 +150,17 @@ public class PeersAdapter
 	@NonNull
 	final Object mLock = new Object();
 
+	/** Read by the filter thread */
 	@Thunk
-	Comparator<? super Map<?, ?>> comparator;
-
-	@Thunk
-	String[] sortFieldIDs;
-
-	@Thunk
-	@NonNull
-	Boolean[] sortOrderAsc = new Boolean[0];
-
-	@Thunk
-	long torrentID;
+	volatile long torrentID;
 
 	@NonNull
 	private final TextViewFlipper flipper;
 
+	/** View showing this adapter, for rebinding single rows */
+	@Nullable
+	private AbsListView listView;
+
 	public PeersAdapter(@NonNull Context context,
 			@NonNull String remoteProfileID) {
 		this.context = context;
@@ -185,21 +222,15 @@ public class PeersAdapter
 			long rateUpload = MapUtils.getMapLong(item,
 					TransmissionVars.FIELD_PEERS_RATE_TO_PEER_BPS, 0);
 
-			String s = rateUpload > 0
-					? "\u25B2 "
-							+ DisplayFormatters.formatByteCountToKiBEtcPerSec(rateUpload)
-					: "";
-			flipper.changeText(holder.tvUlRate, s, animateFlip, validator);
+			flipper.changeText(holder.tvUlRate, holder.ulRateText.get(rateUpload),
+					animateFlip, validator);
 		}
 		if (holder.tvDlRate != null) {
 			long rateDownload = MapUtils.getMapLong(item,
 					TransmissionVars.FIELD_PEERS_RATE_TO_CLIENT_BPS, 0);
 
-			String s = rateDownload > 0
-					? "\u25BC "
-							+ DisplayFormatters.formatByteCountToKiBEtcPerSec(rateDownload)
-					: "";
-			flipper.changeText(holder.tvDlRate, s, animateFlip, validator);
+			flipper.changeText(holder.tvDlRate, holder.dlRateText.get(rateDownload),
+					animateFlip, validator);
 		}
 		float pctDone = MapUtils.getMapFloat(item,
 				TransmissionVars.FIELD_PEERS_PROGRESS, 0f);
@@ -222,7 +253,7 @@ public class PeersAdapter
 	@Override
 	public PeerFilter getFilter() {
 		if (filter == null) {
-			filter = new PeerFilter(torrentID, new PeerFilterCommunication() {
+			filter = new PeerFilter(new PeerFilterCommunication() {
 				@Override
 				public void performingFilteringChanged(
 						@DelayedFilter.FilterState int filterState,
@@ -230,8 +261,8 @@ public class PeersAdapter
 				}
 
 				@Override
-				public void doSort() {
-					PeersAdapter.this.doSort();
+				public long getTorrentID() {
+					return torrentID;
 				}
 
 				@Override
@@ -239,6 +270,11 @@ public class PeersAdapter
 					PeersAdapter.this.notifyDataSetChanged();
 				}
 
+				@Override
+				public void notifyItemsChanged(@NonNull int[] positions) {
+					PeersAdapter.this.notifyItemsChanged(positions);
+				}
+
 				@Override
 				public void setDisplayList(List<Object> list) {
 					displayList = list;
@@ -259,24 +295,154 @@ public class PeersAdapter
 		return SessionManager.getSession(remoteProfileID, null, null);
 	}
 
+	/**
+	 * A peer, kept across refreshes so that a new peer list can be matched up
+	 * with the rows.  Only used by {@link PeerFilter}; rows are bound from
+	 * {@link #map}.
+	 */
+	private static final class PeerRecord
+	{
+		@NonNull
+		final String key;
+
+		@NonNull
+		Map<?, ?> map = Collections.emptyMap();
+
+		long rateToClient;
+
+		long rateToPeer;
+
+		float progress;
+
+		/** Value sorted on, for the sort the last merge used */
+		long sortValue;
+
+		/** Merge that last saw this peer */
+		int mergeID;
+
+		boolean changed;
+
+		PeerRecord(@NonNull String key) {
+			this.key = key;
+		}
+
+		/**
+		 * @return true if any value is different than last time
+		 */
+		boolean update(@NonNull Map<?, ?> newMap) {
+			boolean changed = !newMap.equals(map);
+			map = newMap;
+			if (changed) {
+				rateToClient = MapUtils.getMapLong(newMap,
+						TransmissionVars.FIELD_PEERS_RATE_TO_CLIENT_BPS, 0);
+				rateToPeer = MapUtils.getMapLong(newMap,
+						TransmissionVars.FIELD_PEERS_RATE_TO_PEER_BPS, 0);
+				progress = MapUtils.getMapFloat(newMap,
+						TransmissionVars.FIELD_PEERS_PROGRESS, 0f);
+			}
+			return changed;
+		}
+
+		void setSortValue(@SortBy int sortBy) {
+			switch (sortBy) {
+				case SORT_RATE_DOWNLOAD:
+					sortValue = rateToClient;
+					break;
+				case SORT_RATE_UPLOAD:
+					sortValue = rateToPeer;
+					break;
+				case SORT_PROGRESS:
+					sortValue = (long) (progress * 100000);
+					break;
+				default:
+					sortValue = 0;
+					break;
+			}
+		}
+	}
+
+	/**
+	 * What a merge changed, handed from {@link PeerFilter#performFiltering2}
+	 * to {@link PeerFilter#publishResults2}
+	 */
+	private static final class PeerListUpdate
+	{
+		final int mergeID;
+
+		@NonNull
+		final List<Object> displayList;
+
+		/** Peers were added, removed or moved */
+		final boolean structureChanged;
+
+		@NonNull
+		final int[] changedPositions;
+
+		PeerListUpdate(int mergeID, @NonNull List<Object> displayList,
+				boolean structureChanged, @NonNull int[] changedPositions) {
+			this.mergeID = mergeID;
+			this.displayList = displayList;
+			this.structureChanged = structureChanged;
+			this.changedPositions = changedPositions;
+		}
+	}
+
 	public static class PeerFilter
 		extends DelayedFilter
 	{
-
-		private final long torrentID;
+		private static final String TAG = "PeerFilter";
 
 		private final PeerFilterCommunication comm;
 
 		private final Object mLock;
 
-		PeerFilter(long torrentID, @NonNull PeerFilterCommunication comm,
-				@NonNull Object mLock) {
+		/** Peers by address:port.  Filter thread only. */
+		private final Map<String, PeerRecord> mapRecords = new HashMap<>();
+
+		/** Peers in display order, as of the last merge.  Filter thread only. */
+		@NonNull
+		private List<PeerRecord> order = new ArrayList<>();
+
+		private long recordsTorrentID = -1;
+
+		private int mergeID;
+
+		/** Merge shown by the list.  UI thread only. */
+		private int publishedMergeID;
+
+		@SortBy
+		private volatile int sortBy = SORT_NONE;
+
+		private volatile boolean sortAsc;
+
+		private int recordsSortBy = SORT_NONE;
+
+		private boolean recordsSortAsc;
+
+		PeerFilter(@NonNull PeerFilterCommunication comm, @NonNull Object mLock) {
 			super(comm);
-			this.torrentID = torrentID;
 			this.comm = comm;
 			this.mLock = mLock;
 		}
 
+		public void setSort(@SortBy int sortBy, boolean asc) {
+			if (sortBy == this.sortBy && asc == sortAsc) {
+				return;
+			}
+			this.sortBy = sortBy;
+			this.sortAsc = asc;
+			refilter(false);
+		}
+
+		/**
+		 * Make the next publish refresh the whole list, such as after the list
+		 * was cleared
+		 */
+		@UiThread
+		void invalidatePublished() {
+			publishedMergeID = -1;
+		}
+
 		@Override
 		protected FilterResults performFiltering2(CharSequence constraint) {
 			this.constraint = constraint == null ? "" : constraint.toString();
@@ -288,94 +454,190 @@ public class PeersAdapter
 			}
 
 			boolean hasConstraint = constraint != null && constraint.length() > 0;
+			if (hasConstraint) {
+				return results;
+			}
 
+			long torrentID = comm.getTorrentID();
 			Map<?, ?> torrent = session.torrent.getCachedTorrent(torrentID);
 			List<?> listPeers = MapUtils.getMapList(torrent,
 					TransmissionVars.FIELD_TORRENT_PEERS, null);
-			if (listPeers == null || listPeers.size() == 0) {
-				//System.out.println("performFilter noPeers " + torrent);
+			if (listPeers == null) {
+				listPeers = Collections.emptyList();
+			}
 
-				return results;
+			PeerListUpdate update = merge(torrentID, listPeers);
+			results.values = update;
+			results.count = update.displayList.size();
+			return results;
+		}
+
+		/**
+		 * Merge a peer list from the remote into the records.  Runs to the end
+		 * even if the pass is superseded, so the records always match the last
+		 * list merged.
+		 */
+		@NonNull
+		private PeerListUpdate merge(long torrentID, @NonNull List<?> listPeers) {
+			int id = ++mergeID;
+			@SortBy
+			int sortBy = this.sortBy;
+			boolean sortAsc = this.sortAsc;
+
+			boolean structureChanged = false;
+			if (torrentID != recordsTorrentID) {
+				mapRecords.clear();
+				order.clear();
+				recordsTorrentID = torrentID;
+				structureChanged = true;
+			}
+			if (sortBy != recordsSortBy || sortAsc != recordsSortAsc) {
+				recordsSortBy = sortBy;
+				recordsSortAsc = sortAsc;
+				structureChanged = true;
 			}
-			if (!hasConstraint) {
-				synchronized (mLock) {
-					results.values = torrent;
-					results.count = listPeers.size();
+
+			List<PeerRecord> added = null;
+			for (Object o : listPeers) {
+				if (!(o instanceof Map)) {
+					continue;
+				}
+				Map<?, ?> peer = (Map<?, ?>) o;
+				String key = MapUtils.getMapString(peer,
+						TransmissionVars.FIELD_PEERS_ADDRESS, "") + ":"
+						+ MapUtils.getMapLong(peer, TransmissionVars.FIELD_PEERS_PORT, 0);
+				PeerRecord record = mapRecords.get(key);
+				if (record == null) {
+					record = new PeerRecord(key);
+					mapRecords.put(key, record);
+					if (added == null) {
+						added = new ArrayList<>();
+					}
+					added.add(record);
+				} else if (record.mergeID == id) {
+					// listed twice
+					continue;
 				}
+				record.mergeID = id;
+				record.changed = record.update(peer);
+				record.setSortValue(sortBy);
 			}
-			return results;
-		}
 
-		@Override
-		protected boolean publishResults2(CharSequence constraint,
-				FilterResults results) {
-			Session session = comm.getSession();
-			if (session == null) {
-				return true;
+			List<PeerRecord> oldOrder = order;
+			List<PeerRecord> newOrder = new ArrayList<>(mapRecords.size());
+			for (PeerRecord record : oldOrder) {
+				if (record.mergeID == id) {
+					newOrder.add(record);
+				} else {
+					mapRecords.remove(record.key);
+					structureChanged = true;
+				}
 			}
-			synchronized (mLock) {
-				Map<?, ?> torrent = session.torrent.getCachedTorrent(torrentID);
-				if (torrent == null) {
-					return true;
+			if (added != null) {
+				newOrder.addAll(added);
+				structureChanged = true;
+			}
+
+			if (sortBy != SORT_NONE) {
+				// Stable, so peers with the same value stay where they were
+				Collections.sort(newOrder, (lhs, rhs) -> {
+					long a = sortAsc ? lhs.sortValue : rhs.sortValue;
+					long b = sortAsc ? rhs.sortValue : lhs.sortValue;
+					return a < b ? -1 : a == b ? 0 : 1;
+				});
+				if (!structureChanged) {
+					for (int i = 0; i < newOrder.size(); i++) {
+						if (newOrder.get(i) != oldOrder.get(i)) {
+							structureChanged = true;
+							break;
+						}
+					}
 				}
-				List<?> listPeers = MapUtils.getMapList(torrent,
-						TransmissionVars.FIELD_TORRENT_PEERS, null);
-				//					System.out.println("listPeers=" + listPeers);
-				if (listPeers == null) {
-					return true;
+			}
+			order = newOrder;
+
+			int num = newOrder.size();
+			List<Object> displayList = new ArrayList<>(num);
+			int numChanged = 0;
+			for (int i = 0; i < num; i++) {
+				PeerRecord record = newOrder.get(i);
+				displayList.add(record.map);
+				if (record.changed) {
+					numChanged++;
 				}
-				if (AndroidUtils.DEBUG) {
-					System.out.println("listPeers=" + listPeers.size());
+			}
+			int[] changedPositions;
+			if (structureChanged || numChanged == 0) {
+				changedPositions = new int[0];
+			} else {
+				changedPositions = new int[numChanged];
+				int j = 0;
+				for (int i = 0; i < num; i++) {
+					if (newOrder.get(i).changed) {
+						changedPositions[j++] = i;
+					}
 				}
-				comm.setDisplayList(new ArrayList<>(listPeers));
+			}
 
-				comm.doSort();
+			if (AndroidUtils.DEBUG_ADAPTER) {
+				log(TAG, "merge: " + num + " peers, " + numChanged + " changed"
+						+ (structureChanged ? ", structure changed" : ""));
+			}
+
+			return new PeerListUpdate(id, displayList, structureChanged,
+					changedPositions);
+		}
+
+		@Override
+		protected boolean publishResults2(CharSequence constraint,
+				FilterResults results) {
+			PeerListUpdate update = (PeerListUpdate) results.values;
+			synchronized (mLock) {
+				comm.setDisplayList(update.displayList);
+			}
+			// A merge that was never published (superseded pass) may have had
+			// changes the rows don't show yet
+			boolean missedMerge = update.mergeID != publishedMergeID + 1;
+			publishedMergeID = update.mergeID;
+			if (update.structureChanged || missedMerge) {
+				comm.notifyDataSetChanged();
+			} else if (update.changedPositions.length > 0) {
+				comm.notifyItemsChanged(update.changedPositions);
 			}
-			comm.notifyDataSetChanged();
 			return true;
 		}
+	}
+
+	public void setSort(@SortBy int sortBy, boolean asc) {
+		getFilter().setSort(sortBy, asc);
+	}
 
+	/**
+	 * @param listView View this adapter is set on, so changed peers can be
+	 *                 rebound without refreshing every row
+	 */
+	public void setListView(@Nullable AbsListView listView) {
+		this.listView = listView;
 	}
 
 	@Thunk
-	void doSort() {
-		if (comparator == null && sortFieldIDs == null || displayList == null) {
+	@UiThread
+	void notifyItemsChanged(@NonNull int[] positions) {
+		AbsListView listView = this.listView;
+		if (listView == null || listView.getAdapter() != this) {
+			notifyDataSetChanged();
 			return;
 		}
-		synchronized (mLock) {
-
-			Collections.sort(displayList, (lhs, rhs) -> {
-				Map<?, ?> mapLHS = (Map) lhs;
-				Map<?, ?> mapRHS = (Map) rhs;
-
-				if (mapLHS == null || mapRHS == null) {
-					return 0;
-				}
-
-				if (sortFieldIDs == null) {
-					return comparator.compare(mapLHS, mapRHS);
-				} else {
-					for (int i = 0; i < sortFieldIDs.length; i++) {
-						String fieldID = sortFieldIDs[i];
-						Comparable oLHS = (Comparable) mapLHS.get(fieldID);
-						Comparable oRHS = (Comparable) mapRHS.get(fieldID);
-						if (oLHS == null || oRHS == null) {
-							if (oLHS != oRHS) {
-								return oLHS == null ? -1 : 1;
-							} // else == drops to next sort field
-
-						} else {
-							int comp = sortOrderAsc[i] ? oLHS.compareTo(oRHS)
-									: oRHS.compareTo(oLHS);
-							if (comp != 0) {
-								return comp;
-							} // else == drops to next sort field
-						}
-					}
-
-					return 0;
-				}
-			});
+		int first = listView.getFirstVisiblePosition();
+		int numHeaders = (listView instanceof ListView)
+				? ((ListView) listView).getHeaderViewsCount() : 0;
+		int numChildren = listView.getChildCount();
+		for (int position : positions) {
+			int childIndex = position + numHeaders - first;
+			if (childIndex < 0 || childIndex >= numChildren) {
+				continue;
+			}
+			getView(position, listView.getChildAt(childIndex), listView);
 		}
 	}
 
@@ -410,6 +672,7 @@ public class PeersAdapter
 				displayList.clear();
 			}
 		}
+		getFilter().invalidatePublished();
 		notifyDataSetChanged();
 	}
 }
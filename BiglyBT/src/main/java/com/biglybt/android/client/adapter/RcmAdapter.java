@@ -247,6 +247,11 @@ public class RcmAdapter
 		return lastUpdated > lastSetItemsOn;
 	}
 
+	@Override
+	public Object getItemKey(String item) {
+		return item;
+	}
+
 	@Override
 	public LetterFilter<String> createFilter() {
 		return new RcmAdapterFilter(this, rs, mLock);
@@ -167,6 +167,11 @@ public class SubscriptionListAdapter
 		return setItems(values, countsByViewType, this);
 	}
 
+	@Override
+	public Object getItemKey(String item) {
+		return item;
+	}
+
 	@Override
 	public LetterFilter<String> createFilter() {
 		return new SubscriptionListAdapterFilter(this, rs, mLock);
@@ -16,21 +16,22 @@
 
 package com.biglybt.android.client.adapter;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import com.biglybt.android.adapter.*;
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.session.Session;
+import com.biglybt.android.client.session.TorrentListChangeSet;
 import com.biglybt.android.util.MapUtils;
 import com.biglybt.android.util.TextViewFlipper.FlipValidator;
 import com.biglybt.util.Thunk;
 
+import androidx.collection.LongSparseArray;
 import androidx.lifecycle.Lifecycle;
 import android.content.Context;
 import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
 import androidx.recyclerview.widget.RecyclerView;
 import android.util.Log;
 import android.util.SparseIntArray;
@@ -52,7 +53,8 @@ import android.view.ViewGroup;
 public class TorrentListAdapter
 	extends
 	SortableRecyclerAdapter<TorrentListAdapter, TorrentListHolder, TorrentListAdapterItem>
-	implements FlexibleRecyclerAdapter.SetItemsCallBack<TorrentListAdapterItem>,
+	implements
+	FlexibleRecyclerAdapter.SetItemsPayloadCallBack<TorrentListAdapterItem>,
 	SessionAdapterFilterTalkback<TorrentListAdapterItem>
 {
 
@@ -96,6 +98,12 @@ public class TorrentListAdapter
 
 	private final SessionGetter sessionGetter;
 
+	/**
+	 * Fields changed since the last {@link #setItems}, by torrent id.  Used as
+	 * notifyItemChanged payloads.
+	 */
+	private final LongSparseArray<Set<String>> pendingChangedFields = new LongSparseArray<>();
+
 	private final boolean smallView;
 
 	public TorrentListAdapter(@NonNull Context context,
@@ -134,6 +142,34 @@ public class TorrentListAdapter
 		return lastUpdated <= lastSetItemsOn;
 	}
 
+	@Override
+	public Object getChangePayload(TorrentListAdapterItem oldItem,
+			TorrentListAdapterItem newItem) {
+		if (!(newItem instanceof TorrentListAdapterTorrentItem)) {
+			return null;
+		}
+		long torrentID = ((TorrentListAdapterTorrentItem) newItem).torrentID;
+		synchronized (pendingChangedFields) {
+			Set<String> fields = pendingChangedFields.get(torrentID);
+			if (fields == null) {
+				return null;
+			}
+			pendingChangedFields.remove(torrentID);
+			return Collections.unmodifiableSet(fields);
+		}
+	}
+
+	@Override
+	public Object getItemKey(TorrentListAdapterItem item) {
+		if (item instanceof TorrentListAdapterTorrentItem) {
+			return ((TorrentListAdapterTorrentItem) item).torrentID;
+		}
+		if (item instanceof TorrentListAdapterHeaderItem) {
+			return "header:" + ((TorrentListAdapterHeaderItem) item).title;
+		}
+		return null;
+	}
+
 	@Override
 	public LetterFilter<TorrentListAdapterItem> createFilter() {
 		return new TorrentListFilter(this);
@@ -141,7 +177,10 @@ public class TorrentListAdapter
 
 	public void refreshDisplayList() {
 		Session session = sessionGetter.getSession();
-		if (session == null || !session.isReadyForUI()) {
+		// A list restored from the snapshot can be shown before the session is
+		// ready
+		if (session == null
+				|| (!session.isReadyForUI() && !session.torrent.isListStale())) {
 			if (AndroidUtils.DEBUG) {
 				Log.d(TAG, "skipped refreshDisplayList. ui not ready");
 			}
@@ -150,6 +189,46 @@ public class TorrentListAdapter
 		getFilter().refilter(true);
 	}
 
+	/**
+	 * Refilter if the change set affects filtering or sorting, otherwise only
+	 * rebind the rows of torrents that changed.
+	 */
+	@UiThread
+	public void refreshDisplayList(TorrentListChangeSet changeSet) {
+		if (isNeverSetItems() || getTorrentFilter().isAffectedBy(changeSet)) {
+			// Rows get their change payloads when the new list is diffed
+			long[] changedIDs = changeSet.getChangedIDs();
+			synchronized (pendingChangedFields) {
+				for (long torrentID : changedIDs) {
+					Set<String> fields = changeSet.getChangedFields(torrentID);
+					if (fields == null) {
+						continue;
+					}
+					Set<String> pending = pendingChangedFields.get(torrentID);
+					if (pending == null) {
+						pending = new HashSet<>();
+						pendingChangedFields.put(torrentID, pending);
+					}
+					pending.addAll(fields);
+				}
+			}
+			refreshDisplayList();
+			return;
+		}
+
+		int count = getItemCount();
+		for (int position = 0; position < count; position++) {
+			TorrentListAdapterItem item = getItem(position);
+			if (!(item instanceof TorrentListAdapterTorrentItem)) {
+				continue;
+			}
+			long torrentID = ((TorrentListAdapterTorrentItem) item).torrentID;
+			if (changeSet.isTorrentAffected(torrentID)) {
+				notifyItemChanged(position, changeSet.getChangedFields(torrentID));
+			}
+		}
+	}
+
 	public TorrentListFilter getTorrentFilter() {
 		return (TorrentListFilter) getFilter();
 	}
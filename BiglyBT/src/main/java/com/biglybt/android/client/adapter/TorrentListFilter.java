@@ -24,6 +24,7 @@ import com.biglybt.android.adapter.*;
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.session.Session;
 import com.biglybt.android.client.session.Session_Tag;
+import com.biglybt.android.client.session.TorrentListChangeSet;
 import com.biglybt.android.util.MapUtils;
 import com.biglybt.util.DisplayFormatters;
 import com.biglybt.util.Thunk;
@@ -123,11 +124,14 @@ public class TorrentListFilter
 				log(TAG, "filtering " + torrentList.size());
 			}
 
-			if (filterMode >= 0 && filterMode != FILTERBY_ALL) {
+			long[] taggedIDs = filterMode > 10
+					? session.tag.getTorrentIDsWithTag(filterMode) : null;
+			if (taggedIDs != null) {
+				torrentList = intersect(torrentList, taggedIDs);
+				size = torrentList.size();
+			} else if (filterMode != FILTERBY_ALL) {
 				for (int i = size - 1; i >= 0; i--) {
-					long key = torrentList.keyAt(i);
-
-					if (!filterCheck(filterMode, key)) {
+					if (!filterCheck(filterMode, torrentList.valueAt(i))) {
 						torrentList.removeAt(i);
 						size--;
 					}
@@ -204,10 +208,40 @@ public class TorrentListFilter
 		}
 	}
 
+	/**
+	 * @param taggedIDs Sorted torrent IDs
+	 * @return Torrents of the list that are also in taggedIDs
+	 */
+	private static LongSparseArray<Map<?, ?>> intersect(
+			LongSparseArray<Map<?, ?>> torrentList, long[] taggedIDs) {
+		// Both are sorted by ID, so walk them together
+		int numTorrents = torrentList.size();
+		LongSparseArray<Map<?, ?>> list = new LongSparseArray<>(
+				Math.min(numTorrents, taggedIDs.length));
+		int i = 0;
+		int j = 0;
+		while (i < numTorrents && j < taggedIDs.length) {
+			long torrentID = torrentList.keyAt(i);
+			long taggedID = taggedIDs[j];
+			if (torrentID == taggedID) {
+				list.append(torrentID, torrentList.valueAt(i));
+				i++;
+				j++;
+			} else if (torrentID < taggedID) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * @param map Torrent map, from a copy of the torrent list, so no lookup
+	 *            (and no session lock) is needed per torrent
+	 */
 	@Thunk
-	boolean filterCheck(long filterMode, long torrentID) {
-		Session session = talkback.getSession();
-		Map<?, ?> map = session.torrent.getCachedTorrent(torrentID);
+	boolean filterCheck(long filterMode, Map<?, ?> map) {
 		if (map == null) {
 			return false;
 		}
@@ -258,6 +292,73 @@ public class TorrentListFilter
 		return true;
 	}
 
+	/**
+	 * @return true if the change set could change which torrents are shown,
+	 * their order, or their grouping.  When false, changed rows only need to be
+	 * rebound.
+	 */
+	public boolean isAffectedBy(TorrentListChangeSet changeSet) {
+		if (changeSet.hasAddedOrRemoved()) {
+			return true;
+		}
+		Set<String> changedFields = changeSet.getAllChangedFields();
+
+		// name is used by the letter filter
+		if (changedFields.contains(TransmissionVars.FIELD_TORRENT_NAME)) {
+			return true;
+		}
+
+		if (filterMode > 10) {
+			if (changedFields.contains(TransmissionVars.FIELD_TORRENT_TAG_UIDS)) {
+				return true;
+			}
+		} else {
+			switch ((int) filterMode) {
+				case FILTERBY_ACTIVE:
+					if (changedFields.contains(
+							TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD)
+							|| changedFields.contains(
+									TransmissionVars.FIELD_TORRENT_RATE_UPLOAD)) {
+						return true;
+					}
+					break;
+				case FILTERBY_COMPLETE:
+				case FILTERBY_INCOMPLETE:
+					if (changedFields.contains(
+							TransmissionVars.FIELD_TORRENT_PERCENT_DONE)) {
+						return true;
+					}
+					break;
+				case FILTERBY_STOPPED:
+					if (changedFields.contains(TransmissionVars.FIELD_TORRENT_STATUS)) {
+						return true;
+					}
+					break;
+			}
+		}
+
+		ComparatorMapFields<TorrentListAdapterItem> sorter = getSorter();
+		SortDefinition sortDefinition = sorter == null ? null
+				: sorter.getSortDefinition();
+		if (sortDefinition == null) {
+			return false;
+		}
+		for (String fieldID : sortDefinition.sortFieldIDs) {
+			if (SORTDEFINITION_ACTIVESORT.equals(fieldID)) {
+				if (changedFields.contains(TransmissionVars.FIELD_TORRENT_TAG_UIDS)
+						|| changedFields.contains(
+								TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD)
+						|| changedFields.contains(
+								TransmissionVars.FIELD_TORRENT_RATE_UPLOAD)) {
+					return true;
+				}
+			} else if (changedFields.contains(fieldID)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private void refreshSections(List<TorrentListAdapterItem> items,
 			Map<String, Object> map) {
 		SparseIntArray countsByViewType = new SparseIntArray();
@@ -17,6 +17,7 @@
 package com.biglybt.android.client.adapter;
 
 import com.biglybt.android.client.R;
+import com.biglybt.android.util.FormattedLongCache;
 
 import androidx.annotation.Nullable;
 import android.view.View;
@@ -55,6 +56,14 @@ public class TorrentListHolderItem
 
 	boolean animateFlip;
 
+	final FormattedLongCache etaText;
+
+	final FormattedLongCache ulRateText = FormattedLongCache.forRate("\u25B2 ");
+
+	final FormattedLongCache dlRateText = FormattedLongCache.forRate("\u25BC ");
+
+	final FormattedLongCache sizeText = FormattedLongCache.forByteCount();
+
 	TorrentListHolderItem(@Nullable RecyclerSelectorInternal selector,
 			View rowView, boolean isSmall) {
 		super(selector, rowView);
@@ -70,5 +79,6 @@ public class TorrentListHolderItem
 		tvTags = rowView.findViewById(R.id.torrentrow_tags);
 		tvTrackerError = rowView.findViewById(R.id.torrentrow_tracker_error);
 		ivChecked = rowView.findViewById(R.id.torrentrow_checked);
+		etaText = FormattedLongCache.forTimeDiffShort(rowView.getResources());
 	}
 }
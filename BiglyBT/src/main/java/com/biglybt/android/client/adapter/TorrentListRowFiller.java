@@ -29,7 +29,6 @@ import com.biglybt.android.client.spanbubbles.SpanBubbles;
 import com.biglybt.android.client.spanbubbles.SpanTags;
 import com.biglybt.android.util.MapUtils;
 import com.biglybt.android.util.TextViewFlipper;
-import com.biglybt.util.DisplayFormatters;
 
 import android.content.Context;
 import android.content.res.Resources;
@@ -149,12 +148,12 @@ public class TorrentListRowFiller
 			if (isMagnetDownload) {
 				s = "";
 			} else if (fileCount == 1) {
-				s = DisplayFormatters.formatByteCountToKiBEtc(size);
+				s = holder.sizeText.get(size);
 			} else {
 				s = resources.getQuantityString(R.plurals.torrent_row_info, fileCount,
 						fileCount)
 						+ resources.getString(R.string.torrent_row_info2,
-								DisplayFormatters.formatByteCountToKiBEtc(size));
+								holder.sizeText.get(size));
 			}
 			if (!hasScrapeError && error != TransmissionVars.TR_STAT_OK) {
 				// error
@@ -184,7 +183,7 @@ public class TorrentListRowFiller
 					TransmissionVars.FIELD_TORRENT_ETA, -1);
 			CharSequence s = "";
 			if (etaSecs > 0 && etaSecs * 1000L < DateUtils.WEEK_IN_MILLIS) {
-				s = DisplayFormatters.prettyFormatTimeDiffShort(resources, etaSecs);
+				s = holder.etaText.get(etaSecs);
 			} else if (pctDone >= 1) {
 				float shareRatio = MapUtils.getMapFloat(item,
 						TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO, -1);
@@ -200,17 +199,15 @@ public class TorrentListRowFiller
 			long rateUpload = MapUtils.getMapLong(item,
 					TransmissionVars.FIELD_TORRENT_RATE_UPLOAD, 0);
 
-			String rateString = rateUpload <= 0 ? "" : "\u25B2 "
-					+ DisplayFormatters.formatByteCountToKiBEtcPerSec(rateUpload);
-			flipper.changeText(holder.tvUlRate, rateString, holder.animateFlip,
+			flipper.changeText(holder.tvUlRate, holder.ulRateText.get(rateUpload),
+					holder.animateFlip,
 					validator);
 		}
 		if (holder.tvDlRate != null) {
 			long rateDownload = MapUtils.getMapLong(item,
 					TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD, 0);
-			String rateString = rateDownload <= 0 ? "" : "\u25BC "
-					+ DisplayFormatters.formatByteCountToKiBEtcPerSec(rateDownload);
-			flipper.changeText(holder.tvDlRate, rateString, holder.animateFlip,
+			flipper.changeText(holder.tvDlRate, holder.dlRateText.get(rateDownload),
+					holder.animateFlip,
 					validator);
 		}
 
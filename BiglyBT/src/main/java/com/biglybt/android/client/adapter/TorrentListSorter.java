@@ -63,6 +63,14 @@ public class TorrentListSorter
 		return null;
 	}
 
+	@Override
+	protected Object getSortKeyID(TorrentListAdapterItem item) {
+		if (item instanceof TorrentListAdapterTorrentItem) {
+			return ((TorrentListAdapterTorrentItem) item).torrentID;
+		}
+		return null;
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	public Comparable modifyField(String fieldID, Map map, Comparable o) {
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.dialog;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.biglybt.android.client.AndroidUtilsUI;
+import com.biglybt.android.client.MemoryGovernor;
+import com.biglybt.android.client.R;
+import com.biglybt.android.client.rpc.RPCMetrics;
+import com.biglybt.util.DisplayFormatters;
+
+import android.app.Dialog;
+import android.content.ActivityNotFoundException;
+import android.content.Intent;
+import android.os.Bundle;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.FragmentActivity;
+
+/**
+ * Shows {@link RPCMetrics} as a table, one row per remote and RPC method.
+ * Times are p50/p95 in ms.  Below it, the {@link MemoryGovernor} caches with
+ * their usage and budget.
+ */
+public class DialogFragmentRPCMetrics
+	extends DialogFragmentBase
+{
+	private static final String ROW_FORMAT = "%-24s %6s %5s %5s %11s %11s %7s %9s%n";
+
+	private static final String CACHE_ROW_FORMAT = "%-24s %9s %9s%n";
+
+	@NonNull
+	@Override
+	public Dialog onCreateDialog(Bundle savedInstanceState) {
+		final FragmentActivity activity = getActivity();
+		assert activity != null;
+
+		AndroidUtilsUI.AlertDialogBuilder alertDialogBuilder = AndroidUtilsUI.createAlertDialogBuilder(
+				activity, R.layout.dialog_rpc_metrics);
+
+		AlertDialog.Builder builder = alertDialogBuilder.builder;
+		builder.setTitle(R.string.action_rpc_metrics);
+
+		TextView tv = alertDialogBuilder.view.findViewById(R.id.rpc_metrics_text);
+		if (tv != null) {
+			tv.setText(buildTable() + "\n\n" + buildCacheTable());
+		}
+
+		builder.setPositiveButton(android.R.string.ok, (dialog, id) -> {
+		});
+		builder.setNeutralButton(R.string.rpc_metrics_export,
+				(dialog, id) -> export(activity));
+		builder.setNegativeButton(R.string.rpc_metrics_reset,
+				(dialog, id) -> RPCMetrics.getInstance().reset());
+		return builder.create();
+	}
+
+	private String buildTable() {
+		RPCMetrics metrics = RPCMetrics.getInstance();
+		List<RPCMetrics.MethodStats> list = metrics.getStats();
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(getString(R.string.rpc_metrics_since,
+				DisplayFormatters.formatDate(metrics.getStartedOn()))).append("\n\n");
+		if (list.isEmpty()) {
+			sb.append(getString(R.string.rpc_metrics_none));
+			return sb.toString();
+		}
+
+		String lastRemote = null;
+		for (RPCMetrics.MethodStats stats : list) {
+			if (!stats.remote.equals(lastRemote)) {
+				if (lastRemote != null) {
+					sb.append('\n');
+				}
+				lastRemote = stats.remote;
+				sb.append(stats.remote).append('\n');
+				sb.append(String.format(Locale.US, ROW_FORMAT, "method", "calls",
+						"fail", "409", "net", "decode", "wait95", "resp avg"));
+			}
+			long avgResponse = stats.responseBytes.getAverage();
+			sb.append(String.format(Locale.US, ROW_FORMAT, stats.method,
+					stats.calls, stats.failures + stats.errors, stats.retries409,
+					formatPercentiles(stats.networkMS),
+					formatPercentiles(stats.decodeMS),
+					stats.queueWaitMS.getPercentile(95),
+					avgResponse < 0 ? "-"
+							: DisplayFormatters.formatByteCountToKiBEtc(avgResponse)));
+		}
+		return sb.toString();
+	}
+
+	private String buildCacheTable() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(getString(R.string.rpc_metrics_memory_caches)).append('\n');
+		sb.append(String.format(Locale.US, CACHE_ROW_FORMAT, "cache", "used",
+				"budget"));
+		for (MemoryGovernor.CacheUsage usage : MemoryGovernor.getInstance().getUsage()) {
+			sb.append(String.format(Locale.US, CACHE_ROW_FORMAT, usage.name,
+					DisplayFormatters.formatByteCountToKiBEtc(usage.usedBytes),
+					DisplayFormatters.formatByteCountToKiBEtc(usage.budgetBytes)));
+		}
+		return sb.toString();
+	}
+
+	private static String formatPercentiles(RPCMetrics.Histogram histogram) {
+		if (histogram.getCount() == 0) {
+			return "-";
+		}
+		return histogram.getPercentile(50) + "/" + histogram.getPercentile(95);
+	}
+
+	private static void export(FragmentActivity activity) {
+		Intent intent = new Intent(Intent.ACTION_SEND);
+		intent.setType("application/json");
+		intent.putExtra(Intent.EXTRA_SUBJECT, "BiglyBT RPC Metrics");
+		intent.putExtra(Intent.EXTRA_TEXT, RPCMetrics.getInstance().toJSON());
+		try {
+			activity.startActivity(Intent.createChooser(intent,
+					activity.getString(R.string.rpc_metrics_export)));
+		} catch (ActivityNotFoundException ignore) {
+		}
+	}
+}
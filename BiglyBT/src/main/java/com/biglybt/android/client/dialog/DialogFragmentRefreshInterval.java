@@ -21,6 +21,7 @@ import java.util.List;
 
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.AndroidUtilsUI.AlertDialogBuilder;
+import com.biglybt.android.client.session.RefreshScheduler;
 import com.biglybt.android.client.session.RemoteProfile;
 import com.biglybt.android.client.session.Session;
 import com.biglybt.android.client.session.SessionManager;
@@ -38,6 +39,7 @@ import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.NumberPicker;
 import android.widget.TextView;
 
@@ -50,6 +52,12 @@ public class DialogFragmentRefreshInterval
 
 	private NumberPicker npIntervalMobile;
 
+	private NumberPicker npIntervalMin;
+
+	private NumberPicker npIntervalMax;
+
+	private CheckBox cbAdaptive;
+
 	private final SparseIntArray mapPosToSecs = new SparseIntArray();
 
 	public static void openDialog(FragmentManager fm, String remoteProfileID) {
@@ -146,6 +154,37 @@ public class DialogFragmentRefreshInterval
 		npInterval.setDisplayedValues(displayedValues);
 		npInterval.setValue(initialValue);
 
+		// Min/Max pickers use the same values, minus "Manual Refresh"
+		String[] boundValues = values.subList(1, values.size()).toArray(
+				new String[0]);
+		npIntervalMin = view.findViewById(R.id.npUpdateIntervalMin);
+		npIntervalMax = view.findViewById(R.id.npUpdateIntervalMax);
+		setupBoundPicker(npIntervalMin, boundValues,
+				remoteProfile.getUpdateIntervalMin());
+		setupBoundPicker(npIntervalMax, boundValues,
+				remoteProfile.getUpdateIntervalMax());
+
+		View groupAdaptive = view.findViewById(R.id.group_refresh_interval_adaptive);
+		cbAdaptive = view.findViewById(R.id.cbUpdateIntervalAdaptive);
+		cbAdaptive.setChecked(remoteProfile.isUpdateIntervalAdaptive());
+		groupAdaptive.setVisibility(
+				cbAdaptive.isChecked() ? View.VISIBLE : View.GONE);
+		cbAdaptive.setOnCheckedChangeListener(
+				(buttonView, isChecked) -> groupAdaptive.setVisibility(
+						isChecked ? View.VISIBLE : View.GONE));
+
+		TextView tvCurrent = view.findViewById(R.id.tvUpdateIntervalCurrent);
+		RefreshScheduler refreshScheduler = session.getRefreshScheduler();
+		int currentSecs = (int) (refreshScheduler.getLastIntervalMS() / 1000);
+		if (currentSecs > 0 && remoteProfile.calcUpdateInterval() > 0) {
+			tvCurrent.setText(getString(R.string.rp_update_interval_current,
+					resources.getQuantityString(R.plurals.seconds, currentSecs,
+							currentSecs),
+					refreshScheduler.getLastReason()));
+		} else {
+			tvCurrent.setVisibility(View.GONE);
+		}
+
 		boolean showIntervalMobile = BiglyBTApp.getNetworkState().hasMobileDataCapability();
 
 		tvInterval.setText(showIntervalMobile
@@ -210,6 +249,21 @@ public class DialogFragmentRefreshInterval
 		return dialog;
 	}
 
+	private void setupBoundPicker(NumberPicker np, String[] displayedValues,
+			long secs) {
+		int initialValue = 0;
+		for (int i = 0; i < displayedValues.length; i++) {
+			// mapPosToSecs includes "Manual Refresh" at 0
+			if (mapPosToSecs.get(i + 1) <= secs) {
+				initialValue = i;
+			}
+		}
+		np.setMinValue(0);
+		np.setMaxValue(displayedValues.length - 1);
+		np.setDisplayedValues(displayedValues);
+		np.setValue(initialValue);
+	}
+
 	@Override
 	public void onStart() {
 		super.onStart();
@@ -248,6 +302,20 @@ public class DialogFragmentRefreshInterval
 				remoteProfile.setUpdateIntervalMobile(intervalMobile);
 			}
 		}
+		boolean adaptive = cbAdaptive.isChecked();
+		remoteProfile.setUpdateIntervalAdaptive(adaptive);
+		if (adaptive) {
+			int minSecs = mapPosToSecs.get(npIntervalMin.getValue() + 1);
+			int maxSecs = mapPosToSecs.get(npIntervalMax.getValue() + 1);
+			if (maxSecs < minSecs) {
+				int swap = maxSecs;
+				maxSecs = minSecs;
+				minSecs = swap;
+			}
+			remoteProfile.setUpdateIntervalMin(minSecs);
+			remoteProfile.setUpdateIntervalMax(maxSecs);
+		}
+
 		session.saveProfile();
 
 		session.updateSessionSettings(session.getSessionSettingsClone());
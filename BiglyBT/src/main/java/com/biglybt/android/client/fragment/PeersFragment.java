@@ -55,6 +55,7 @@ public class PeersFragment
 		adapter = new PeersAdapter(requireActivity(), remoteProfileID);
 		listview.setItemsCanFocus(true);
 		listview.setAdapter(adapter);
+		adapter.setListView(listview);
 	}
 
 	@Nullable
@@ -24,12 +24,15 @@ import com.biglybt.android.client.adapter.PagerAdapterUsingClasses;
 import com.biglybt.android.client.rpc.TorrentListReceivedListener;
 import com.biglybt.android.client.session.RefreshTriggerListener;
 import com.biglybt.android.client.session.Session;
+import com.biglybt.android.client.session.TorrentListChangeSet;
+import com.biglybt.android.client.session.TorrentListChangedListener;
 import com.biglybt.android.client.sidelist.*;
 import com.biglybt.util.Thunk;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.os.Bundle;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
 import androidx.leanback.app.ProgressBarManager;
@@ -45,7 +48,8 @@ import android.widget.ProgressBar;
 public abstract class TorrentDetailPage
 	extends SideListFragment
 	implements SetTorrentIdListener, RefreshTriggerListener,
-	TorrentListReceivedListener, FragmentPagerListener
+	TorrentListReceivedListener, TorrentListChangedListener,
+	FragmentPagerListener
 {
 
 	private static final String TAG = "TorrentDetailPage";
@@ -224,6 +228,7 @@ public abstract class TorrentDetailPage
 
 		session.removeRefreshTriggerListener(this);
 		session.torrent.removeListReceivedListener(this);
+		session.torrent.removeListChangedListener(this);
 
 		{ // if (hasOptionsMenu()) {
 			AndroidUtilsUI.invalidateOptionsMenuHC(getActivity());
@@ -316,6 +321,7 @@ public abstract class TorrentDetailPage
 
 		session.addRefreshTriggerListener(this, false);
 		session.torrent.addListReceivedListener(this, false);
+		session.torrent.addListChangedListener(this);
 
 		FragmentActivity activity = getActivity();
 		if (activity instanceof ActionModeBeingReplacedListener) {
@@ -363,7 +369,17 @@ public abstract class TorrentDetailPage
 	public void rpcTorrentListReceived(String callID, List<?> addedTorrentMaps,
 			List<String> fields, final int[] fileIndexes,
 			@Nullable List<?> removedTorrentIDs) {
-		if (!viewActive) {
+		// Subclasses that need every reply (even unchanged ones) override this
+	}
+
+	/**
+	 * Only called when something in the torrent cache changed.  Subclasses
+	 * overriding this should check {@link TorrentListChangeSet#getChangedFields(long)}
+	 * for {@link #torrentID} before doing any work.
+	 */
+	@Override
+	public void torrentListChanged(@NonNull TorrentListChangeSet changeSet) {
+		if (!viewActive || !changeSet.isTorrentAffected(torrentID)) {
 			return;
 		}
 		AndroidUtilsUI.runOnUIThread(this, false, activity -> {
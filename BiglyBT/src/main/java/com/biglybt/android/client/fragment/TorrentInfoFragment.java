@@ -20,6 +20,7 @@ import java.util.*;
 
 import com.biglybt.android.adapter.SortableRecyclerAdapter;
 import com.biglybt.android.client.*;
+import com.biglybt.android.client.session.TorrentListChangeSet;
 import com.biglybt.android.util.MapUtils;
 import com.biglybt.android.widget.SwipeRefreshLayoutExtra;
 import com.biglybt.util.DisplayFormatters;
@@ -175,17 +176,17 @@ public class TorrentInfoFragment
 								if (swipeRefresh != null) {
 									swipeRefresh.setRefreshing(false);
 								}
+								// torrentListChanged won't fire if nothing changed since the
+								// last time the page was shown
+								fillDisplay();
 							});
 						}));
 	}
 
 	@Override
-	public void rpcTorrentListReceived(String callID, List<?> addedTorrentMaps,
-			List<String> fields, final int[] fileIndexes, List<?> removedTorrentIDs) {
-		super.rpcTorrentListReceived(callID, addedTorrentMaps, fields, fileIndexes,
-				removedTorrentIDs);
-		if (fields == null || fields.isEmpty()
-				|| fields.contains(TransmissionVars.FIELD_TORRENT_CREATOR)) {
+	public void torrentListChanged(@NonNull TorrentListChangeSet changeSet) {
+		super.torrentListChanged(changeSet);
+		if (changeSet.isTorrentAffected(torrentID)) {
 			AndroidUtilsUI.runOnUIThread(this, false, activity -> fillDisplay());
 		}
 	}
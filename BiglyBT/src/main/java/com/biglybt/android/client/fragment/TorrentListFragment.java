@@ -67,7 +67,8 @@ import android.widget.TextView;
  */
 public class TorrentListFragment
 	extends SideListFragment
-	implements TorrentListReceivedListener, SessionListener,
+	implements TorrentListReceivedListener, TorrentListChangedListener,
+	SessionListener,
 	ActionModeBeingReplacedListener, TagListReceivedListener, View.OnKeyListener,
 	SessionSettingsChangedListener, TorrentListRefreshingListener,
 	NetworkState.NetworkStateListener
@@ -116,6 +117,8 @@ public class TorrentListFragment
 
 	private boolean rebuildActionMode;
 
+	private volatile boolean refilterOnNextList = true;
+
 	@Thunk
 	OnTorrentSelectedListener mCallback;
 
@@ -762,6 +765,9 @@ public class TorrentListFragment
 
 		BiglyBTApp.getNetworkState().addListener(this);
 
+		// Changes are missed while paused; refilter on the list fired at us below
+		refilterOnNextList = true;
+		session.torrent.addListChangedListener(this);
 		session.torrent.addListReceivedListener(TAG, this);
 		session.tag.addTagListReceivedListener(this);
 		session.addSessionListener(this);
@@ -775,6 +781,7 @@ public class TorrentListFragment
 
 		session.tag.removeTagListReceivedListener(this);
 		session.torrent.removeListReceivedListener(this);
+		session.torrent.removeListChangedListener(this);
 		session.torrent.removeListRefreshingListener(this);
 		session.removeSessionSettingsChangedListeners(this);
 		super.onPause();
@@ -874,6 +881,11 @@ public class TorrentListFragment
 			}
 			return;
 		}
+		if (!refilterOnNextList) {
+			// Handled by torrentListChanged, which only fires if something changed
+			return;
+		}
+		refilterOnNextList = false;
 		AndroidUtilsUI.runOnUIThread(this, false, activity -> {
 			if (torrentListAdapter == null) {
 				return;
@@ -882,6 +894,16 @@ public class TorrentListFragment
 		});
 	}
 
+	@Override
+	public void torrentListChanged(@NonNull TorrentListChangeSet changeSet) {
+		AndroidUtilsUI.runOnUIThread(this, false, activity -> {
+			if (torrentListAdapter == null) {
+				return;
+			}
+			torrentListAdapter.refreshDisplayList(changeSet);
+		});
+	}
+
 	@Override
 	public boolean onOptionsItemSelected(MenuItem item) {
 		if (AndroidUtils.DEBUG_MENU) {
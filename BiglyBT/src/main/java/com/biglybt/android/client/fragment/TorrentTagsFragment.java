@@ -21,6 +21,7 @@ import java.util.*;
 import com.biglybt.android.adapter.SortableRecyclerAdapter;
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.rpc.TagListReceivedListener;
+import com.biglybt.android.client.session.TorrentListChangeSet;
 import com.biglybt.android.client.spanbubbles.SpanTags;
 import com.biglybt.android.util.MapUtils;
 import com.biglybt.util.Thunk;
@@ -116,11 +117,12 @@ public class TorrentTagsFragment
 	}
 
 	@Override
-	public void rpcTorrentListReceived(String callID, List<?> addedTorrentMaps,
-			List<String> fields, final int[] fileIndexes, List<?> removedTorrentIDs) {
-		super.rpcTorrentListReceived(callID, addedTorrentMaps, fields, fileIndexes,
-				removedTorrentIDs);
-		updateTags();
+	public void torrentListChanged(@NonNull TorrentListChangeSet changeSet) {
+		super.torrentListChanged(changeSet);
+		if (changeSet.wasAdded(torrentID) || changeSet.anyFieldChanged(torrentID,
+				TransmissionVars.FIELD_TORRENT_TAG_UIDS)) {
+			updateTags();
+		}
 	}
 
 	@SuppressLint("RestrictedApi")
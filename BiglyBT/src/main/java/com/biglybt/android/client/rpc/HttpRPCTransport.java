@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.biglybt.android.client.rpc;
+
+import java.util.Map;
+
+import com.biglybt.android.client.session.RemoteProfile;
+import com.biglybt.android.client.session.Session;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+/**
+ * {@link RPCTransport} that POSTs the request to the remote's RPC URL with
+ * {@link RestJsonClient}, and keeps the Transmission session id the remote
+ * hands out with a 409.
+ */
+class HttpRPCTransport
+	implements RPCTransport
+{
+	private static final String HEADER_SESSION_ID = "X-Transmission-Session-Id";
+
+	private final Session session;
+
+	private final String rpcURL;
+
+	private Map<String, String> headers;
+
+	private RestJsonClient restJsonClient;
+
+	HttpRPCTransport(Session session, String rpcURL) {
+		this.session = session;
+		this.rpcURL = rpcURL;
+	}
+
+	/**
+	 * Switch to a client that matches what the remote supports, once known
+	 */
+	void setSupportsSendingGzip(boolean supportsSendingGzip,
+			boolean supportsChunkedRequests) {
+		restJsonClient = RestJsonClient.getInstance(supportsSendingGzip,
+				supportsChunkedRequests);
+	}
+
+	@WorkerThread
+	@Override
+	public Map<?, ?> call(@NonNull String requestID, @NonNull Map<?, ?> request,
+			@Nullable JsonReplyDecoder decoder, @Nullable RPCMetrics.Sample sample)
+			throws RPCException {
+		if (restJsonClient == null) {
+			restJsonClient = RestJsonClient.getInstance(false, false);
+		}
+		RemoteProfile remoteProfile = session.getRemoteProfile();
+		try {
+			return restJsonClient.connect(requestID, rpcURL, request, headers,
+					remoteProfile.getUser(), remoteProfile.getAC(), decoder, sample);
+		} catch (RPCException e) {
+			if (e.getResponseCode() == 409) {
+				// Caller retries, with the session id we were just given
+				headers = e.getFirstHeader(HEADER_SESSION_ID);
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.rpc;
+
+import java.io.Reader;
+import java.util.Map;
+
+import androidx.annotation.WorkerThread;
+
+/**
+ * Decodes a JSON reply body as it is being read from the connection.
+ * <p>
+ * When none is supplied, {@link RestJsonClient} falls back to
+ * {@link com.biglybt.android.util.JSONUtils#decodeJSON(Reader)}
+ */
+public interface JsonReplyDecoder
+{
+	@WorkerThread
+	Map<?, ?> decode(Reader reader)
+			throws Exception;
+}
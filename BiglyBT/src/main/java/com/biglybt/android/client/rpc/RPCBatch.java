@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.rpc;
+
+import java.util.*;
+
+import com.biglybt.android.client.TransmissionVars;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Several RPC calls that are sent together.
+ * <p>
+ * When the remote client supports {@link RPCSupports#SUPPORTS_BATCH}, all
+ * calls go out in one HTTP request, and each reply is handed to its own
+ * listener.  Otherwise, each call is sent on its own, as if it had been made
+ * through the normal {@link TransmissionRPC} methods.
+ * <p>
+ * Create with {@link TransmissionRPC#createBatch(String, int)}
+ */
+public class RPCBatch
+{
+	static final class MethodEntry
+	{
+		final String method;
+
+		@Nullable
+		final Map arguments;
+
+		@Nullable
+		final ReplyMapReceivedListener l;
+
+		MethodEntry(String method, @Nullable Map arguments,
+				@Nullable ReplyMapReceivedListener l) {
+			this.method = method;
+			this.arguments = arguments;
+			this.l = l;
+		}
+	}
+
+	static final class TorrentGetEntry
+	{
+		final String callID;
+
+		/**
+		 * null (all), String (ie. "recently-active"), or long[]
+		 */
+		@Nullable
+		final Object ids;
+
+		final List<String> fields;
+
+		@Nullable
+		final TorrentListReceivedListener l;
+
+		TorrentGetEntry(String callID, @Nullable Object ids, List<String> fields,
+				@Nullable TorrentListReceivedListener l) {
+			this.callID = callID;
+			this.ids = ids;
+			this.fields = fields;
+			this.l = l;
+		}
+	}
+
+	private final TransmissionRPC rpc;
+
+	final String batchID;
+
+	@RPCDispatcher.Priority
+	final int priority;
+
+	/**
+	 * {@link MethodEntry} or {@link TorrentGetEntry}, in the order they were
+	 * added.  Replies are delivered in the same order.
+	 */
+	final List<Object> entries = new ArrayList<>();
+
+	private boolean sent;
+
+	RPCBatch(TransmissionRPC rpc, String batchID,
+			@RPCDispatcher.Priority int priority) {
+		this.rpc = rpc;
+		this.batchID = batchID;
+		this.priority = priority;
+	}
+
+	@NonNull
+	public RPCBatch addCall(String method, @Nullable Map arguments,
+			@Nullable ReplyMapReceivedListener l) {
+		entries.add(new MethodEntry(method, arguments, l));
+		return this;
+	}
+
+	@NonNull
+	public RPCBatch addSessionStats(@Nullable String[] fields,
+			@Nullable ReplyMapReceivedListener l) {
+		Map<String, Object> arguments = null;
+		if (fields != null) {
+			arguments = new HashMap<>();
+			arguments.put("fields", fields);
+		}
+		return addCall(TransmissionVars.METHOD_SESSION_STATS, arguments, l);
+	}
+
+	/**
+	 * Always triggers TorrentListReceivedListener
+	 */
+	@NonNull
+	public RPCBatch addAllTorrents(String callID,
+			@Nullable TorrentListReceivedListener l) {
+		entries.add(new TorrentGetEntry(callID, null,
+				rpc.getBasicTorrentFieldIDs(), l));
+		return this;
+	}
+
+	/**
+	 * Get recently-active torrents, or all torrents if there are no recents
+	 * <br>
+	 * Always triggers TorrentListReceivedListener
+	 */
+	@NonNull
+	public RPCBatch addRecentTorrents(String callID,
+			@Nullable TorrentListReceivedListener l) {
+		entries.add(new TorrentGetEntry(callID, "recently-active",
+				rpc.getBasicTorrentFieldIDs(),
+				rpc.createRecentTorrentsListener(priority, l)));
+		return this;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Send all calls.  A batch can only be sent once.
+	 */
+	public void send() {
+		if (sent) {
+			throw new IllegalStateException("Batch " + batchID + " already sent");
+		}
+		sent = true;
+		rpc.sendBatch(this);
+	}
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.rpc;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.util.Thunk;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Runs RPC work for one {@link TransmissionRPC} on a small, bounded pool of
+ * worker threads.
+ * <p>
+ * Queued work is ordered by priority lane ({@link #PRIORITY_USER} before
+ * {@link #PRIORITY_REFRESH} before {@link #PRIORITY_PREFETCH}), then by
+ * submission order.  Each lane has a maximum queue depth; work submitted to
+ * a full lane is rejected through its cancel callback.
+ * <p>
+ * {@link #destroy()} cancels everything still queued or scheduled.
+ */
+public class RPCDispatcher
+{
+	private static final String TAG = "RPCDispatcher";
+
+	public static final int PRIORITY_USER = 0;
+
+	public static final int PRIORITY_REFRESH = 1;
+
+	public static final int PRIORITY_PREFETCH = 2;
+
+	@Retention(RetentionPolicy.SOURCE)
+	@IntDef({
+		PRIORITY_USER,
+		PRIORITY_REFRESH,
+		PRIORITY_PREFETCH
+	})
+	public @interface Priority {
+	}
+
+	private static final String[] PRIORITY_DEBUGSTRINGS = {
+		"User",
+		"Refresh",
+		"Prefetch"
+	};
+
+	/**
+	 * Maximum number of queued (not running) jobs, per priority lane
+	 */
+	private static final int[] MAX_QUEUED = {
+		64,
+		8,
+		8
+	};
+
+	private static final int NUM_WORKERS = 3;
+
+	private static final long WORKER_KEEPALIVE_SECS = 30;
+
+	public interface CancelListener
+	{
+		/**
+		 * Job was not, and will not be, run.
+		 */
+		@AnyThread
+		void jobCancelled(String reason);
+	}
+
+	private class Job
+		implements Runnable, Comparable<Job>
+	{
+		@Priority
+		final int priority;
+
+		final long seq;
+
+		final String name;
+
+		final Runnable runnable;
+
+		@Nullable
+		final CancelListener cancelListener;
+
+		final long queuedOn;
+
+		Job(@Priority int priority, long seq, String name, Runnable runnable,
+				@Nullable CancelListener cancelListener) {
+			this.priority = priority;
+			this.seq = seq;
+			this.name = name;
+			this.runnable = runnable;
+			this.cancelListener = cancelListener;
+			this.queuedOn = System.currentTimeMillis();
+		}
+
+		@Override
+		public void run() {
+			synchronized (lock) {
+				numQueued[priority]--;
+			}
+			if (AndroidUtils.DEBUG_RPC) {
+				long waited = System.currentTimeMillis() - queuedOn;
+				if (waited > 100) {
+					Log.d(TAG, name + "] waited " + waited + "ms in "
+							+ PRIORITY_DEBUGSTRINGS[priority] + " lane");
+				}
+			}
+			runnable.run();
+		}
+
+		@Override
+		public int compareTo(@NonNull Job o) {
+			if (priority != o.priority) {
+				return priority < o.priority ? -1 : 1;
+			}
+			return seq < o.seq ? -1 : seq == o.seq ? 0 : 1;
+		}
+
+		void cancel(String reason) {
+			if (cancelListener != null) {
+				try {
+					cancelListener.jobCancelled(reason);
+				} catch (Throwable t) {
+					Log.e(TAG, "cancel " + name, t);
+				}
+			}
+		}
+	}
+
+	/** Dispatcher whose worker is running on the current thread */
+	@Thunk
+	static final ThreadLocal<RPCDispatcher> currentDispatcher = new ThreadLocal<>();
+
+	@Thunk
+	final Object lock = new Object();
+
+	@Thunk
+	final int[] numQueued = new int[MAX_QUEUED.length];
+
+	private final ThreadPoolExecutor executor;
+
+	private final List<Job> scheduledJobs = new ArrayList<>();
+
+	private Handler handler;
+
+	private long nextSeq;
+
+	private boolean destroyed;
+
+	public RPCDispatcher(final String name) {
+		ThreadFactory threadFactory = new ThreadFactory() {
+			final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(@NonNull Runnable r) {
+				Thread thread = new Thread(() -> {
+					currentDispatcher.set(RPCDispatcher.this);
+					r.run();
+				}, "RPC-" + name + "-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		// Pool must have core == max, otherwise ThreadPoolExecutor will never
+		// grow past core when using an unbounded queue
+		executor = new ThreadPoolExecutor(NUM_WORKERS, NUM_WORKERS,
+				WORKER_KEEPALIVE_SECS, TimeUnit.SECONDS,
+				new PriorityBlockingQueue<>(), threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Queue a job
+	 *
+	 * @return false if the job was rejected.  cancelListener will have been
+	 * called.
+	 */
+	@AnyThread
+	public boolean execute(@Priority int priority, String name,
+			Runnable runnable, @Nullable CancelListener cancelListener) {
+		Job job;
+		String rejectReason = null;
+		synchronized (lock) {
+			job = new Job(priority, nextSeq++, name, runnable, cancelListener);
+			if (destroyed) {
+				rejectReason = "RPC not available";
+			} else if (numQueued[priority] >= MAX_QUEUED[priority]) {
+				rejectReason = "Too many queued requests";
+			} else {
+				numQueued[priority]++;
+			}
+		}
+		if (rejectReason != null) {
+			if (AndroidUtils.DEBUG_RPC) {
+				Log.w(TAG, name + "] rejected from " + PRIORITY_DEBUGSTRINGS[priority]
+						+ " lane: " + rejectReason);
+			}
+			job.cancel(rejectReason);
+			return false;
+		}
+		try {
+			executor.execute(job);
+		} catch (RejectedExecutionException e) {
+			synchronized (lock) {
+				numQueued[priority]--;
+			}
+			job.cancel("RPC not available");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Queue a job after a delay.  The lane's depth limit is checked when the
+	 * delay expires, not now.
+	 */
+	@AnyThread
+	public void schedule(@Priority final int priority, String name,
+			long delayMS, Runnable runnable,
+			@Nullable CancelListener cancelListener) {
+		final Job job;
+		synchronized (lock) {
+			job = new Job(priority, nextSeq++, name, runnable, cancelListener);
+			if (!destroyed) {
+				if (handler == null) {
+					handler = new Handler(Looper.getMainLooper());
+				}
+				scheduledJobs.add(job);
+				handler.postDelayed(() -> {
+					synchronized (lock) {
+						if (!scheduledJobs.remove(job)) {
+							return;
+						}
+					}
+					execute(job.priority, job.name, job.runnable, job.cancelListener);
+				}, delayMS);
+				return;
+			}
+		}
+		job.cancel("RPC not available");
+	}
+
+	/**
+	 * @return true if called from one of this dispatcher's workers
+	 */
+	@AnyThread
+	public boolean isWorkerThread() {
+		return currentDispatcher.get() == this;
+	}
+
+	public int getQueueDepth(@Priority int priority) {
+		synchronized (lock) {
+			return numQueued[priority];
+		}
+	}
+
+	/**
+	 * Cancel all queued and scheduled jobs.  Jobs already running are left to
+	 * finish.
+	 */
+	@AnyThread
+	public void destroy() {
+		List<Job> cancelJobs = new ArrayList<>();
+		synchronized (lock) {
+			if (destroyed) {
+				return;
+			}
+			destroyed = true;
+			if (handler != null) {
+				handler.removeCallbacksAndMessages(null);
+			}
+			cancelJobs.addAll(scheduledJobs);
+			scheduledJobs.clear();
+		}
+
+		List<Runnable> queued = new ArrayList<>();
+		executor.getQueue().drainTo(queued);
+		executor.shutdown();
+		for (Runnable runnable : queued) {
+			if (runnable instanceof Job) {
+				cancelJobs.add((Job) runnable);
+			}
+		}
+		if (AndroidUtils.DEBUG_RPC && cancelJobs.size() > 0) {
+			Log.d(TAG, "destroy: cancelling " + cancelJobs.size() + " jobs");
+		}
+		for (Job job : cancelJobs) {
+			job.cancel("RPC not available");
+		}
+	}
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.rpc;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.*;
+
+import com.biglybt.android.util.JSONUtils;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Always-on RPC cost counters, per remote and RPC method.
+ * <p>
+ * Each RPC call records request and response sizes, time spent queued in
+ * {@link RPCDispatcher}, network time (sending the request until the reply
+ * headers arrive), and decode time (reading and decoding the reply body).
+ * Values go into fixed-bucket histograms, so recording is a few array
+ * increments and memory doesn't grow with the number of calls.
+ * <p>
+ * Kept in memory for the life of the process.
+ */
+public class RPCMetrics
+{
+	public static final int OUTCOME_SUCCESS = 0;
+
+	/** Remote replied with a result other than "success" */
+	public static final int OUTCOME_FAILURE = 1;
+
+	/** Call threw (connection, HTTP, or decode error) */
+	public static final int OUTCOME_ERROR = 2;
+
+	/** Remote replied 409 (new session id), and the call was retried */
+	public static final int OUTCOME_RETRY_409 = 3;
+
+	@Retention(RetentionPolicy.SOURCE)
+	@IntDef({
+		OUTCOME_SUCCESS,
+		OUTCOME_FAILURE,
+		OUTCOME_ERROR,
+		OUTCOME_RETRY_409
+	})
+	public @interface Outcome {
+	}
+
+	/**
+	 * Inclusive upper bounds of time buckets, in ms.  Anything larger goes
+	 * into an extra, last bucket.
+	 */
+	private static final long[] TIME_BUCKETS_MS = {
+		5,
+		10,
+		25,
+		50,
+		100,
+		250,
+		500,
+		1000,
+		2500,
+		5000,
+		10000,
+		30000
+	};
+
+	/**
+	 * Inclusive upper bounds of size buckets, in bytes
+	 */
+	private static final long[] SIZE_BUCKETS = {
+		256,
+		1024,
+		4 * 1024,
+		16 * 1024,
+		64 * 1024,
+		256 * 1024,
+		1024 * 1024,
+		4 * 1024 * 1024
+	};
+
+	/**
+	 * Filled in by {@link RestJsonClient} for one HTTP request.  Fields stay -1
+	 * when the request didn't get that far.
+	 */
+	public static final class Sample
+	{
+		long requestBytes = -1;
+
+		long responseBytes = -1;
+
+		long networkMS = -1;
+
+		long decodeMS = -1;
+	}
+
+	public static final class Histogram
+	{
+		@NonNull
+		private final long[] bounds;
+
+		@NonNull
+		private final long[] counts;
+
+		private long count;
+
+		private long sum;
+
+		private long max;
+
+		Histogram(@NonNull long[] bounds) {
+			this.bounds = bounds;
+			this.counts = new long[bounds.length + 1];
+		}
+
+		Histogram(@NonNull Histogram other) {
+			bounds = other.bounds;
+			counts = other.counts.clone();
+			count = other.count;
+			sum = other.sum;
+			max = other.max;
+		}
+
+		void add(long value) {
+			if (value < 0) {
+				return;
+			}
+			int i = 0;
+			while (i < bounds.length && value > bounds[i]) {
+				i++;
+			}
+			counts[i]++;
+			count++;
+			sum += value;
+			if (value > max) {
+				max = value;
+			}
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * @return Average, or -1 if no values
+		 */
+		public long getAverage() {
+			return count == 0 ? -1 : sum / count;
+		}
+
+		/**
+		 * @param percentile 0 to 100
+		 * @return Upper bound of the bucket holding the value at percentile, or
+		 * the max value if it's in the last bucket.  -1 if no values
+		 */
+		public long getPercentile(int percentile) {
+			if (count == 0) {
+				return -1;
+			}
+			long target = (count * percentile + 99) / 100;
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= target && counts[i] > 0) {
+					return i < bounds.length ? Math.min(bounds[i], max) : max;
+				}
+			}
+			return max;
+		}
+
+		@NonNull
+		Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("count", count);
+			map.put("sum", sum);
+			map.put("max", max);
+			map.put("p50", getPercentile(50));
+			map.put("p95", getPercentile(95));
+			List<Long> listBounds = new ArrayList<>(bounds.length);
+			for (long bound : bounds) {
+				listBounds.add(bound);
+			}
+			map.put("bounds", listBounds);
+			List<Long> listCounts = new ArrayList<>(counts.length);
+			for (long c : counts) {
+				listCounts.add(c);
+			}
+			map.put("counts", listCounts);
+			return map;
+		}
+	}
+
+	/**
+	 * Metrics of one RPC method on one remote.  Instances returned by
+	 * {@link #getStats()} are copies, and don't change.
+	 */
+	public static final class MethodStats
+	{
+		@NonNull
+		public final String remote;
+
+		@NonNull
+		public final String method;
+
+		public long calls;
+
+		public long failures;
+
+		public long errors;
+
+		public long retries409;
+
+		@NonNull
+		public final Histogram requestBytes;
+
+		@NonNull
+		public final Histogram responseBytes;
+
+		@NonNull
+		public final Histogram queueWaitMS;
+
+		@NonNull
+		public final Histogram networkMS;
+
+		@NonNull
+		public final Histogram decodeMS;
+
+		MethodStats(@NonNull String remote, @NonNull String method) {
+			this.remote = remote;
+			this.method = method;
+			requestBytes = new Histogram(SIZE_BUCKETS);
+			responseBytes = new Histogram(SIZE_BUCKETS);
+			queueWaitMS = new Histogram(TIME_BUCKETS_MS);
+			networkMS = new Histogram(TIME_BUCKETS_MS);
+			decodeMS = new Histogram(TIME_BUCKETS_MS);
+		}
+
+		MethodStats(@NonNull MethodStats other) {
+			remote = other.remote;
+			method = other.method;
+			calls = other.calls;
+			failures = other.failures;
+			errors = other.errors;
+			retries409 = other.retries409;
+			requestBytes = new Histogram(other.requestBytes);
+			responseBytes = new Histogram(other.responseBytes);
+			queueWaitMS = new Histogram(other.queueWaitMS);
+			networkMS = new Histogram(other.networkMS);
+			decodeMS = new Histogram(other.decodeMS);
+		}
+
+		@NonNull
+		Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("remote", remote);
+			map.put("method", method);
+			map.put("calls", calls);
+			map.put("failures", failures);
+			map.put("errors", errors);
+			map.put("retries409", retries409);
+			map.put("requestBytes", requestBytes.toMap());
+			map.put("responseBytes", responseBytes.toMap());
+			map.put("queueWaitMS", queueWaitMS.toMap());
+			map.put("networkMS", networkMS.toMap());
+			map.put("decodeMS", decodeMS.toMap());
+			return map;
+		}
+	}
+
+	private static final RPCMetrics instance = new RPCMetrics();
+
+	private final Map<String, MethodStats> mapStats = new HashMap<>();
+
+	private long startedOn = System.currentTimeMillis();
+
+	public static RPCMetrics getInstance() {
+		return instance;
+	}
+
+	private RPCMetrics() {
+	}
+
+	/**
+	 * @param queueWaitMS Time the call waited for a worker, or -1 if unknown
+	 * @param sample      Filled in by {@link RestJsonClient}, or null if the
+	 *                    call never reached it
+	 */
+	@AnyThread
+	void record(@Nullable String remote, @Nullable String method,
+			long queueWaitMS, @Nullable Sample sample, @Outcome int outcome) {
+		if (remote == null) {
+			remote = "";
+		}
+		if (method == null) {
+			method = "?";
+		}
+		String key = remote + '\n' + method;
+		synchronized (mapStats) {
+			MethodStats stats = mapStats.get(key);
+			if (stats == null) {
+				stats = new MethodStats(remote, method);
+				mapStats.put(key, stats);
+			}
+
+			switch (outcome) {
+				case OUTCOME_FAILURE:
+					stats.failures++;
+					break;
+				case OUTCOME_ERROR:
+					stats.errors++;
+					break;
+				case OUTCOME_RETRY_409:
+					// The retry is recorded as its own call
+					stats.retries409++;
+					return;
+			}
+			stats.calls++;
+			stats.queueWaitMS.add(queueWaitMS);
+			if (sample != null) {
+				stats.requestBytes.add(sample.requestBytes);
+				stats.responseBytes.add(sample.responseBytes);
+				stats.networkMS.add(sample.networkMS);
+				stats.decodeMS.add(sample.decodeMS);
+			}
+		}
+	}
+
+	/**
+	 * @return Copy of all metrics, sorted by remote, then method
+	 */
+	@NonNull
+	public List<MethodStats> getStats() {
+		List<MethodStats> list;
+		synchronized (mapStats) {
+			list = new ArrayList<>(mapStats.size());
+			for (MethodStats stats : mapStats.values()) {
+				list.add(new MethodStats(stats));
+			}
+		}
+		Collections.sort(list, (o1, o2) -> {
+			int i = o1.remote.compareTo(o2.remote);
+			return i == 0 ? o1.method.compareTo(o2.method) : i;
+		});
+		return list;
+	}
+
+	public long getStartedOn() {
+		return startedOn;
+	}
+
+	public void reset() {
+		synchronized (mapStats) {
+			mapStats.clear();
+			startedOn = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * @return All metrics as JSON, including the raw histogram buckets
+	 */
+	@NonNull
+	public String toJSON() {
+		List<Object> list = new ArrayList<>();
+		for (MethodStats stats : getStats()) {
+			list.add(stats.toMap());
+		}
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("startedOn", startedOn);
+		map.put("exportedOn", System.currentTimeMillis());
+		map.put("methods", list);
+		return JSONUtils.encodeToJSON(map);
+	}
+}
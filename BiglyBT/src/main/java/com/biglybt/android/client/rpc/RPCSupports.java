@@ -33,4 +33,9 @@ public interface RPCSupports
 	String SUPPORTS_SEARCH = "SEARCH";
 
 	String SUPPORTS_TORRENT_RENAAME = "TORRENTRENAME";
+
+	/**
+	 * Multiple method calls in one request.  See {@link RPCBatch}
+	 */
+	String SUPPORTS_BATCH = "BATCH";
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.biglybt.android.client.rpc;
+
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+/**
+ * How {@link TransmissionRPC} gets a request to the remote client and its
+ * reply back.
+ * <p>
+ * {@link HttpRPCTransport}, JSON over HTTP, is the only implementation.  It
+ * is used for remote clients and for the core on this device alike.
+ */
+interface RPCTransport
+{
+	/**
+	 * @param request Map to send as the JSON request
+	 * @param decoder Decodes the reply as it streams in.  null for the generic
+	 *                {@link com.biglybt.android.util.JSONUtils} decoder
+	 * @param sample Filled with sizes and timings of the request, when not null
+	 * @return Reply map
+	 */
+	@WorkerThread
+	Map<?, ?> call(@NonNull String requestID, @NonNull Map<?, ?> request,
+			@Nullable JsonReplyDecoder decoder, @Nullable RPCMetrics.Sample sample)
+			throws RPCException;
+}
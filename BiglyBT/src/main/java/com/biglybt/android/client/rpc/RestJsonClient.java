@@ -35,6 +35,16 @@ public abstract class RestJsonClient
 			Map<String, String> headers, String username, String password)
 			throws RPCException;
 
+	/**
+	 * @param decoder Decodes the reply as it streams in.  null for the generic
+	 *                {@link com.biglybt.android.util.JSONUtils} decoder
+	 * @param sample Filled with sizes and timings of the request, when not null
+	 */
+	abstract Map<?, ?> connect(String requestID, String url, Map<?, ?> jsonPost,
+			Map<String, String> headers, String username, String password,
+			JsonReplyDecoder decoder, RPCMetrics.Sample sample)
+			throws RPCException;
+
 	public static RestJsonClient getInstance(boolean supportsSendingGZip,
 			boolean supportsChunkedRequests) {
 
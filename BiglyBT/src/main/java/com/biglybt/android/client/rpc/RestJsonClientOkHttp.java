@@ -20,6 +20,7 @@ import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -34,6 +35,7 @@ import com.biglybt.android.client.R;
 import com.biglybt.android.util.JSONUtils;
 import com.biglybt.util.Base64Encode;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Log;
 
@@ -52,6 +54,8 @@ public class RestJsonClientOkHttp
 	// StringBuilder and JSON Reader parser are about the same speed, but SB probably uses more memory
 	private static final boolean USE_STRINGBUILDER = false;
 
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
 	private static final MediaType MEDIATYPE_JSON = MediaType.parse(
 			"application/json; charset=utf-8");
 
@@ -84,6 +88,16 @@ public class RestJsonClientOkHttp
 			@Nullable Map<?, ?> jsonPost, @Nullable Map<String, String> headers,
 			@Nullable String username, @Nullable String password)
 			throws RPCException {
+		return connect(requestID, url, jsonPost, headers, username, password,
+				null, null);
+	}
+
+	@Override
+	public Map<?, ?> connect(String requestID, String url,
+			@Nullable Map<?, ?> jsonPost, @Nullable Map<String, String> headers,
+			@Nullable String username, @Nullable String password,
+			@Nullable JsonReplyDecoder decoder, @Nullable RPCMetrics.Sample sample)
+			throws RPCException {
 		long readTime = 0;
 		long connSetupTime = 0;
 		long connTime = 0;
@@ -128,16 +142,16 @@ public class RestJsonClientOkHttp
 				if (AndroidUtils.DEBUG_RPC) {
 					Log.d(TAG, requestID + "]  Post: " + postString);
 				}
+				byte[] postBytes;
 				if (supportsSendingGzip && !supportsSendingChunk) {
 					builder.addHeader("Content-Encoding", "gzip");
-					byte[] compressed = compressString(postString);
-					RequestBody requestBody = RequestBody.create(MEDIATYPE_JSON,
-							compressed);
-					builder.post(requestBody);
+					postBytes = compressString(postString);
 				} else {
-					RequestBody requestBody = RequestBody.create(MEDIATYPE_JSON,
-							postString.getBytes());
-					builder.post(requestBody);
+					postBytes = postString.getBytes();
+				}
+				builder.post(RequestBody.create(MEDIATYPE_JSON, postBytes));
+				if (sample != null) {
+					sample.requestBytes = postBytes.length;
 				}
 			}
 
@@ -152,17 +166,16 @@ public class RestJsonClientOkHttp
 
 			// Execute the response
 			then = System.currentTimeMillis();
-			if (AndroidUtils.DEBUG_RPC) {
-				connSetupTime = (then - now);
-				now = then;
-			}
+			connSetupTime = (then - now);
+			now = then;
 
 			Response response = localClient.newCall(request).execute();
 
 			then = System.currentTimeMillis();
-			if (AndroidUtils.DEBUG_RPC) {
-				connTime = (then - now);
-				now = then;
+			connTime = (then - now);
+			now = then;
+			if (sample != null) {
+				sample.networkMS = connTime;
 			}
 
 			int statusCode = response.code();
@@ -183,6 +196,7 @@ public class RestJsonClientOkHttp
 			}
 
 			Reader isr = null; // body.charStream();
+			CountingInputStream countingStream = null;
 			StringBuilder sb = null;
 			BufferedReader br = null;
 			try {
@@ -214,12 +228,19 @@ public class RestJsonClientOkHttp
 						now = then;
 					}
 
-					json = JSONUtils.decodeJSON(sb.toString());
+					json = decoder == null ? JSONUtils.decodeJSON(sb.toString())
+							: decoder.decode(new StringReader(sb.toString()));
 				} else {
-					isr = body.charStream();
+					// Count bytes as they are read, so streaming decoders still get
+					// a response size
+					countingStream = new CountingInputStream(body.byteStream());
+					MediaType contentType = body.contentType();
+					isr = new InputStreamReader(countingStream, contentType == null
+							? UTF_8 : contentType.charset(UTF_8));
 					br = new BufferedReader(isr, 8192);
 					br.mark(32767);
-					json = JSONUtils.decodeJSON(br);
+					json = decoder == null ? JSONUtils.decodeJSON(br)
+							: decoder.decode(br);
 
 					if (DEBUG_DETAILED) {
 						String s = json.toString();
@@ -294,6 +315,15 @@ public class RestJsonClientOkHttp
 				throw new RPCException(response, statusCode,
 						sb == null ? line : sb.toString(), msg, pe);
 			} finally {
+				if (countingStream != null) {
+					bytesRead = (int) countingStream.count;
+				} else if (sb != null) {
+					bytesRead = sb.length();
+				}
+				if (sample != null) {
+					sample.decodeMS = System.currentTimeMillis() - now;
+					sample.responseBytes = bytesRead;
+				}
 				body.close();
 			}
 
@@ -318,6 +348,44 @@ public class RestJsonClientOkHttp
 		return json;
 	}
 
+	private static class CountingInputStream
+		extends FilterInputStream
+	{
+		long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read()
+				throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(@NonNull byte[] b, int off, int len)
+				throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n)
+				throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
 	private static OkHttpClient getUnsafeOkHttpClient(boolean sendChunkedGzip) {
 		try {
 			// Create a trust manager that does not validate certificate chains
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.rpc;
+
+import java.util.*;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.util.Thunk;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Shares "torrent-get" calls between callers asking for overlapping data.
+ * <p>
+ * A request whose ids and fields are covered by a call already in flight
+ * attaches to that call and receives its share of the decoded reply.
+ * Requests for explicit torrent ids that arrive within
+ * {@link #MERGE_WINDOW_MS} of each other, and ask for the same fields, are
+ * merged into one call.  If a request with a higher priority joins a call
+ * that hasn't been sent yet, the call is sent right away, in that request's
+ * lane.
+ * <p>
+ * Calls in flight stop accepting new waiters once {@link #invalidate()} is
+ * called, so a refresh requested after a torrent change never gets a reply
+ * that may have been built before the change.
+ */
+class TorrentGetCoalescer
+{
+	private static final String TAG = "TorrentGetCoalescer";
+
+	private static final long MERGE_WINDOW_MS = 30;
+
+	interface CallSender
+	{
+		void sendCall(@NonNull Call call);
+
+		void cancelCall(@NonNull Call call, String reason);
+	}
+
+	static final class Waiter
+	{
+		final String callID;
+
+		/**
+		 * null if waiter wants everything the call returns
+		 */
+		@Nullable
+		final long[] ids;
+
+		@Nullable
+		final TorrentListReceivedListener l;
+
+		Waiter(String callID, @Nullable long[] ids,
+				@Nullable TorrentListReceivedListener l) {
+			this.callID = callID;
+			this.ids = ids;
+			this.l = l;
+		}
+	}
+
+	static final class Call
+	{
+		final String callID;
+
+		/**
+		 * null (all), String (ie. "recently-active"), or long[]
+		 */
+		@Nullable
+		Object ids;
+
+		@Nullable
+		final List<String> fields;
+
+		@Nullable
+		final int[] fileIndexes;
+
+		@Nullable
+		final String[] fileFields;
+
+		@RPCDispatcher.Priority
+		int priority;
+
+		final List<Waiter> waiters = new ArrayList<>(1);
+
+		boolean sent;
+
+		boolean attachable = true;
+
+		/**
+		 * When the job that sends this call was queued in the dispatcher, for
+		 * the queue wait metric.  A pending call's merge window isn't counted.
+		 */
+		long queuedOn;
+
+		Call(String callID, @Nullable Object ids, @Nullable List<String> fields,
+				@Nullable int[] fileIndexes, @Nullable String[] fileFields,
+				@RPCDispatcher.Priority int priority) {
+			this.callID = callID;
+			this.ids = ids;
+			this.fields = fields;
+			this.fileIndexes = fileIndexes;
+			this.fileFields = fileFields;
+			this.priority = priority;
+		}
+
+		boolean covers(@Nullable Object wantIDs, @Nullable long[] wantIDArray,
+				@Nullable List<String> wantFields, @Nullable int[] wantFileIndexes,
+				@Nullable String[] wantFileFields) {
+			if (!attachable || !Arrays.equals(fileIndexes, wantFileIndexes)
+					|| !Arrays.equals(fileFields, wantFileFields)) {
+				return false;
+			}
+			if (fields != null
+					&& (wantFields == null || !fields.containsAll(wantFields))) {
+				return false;
+			}
+			if (ids == null) {
+				// We are getting all torrents, which covers all, and specific ids.
+				// It doesn't cover "recently-active", since the caller may rely
+				// on "removed" being set
+				return wantIDs == null || wantIDArray != null;
+			}
+			if (ids instanceof String) {
+				return ids.equals(wantIDs);
+			}
+			if (wantIDArray == null) {
+				return false;
+			}
+			long[] callIDs = (long[]) ids;
+			for (long id : wantIDArray) {
+				if (!contains(callIDs, id)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		boolean canMerge(@Nullable List<String> wantFields,
+				@Nullable String[] wantFileFields) {
+			if (sent || !(ids instanceof long[]) || fileIndexes != null
+					|| !Arrays.equals(fileFields, wantFileFields)) {
+				return false;
+			}
+			if (fields == null || wantFields == null) {
+				return fields == wantFields;
+			}
+			return fields.size() == wantFields.size()
+					&& fields.containsAll(wantFields);
+		}
+
+		void mergeIDs(long[] addIDs) {
+			long[] callIDs = (long[]) ids;
+			int numNew = 0;
+			long[] merged = Arrays.copyOf(callIDs, callIDs.length + addIDs.length);
+			for (long id : addIDs) {
+				if (!contains(callIDs, id)) {
+					merged[callIDs.length + numNew] = id;
+					numNew++;
+				}
+			}
+			if (numNew > 0) {
+				ids = Arrays.copyOf(merged, callIDs.length + numNew);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return callID + "/"
+					+ ((ids instanceof long[]) ? Arrays.toString((long[]) ids) : ids)
+					+ "/" + waiters.size() + " waiters";
+		}
+	}
+
+	private final Object lock = new Object();
+
+	private final List<Call> calls = new ArrayList<>();
+
+	private final RPCDispatcher dispatcher;
+
+	private final CallSender sender;
+
+	TorrentGetCoalescer(RPCDispatcher dispatcher, CallSender sender) {
+		this.dispatcher = dispatcher;
+		this.sender = sender;
+	}
+
+	/**
+	 * Attach to an existing call, merge into a pending call, or start a new one
+	 *
+	 * @param queuedOn When the job calling us was queued in the dispatcher, or
+	 *                 when the request was made, if it wasn't queued
+	 */
+	void getTorrents(String callID, @Nullable Object ids,
+			@Nullable List<String> fields, @Nullable int[] fileIndexes,
+			@Nullable String[] fileFields, @RPCDispatcher.Priority int priority,
+			@Nullable TorrentListReceivedListener l, long queuedOn) {
+		long[] idArray = toIDArray(ids);
+		Waiter waiter = new Waiter(callID, idArray, l);
+
+		Call newCall = null;
+		Call joinedCall = null;
+		boolean flushNow = false;
+		synchronized (lock) {
+			for (Call call : calls) {
+				if (call.covers(ids, idArray, fields, fileIndexes, fileFields)) {
+					joinedCall = call;
+					if (AndroidUtils.DEBUG_RPC) {
+						Log.d(TAG, callID + "] attached to " + call);
+					}
+					break;
+				}
+			}
+
+			if (joinedCall == null && idArray != null && fileIndexes == null) {
+				for (Call call : calls) {
+					if (call.canMerge(fields, fileFields)) {
+						call.mergeIDs(idArray);
+						joinedCall = call;
+						if (AndroidUtils.DEBUG_RPC) {
+							Log.d(TAG, callID + "] merged into " + call);
+						}
+						break;
+					}
+				}
+
+				if (joinedCall == null) {
+					final Call pendingCall = new Call(callID, idArray, fields, null,
+							fileFields, priority);
+					pendingCall.waiters.add(waiter);
+					pendingCall.queuedOn = System.currentTimeMillis() + MERGE_WINDOW_MS;
+					calls.add(pendingCall);
+					dispatcher.schedule(priority, "getTorrents " + callID,
+							MERGE_WINDOW_MS, () -> flush(pendingCall),
+							reason -> cancel(pendingCall, reason));
+					return;
+				}
+			}
+
+			if (joinedCall != null) {
+				joinedCall.waiters.add(waiter);
+				if (priority < joinedCall.priority) {
+					joinedCall.priority = priority;
+					// A pending call's flush job is in the lane of its old priority
+					flushNow = !joinedCall.sent;
+					if (flushNow) {
+						joinedCall.queuedOn = System.currentTimeMillis();
+					}
+				}
+			} else {
+				newCall = new Call(callID, ids, fields, fileIndexes, fileFields,
+						priority);
+				newCall.waiters.add(waiter);
+				newCall.sent = true;
+				newCall.queuedOn = queuedOn;
+				calls.add(newCall);
+			}
+		}
+
+		if (flushNow) {
+			final Call call = joinedCall;
+			dispatcher.execute(priority, "getTorrents " + call.callID,
+					() -> flush(call), null);
+		} else if (newCall != null) {
+			sender.sendCall(newCall);
+		}
+	}
+
+	/**
+	 * Attach to an existing call, or register a new call that the caller will
+	 * send itself (ie. as part of a batch).  Pending calls are never merged into.
+	 *
+	 * @return The new call, or null if attached to an existing call
+	 */
+	@Nullable
+	Call startCall(String callID, @Nullable Object ids,
+			@Nullable List<String> fields, @RPCDispatcher.Priority int priority,
+			@Nullable TorrentListReceivedListener l) {
+		long[] idArray = toIDArray(ids);
+		Waiter waiter = new Waiter(callID, idArray, l);
+		synchronized (lock) {
+			for (Call call : calls) {
+				if (call.covers(ids, idArray, fields, null, null)) {
+					call.waiters.add(waiter);
+					if (priority < call.priority) {
+						call.priority = priority;
+					}
+					if (AndroidUtils.DEBUG_RPC) {
+						Log.d(TAG, callID + "] attached to " + call);
+					}
+					return null;
+				}
+			}
+			Call newCall = new Call(callID, ids, fields, null, null, priority);
+			newCall.waiters.add(waiter);
+			newCall.sent = true;
+			calls.add(newCall);
+			return newCall;
+		}
+	}
+
+	@Thunk
+	void flush(Call call) {
+		synchronized (lock) {
+			if (call.sent) {
+				return;
+			}
+			call.sent = true;
+		}
+		sender.sendCall(call);
+	}
+
+	@Thunk
+	void cancel(Call call, String reason) {
+		synchronized (lock) {
+			if (call.sent) {
+				// Already flushed by a higher priority job
+				return;
+			}
+			call.sent = true;
+		}
+		sender.cancelCall(call, reason);
+	}
+
+	/**
+	 * Remove call from the list of known calls.
+	 *
+	 * @return Waiters of call.  No more waiters will be added after this.
+	 */
+	List<Waiter> complete(Call call) {
+		synchronized (lock) {
+			calls.remove(call);
+			return new ArrayList<>(call.waiters);
+		}
+	}
+
+	/**
+	 * Stop new requests from attaching to calls already sent.  Call after
+	 * anything that changes torrent state on the remote.
+	 */
+	void invalidate() {
+		synchronized (lock) {
+			for (Call call : calls) {
+				if (call.sent) {
+					call.attachable = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return List of torrent maps in list, whose id is in ids
+	 */
+	@SuppressWarnings("rawtypes")
+	static List<?> filterList(List<?> list, @Nullable long[] ids) {
+		if (ids == null) {
+			return list;
+		}
+		List<Object> filtered = new ArrayList<>(Math.min(ids.length, list.size()));
+		for (Object o : list) {
+			if (!(o instanceof Map)) {
+				continue;
+			}
+			Object id = ((Map) o).get(TransmissionVars.FIELD_TORRENT_ID);
+			if ((id instanceof Number) && contains(ids, ((Number) id).longValue())) {
+				filtered.add(o);
+			}
+		}
+		return filtered;
+	}
+
+	@Nullable
+	private static long[] toIDArray(@Nullable Object ids) {
+		if (ids instanceof long[]) {
+			return (long[]) ids;
+		}
+		if (ids instanceof Number) {
+			return new long[] {
+				((Number) ids).longValue()
+			};
+		}
+		return null;
+	}
+
+	@Thunk
+	static boolean contains(long[] ids, long id) {
+		for (long l : ids) {
+			if (l == id) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.rpc;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.*;
+
+import com.alibaba.fastjson.JSONReader;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.MapUtils;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Pull-based decoder for "torrent-get" replies.
+ * <p>
+ * Instead of building the whole reply as a generic Map/List graph and then
+ * walking it again in {@link TransmissionRPC#getTorrents}, each torrent
+ * object is read straight into its own pre-sized map as the bytes arrive.
+ * Keys are shared with the requested field list, fractional numbers are
+ * stored as Double instead of BigDecimal, and the per-torrent fixups
+ * (file count, isComplete) are applied while the map is still hot.
+ * <p>
+ * Anything outside of "arguments.torrents" is decoded generically.
+ * <p>
+ * Not thread safe; one instance per request.
+ */
+@SuppressWarnings({
+	"rawtypes",
+	"unchecked"
+})
+public class TorrentGetReplyDecoder
+	implements JsonReplyDecoder
+{
+	private static final String KEY_ARGUMENTS = "arguments";
+
+	private static final String KEY_TORRENTS = "torrents";
+
+	private final Map<String, String> keyPool;
+
+	private final int torrentMapCapacity;
+
+	private final boolean fixupFileCount;
+
+	private final boolean fixupComplete;
+
+	private boolean decoded;
+
+	private boolean foundFileCountField;
+
+	private int numTorrents;
+
+	/**
+	 * @param fields Fields requested.  Used to size and key each torrent map.
+	 * @param fixupFileCount Calculate {@link TransmissionVars#FIELD_TORRENT_FILE_COUNT}
+	 *                       from priorities when the remote doesn't send it
+	 * @param fixupComplete Fill in {@link TransmissionVars#FIELD_TORRENT_IS_COMPLETE}
+	 */
+	public TorrentGetReplyDecoder(@Nullable List<String> fields,
+			boolean fixupFileCount, boolean fixupComplete) {
+		this.fixupFileCount = fixupFileCount;
+		this.fixupComplete = fixupComplete;
+		int numFields = fields == null ? 16 : fields.size();
+		keyPool = new HashMap<>(numFields * 2);
+		if (fields != null) {
+			for (String field : fields) {
+				keyPool.put(field, field);
+			}
+		}
+		// +2 for isComplete and fileCount, +1 for LAST_UPDATED added on merge
+		torrentMapCapacity = (int) ((numFields + 3) / 0.75f) + 1;
+	}
+
+	@WorkerThread
+	@Override
+	public Map<?, ?> decode(Reader reader)
+			throws Exception {
+		JSONReader jsonReader = new JSONReader(reader);
+		try {
+			Map<String, Object> reply = new HashMap<>(4);
+			jsonReader.startObject();
+			while (jsonReader.hasNext()) {
+				String key = jsonReader.readString();
+				if (KEY_ARGUMENTS.equals(key)) {
+					reply.put(key, readArguments(jsonReader));
+				} else {
+					reply.put(key, jsonReader.readObject());
+				}
+			}
+			jsonReader.endObject();
+			decoded = true;
+			return reply;
+		} finally {
+			jsonReader.close();
+		}
+	}
+
+	private Map<String, Object> readArguments(JSONReader jsonReader) {
+		Map<String, Object> arguments = new HashMap<>(4);
+		jsonReader.startObject();
+		while (jsonReader.hasNext()) {
+			String key = jsonReader.readString();
+			if (KEY_TORRENTS.equals(key)) {
+				List<Map> list = new ArrayList<>();
+				jsonReader.startArray();
+				while (jsonReader.hasNext()) {
+					list.add(readTorrent(jsonReader));
+				}
+				jsonReader.endArray();
+				arguments.put(key, list);
+			} else {
+				arguments.put(key, jsonReader.readObject());
+			}
+		}
+		jsonReader.endObject();
+		return arguments;
+	}
+
+	private Map readTorrent(JSONReader jsonReader) {
+		Map<String, Object> map = new HashMap<>(torrentMapCapacity);
+		jsonReader.startObject();
+		while (jsonReader.hasNext()) {
+			String key = jsonReader.readString();
+			String pooledKey = keyPool.get(key);
+			if (pooledKey == null) {
+				keyPool.put(key, key);
+				pooledKey = key;
+			}
+			Object value = jsonReader.readObject();
+			if (value instanceof BigDecimal) {
+				value = ((BigDecimal) value).doubleValue();
+			}
+			map.put(pooledKey, value);
+		}
+		jsonReader.endObject();
+
+		fixupTorrent(map);
+		numTorrents++;
+		return map;
+	}
+
+	/**
+	 * Apply the file count and isComplete fixups to a torrent map.
+	 * <p>
+	 * Called for each torrent during {@link #decode(Reader)}.  Callers only
+	 * need to invoke this directly when the reply was not decoded by us
+	 * (see {@link #wasDecoded()}).
+	 */
+	public void fixupTorrent(Map map) {
+		if (fixupFileCount) {
+			if (map.containsKey(TransmissionVars.FIELD_TORRENT_FILE_COUNT)) {
+				foundFileCountField = true;
+			} else {
+				int fileCount = MapUtils.getMapList(map,
+						TransmissionVars.FIELD_TORRENT_PRIORITIES,
+						Collections.EMPTY_LIST).size();
+				if (fileCount > 0) {
+					map.put(TransmissionVars.FIELD_TORRENT_FILE_COUNT, fileCount);
+				}
+			}
+		}
+
+		if (fixupComplete) {
+			float donePct = MapUtils.getMapFloat(map,
+					TransmissionVars.FIELD_TORRENT_PERCENT_DONE, 0);
+			map.put(TransmissionVars.FIELD_TORRENT_IS_COMPLETE, donePct >= 1);
+		}
+	}
+
+	/**
+	 * @return true if the reply went through this decoder, and torrent maps
+	 * have already been fixed up.
+	 */
+	public boolean wasDecoded() {
+		return decoded;
+	}
+
+	/**
+	 * @return true if at least one torrent had a
+	 * {@link TransmissionVars#FIELD_TORRENT_FILE_COUNT} field
+	 */
+	public boolean foundFileCountField() {
+		return foundFileCountField;
+	}
+
+	public int getNumTorrents() {
+		return numTorrents;
+	}
+}
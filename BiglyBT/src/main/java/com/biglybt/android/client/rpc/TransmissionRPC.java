@@ -27,6 +27,7 @@ import com.biglybt.android.util.JSONUtils;
 import com.biglybt.android.util.MapUtils;
 import com.biglybt.util.Thunk;
 
+import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
@@ -45,6 +46,12 @@ public class TransmissionRPC
 
 	private static final String RPCKEY_FIELDS = "fields";
 
+	private static final String RPCKEY_RESULT = "result";
+
+	private static final String RPCKEY_TAG = "tag";
+
+	private static final String METHOD_BATCH = "batch";
+
 	private class ReplyMapReceivedListenerWithRefresh
 		implements ReplyMapReceivedListener
 	{
@@ -82,14 +89,11 @@ public class TransmissionRPC
 
 		@Override
 		public void rpcSuccess(String requestID, Map optionalMap) {
-			new Thread(() -> {
-				try {
-					Thread.sleep(800);
-				} catch (InterruptedException ignore) {
-				}
-
-				getTorrents(callID, ids, fields, fileIndexes, fileFields, null);
-			}).start();
+			coalescer.invalidate();
+			dispatcher.schedule(RPCDispatcher.PRIORITY_REFRESH, callID, 800,
+					() -> getTorrents(callID, ids, fields, fileIndexes, fileFields,
+							RPCDispatcher.PRIORITY_REFRESH, null),
+					null);
 			if (l != null) {
 				l.rpcSuccess(requestID, optionalMap);
 			}
@@ -119,9 +123,6 @@ public class TransmissionRPC
 	@Thunk
 	String rpcURL;
 
-	@Thunk
-	Map<String, String> headers;
-
 	@Thunk
 	int rpcVersion;
 
@@ -156,7 +157,7 @@ public class TransmissionRPC
 	private String[] defaultFileFields = {};
 
 	@Thunk
-	RestJsonClient restJsonClient = null;
+	final HttpRPCTransport transport;
 
 	@Thunk
 	String biglyVersion;
@@ -168,15 +169,42 @@ public class TransmissionRPC
 
 	private boolean requireStringUnescape;
 
+	@Thunk
+	final RPCDispatcher dispatcher;
+
+	@Thunk
+	final TorrentGetCoalescer coalescer;
+
 	public TransmissionRPC(Session session, String rpcURL) {
 		this.session = session;
 
 		this.rpcURL = rpcURL;
+		transport = new HttpRPCTransport(session, rpcURL);
+
+		dispatcher = new RPCDispatcher(session.getRemoteProfile().getNick());
+		coalescer = new TorrentGetCoalescer(dispatcher,
+				new TorrentGetCoalescer.CallSender() {
+					@Override
+					public void sendCall(@NonNull TorrentGetCoalescer.Call call) {
+						sendTorrentGet(call);
+					}
+
+					@Override
+					public void cancelCall(@NonNull TorrentGetCoalescer.Call call,
+							String reason) {
+						sendFakeTorrentList(call);
+					}
+				});
 
 		updateSessionSettings();
 	}
 
 	public void getSessionStats(String[] fields, ReplyMapReceivedListener l) {
+		getSessionStats(fields, RPCDispatcher.PRIORITY_USER, l);
+	}
+
+	public void getSessionStats(String[] fields,
+			@RPCDispatcher.Priority int priority, ReplyMapReceivedListener l) {
 		Map<String, Object> map = new HashMap<>();
 		map.put(RPCKEY_METHOD, TransmissionVars.METHOD_SESSION_STATS);
 		if (fields != null) {
@@ -186,7 +214,7 @@ public class TransmissionRPC
 			mapArguments.put(RPCKEY_FIELDS, fields);
 		}
 
-		sendRequest(TransmissionVars.METHOD_SESSION_STATS, map, l);
+		sendRequest(TransmissionVars.METHOD_SESSION_STATS, map, priority, null, l);
 	}
 
 	private void updateSessionSettings() {
@@ -223,6 +251,8 @@ public class TransmissionRPC
 										listSupports.contains("method:tags-get-list"));
 								mapSupports.put(RPCSupports.SUPPORTS_SUBSCRIPTIONS,
 										listSupports.contains("method:subscription-get"));
+								mapSupports.put(RPCSupports.SUPPORTS_BATCH,
+										listSupports.contains("method:" + METHOD_BATCH));
 							}
 							mapSupports.put(RPCSupports.SUPPORTS_SEARCH, rpcVersionAZ >= 0);
 							map.put("supports", mapSupports);
@@ -234,7 +264,7 @@ public class TransmissionRPC
 							boolean goodAZ = azVersion == null
 									|| compareVersions(azVersion, "5.7.4.1_B02") >= 0;
 
-							restJsonClient = RestJsonClient.getInstance(
+							transport.setSupportsSendingGzip(
 									getSupports(RPCSupports.SUPPORTS_GZIP), goodAZ);
 
 							if (AndroidUtils.DEBUG_RPC) {
@@ -360,7 +390,16 @@ public class TransmissionRPC
 	 * Always triggers TorrentListReceivedListener
 	 */
 	public void getAllTorrents(String callID, TorrentListReceivedListener l) {
-		getTorrents(callID, null, getBasicTorrentFieldIDs(), null, null, l);
+		getAllTorrents(callID, RPCDispatcher.PRIORITY_USER, l);
+	}
+
+	/**
+	 * Always triggers TorrentListReceivedListener
+	 */
+	public void getAllTorrents(String callID,
+			@RPCDispatcher.Priority int priority, TorrentListReceivedListener l) {
+		getTorrents(callID, null, getBasicTorrentFieldIDs(), null, null, priority,
+				l);
 	}
 
 	/**
@@ -370,7 +409,7 @@ public class TransmissionRPC
 			@Nullable TorrentListReceivedListener l) {
 		getTorrents(callID, new long[] {
 			torrentID
-		}, fields, null, null, l);
+		}, fields, null, null, RPCDispatcher.PRIORITY_USER, l);
 	}
 
 	/**
@@ -379,15 +418,82 @@ public class TransmissionRPC
 	@Thunk
 	void getTorrents(final String callID, @Nullable final Object ids,
 			final List<String> fields, @Nullable final int[] fileIndexes,
-			@Nullable String[] fileFields,
+			@Nullable String[] fileFields, @RPCDispatcher.Priority int priority,
 			@Nullable final TorrentListReceivedListener l) {
 
 		if (AndroidUtilsUI.isUIThread()) {
-			new Thread(() -> getTorrents(callID, ids, fields, fileIndexes, fileFields,
-					l)).start();
+			long queuedOn = System.currentTimeMillis();
+			dispatcher.execute(priority, "getTorrents " + callID,
+					() -> coalesceTorrentGet(callID, ids, fields, fileIndexes,
+							fileFields, priority, l, queuedOn),
+					reason -> sendFakeTorrentList(callID, ids, fields, fileIndexes, l));
 			return;
 		}
 
+		coalesceTorrentGet(callID, ids, fields, fileIndexes, fileFields, priority,
+				l, System.currentTimeMillis());
+	}
+
+	@Thunk
+	void coalesceTorrentGet(String callID, @Nullable Object ids,
+			List<String> fields, @Nullable int[] fileIndexes,
+			@Nullable String[] fileFields, @RPCDispatcher.Priority int priority,
+			@Nullable TorrentListReceivedListener l, long queuedOn) {
+		if (fields != null && rpcVersionAZ >= 3
+				&& fields.contains(TransmissionVars.FIELD_TORRENT_FILES)) {
+			// fileStats are included in files
+			fields.remove(TransmissionVars.FIELD_TORRENT_FILESTATS);
+		}
+
+		coalescer.getTorrents(callID, ids, fields, fileIndexes, fileFields,
+				priority, l, queuedOn);
+	}
+
+	@Thunk
+	@WorkerThread
+	void sendTorrentGet(final TorrentGetCoalescer.Call call) {
+		TorrentGetReplyDecoder decoder = createTorrentGetDecoder(call);
+		String requestID = getTorrentGetRequestID(call);
+		Map<String, Object> data = buildTorrentGetRequest(call);
+		TorrentGetReplyListener l = new TorrentGetReplyListener(call, decoder);
+		if (!isDestroyed && dispatcher.isWorkerThread()) {
+			// Already on a worker, such as the coalescer's flush job.  Queueing
+			// again would take a second lane slot and wait behind other work.
+			executeRequest(requestID, data, decoder, l, call.queuedOn);
+		} else {
+			sendRequest(requestID, data, call.priority, decoder, l);
+		}
+	}
+
+	@NonNull
+	private TorrentGetReplyDecoder createTorrentGetDecoder(
+			TorrentGetCoalescer.Call call) {
+		List<String> fields = call.fields;
+		return new TorrentGetReplyDecoder(fields,
+				hasFileCountField == null || !hasFileCountField,
+				fields == null || fields.contains(
+						TransmissionVars.FIELD_TORRENT_PERCENT_DONE));
+	}
+
+	@NonNull
+	private static String getTorrentGetRequestID(TorrentGetCoalescer.Call call) {
+		Object ids = call.ids;
+		String idList = (ids instanceof long[]) ? Arrays.toString(((long[]) ids))
+				: "" + ids;
+		return "getTorrents " + call.callID + " t=" + idList + "/f="
+				+ Arrays.toString(call.fileIndexes) + ", "
+				+ (call.fields == null ? "null" : call.fields.size()) + "/"
+				+ (call.fileFields == null ? "null" : call.fileFields.length);
+	}
+
+	@NonNull
+	private Map<String, Object> buildTorrentGetRequest(
+			TorrentGetCoalescer.Call call) {
+		final Object ids = call.ids;
+		final List<String> fields = call.fields;
+		final int[] fileIndexes = call.fileIndexes;
+		final String[] fileFields = call.fileFields;
+
 		Map<String, Object> map = new HashMap<>(2);
 		map.put(RPCKEY_METHOD, TransmissionVars.METHOD_TORRENT_GET);
 
@@ -409,10 +515,6 @@ public class TransmissionRPC
 				mapArguments.put(TransmissionVars.ARG_TORRENT_GET_FILE_FIELDS,
 						fileFields == null ? defaultFileFields : fileFields);
 
-				if (fields != null) {
-					fields.remove(TransmissionVars.FIELD_TORRENT_FILESTATS);
-				}
-
 				// compact mode, where each file is an array instead of a map, and
 				// they keys are stored in fileKeys
 				if (rpcVersionAZ >= 7) {
@@ -433,54 +535,49 @@ public class TransmissionRPC
 						mapArguments.put("file-indexes-" + torrentID, fileIndexes);
 					}
 
-					Map<?, ?> mapTorrent = session.torrent.getCachedTorrent(torrentID);
-					if (mapTorrent != null) {
-						List listFiles = MapUtils.getMapList(mapTorrent,
-								TransmissionVars.FIELD_TORRENT_FILES, null);
-						if (listFiles != null) {
-							if (rpcVersionAZ >= 7 || false) {
-								// Disabled.  Uses a lot of memory since strings are duplicated
-								// The old method, with hc as list, may take more bandwidth,
-								// but the strings are duplicated.
-								StringBuilder sb = new StringBuilder();
-								boolean first = true;
-								if (fileIndexes != null) {
-									for (int fileIndex : fileIndexes) {
-										if (first) {
-											first = false;
-										} else {
-											sb.append(",");
-										}
-										Map mapFile = (Map) listFiles.get(fileIndex);
-										sb.append(mapFile.get("hc"));
-									}
-								} else {
-									for (int i = 0; i < listFiles.size(); i++) {
-										if (first) {
-											first = false;
-										} else {
-											sb.append(",");
-										}
-										Map mapFile = (Map) listFiles.get(i);
-										sb.append(mapFile.get("hc"));
+					TorrentFileStore files = session.torrent.getCachedFiles(torrentID);
+					if (files != null) {
+						int numFiles = files.size();
+						if (rpcVersionAZ >= 7 || false) {
+							// Disabled.  Uses a lot of memory since strings are duplicated
+							// The old method, with hc as list, may take more bandwidth,
+							// but the strings are duplicated.
+							StringBuilder sb = new StringBuilder();
+							boolean first = true;
+							if (fileIndexes != null) {
+								for (int fileIndex : fileIndexes) {
+									if (first) {
+										first = false;
+									} else {
+										sb.append(",");
 									}
+									sb.append(fileIndex >= 0 && fileIndex < numFiles
+											? files.getHC(fileIndex) : null);
 								}
-								mapArguments.put("files-hc-" + torrentID, sb.toString());
 							} else {
-								List<Object> listHCs = new ArrayList<>();
-								if (fileIndexes != null) {
-									for (int fileIndex : fileIndexes) {
-										Map mapFile = (Map) listFiles.get(fileIndex);
-										listHCs.add(mapFile.get("hc"));
-									}
-								} else {
-									for (int i = 0; i < listFiles.size(); i++) {
-										Map mapFile = (Map) listFiles.get(i);
-										listHCs.add(mapFile.get("hc"));
+								for (int i = 0; i < numFiles; i++) {
+									if (first) {
+										first = false;
+									} else {
+										sb.append(",");
 									}
+									sb.append(files.getHC(i));
 								}
-								mapArguments.put("files-hc-" + torrentID, listHCs);
 							}
+							mapArguments.put("files-hc-" + torrentID, sb.toString());
+						} else {
+							List<Object> listHCs = new ArrayList<>();
+							if (fileIndexes != null) {
+								for (int fileIndex : fileIndexes) {
+									listHCs.add(fileIndex >= 0 && fileIndex < numFiles
+											? files.getHC(fileIndex) : null);
+								}
+							} else {
+								for (int i = 0; i < numFiles; i++) {
+									listHCs.add(files.getHC(i));
+								}
+							}
+							mapArguments.put("files-hc-" + torrentID, listHCs);
 						}
 					}
 				}
@@ -488,154 +585,380 @@ public class TransmissionRPC
 			}
 		}
 
-		String idList = (ids instanceof long[]) ? Arrays.toString(((long[]) ids))
-				: "" + ids;
-		sendRequest(
-				"getTorrents " + callID + " t=" + idList + "/f="
-						+ Arrays.toString(fileIndexes) + ", "
-						+ (fields == null ? "null" : fields.size()) + "/"
-						+ (fileFields == null ? "null" : fileFields.length),
-				map, new ReplyMapReceivedListener() {
-
-					@SuppressWarnings({
-						"unchecked",
-					})
-					@Override
-					public void rpcSuccess(String requestID, Map optionalMap) {
-						List list = MapUtils.getMapList(optionalMap, "torrents",
-								Collections.EMPTY_LIST);
-						if (hasFileCountField == null || !hasFileCountField) {
-							for (Object o : list) {
-								if (!(o instanceof Map)) {
-									continue;
-								}
-								Map map = (Map) o;
-								if (map.containsKey(
-										TransmissionVars.FIELD_TORRENT_FILE_COUNT)) {
-									hasFileCountField = true;
-									continue;
-								}
-								int fileCount = MapUtils.getMapList(map,
-										TransmissionVars.FIELD_TORRENT_PRIORITIES,
-										Collections.EMPTY_LIST).size();
-								if (fileCount > 0) {
-									map.put(TransmissionVars.FIELD_TORRENT_FILE_COUNT, fileCount);
-								}
-							}
-						}
+		return map;
+	}
 
-						if (fields == null || fields.contains(
-								TransmissionVars.FIELD_TORRENT_PERCENT_DONE)) {
-							for (Object o : list) {
-								if (!(o instanceof Map)) {
-									continue;
-								}
-								Map map = (Map) o;
-								float donePct = MapUtils.getMapFloat(map,
-										TransmissionVars.FIELD_TORRENT_PERCENT_DONE, 0);
-								map.put(TransmissionVars.FIELD_TORRENT_IS_COMPLETE,
-										donePct >= 1);
-							}
-						}
+	/**
+	 * Hands a torrent-get reply to the waiters of its call, and to the torrent
+	 * list listeners
+	 */
+	private class TorrentGetReplyListener
+		implements ReplyMapReceivedListener
+	{
+		private final TorrentGetCoalescer.Call call;
 
-						// TODO: If we request a list of torrent IDs, and we don't get them
-						//       back on "success", then we should populate the listRemoved
-						List listRemoved = MapUtils.getMapList(optionalMap, "removed",
-								null);
+		private final TorrentGetReplyDecoder decoder;
 
-						if (l != null) {
-							l.rpcTorrentListReceived(callID, list, fields, fileIndexes,
-									listRemoved);
-						}
-						TorrentListReceivedListener[] listReceivedListeners = getTorrentListReceivedListeners();
-						for (TorrentListReceivedListener torrentListReceivedListener : listReceivedListeners) {
-							torrentListReceivedListener.rpcTorrentListReceived(callID, list,
-									fields, fileIndexes, listRemoved);
-						}
+		TorrentGetReplyListener(TorrentGetCoalescer.Call call,
+				TorrentGetReplyDecoder decoder) {
+			this.call = call;
+			this.decoder = decoder;
+		}
+
+		@SuppressWarnings({
+			"unchecked",
+		})
+		@Override
+		public void rpcSuccess(String requestID, Map optionalMap) {
+			List list = MapUtils.getMapList(optionalMap, "torrents",
+					Collections.EMPTY_LIST);
+			if (!decoder.wasDecoded()) {
+				for (Object o : list) {
+					if (o instanceof Map) {
+						decoder.fixupTorrent((Map) o);
 					}
+				}
+			}
+			if (decoder.foundFileCountField()) {
+				hasFileCountField = true;
+			}
 
-					@Override
-					public void rpcFailure(String requestID, String message) {
-						// send event to listeners on fail/error
-						// some do a call for a specific torrentID and rely on a response
-						// of some sort to clean up (ie. files view progress bar), so
-						// we must fake a reply with those torrentIDs
+			// TODO: If we request a list of torrent IDs, and we don't get them
+			//       back on "success", then we should populate the listRemoved
+			List listRemoved = MapUtils.getMapList(optionalMap, "removed", null);
 
-						List list = createFakeList(ids);
+			for (TorrentGetCoalescer.Waiter waiter : coalescer.complete(call)) {
+				if (waiter.l != null) {
+					List waiterList = waiter.ids == call.ids ? list
+							: TorrentGetCoalescer.filterList(list, waiter.ids);
+					waiter.l.rpcTorrentListReceived(waiter.callID, waiterList,
+							call.fields, call.fileIndexes, listRemoved);
+				}
+			}
+			TorrentListReceivedListener[] listReceivedListeners = getTorrentListReceivedListeners();
+			for (TorrentListReceivedListener torrentListReceivedListener : listReceivedListeners) {
+				torrentListReceivedListener.rpcTorrentListReceived(call.callID, list,
+						call.fields, call.fileIndexes, listRemoved);
+			}
+		}
 
-						if (l != null) {
-							l.rpcTorrentListReceived(callID, list, fields, fileIndexes, null);
-						}
-						TorrentListReceivedListener[] listReceivedListeners = getTorrentListReceivedListeners();
-						for (TorrentListReceivedListener torrentListReceivedListener : listReceivedListeners) {
-							torrentListReceivedListener.rpcTorrentListReceived(callID, list,
-									fields, fileIndexes, null);
-						}
+		@Override
+		public void rpcFailure(String requestID, String message) {
+			// send event to listeners on fail/error
+			// some do a call for a specific torrentID and rely on a response
+			// of some sort to clean up (ie. files view progress bar), so
+			// we must fake a reply with those torrentIDs
 
-						if (AndroidUtils.DEBUG_RPC) {
-							Log.d(TAG,
-									requestID + "] rpcFailure.  fake listener for "
-											+ listReceivedListeners.length + "/" + (l == null ? 0 : 1)
-											+ ", " + list);
-						}
+			sendFakeTorrentList(call);
+
+			if (AndroidUtils.DEBUG_RPC) {
+				Log.d(TAG, requestID + "] rpcFailure.  fake listener for " + call);
+			}
+		}
+
+		@Override
+		public void rpcError(String requestID, Exception e) {
+			// send event to listeners on fail/error
+			// some do a call for a specific torrentID and rely on a response
+			// of some sort to clean up (ie. files view progress bar), so
+			// we must fake a reply with those torrentIDs
+
+			sendFakeTorrentList(call);
+
+			if (AndroidUtils.DEBUG_RPC) {
+				Log.d(TAG, requestID + "] rpcError.  fake listener for " + call);
+			}
+		}
+	}
+
+	/**
+	 * Create a batch of calls.  Add calls to it, then {@link RPCBatch#send()}
+	 */
+	@NonNull
+	public RPCBatch createBatch(String batchID,
+			@RPCDispatcher.Priority int priority) {
+		return new RPCBatch(this, batchID, priority);
+	}
+
+	/**
+	 * A call in a batch, ready to be sent
+	 */
+	private static final class BatchPart
+	{
+		final String requestID;
+
+		final Map<String, Object> data;
+
+		@Nullable
+		final JsonReplyDecoder decoder;
+
+		@Nullable
+		final ReplyMapReceivedListener l;
+
+		BatchPart(String requestID, Map<String, Object> data,
+				@Nullable JsonReplyDecoder decoder,
+				@Nullable ReplyMapReceivedListener l) {
+			this.requestID = requestID;
+			this.data = data;
+			this.decoder = decoder;
+			this.l = l;
+		}
+	}
+
+	@AnyThread
+	void sendBatch(@NonNull final RPCBatch batch) {
+		if (batch.entries.isEmpty()) {
+			return;
+		}
+
+		if (isDestroyed || !getSupports(RPCSupports.SUPPORTS_BATCH)) {
+			sendBatchSequentially(batch);
+			return;
+		}
+
+		long queuedOn = System.currentTimeMillis();
+		dispatcher.execute(batch.priority, batch.batchID,
+				() -> executeBatch(batch, queuedOn), reason -> {
+					// Nothing was sent yet; let each call go through the normal
+					// paths, which will fail or fake their replies
+					sendBatchSequentially(batch);
+				});
+	}
+
+	/**
+	 * Send each call in a batch on its own.  Used when the remote client can't
+	 * do batches.
+	 */
+	private void sendBatchSequentially(@NonNull RPCBatch batch) {
+		for (Object entry : batch.entries) {
+			if (entry instanceof RPCBatch.TorrentGetEntry) {
+				RPCBatch.TorrentGetEntry tge = (RPCBatch.TorrentGetEntry) entry;
+				getTorrents(tge.callID, tge.ids, tge.fields, null, null,
+						batch.priority, tge.l);
+			} else {
+				RPCBatch.MethodEntry me = (RPCBatch.MethodEntry) entry;
+				simpleRpcCall(me.method, me.arguments, batch.priority, me.l);
+			}
+		}
+	}
+
+	@Thunk
+	@WorkerThread
+	void executeBatch(@NonNull RPCBatch batch, long queuedOn) {
+		final List<BatchPart> parts = new ArrayList<>(batch.entries.size());
+		for (Object entry : batch.entries) {
+			if (entry instanceof RPCBatch.TorrentGetEntry) {
+				RPCBatch.TorrentGetEntry tge = (RPCBatch.TorrentGetEntry) entry;
+				List<String> fields = tge.fields;
+				if (fields != null && rpcVersionAZ >= 3
+						&& fields.contains(TransmissionVars.FIELD_TORRENT_FILES)) {
+					fields.remove(TransmissionVars.FIELD_TORRENT_FILESTATS);
+				}
+				TorrentGetCoalescer.Call call = coalescer.startCall(tge.callID,
+						tge.ids, fields, batch.priority, tge.l);
+				if (call == null) {
+					// Attached to a call already in flight
+					continue;
+				}
+				TorrentGetReplyDecoder decoder = createTorrentGetDecoder(call);
+				parts.add(new BatchPart(getTorrentGetRequestID(call),
+						buildTorrentGetRequest(call), decoder,
+						new TorrentGetReplyListener(call, decoder)));
+			} else {
+				RPCBatch.MethodEntry me = (RPCBatch.MethodEntry) entry;
+				Map<String, Object> map = new HashMap<>();
+				map.put(RPCKEY_METHOD, me.method);
+				if (me.arguments != null) {
+					map.put(RPCKEY_ARGUMENTS, me.arguments);
+				}
+				parts.add(new BatchPart(me.method, map, null, me.l));
+			}
+		}
+
+		if (parts.size() == 0) {
+			return;
+		}
+		if (parts.size() == 1) {
+			BatchPart part = parts.get(0);
+			executeRequest(part.requestID, part.data, part.decoder, part.l,
+					queuedOn);
+			return;
+		}
+
+		List<Map<String, Object>> requests = new ArrayList<>(parts.size());
+		for (int i = 0; i < parts.size(); i++) {
+			Map<String, Object> request = parts.get(i).data;
+			request.put(RPCKEY_TAG, i);
+			requests.add(request);
+		}
+		Map<String, Object> mapArguments = new HashMap<>(2);
+		mapArguments.put("requests", requests);
+		Map<String, Object> map = new HashMap<>(2);
+		map.put(RPCKEY_METHOD, METHOD_BATCH);
+		map.put(RPCKEY_ARGUMENTS, mapArguments);
+
+		executeRequest(batch.batchID + " x" + parts.size(), map, null,
+				new ReplyMapReceivedListener() {
+					@Override
+					public void rpcSuccess(String requestID, Map optionalMap) {
+						dispatchBatchReplies(parts, optionalMap);
 					}
 
-					private List createFakeList(@Nullable Object ids) {
-						List<Map> list = new ArrayList<>();
-						if (ids instanceof Long) {
-							HashMap<String, Object> map = new HashMap<>(2);
-							map.put("id", ids);
-							list.add(map);
-							return list;
+					@Override
+					public void rpcFailure(String requestID, String message) {
+						// Remote said it supports batches, but didn't like this one.
+						// Don't try again this session, and send the calls one by one
+						if (AndroidUtils.DEBUG_RPC) {
+							Log.w(TAG, requestID + "] batch failed: " + message
+									+ "; disabling batches");
 						}
-						if (ids instanceof long[]) {
-							for (long torrentID : (long[]) ids) {
-								HashMap<String, Object> map = new HashMap<>(2);
-								map.put("id", torrentID);
-								list.add(map);
-							}
+						mapSupports.put(RPCSupports.SUPPORTS_BATCH, false);
+						for (BatchPart part : parts) {
+							part.data.remove(RPCKEY_TAG);
+							executeRequest(part.requestID, part.data, part.decoder,
+									part.l);
 						}
-						return list;
 					}
 
 					@Override
 					public void rpcError(String requestID, Exception e) {
-						// send event to listeners on fail/error
-						// some do a call for a specific torrentID and rely on a response
-						// of some sort to clean up (ie. files view progress bar), so
-						// we must fake a reply with those torrentIDs
+						for (BatchPart part : parts) {
+							if (part.l != null) {
+								part.l.rpcError(part.requestID, e);
+							}
+						}
+					}
+				}, queuedOn);
+	}
 
-						List list = createFakeList(ids);
+	/**
+	 * Hand each reply in a batch reply to the listener of the call with the
+	 * same tag.  Calls without a reply get a failure.
+	 */
+	@Thunk
+	void dispatchBatchReplies(List<BatchPart> parts, Map optionalMap) {
+		List replies = MapUtils.getMapList(optionalMap, "replies",
+				Collections.emptyList());
+		boolean[] replied = new boolean[parts.size()];
+		for (int i = 0; i < replies.size(); i++) {
+			Object o = replies.get(i);
+			if (!(o instanceof Map)) {
+				continue;
+			}
+			Map reply = (Map) o;
+			int index = MapUtils.getMapInt(reply, RPCKEY_TAG, i);
+			if (index < 0 || index >= parts.size() || replied[index]) {
+				continue;
+			}
+			replied[index] = true;
+			BatchPart part = parts.get(index);
+			if (part.l == null) {
+				continue;
+			}
+			String result = MapUtils.getMapString(reply, RPCKEY_RESULT, "");
+			if ("success".equals(result)) {
+				part.l.rpcSuccess(part.requestID, MapUtils.getMapMap(reply,
+						RPCKEY_ARGUMENTS, Collections.EMPTY_MAP));
+			} else {
+				part.l.rpcFailure(part.requestID, result);
+			}
+		}
+		for (int i = 0; i < replied.length; i++) {
+			BatchPart part = parts.get(i);
+			if (!replied[i] && part.l != null) {
+				part.l.rpcFailure(part.requestID, "No reply in batch");
+			}
+		}
+	}
 
-						if (l != null) {
-							l.rpcTorrentListReceived(callID, list, fields, fileIndexes, null);
-						}
-						TorrentListReceivedListener[] listReceivedListeners = getTorrentListReceivedListeners();
-						for (TorrentListReceivedListener torrentListReceivedListener : listReceivedListeners) {
-							torrentListReceivedListener.rpcTorrentListReceived(callID, list,
-									fields, fileIndexes, null);
-						}
+	@Thunk
+	void sendFakeTorrentList(String callID, @Nullable Object ids,
+			List<String> fields, @Nullable int[] fileIndexes,
+			@Nullable TorrentListReceivedListener l) {
+		List list = createFakeList(ids);
 
-						if (AndroidUtils.DEBUG_RPC) {
-							Log.d(TAG,
-									requestID + "] rpcError.  fake listener for "
-											+ listReceivedListeners.length + "/" + (l == null ? 0 : 1)
-											+ ", " + list);
-						}
-					}
-				});
+		if (l != null) {
+			l.rpcTorrentListReceived(callID, list, fields, fileIndexes, null);
+		}
+		TorrentListReceivedListener[] listReceivedListeners = getTorrentListReceivedListeners();
+		for (TorrentListReceivedListener torrentListReceivedListener : listReceivedListeners) {
+			torrentListReceivedListener.rpcTorrentListReceived(callID, list, fields,
+					fileIndexes, null);
+		}
+	}
+
+	@Thunk
+	void sendFakeTorrentList(TorrentGetCoalescer.Call call) {
+		for (TorrentGetCoalescer.Waiter waiter : coalescer.complete(call)) {
+			if (waiter.l != null) {
+				waiter.l.rpcTorrentListReceived(waiter.callID,
+						createFakeList(waiter.ids == null ? call.ids : waiter.ids),
+						call.fields, call.fileIndexes, null);
+			}
+		}
+		List list = createFakeList(call.ids);
+		TorrentListReceivedListener[] listReceivedListeners = getTorrentListReceivedListeners();
+		for (TorrentListReceivedListener torrentListReceivedListener : listReceivedListeners) {
+			torrentListReceivedListener.rpcTorrentListReceived(call.callID, list,
+					call.fields, call.fileIndexes, null);
+		}
+	}
+
+	/**
+	 * List sent to torrent list listeners in place of a reply when a call
+	 * fails.  Each entry only has an "id".
+	 */
+	private static class FakeTorrentList
+		extends ArrayList<Map>
+	{
+	}
+
+	/**
+	 * @return true if list was sent because a torrent-get failed, rather than
+	 * being a reply from the remote client
+	 */
+	public static boolean isFakeTorrentList(@Nullable List<?> list) {
+		return list instanceof FakeTorrentList;
+	}
+
+	private static List createFakeList(@Nullable Object ids) {
+		List<Map> list = new FakeTorrentList();
+		if (ids instanceof Long) {
+			HashMap<String, Object> map = new HashMap<>(2);
+			map.put("id", ids);
+			list.add(map);
+			return list;
+		}
+		if (ids instanceof long[]) {
+			for (long torrentID : (long[]) ids) {
+				HashMap<String, Object> map = new HashMap<>(2);
+				map.put("id", torrentID);
+				list.add(map);
+			}
+		}
+		return list;
 	}
 
 	public void destroy() {
 		torrentListReceivedListeners.clear();
 		sessionSettingsReceivedListeners.clear();
 		isDestroyed = true;
+		dispatcher.destroy();
 	}
 
 	@Thunk
 	@WorkerThread
 	void sendRequest(final String requestID, final Map data,
 			@Nullable final ReplyMapReceivedListener l) {
+		sendRequest(requestID, data, RPCDispatcher.PRIORITY_USER, null, l);
+	}
+
+	@Thunk
+	@AnyThread
+	void sendRequest(final String requestID, final Map data,
+			@RPCDispatcher.Priority int priority,
+			@Nullable final JsonReplyDecoder decoder,
+			@Nullable final ReplyMapReceivedListener l) {
 
 		if (AndroidUtils.DEBUG && session != null) {
 			RemoteProfile remoteProfile = session.getRemoteProfile();
@@ -670,74 +993,105 @@ public class TransmissionRPC
 			return;
 		}
 
-		new Thread(() -> {
-			if (session == null) {
-				return;
-			}
-			data.put("random", Integer.toHexString(cacheBuster++));
-			RemoteProfile remoteProfile = session.getRemoteProfile();
-			try {
-				if (restJsonClient == null) {
-					restJsonClient = RestJsonClient.getInstance(false, false);
-				}
-				Map reply = restJsonClient.connect(requestID, rpcURL, data, headers,
-						remoteProfile.getUser(), remoteProfile.getAC());
-
-				String result = MapUtils.getMapString(reply, "result", "");
-				if (l != null) {
-					if ("success".equals(result)) {
-						l.rpcSuccess(requestID, MapUtils.getMapMap(reply, RPCKEY_ARGUMENTS,
-								Collections.EMPTY_MAP));
-					} else {
-						if (AndroidUtils.DEBUG_RPC) {
-							Log.d(TAG, requestID + "] rpcFailure: " + result);
-						}
-						// clean up things like:
-						// org.gudy.azureus2.plugins.utils.resourcedownloader
-						// .ResourceDownloaderException: http://foo.torrent: I/O
-						// Exception while downloading 'http://foo.torrent', Operation
-						// timed out
-						result = result.replaceAll("org\\.[a-z.]+:", "");
-						result = result.replaceAll("com\\.[a-z.]+:", "");
-						l.rpcFailure(requestID, result);
-					}
-				}
-			} catch (RPCException e) {
-				int statusCode = e.getResponseCode();
-				if (statusCode == 409) {
-					if (AndroidUtils.DEBUG_RPC) {
-						Log.d(TAG, "409: retrying");
+		long queuedOn = System.currentTimeMillis();
+		dispatcher.execute(priority, requestID,
+				() -> executeRequest(requestID, data, decoder, l, queuedOn), reason -> {
+					if (l != null) {
+						l.rpcFailure(requestID, reason);
 					}
-					headers = e.getFirstHeader("X-Transmission-Session-Id");
-					sendRequest(requestID, data, l);
-					return;
-				}
+				});
+	}
+
+	@Thunk
+	@WorkerThread
+	void executeRequest(final String requestID, final Map data,
+			@Nullable final JsonReplyDecoder decoder,
+			@Nullable final ReplyMapReceivedListener l) {
+		executeRequest(requestID, data, decoder, l, -1);
+	}
 
-				Throwable cause = e.getCause();
-				if (session != null && (cause instanceof ConnectException)) {
-					if (remoteProfile.getRemoteType() == RemoteProfile.TYPE_CORE
-							&& !BiglyCoreUtils.isCoreStarted()) {
-						BiglyCoreUtils.waitForCore(session.getCurrentActivity());
-						sendRequest(requestID, data, l);
-						return;
+	/**
+	 * @param queuedOn When the request was queued in the dispatcher, or -1
+	 */
+	@Thunk
+	@WorkerThread
+	void executeRequest(final String requestID, final Map data,
+			@Nullable final JsonReplyDecoder decoder,
+			@Nullable final ReplyMapReceivedListener l, long queuedOn) {
+		if (session == null) {
+			return;
+		}
+		long queueWaitMS = queuedOn > 0 ? System.currentTimeMillis() - queuedOn
+				: -1;
+		data.put("random", Integer.toHexString(cacheBuster++));
+		RemoteProfile remoteProfile = session.getRemoteProfile();
+		String method = MapUtils.getMapString(data, RPCKEY_METHOD, null);
+		RPCMetrics.Sample sample = new RPCMetrics.Sample();
+		try {
+			Map reply = transport.call(requestID, data, decoder, sample);
+
+			String result = MapUtils.getMapString(reply, "result", "");
+			RPCMetrics.getInstance().record(remoteProfile.getNick(), method,
+					queueWaitMS, sample,
+					"success".equals(result) ? RPCMetrics.OUTCOME_SUCCESS
+							: RPCMetrics.OUTCOME_FAILURE);
+			if (l != null) {
+				if ("success".equals(result)) {
+					l.rpcSuccess(requestID, MapUtils.getMapMap(reply, RPCKEY_ARGUMENTS,
+							Collections.EMPTY_MAP));
+				} else {
+					if (AndroidUtils.DEBUG_RPC) {
+						Log.d(TAG, requestID + "] rpcFailure: " + result);
 					}
+					// clean up things like:
+					// org.gudy.azureus2.plugins.utils.resourcedownloader
+					// .ResourceDownloaderException: http://foo.torrent: I/O
+					// Exception while downloading 'http://foo.torrent', Operation
+					// timed out
+					result = result.replaceAll("org\\.[a-z.]+:", "");
+					result = result.replaceAll("com\\.[a-z.]+:", "");
+					l.rpcFailure(requestID, result);
 				}
-
+			}
+		} catch (RPCException e) {
+			int statusCode = e.getResponseCode();
+			if (statusCode == 409) {
+				RPCMetrics.getInstance().record(remoteProfile.getNick(), method,
+						queueWaitMS, sample, RPCMetrics.OUTCOME_RETRY_409);
 				if (AndroidUtils.DEBUG_RPC) {
-					String s = JSONUtils.encodeToJSON(data);
-					Log.e(TAG,
-							"sendRequest(" + requestID + ","
-									+ (s.length() > 999 ? s.substring(0, 999) + "..." : s) + ","
-									+ l + ")",
-							e);
+					Log.d(TAG, "409: retrying");
 				}
-				if (l != null) {
-					l.rpcError(requestID, e);
+				executeRequest(requestID, data, decoder, l);
+				return;
+			}
+
+			Throwable cause = e.getCause();
+			if (session != null && (cause instanceof ConnectException)) {
+				if (remoteProfile.getRemoteType() == RemoteProfile.TYPE_CORE
+						&& !BiglyCoreUtils.isCoreStarted()) {
+					BiglyCoreUtils.waitForCore(session.getCurrentActivity());
+					executeRequest(requestID, data, decoder, l);
+					return;
 				}
-				// TODO: trigger a generic error listener, so we can put a "Could
-				// not connect" status text somewhere
 			}
-		}, "sendRequest" + requestID).start();
+
+			RPCMetrics.getInstance().record(remoteProfile.getNick(), method,
+					queueWaitMS, sample, RPCMetrics.OUTCOME_ERROR);
+
+			if (AndroidUtils.DEBUG_RPC) {
+				String s = JSONUtils.encodeToJSON(data);
+				Log.e(TAG,
+						"sendRequest(" + requestID + ","
+								+ (s.length() > 999 ? s.substring(0, 999) + "..." : s) + ","
+								+ l + ")",
+						e);
+			}
+			if (l != null) {
+				l.rpcError(requestID, e);
+			}
+			// TODO: trigger a generic error listener, so we can put a "Could
+			// not connect" status text somewhere
+		}
 	}
 
 	public synchronized List<String> getBasicTorrentFieldIDs() {
@@ -785,29 +1139,51 @@ public class TransmissionRPC
 	 */
 	public void getRecentTorrents(String callID,
 			@Nullable final TorrentListReceivedListener l) {
+		getRecentTorrents(callID, RPCDispatcher.PRIORITY_USER, l);
+	}
+
+	/**
+	 * Get recently-active torrents, or all torrents if there are no recents
+	 * <br>
+	 * Always triggers TorrentListReceivedListener
+	 */
+	public void getRecentTorrents(String callID,
+			@RPCDispatcher.Priority final int priority,
+			@Nullable final TorrentListReceivedListener l) {
 		getTorrents(callID, "recently-active", getBasicTorrentFieldIDs(), null,
-				null, new TorrentListReceivedListener() {
-					boolean doingAll = false;
+				null, priority, createRecentTorrentsListener(priority, l));
+	}
 
-					@Override
-					public void rpcTorrentListReceived(String callID,
-							List<?> addedTorrentMaps, List<String> fields,
-							final int[] fileIndexes, List<?> removedTorrentIDs) {
-						long diff = System.currentTimeMillis() - lastRecentTorrentGet;
-						if (!doingAll && addedTorrentMaps.size() == 0) {
-							if (diff >= RECENTLY_ACTIVE_MS) {
-								doingAll = true;
-								getAllTorrents(callID, this);
-							}
-						} else {
-							lastRecentTorrentGet = System.currentTimeMillis();
-						}
-						if (l != null) {
-							l.rpcTorrentListReceived(callID, addedTorrentMaps, fields,
-									fileIndexes, removedTorrentIDs);
-						}
+	/**
+	 * Wraps l so that an empty "recently-active" reply triggers a get of all
+	 * torrents, when we haven't had a non-empty one in a while
+	 */
+	@NonNull
+	TorrentListReceivedListener createRecentTorrentsListener(
+			@RPCDispatcher.Priority final int priority,
+			@Nullable final TorrentListReceivedListener l) {
+		return new TorrentListReceivedListener() {
+			boolean doingAll = false;
+
+			@Override
+			public void rpcTorrentListReceived(String callID,
+					List<?> addedTorrentMaps, List<String> fields,
+					final int[] fileIndexes, List<?> removedTorrentIDs) {
+				long diff = System.currentTimeMillis() - lastRecentTorrentGet;
+				if (!doingAll && addedTorrentMaps.size() == 0) {
+					if (diff >= RECENTLY_ACTIVE_MS) {
+						doingAll = true;
+						getAllTorrents(callID, priority, this);
 					}
-				});
+				} else {
+					lastRecentTorrentGet = System.currentTimeMillis();
+				}
+				if (l != null) {
+					l.rpcTorrentListReceived(callID, addedTorrentMaps, fields,
+							fileIndexes, removedTorrentIDs);
+				}
+			}
+		};
 	}
 
 	@Thunk
@@ -828,7 +1204,7 @@ public class TransmissionRPC
 	public void getTorrentFileInfo(String callID, Object ids,
 			@Nullable int[] fileIndexes, TorrentListReceivedListener l) {
 		getTorrents(callID, ids, getFileInfoFields(false), fileIndexes,
-				defaultFileFields, l);
+				defaultFileFields, RPCDispatcher.PRIORITY_USER, l);
 	}
 
 	/**
@@ -840,7 +1216,8 @@ public class TransmissionRPC
 		fieldIDs.add(TransmissionVars.FIELD_TORRENT_ID);
 		fieldIDs.add(TransmissionVars.FIELD_TORRENT_PEERS);
 
-		getTorrents(callID, ids, fieldIDs, null, null, l);
+		getTorrents(callID, ids, fieldIDs, null, null,
+				RPCDispatcher.PRIORITY_USER, l);
 	}
 
 	public void simpleRpcCall(String method, ReplyMapReceivedListener l) {
@@ -861,12 +1238,17 @@ public class TransmissionRPC
 
 	public void simpleRpcCall(String method, @Nullable Map arguments,
 			ReplyMapReceivedListener l) {
+		simpleRpcCall(method, arguments, RPCDispatcher.PRIORITY_USER, l);
+	}
+
+	public void simpleRpcCall(String method, @Nullable Map arguments,
+			@RPCDispatcher.Priority int priority, ReplyMapReceivedListener l) {
 		Map<String, Object> map = new HashMap<>();
 		map.put(RPCKEY_METHOD, method);
 		if (arguments != null) {
 			map.put(RPCKEY_ARGUMENTS, arguments);
 		}
-		sendRequest(method, map, l);
+		sendRequest(method, map, priority, null, l);
 	}
 
 	public void simpleRpcCallWithRefresh(String callID, String method, long[] ids,
@@ -1126,11 +1508,11 @@ public class TransmissionRPC
 
 					@Override
 					public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
-						try {
-							Thread.sleep(500);
-						} catch (InterruptedException ignore) {
-						}
-						getRecentTorrents(requestID, null);
+						coalescer.invalidate();
+						dispatcher.schedule(RPCDispatcher.PRIORITY_REFRESH, requestID, 500,
+								() -> getRecentTorrents(requestID,
+										RPCDispatcher.PRIORITY_REFRESH, null),
+								null);
 						if (listener != null) {
 							listener.rpcSuccess(requestID, optionalMap);
 						}
@@ -1239,9 +1621,6 @@ public class TransmissionRPC
 				(SuccessReplyMapRecievedListener) (id, optionalMap) -> {
 
 					final Serializable searchID = (Serializable) optionalMap.get("sid");
-					final Map<String, Object> mapResultsRequest = new HashMap<>();
-
-					mapResultsRequest.put("sid", searchID);
 					if (searchID != null) {
 						List listEngines = MapUtils.getMapList(optionalMap, "engines",
 								Collections.emptyList());
@@ -1250,38 +1629,108 @@ public class TransmissionRPC
 							return;
 						}
 
-						simpleRpcCall(TransmissionVars.METHOD_VUZE_SEARCH_GET_RESULTS,
-								mapResultsRequest, new SuccessReplyMapRecievedListener() {
-
-									@Override
-									public void rpcSuccess(String requestID,
-											Map<?, ?> optionalMap) {
-
-										boolean complete = MapUtils.getMapBoolean(optionalMap,
-												"complete", true);
-										List listEngines = MapUtils.getMapList(optionalMap,
-												"engines", Collections.emptyList());
-
-										if (!l.onMetaSearchGotResults(searchID, listEngines,
-												complete)) {
-											return;
-										}
-										if (!complete) {
-											try {
-												Thread.sleep(1500);
-											} catch (InterruptedException ignored) {
-											}
-											simpleRpcCall(
-													TransmissionVars.METHOD_VUZE_SEARCH_GET_RESULTS,
-													mapResultsRequest, this);
-										}
-
-									}
-								});
+						continueMetaSearch(searchID, l);
 					}
 				});
 	}
 
+	/**
+	 * Poll the results of a search started with
+	 * {@link #startMetaSearch(String, MetaSearchResultsListener)} until it's
+	 * complete, or the listener returns false.
+	 */
+	public void continueMetaSearch(@NonNull Serializable searchID,
+			@NonNull MetaSearchResultsListener l) {
+		new MetaSearchPoll(searchID, l).poll();
+	}
+
+	/**
+	 * Polls "vuze-search-get-results" with a delay that adapts to the
+	 * engines' progress: short while results are still coming in, backing
+	 * off while they aren't.  The delay runs on the dispatcher, so no RPC
+	 * thread sleeps in between.
+	 */
+	private final class MetaSearchPoll
+		implements SuccessReplyMapRecievedListener
+	{
+		private static final int POLL_MIN_MS = 500;
+
+		private static final int POLL_MAX_MS = 4000;
+
+		private final Serializable searchID;
+
+		private final MetaSearchResultsListener l;
+
+		private final Map<String, Object> mapResultsRequest = new HashMap<>();
+
+		/** Engine ID to (result count * 2) + (complete ? 1 : 0) of the last poll */
+		private final Map<String, Integer> mapEngineProgress = new HashMap<>();
+
+		private int delayMS = POLL_MIN_MS;
+
+		MetaSearchPoll(Serializable searchID, MetaSearchResultsListener l) {
+			this.searchID = searchID;
+			this.l = l;
+			mapResultsRequest.put(TransmissionVars.FIELD_SEARCHRESULT_SEARCH_ID,
+					searchID);
+		}
+
+		void poll() {
+			simpleRpcCall(TransmissionVars.METHOD_VUZE_SEARCH_GET_RESULTS,
+					mapResultsRequest, this);
+		}
+
+		@Override
+		public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
+			boolean complete = MapUtils.getMapBoolean(optionalMap,
+					TransmissionVars.FIELD_SEARCHRESULT_COMPLETE, true);
+			List listEngines = MapUtils.getMapList(optionalMap, "engines",
+					Collections.emptyList());
+
+			boolean progressed = updateProgress(listEngines);
+
+			if (!l.onMetaSearchGotResults(searchID, listEngines, complete)) {
+				return;
+			}
+			if (complete) {
+				return;
+			}
+
+			delayMS = progressed ? POLL_MIN_MS
+					: Math.min(POLL_MAX_MS, delayMS * 2);
+			if (AndroidUtils.DEBUG_RPC) {
+				Log.d(TAG, "MetaSearch " + searchID + ": next poll in " + delayMS
+						+ "ms");
+			}
+			dispatcher.schedule(RPCDispatcher.PRIORITY_USER, requestID, delayMS,
+					this::poll, null);
+		}
+
+		/**
+		 * @return true if any engine has more results, or completed, since the
+		 * last poll
+		 */
+		private boolean updateProgress(List listEngines) {
+			boolean progressed = false;
+			for (Object oEngine : listEngines) {
+				if (!(oEngine instanceof Map)) {
+					continue;
+				}
+				Map mapEngine = (Map) oEngine;
+				String engineID = MapUtils.getMapString(mapEngine, "id", null);
+				List listResults = MapUtils.getMapList(mapEngine, "results", null);
+				int progress = (listResults == null ? 0 : listResults.size() * 2)
+						+ (MapUtils.getMapBoolean(mapEngine,
+								TransmissionVars.FIELD_SEARCHRESULT_COMPLETE, false) ? 1 : 0);
+				Integer lastProgress = mapEngineProgress.put(engineID, progress);
+				if (lastProgress == null || lastProgress != progress) {
+					progressed = true;
+				}
+			}
+			return progressed;
+		}
+	}
+
 	/**
 	 * compare two version strings of form n.n.n.n (e.g. 1.2.3.4)
 	 *
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.BiglyBTApp;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+
+import androidx.annotation.AnyThread;
+
+/**
+ * Picks the delay until the next automatic torrent list refresh of a
+ * {@link Session}.
+ * <p>
+ * Starts with the user's refresh interval, and adjusts it by:
+ * <ul>
+ * <li>Busy: Torrents are transferring and the last refresh changed something.
+ * Refresh twice as often.</li>
+ * <li>Idle: Several refreshes in a row changed nothing and nothing is
+ * transferring.  Back off exponentially.</li>
+ * <li>Metered network: Refresh half as often.</li>
+ * <li>Round trip time: Never spend more than a quarter of the time waiting on
+ * refreshes.</li>
+ * <li>Screen off, or app in background: Use the maximum.</li>
+ * </ul>
+ * The result is kept within the user's minimum and maximum (widened to include
+ * the user's interval, if needed).
+ */
+public class RefreshScheduler
+{
+	private static final String TAG = "RefreshScheduler";
+
+	/** Number of refreshes with no changes before we start backing off */
+	private static final int IDLE_REFRESHES_BEFORE_BACKOFF = 2;
+
+	/** Backoff stops doubling after this many steps */
+	private static final int MAX_BACKOFF_STEPS = 6;
+
+	private static final float BUSY_FACTOR = 0.5f;
+
+	private static final float METERED_FACTOR = 2f;
+
+	/** Interval will be at least RTT * this */
+	private static final int RTT_MULTIPLIER = 4;
+
+	/** Weight of newest RTT sample in the moving average */
+	private static final float RTT_SMOOTHING = 0.25f;
+
+	private final Object lock = new Object();
+
+	private long refreshStartedOn;
+
+	private long avgRoundTripMS = -1;
+
+	private int numChangedThisRefresh;
+
+	private boolean lastRefreshSucceeded;
+
+	private int numChangedLastRefresh = -1;
+
+	private boolean transferring;
+
+	private int idleStreak;
+
+	private long lastIntervalMS = -1;
+
+	private String lastReason = "";
+
+	RefreshScheduler() {
+	}
+
+	@AnyThread
+	void refreshStarted() {
+		synchronized (lock) {
+			// The change set of a refresh is delivered after the refresh's own
+			// listener has completed it, so the idle state of the previous refresh
+			// is only settled here.
+			if (lastRefreshSucceeded) {
+				numChangedLastRefresh = numChangedThisRefresh;
+				if (numChangedThisRefresh == 0 && !transferring) {
+					idleStreak++;
+				} else {
+					idleStreak = 0;
+				}
+			}
+			lastRefreshSucceeded = false;
+			refreshStartedOn = System.currentTimeMillis();
+			numChangedThisRefresh = 0;
+		}
+	}
+
+	/**
+	 * @param success false if the refresh failed.  Failed refreshes don't
+	 *                update round trip time or idle state.
+	 */
+	@AnyThread
+	void refreshCompleted(boolean success) {
+		synchronized (lock) {
+			if (refreshStartedOn == 0) {
+				return;
+			}
+			if (success) {
+				long rtt = System.currentTimeMillis() - refreshStartedOn;
+				avgRoundTripMS = avgRoundTripMS < 0 ? rtt
+						: (long) (avgRoundTripMS * (1 - RTT_SMOOTHING)
+								+ rtt * RTT_SMOOTHING);
+			}
+			lastRefreshSucceeded = success;
+			refreshStartedOn = 0;
+		}
+	}
+
+	@AnyThread
+	void torrentListChanged(TorrentListChangeSet changeSet) {
+		int num = changeSet.getAddedIDs().length + changeSet.getRemovedIDs().length
+				+ changeSet.getChangedIDs().length;
+		synchronized (lock) {
+			numChangedThisRefresh += num;
+		}
+	}
+
+	@AnyThread
+	void sessionStatsReceived(long downloadSpeed, long uploadSpeed) {
+		synchronized (lock) {
+			transferring = downloadSpeed > 0 || uploadSpeed > 0;
+			if (transferring) {
+				idleStreak = 0;
+			}
+		}
+	}
+
+	/**
+	 * @param baseSecs User's refresh interval, as returned by
+	 *                 {@link RemoteProfile#calcUpdateInterval()}.  Must be > 0
+	 * @param visible Whether an activity of the session is visible
+	 * @return Delay until next refresh, in ms
+	 */
+	@AnyThread
+	long calcNextIntervalMS(RemoteProfile remoteProfile, long baseSecs,
+			boolean visible) {
+		long baseMS = baseSecs * 1000;
+		if (!remoteProfile.isUpdateIntervalAdaptive()) {
+			return report(baseMS, "fixed");
+		}
+		if (remoteProfile.hasOpenOptionsWaiters()) {
+			// Waiting for a torrent to show up so we can open its options
+			return report(baseMS, "open options waiting");
+		}
+
+		long minMS = Math.min(remoteProfile.getUpdateIntervalMin() * 1000, baseMS);
+		long maxMS = Math.max(remoteProfile.getUpdateIntervalMax() * 1000, baseMS);
+
+		if (!visible || !isScreenOn()) {
+			return report(maxMS, visible ? "screen off" : "not visible");
+		}
+
+		long intervalMS;
+		StringBuilder reason = new StringBuilder();
+		synchronized (lock) {
+			if (idleStreak >= IDLE_REFRESHES_BEFORE_BACKOFF) {
+				int steps = Math.min(idleStreak - IDLE_REFRESHES_BEFORE_BACKOFF + 1,
+						MAX_BACKOFF_STEPS);
+				intervalMS = baseMS << steps;
+				reason.append("idle x").append(idleStreak);
+			} else if (transferring && numChangedLastRefresh > 0) {
+				intervalMS = (long) (baseMS * BUSY_FACTOR);
+				reason.append("busy");
+			} else {
+				intervalMS = baseMS;
+				reason.append("normal");
+			}
+
+			if (BiglyBTApp.getNetworkState().isMetered()) {
+				intervalMS *= METERED_FACTOR;
+				reason.append(", metered");
+			}
+
+			if (avgRoundTripMS > 0 && intervalMS < avgRoundTripMS * RTT_MULTIPLIER) {
+				intervalMS = avgRoundTripMS * RTT_MULTIPLIER;
+				reason.append(", rtt ").append(avgRoundTripMS).append("ms");
+			}
+		}
+
+		if (intervalMS < minMS) {
+			intervalMS = minMS;
+			reason.append(", min");
+		} else if (intervalMS > maxMS) {
+			intervalMS = maxMS;
+			reason.append(", max");
+		}
+
+		return report(intervalMS, reason.toString());
+	}
+
+	private long report(long intervalMS, String reason) {
+		synchronized (lock) {
+			if (AndroidUtils.DEBUG && intervalMS != lastIntervalMS) {
+				Log.d(TAG, "Refresh every " + intervalMS + "ms; " + reason);
+			}
+			lastIntervalMS = intervalMS;
+			lastReason = reason;
+		}
+		return intervalMS;
+	}
+
+	private static boolean isScreenOn() {
+		PowerManager pm = (PowerManager) BiglyBTApp.getContext().getSystemService(
+				Context.POWER_SERVICE);
+		if (pm == null) {
+			return true;
+		}
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH) {
+			return pm.isInteractive();
+		}
+		//noinspection deprecation
+		return pm.isScreenOn();
+	}
+
+	/**
+	 * @return Last chosen refresh interval in ms, or -1 if none chosen yet
+	 */
+	public long getLastIntervalMS() {
+		synchronized (lock) {
+			return lastIntervalMS;
+		}
+	}
+
+	/**
+	 * @return Human readable (English) description of why the last interval was
+	 * chosen
+	 */
+	public String getLastReason() {
+		synchronized (lock) {
+			return lastReason;
+		}
+	}
+
+	/**
+	 * @return Smoothed round trip time of a refresh in ms, or -1 if unknown
+	 */
+	public long getAverageRoundTripMS() {
+		synchronized (lock) {
+			return avgRoundTripMS;
+		}
+	}
+}
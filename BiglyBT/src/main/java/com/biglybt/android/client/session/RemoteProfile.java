@@ -70,6 +70,16 @@ public class RemoteProfile
 
 	private static final String ID_UPDATEINTERVAL_MOBILE = "updateIntervalMobile";
 
+	private static final String ID_UPDATE_INTERVAL_ADAPTIVE = "updateIntervalAdaptive";
+
+	private static final String ID_UPDATEINTERVAL_MIN = "updateIntervalMin";
+
+	private static final String ID_UPDATEINTERVAL_MAX = "updateIntervalMax";
+
+	private static final int DEFAULT_UPDATEINTERVAL_MIN = 5;
+
+	private static final int DEFAULT_UPDATEINTERVAL_MAX = 300;
+
 	private static final String ID_SAVE_PATH_HISTORY = "savePathHistory";
 
 	/** Map of Key = Hash; Value = AddedOn **/
@@ -376,6 +386,42 @@ public class RemoteProfile
 		mapRemote.put(ID_UPDATEINTERVAL_MOBILE, interval);
 	}
 
+	/**
+	 * @return true if {@link RefreshScheduler} may adjust the update interval
+	 * based on activity
+	 */
+	public boolean isUpdateIntervalAdaptive() {
+		return MapUtils.getMapBoolean(mapRemote, ID_UPDATE_INTERVAL_ADAPTIVE, true);
+	}
+
+	public void setUpdateIntervalAdaptive(boolean adaptive) {
+		mapRemote.put(ID_UPDATE_INTERVAL_ADAPTIVE, adaptive);
+	}
+
+	/**
+	 * @return Shortest interval, in seconds, an adaptive refresh may use
+	 */
+	public long getUpdateIntervalMin() {
+		return MapUtils.getMapInt(mapRemote, ID_UPDATEINTERVAL_MIN,
+				DEFAULT_UPDATEINTERVAL_MIN);
+	}
+
+	public void setUpdateIntervalMin(long interval_secs) {
+		mapRemote.put(ID_UPDATEINTERVAL_MIN, interval_secs);
+	}
+
+	/**
+	 * @return Longest interval, in seconds, an adaptive refresh may use
+	 */
+	public long getUpdateIntervalMax() {
+		return MapUtils.getMapInt(mapRemote, ID_UPDATEINTERVAL_MAX,
+				DEFAULT_UPDATEINTERVAL_MAX);
+	}
+
+	public void setUpdateIntervalMax(long interval_secs) {
+		mapRemote.put(ID_UPDATEINTERVAL_MAX, interval_secs);
+	}
+
 	public List<String> getSavePathHistory() {
 		return MapUtils.getMapList(mapRemote, ID_SAVE_PATH_HISTORY,
 				new ArrayList<String>());
@@ -196,6 +196,12 @@ public class Session
 
 	private long lastRefreshInterval = -1;
 
+	@NonNull
+	final RefreshScheduler refreshScheduler = new RefreshScheduler();
+
+	@NonNull
+	private final TorrentListSnapshot torrentListSnapshot;
+
 	public Session(final @NonNull RemoteProfile _remoteProfile,
 			FragmentActivity currentActivity) {
 		this.remoteProfile = _remoteProfile;
@@ -218,6 +224,9 @@ public class Session
 		}
 
 		BiglyBTApp.getNetworkState().addListener(this);
+
+		torrentListSnapshot = new TorrentListSnapshot(this);
+		torrentListSnapshot.restore();
 	}
 
 	private void bindAndOpen() {
@@ -730,19 +739,34 @@ public class Session
 			logd("setupNextRefresh");
 		}
 		long interval = remoteProfile.calcUpdateInterval();
+		if (interval > 0) {
+			interval = refreshScheduler.calcNextIntervalMS(remoteProfile, interval,
+					activityVisible);
+		}
 		if (handler != null && interval == lastRefreshInterval) {
 			return;
 		}
 		lastRefreshInterval = interval;
 		if (AndroidUtils.DEBUG_ANNOY) {
-			logd("Handler fires every " + interval);
+			logd("Handler fires every " + interval + "ms");
 		}
 		if (interval <= 0) {
 			cancelRefreshHandler();
 			return;
 		}
+		if (handler != null) {
+			handler.removeCallbacksAndMessages(null);
+		}
 		handler = new Handler(Looper.getMainLooper());
-		handler.postDelayed(handlerRunnable, interval * 1000);
+		handler.postDelayed(handlerRunnable, interval);
+	}
+
+	/**
+	 * @return Scheduler deciding when the next automatic refresh happens
+	 */
+	@NonNull
+	public RefreshScheduler getRefreshScheduler() {
+		return refreshScheduler;
 	}
 
 	public void triggerRefresh(final boolean recentOnly) {
@@ -765,42 +789,53 @@ public class Session
 			}
 			torrent.setRefreshingList(true);
 		}
+		refreshScheduler.refreshStarted();
 		if (AndroidUtils.DEBUG_ANNOY) {
 			logd("Refresh Triggered " + AndroidUtils.getCompressedStackTrace());
 		}
 
-		if (tag.needsTagRefresh) {
-			tag.refreshTags(false);
-		}
+		// Stats, torrents, and tags go out in one request when the remote client
+		// supports batches
+		RPCBatch batch = transmissionRPC.createBatch(TAG + ".Refresh",
+				RPCDispatcher.PRIORITY_REFRESH);
 
-		transmissionRPC.getSessionStats(SESSION_STATS_FIELDS,
-				new ReplyMapReceivedListener() {
+		batch.addSessionStats(SESSION_STATS_FIELDS,
+				new SuccessReplyMapRecievedListener() {
 					@Override
 					public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
 						updateSessionStats(optionalMap);
+					}
+				});
 
-						TorrentListReceivedListener listener = (callID, addedTorrentMaps,
-								fields, fileIndexes,
-								removedTorrentIDs) -> torrent.setRefreshingList(false);
+		TorrentListReceivedListener listener = (callID, addedTorrentMaps, fields,
+				fileIndexes, removedTorrentIDs) -> {
+			refreshScheduler.refreshCompleted(
+					!TransmissionRPC.isFakeTorrentList(addedTorrentMaps));
+			torrent.setRefreshingList(false);
+		};
 
-						if (recentOnly && !torrent.needsFullTorrentRefresh) {
-							transmissionRPC.getRecentTorrents(TAG + ".Refresh", listener);
-						} else {
-							transmissionRPC.getAllTorrents(TAG + ".Refresh", listener);
-							torrent.needsFullTorrentRefresh = false;
-						}
-					}
+		if (recentOnly && !torrent.needsFullTorrentRefresh) {
+			batch.addRecentTorrents(TAG + ".Refresh", listener);
+		} else {
+			batch.addAllTorrents(TAG + ".Refresh", (callID, addedTorrentMaps, fields,
+					fileIndexes, removedTorrentIDs) -> {
+				// Drop torrents restored from the snapshot that no longer exist on
+				// the remote client
+				if (torrent.isListStale()
+						&& !TransmissionRPC.isFakeTorrentList(addedTorrentMaps)) {
+					torrent.reconcileWithFullList(callID, addedTorrentMaps);
+				}
+				listener.rpcTorrentListReceived(callID, addedTorrentMaps, fields,
+						fileIndexes, removedTorrentIDs);
+			});
+			torrent.needsFullTorrentRefresh = false;
+		}
 
-					@Override
-					public void rpcError(String requestID, Exception e) {
-						torrent.setRefreshingList(false);
-					}
+		if (tag.needsTagRefresh) {
+			tag.refreshTags(false, batch);
+		}
 
-					@Override
-					public void rpcFailure(String requestID, String message) {
-						torrent.setRefreshingList(false);
-					}
-				});
+		batch.send();
 	}
 
 	@Thunk
@@ -852,6 +887,8 @@ public class Session
 		long newUploadSpeed = MapUtils.getMapLong(map,
 				TransmissionVars.TR_SESSION_STATS_UPLOAD_SPEED, 0);
 
+		refreshScheduler.sessionStatsReceived(newDownloadSpeed, newUploadSpeed);
+
 		if (oldDownloadSpeed != newDownloadSpeed
 				|| oldUploadSpeed != newUploadSpeed) {
 			for (SessionSettingsChangedListener l : sessionSettingsChangedListeners) {
@@ -1077,8 +1114,8 @@ public class Session
 		if (transmissionRPC != null) {
 			transmissionRPC.destroy();
 		}
+		torrentListSnapshot.destroy();
 		torrent.clearCache();
-		torrent.clearFilesCaches(false);
 		availabilityListeners.clear();
 		refreshTriggerListeners.clear();
 		sessionSettingsChangedListeners.clear();
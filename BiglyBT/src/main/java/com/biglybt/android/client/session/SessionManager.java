@@ -16,12 +16,13 @@
 
 package com.biglybt.android.client.session;
 
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.biglybt.android.client.*;
 import com.biglybt.android.client.activity.SessionActivity;
+import com.biglybt.util.Thunk;
 
 import android.app.Activity;
 import android.app.SearchManager;
@@ -44,7 +45,8 @@ public class SessionManager
 
 	private static final ConcurrentHashMap<String, CopyOnWriteArrayList<SessionChangedListener>> changedListeners = new ConcurrentHashMap<>();
 
-	private static String lastUsed = null;
+	@Thunk
+	static String lastUsed = null;
 
 	private static Session currentVisibleSession = null;
 
@@ -198,32 +200,112 @@ public class SessionManager
 		changedListeners.clear();
 	}
 
-	public static void clearTorrentCaches(boolean keepLastUsed) {
-		int numClears = 0;
-		for (String key : mapSessions.keySet()) {
-			if (keepLastUsed && key.equals(lastUsed)) {
-				continue;
+	/**
+	 * Torrent maps of all sessions, for {@link MemoryGovernor}.  Whole sessions
+	 * are dropped, least recently used first.  The last used session is only
+	 * dropped when trimming to nothing.
+	 */
+	public static final MemoryGovernor.TrimmableCache TORRENT_MAPS_CACHE = new MemoryGovernor.TrimmableCache() {
+		@NonNull
+		@Override
+		public String getCacheName() {
+			return "torrentMaps";
+		}
+
+		@Override
+		public long getBytesUsed() {
+			long bytes = 0;
+			for (Session session : getSessionsByLastUse()) {
+				bytes += session.torrent.estimateTorrentBytes();
 			}
-			Session session = mapSessions.get(key);
-			session.torrent.clearCache();
-			numClears++;
+			return bytes;
 		}
-		if (AndroidUtils.DEBUG) {
-			//noinspection DuplicateStringLiteralInspection
-			Log.d(TAG, "clearTorrentCache. " + numClears + " removed");
+
+		@Override
+		public long trimToBytes(long targetBytes) {
+			List<Session> sessions = getSessionsByLastUse();
+			long bytes = getBytesUsed();
+			for (Session session : sessions) {
+				if (bytes <= targetBytes) {
+					break;
+				}
+				boolean isLastUsed = session.getRemoteProfile().getID().equals(
+						lastUsed);
+				if (isLastUsed && targetBytes > 0) {
+					break;
+				}
+				bytes -= session.torrent.estimateTorrentBytes();
+				session.torrent.clearCache();
+			}
+			return bytes;
 		}
-	}
+	};
+
+	/**
+	 * File lists of all sessions, for {@link MemoryGovernor}.  Least recently
+	 * used sessions give up their file lists first, and within a session the
+	 * least recently viewed torrents do.
+	 */
+	public static final MemoryGovernor.TrimmableCache TORRENT_FILES_CACHE = new MemoryGovernor.TrimmableCache() {
+		@NonNull
+		@Override
+		public String getCacheName() {
+			return "torrentFiles";
+		}
+
+		@Override
+		public long getBytesUsed() {
+			long bytes = 0;
+			for (Session session : getSessionsByLastUse()) {
+				bytes += session.torrent.estimateFilesBytes();
+			}
+			return bytes;
+		}
+
+		@Override
+		public long trimToBytes(long targetBytes) {
+			long bytes = getBytesUsed();
+			for (Session session : getSessionsByLastUse()) {
+				if (bytes <= targetBytes) {
+					break;
+				}
+				long sessionBytes = session.torrent.estimateFilesBytes();
+				long keep = Math.max(0, sessionBytes - (bytes - targetBytes));
+				bytes -= sessionBytes - session.torrent.trimFilesToBytes(keep);
+			}
+			return bytes;
+		}
+	};
 
-	public static void clearTorrentFilesCaches(boolean keepLastUsedTorrentFiles) {
-		int numClears = 0;
+	/**
+	 * @return Live sessions, least recently used first.  The last used session
+	 * is always at the end.
+	 */
+	@Thunk
+	static List<Session> getSessionsByLastUse() {
+		List<Session> list = new ArrayList<>();
+		Session lastUsedSession = null;
 		for (String key : mapSessions.keySet()) {
 			Session session = mapSessions.get(key);
-			numClears += session.torrent.clearFilesCaches(keepLastUsedTorrentFiles);
+			if (session == null || session.isDestroyed()) {
+				continue;
+			}
+			if (key.equals(lastUsed)) {
+				lastUsedSession = session;
+			} else {
+				list.add(session);
+			}
 		}
-		if (AndroidUtils.DEBUG) {
-			//noinspection DuplicateStringLiteralInspection
-			Log.d(TAG, "clearTorrentFilesCaches. " + numClears + " removed");
+		Collections.sort(list, (a, b) -> {
+			long lastUsedOnA = a.getRemoteProfile().getLastUsedOn();
+			long lastUsedOnB = b.getRemoteProfile().getLastUsedOn();
+			return lastUsedOnA < lastUsedOnB ? -1
+					: lastUsedOnA == lastUsedOnB ? 0 : 1;
+		});
+		if (lastUsedSession != null) {
+			list.add(lastUsedSession);
 		}
+		return list;
 	}
 
 	public static Session findOrCreateSession(Fragment fragment,
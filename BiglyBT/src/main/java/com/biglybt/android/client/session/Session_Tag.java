@@ -22,6 +22,8 @@ import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.biglybt.android.client.*;
+import com.biglybt.android.client.rpc.RPCBatch;
+import com.biglybt.android.client.rpc.RPCDispatcher;
 import com.biglybt.android.client.rpc.RPCSupports;
 import com.biglybt.android.client.rpc.ReplyMapReceivedListener;
 import com.biglybt.android.client.rpc.TagListReceivedListener;
@@ -29,6 +31,7 @@ import com.biglybt.android.util.MapUtils;
 import com.biglybt.util.Thunk;
 
 import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.collection.LongSparseArray;
 
@@ -93,6 +96,41 @@ public class Session_Tag
 		}
 	}
 
+	/**
+	 * Sorted set of torrent IDs
+	 */
+	private static final class TorrentIDSet
+	{
+		long[] ids = new long[4];
+
+		int size;
+
+		boolean add(long id) {
+			int i = Arrays.binarySearch(ids, 0, size, id);
+			if (i >= 0) {
+				return false;
+			}
+			i = -(i + 1);
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			System.arraycopy(ids, i, ids, i + 1, size - i);
+			ids[i] = id;
+			size++;
+			return true;
+		}
+
+		boolean remove(long id) {
+			int i = Arrays.binarySearch(ids, 0, size, id);
+			if (i < 0) {
+				return false;
+			}
+			System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+			size--;
+			return true;
+		}
+	}
+
 	@IntDef({
 		STATEID_INITIALISING,
 		STATEID_DOWNLOADING,
@@ -126,6 +164,18 @@ public class Session_Tag
 
 	private Long tagAllUID = null;
 
+	/**
+	 * Tag UID to the torrents that have it, built from each torrent's
+	 * "tag-uids" as the torrent list merges.  Guarded by session.mLock.
+	 */
+	private final LongSparseArray<TorrentIDSet> mapTagToTorrentIDs = new LongSparseArray<>();
+
+	/**
+	 * Torrent ID to its sorted tag UIDs, as last indexed.  Only torrents whose
+	 * map has "tag-uids".  Guarded by session.mLock.
+	 */
+	private final LongSparseArray<long[]> mapTorrentToTagUIDs = new LongSparseArray<>();
+
 	Session_Tag(Session session) {
 		this.session = session;
 	}
@@ -318,7 +368,169 @@ public class Session_Tag
 		}
 	}
 
+	/**
+	 * Use tag list from {@link TorrentListSnapshot} until the remote client
+	 * sends one
+	 */
+	@SuppressWarnings("rawtypes")
+	void restoreFromSnapshot(@NonNull List<Map> tagList) {
+		synchronized (session.mLock) {
+			if (mapTags != null) {
+				return;
+			}
+		}
+		placeTagListIntoMap(tagList, true);
+	}
+
+	/**
+	 * Update the tag index with a torrent's merged map.  Must be called
+	 * under session.mLock.
+	 *
+	 * @return true if the torrent's tags changed
+	 */
+	boolean indexTorrent(long torrentID, @NonNull Map<?, ?> mapTorrent) {
+		List<?> listTagUIDs = MapUtils.getMapList(mapTorrent,
+				TransmissionVars.FIELD_TORRENT_TAG_UIDS, null);
+		if (listTagUIDs == null) {
+			return unindexTorrent(torrentID);
+		}
+		long[] newUIDs = new long[listTagUIDs.size()];
+		int num = 0;
+		for (Object o : listTagUIDs) {
+			if (o instanceof Number) {
+				newUIDs[num++] = ((Number) o).longValue();
+			}
+		}
+		if (num != newUIDs.length) {
+			newUIDs = Arrays.copyOf(newUIDs, num);
+		}
+		Arrays.sort(newUIDs);
+
+		long[] oldUIDs = mapTorrentToTagUIDs.get(torrentID);
+		if (oldUIDs != null && Arrays.equals(oldUIDs, newUIDs)) {
+			return false;
+		}
+		mapTorrentToTagUIDs.put(torrentID, newUIDs);
+		if (oldUIDs != null) {
+			for (long uid : oldUIDs) {
+				if (Arrays.binarySearch(newUIDs, uid) < 0) {
+					TorrentIDSet set = mapTagToTorrentIDs.get(uid);
+					if (set != null) {
+						set.remove(torrentID);
+					}
+				}
+			}
+		}
+		for (long uid : newUIDs) {
+			TorrentIDSet set = mapTagToTorrentIDs.get(uid);
+			if (set == null) {
+				set = new TorrentIDSet();
+				mapTagToTorrentIDs.put(uid, set);
+			}
+			set.add(torrentID);
+		}
+		return true;
+	}
+
+	/**
+	 * Remove a torrent from the tag index.  Must be called under
+	 * session.mLock.
+	 *
+	 * @return true if the torrent was indexed with tags
+	 */
+	boolean unindexTorrent(long torrentID) {
+		long[] oldUIDs = mapTorrentToTagUIDs.get(torrentID);
+		if (oldUIDs == null) {
+			return false;
+		}
+		mapTorrentToTagUIDs.remove(torrentID);
+		for (long uid : oldUIDs) {
+			TorrentIDSet set = mapTagToTorrentIDs.get(uid);
+			if (set != null) {
+				set.remove(torrentID);
+			}
+		}
+		return oldUIDs.length > 0;
+	}
+
+	/**
+	 * Must be called under session.mLock
+	 */
+	void clearIndex() {
+		mapTagToTorrentIDs.clear();
+		mapTorrentToTagUIDs.clear();
+	}
+
+	/**
+	 * @return true if every cached torrent is in the tag index, so the index
+	 * can answer for the whole list
+	 */
+	public boolean isIndexComplete() {
+		synchronized (session.mLock) {
+			return session.torrent.getLastListReceivedOn() > 0
+					&& mapTorrentToTagUIDs.size() == session.torrent.getCount();
+		}
+	}
+
+	/**
+	 * @return Sorted IDs of cached torrents with the tag, or null if the index
+	 * doesn't cover every cached torrent
+	 */
+	@Nullable
+	public long[] getTorrentIDsWithTag(long tagUID) {
+		synchronized (session.mLock) {
+			if (!isIndexComplete()) {
+				return null;
+			}
+			TorrentIDSet set = mapTagToTorrentIDs.get(tagUID);
+			return set == null ? new long[0] : Arrays.copyOf(set.ids, set.size);
+		}
+	}
+
+	/**
+	 * Set each tag's count from the tag index, instead of asking the remote
+	 * client.
+	 *
+	 * @return false if the index doesn't cover every cached torrent, and
+	 * nothing was updated
+	 */
+	@SuppressWarnings("unchecked")
+	boolean updateCountsFromIndex() {
+		synchronized (session.mLock) {
+			if (mapTags == null || !isIndexComplete()) {
+				return false;
+			}
+			for (int i = 0, num = mapTags.size(); i < num; i++) {
+				Map mapTag = mapTags.valueAt(i);
+				if (mapTag == null) {
+					continue;
+				}
+				TorrentIDSet set = mapTagToTorrentIDs.get(mapTags.keyAt(i));
+				long count = set == null ? 0 : set.size;
+				synchronized (mapTag) {
+					mapTag.put(TransmissionVars.FIELD_TAG_COUNT, count);
+				}
+			}
+		}
+
+		if (tagListReceivedListeners.size() > 0) {
+			List<Map<?, ?>> tags = getTags();
+			for (TagListReceivedListener l : tagListReceivedListeners) {
+				l.tagListReceived(tags);
+			}
+		}
+		return true;
+	}
+
 	public void refreshTags(boolean onlyRefreshCount) {
+		refreshTags(onlyRefreshCount, null);
+	}
+
+	/**
+	 * @param batch When not null, the call is added to the batch instead of
+	 *              being sent
+	 */
+	public void refreshTags(boolean onlyRefreshCount, @Nullable RPCBatch batch) {
 		if (!session.getSupports(RPCSupports.SUPPORTS_TAGS)) {
 			return;
 		}
@@ -326,6 +538,9 @@ public class Session_Tag
 		if (mapTags == null || mapTags.size() == 0) {
 			onlyRefreshCount = false;
 		}
+		if (onlyRefreshCount && updateCountsFromIndex()) {
+			return;
+		}
 		Map args = null;
 		if (onlyRefreshCount) {
 			args = new HashMap(1);
@@ -334,33 +549,42 @@ public class Session_Tag
 					Arrays.asList("uid", TransmissionVars.FIELD_TAG_COUNT));
 		}
 		boolean finalOnlyRefreshCount = onlyRefreshCount;
-		session.transmissionRPC.simpleRpcCall("tags-get-list", args,
-				new ReplyMapReceivedListener() {
+		ReplyMapReceivedListener l = new ReplyMapReceivedListener() {
 
-					@Override
-					public void rpcError(String requestID, Exception e) {
-						needsTagRefresh = false;
-					}
-
-					@Override
-					public void rpcFailure(String requestID, String message) {
-						needsTagRefresh = false;
-					}
+			@Override
+			public void rpcError(String requestID, Exception e) {
+				needsTagRefresh = false;
+			}
 
-					@Override
-					public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
-						needsTagRefresh = false;
-						List<?> tagList = MapUtils.getMapList(optionalMap, "tags", null);
-						if (tagList == null) {
-							synchronized (session.mLock) {
-								mapTags = null;
-							}
-							return;
-						}
+			@Override
+			public void rpcFailure(String requestID, String message) {
+				needsTagRefresh = false;
+			}
 
-						placeTagListIntoMap(tagList, !finalOnlyRefreshCount);
+			@Override
+			public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
+				needsTagRefresh = false;
+				List<?> tagList = MapUtils.getMapList(optionalMap, "tags", null);
+				if (tagList == null) {
+					synchronized (session.mLock) {
+						mapTags = null;
 					}
-				});
+					return;
+				}
+
+				placeTagListIntoMap(tagList, !finalOnlyRefreshCount);
+			}
+		};
+		if (batch != null) {
+			batch.addCall("tags-get-list", args, l);
+			return;
+		}
+		// Count-only refreshes are triggered by torrent list changes, and aren't
+		// something the user is waiting on
+		session.transmissionRPC.simpleRpcCall("tags-get-list", args,
+				onlyRefreshCount ? RPCDispatcher.PRIORITY_PREFETCH
+						: RPCDispatcher.PRIORITY_REFRESH,
+				l);
 	}
 
 	public void removeTagListReceivedListener(TagListReceivedListener l) {
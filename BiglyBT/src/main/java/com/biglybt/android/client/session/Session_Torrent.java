@@ -37,6 +37,7 @@ import android.net.Uri;
 import android.os.Build;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 import androidx.fragment.app.FragmentActivity;
 import androidx.collection.LongSparseArray;
 import android.text.TextUtils;
@@ -66,11 +67,11 @@ public class Session_Torrent
 	private final LongSparseArray<Map<?, ?>> mapOriginal;
 
 	/**
-	 * Store the last torrent id that was retrieved with file info, so when we
-	 * are clearing the cache due to memory constraints, we can keep that last
-	 * one.
+	 * IDs of torrents with a cached file list, least recently used first.
+	 * Guarded by session.mLock
 	 */
-	private long lastTorrentWithFiles = -1;
+	private final LinkedHashMap<Long, Boolean> filesLRU = new LinkedHashMap<>(
+			16, 0.75f, true);
 
 	@Thunk
 	boolean needsFullTorrentRefresh = true;
@@ -81,9 +82,17 @@ public class Session_Torrent
 
 	private final List<TorrentListReceivedListener> receivedListeners = new CopyOnWriteArrayList<>();
 
+	private final List<TorrentListChangedListener> changedListeners = new CopyOnWriteArrayList<>();
+
 	@Thunk
 	long lastListReceivedOn;
 
+	/**
+	 * Torrent list was restored from {@link TorrentListSnapshot} and hasn't been
+	 * reconciled with a full list from the remote client yet
+	 */
+	private volatile boolean listStale;
+
 	Session_Torrent(Session session) {
 		this.session = session;
 		this.mapOriginal = new LongSparseArray<>();
@@ -155,6 +164,10 @@ public class Session_Torrent
 			}
 		}
 		int numAddedOrRemoved = 0;
+		boolean tagsChanged = false;
+		boolean torrentsAdded = false;
+		boolean filesAdded = false;
+		TorrentListChangeSet changeSet = new TorrentListChangeSet(callID);
 		boolean requireStringUnescape = session.transmissionRPC.isRequireStringUnescape();
 		synchronized (session.mLock) {
 			if (addedTorrentIDs.size() > 0) {
@@ -180,10 +193,12 @@ public class Session_Torrent
 
 					Map<?, ?> old = mapOriginal.get(torrentID, null);
 					mapOriginal.put(torrentID, mapUpdatedTorrent);
-
+					if (old == null) {
+						torrentsAdded = true;
+					}
 					if (mapUpdatedTorrent.containsKey(
 							TransmissionVars.FIELD_TORRENT_FILES)) {
-						lastTorrentWithFiles = torrentID;
+						filesAdded = true;
 					}
 
 					/* Older Vuze clients would escape the strings */
@@ -197,6 +212,12 @@ public class Session_Torrent
 						}
 					}
 
+					if (old == null) {
+						changeSet.addAdded(torrentID);
+					} else {
+						addChangedFields(changeSet, torrentID, mapUpdatedTorrent, old);
+					}
+
 					if (old != null) {
 						// merge anything missing in new map with old
 						for (Object torrentKey : old.keySet()) {
@@ -208,6 +229,14 @@ public class Session_Torrent
 					}
 
 					mergeFiles(mapUpdatedTorrent, old, fileIndexes);
+					if (mapUpdatedTorrent.containsKey(
+							TransmissionVars.FIELD_TORRENT_FILES)) {
+						filesLRU.put(torrentID, Boolean.TRUE);
+					}
+
+					if (session.tag.indexTorrent(torrentID, mapUpdatedTorrent)) {
+						tagsChanged = true;
+					}
 
 					mapUpdatedTorrent.put(TransmissionVars.FIELD_LAST_UPDATED,
 							System.currentTimeMillis());
@@ -231,6 +260,9 @@ public class Session_Torrent
 						long torrentID = ((Number) removedItem).longValue();
 						if (mapOriginal.indexOfKey(torrentID) >= 0) {
 							mapOriginal.remove(torrentID);
+							filesLRU.remove(torrentID);
+							session.tag.unindexTorrent(torrentID);
+							changeSet.addRemoved(torrentID);
 							numAddedOrRemoved++;
 						} else {
 							if (AndroidUtils.DEBUG) {
@@ -243,106 +275,151 @@ public class Session_Torrent
 			}
 		}
 
+		// Outside of mLock, trimming locks every session
+		if (torrentsAdded) {
+			MemoryGovernor.getInstance().enforceBudget(
+					SessionManager.TORRENT_MAPS_CACHE);
+		}
+		if (filesAdded) {
+			MemoryGovernor.getInstance().enforceBudget(
+					SessionManager.TORRENT_FILES_CACHE);
+		}
+
 		if (numAddedOrRemoved > 0) {
 			session.tag.refreshTags(true);
+		} else if (tagsChanged) {
+			// Counts come from the tag index; no call is made if it's incomplete
+			session.tag.updateCountsFromIndex();
 		}
 
 		for (TorrentListReceivedListener l : receivedListeners) {
 			l.rpcTorrentListReceived(callID, addedTorrentIDs, fields, fileIndexes,
 					removedTorrentIDs);
 		}
-	}
 
-	private void mergeFiles(Map mapUpdatedTorrent, Map old,
-			final int[] fileIndexes) {
-		List<?> listUpdatedFiles = MapUtils.getMapList(mapUpdatedTorrent,
-				TransmissionVars.FIELD_TORRENT_FILES, null);
-
-		if (listUpdatedFiles != null) {
-
-			// Compact mode has an array per file instead of a map. All arrays
-			// are in the same order, and the keys are stored in "fileKeys"
-			// This saves a lot of bandwidth when you have 10k files.
-			List fileKeys = MapUtils.getMapList(mapUpdatedTorrent, "fileKeys", null);
-			int numUpdatedFiles = listUpdatedFiles.size();
-			if (fileKeys != null && fileKeys.size() > 0) {
-				mapUpdatedTorrent.remove("fileKeys");
-				String[] keys = (String[]) fileKeys.toArray(new String[0]);
-				List<Map> listFilesNew = new ArrayList<>(numUpdatedFiles);
-				for (int i = 0; i < numUpdatedFiles; i++) {
-					List fileNoKeys = (List) listUpdatedFiles.get(i);
-
-					if (fileNoKeys.size() != keys.length) {
-						Log.e(TAG, "addRemoveTorrents: fileKeys size mismatch keys= "
-								+ Arrays.toString(keys) + ", fileNoKeys=" + fileNoKeys);
-						break;
-					}
-
-					Map<String, Object> mapFile = new HashMap<>();
-					listFilesNew.add(mapFile);
-					for (int j = 0; j < keys.length; j++) {
-						mapFile.put(keys[j], fileNoKeys.get(j));
-					}
-				}
+		changeSet.done();
+		if (changeSet.isEmpty()) {
+			return;
+		}
+		session.refreshScheduler.torrentListChanged(changeSet);
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "addRemoveTorrents: " + changeSet);
+		}
+		for (TorrentListChangedListener l : changedListeners) {
+			l.torrentListChanged(changeSet);
+		}
+	}
 
-				if (listFilesNew.size() == listUpdatedFiles.size()) {
-					listUpdatedFiles = listFilesNew;
-					mapUpdatedTorrent.put(TransmissionVars.FIELD_TORRENT_FILES,
-							listUpdatedFiles);
-				}
-//		} else {
-//			Log.w(TAG, "addRemoveTorrents: NOT USING FILEKEYS " + numUpdatedFiles + "/" + callID);
-			}
-
-			// merge "fileStats" into "files"
-			List<?> listFileStats = MapUtils.getMapList(mapUpdatedTorrent,
-					TransmissionVars.FIELD_TORRENT_FILESTATS, null);
-			if (listFileStats != null) {
-				for (int i = 0; i < numUpdatedFiles; i++) {
-					Map mapFile = (Map) listUpdatedFiles.get(i);
-					Map mapFileStats = (Map) listFileStats.get(i);
-					mapFile.putAll(mapFileStats);
-				}
-				mapUpdatedTorrent.remove(TransmissionVars.FIELD_TORRENT_FILESTATS);
+	/**
+	 * Record the fields in the updated torrent map whose values differ from the
+	 * cached map.  Must be called before the missing keys are copied over from
+	 * the cached map.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static void addChangedFields(TorrentListChangeSet changeSet,
+			long torrentID, Map mapUpdatedTorrent, Map old) {
+		for (Object o : mapUpdatedTorrent.keySet()) {
+			if (!(o instanceof String)) {
+				continue;
 			}
-
-			// add an "index" key, for places that only get the file map
-			// and has no reference to index
-			for (int i = 0; i < numUpdatedFiles; i++) {
-				Map mapFile = (Map) listUpdatedFiles.get(i);
-				if (!mapFile.containsKey(TransmissionVars.FIELD_FILES_INDEX)) {
-					int index = fileIndexes != null && i < fileIndexes.length
-							? fileIndexes[i] : i;
-					mapFile.put(TransmissionVars.FIELD_FILES_INDEX, index);
-				} else {
-					// assume if one has index, they all do
-					break;
-				}
+			String field = (String) o;
+			switch (field) {
+				case TransmissionVars.FIELD_TORRENT_ID:
+				case TransmissionVars.FIELD_LAST_UPDATED:
+				case TransmissionVars.FIELD_TORRENT_FILESTATS:
+				case "fileKeys":
+					continue;
+				case TransmissionVars.FIELD_TORRENT_FILES:
+					// File lists can be huge, and might be partial updates that get
+					// merged with the old list.  Don't bother comparing.
+					changeSet.addChangedField(torrentID, field);
+					continue;
 			}
+			if (!isSameValue(mapUpdatedTorrent.get(field), old.get(field))) {
+				changeSet.addChangedField(torrentID, field);
+			}
+		}
+	}
 
-			// hack to remove .dnd_az! path
-			// The proper way to do this would be to get the "dnd" directory
-			// name from RPC, or have the RPC not include the "dnd" part of the
-			// path.  The latter would be preferable.
-			for (int i = 0; i < numUpdatedFiles; i++) {
-				Map mapFile = (Map) listUpdatedFiles.get(i);
-				final Object o = mapFile.get(TransmissionVars.FIELD_FILES_NAME);
-				if (o instanceof String) {
-					String name = (String) o;
-
-					final int posDND = name.indexOf(".dnd_az!");
-					if (posDND >= 0 && posDND + 8 < name.length()) {
-						String s = name.substring(0, posDND) + name.substring(posDND + 9);
-						mapFile.put(TransmissionVars.FIELD_FILES_NAME, s);
-					}
-				}
+	private static boolean isSameValue(Object a, Object b) {
+		if (a == b) {
+			return true;
+		}
+		if (a == null || b == null) {
+			return false;
+		}
+		if ((a instanceof Number) && (b instanceof Number)) {
+			// JSON decoding may give us Integer one time and Long the next
+			if ((a instanceof Double) || (a instanceof Float) || (b instanceof Double)
+					|| (b instanceof Float)) {
+				return ((Number) a).doubleValue() == ((Number) b).doubleValue();
 			}
+			return ((Number) a).longValue() == ((Number) b).longValue();
 		}
+		return a.equals(b);
+	}
 
-		if (old != null) {
-			mergeList(TransmissionVars.FIELD_TORRENT_FILES, mapUpdatedTorrent, old);
+	/**
+	 * Convert the file list of the reply (compact or not) into a
+	 * {@link TorrentFileStore}, and merge it into the cached store.
+	 */
+	private static void mergeFiles(Map mapUpdatedTorrent, Map old,
+			final int[] fileIndexes) {
+		Object oFiles = mapUpdatedTorrent.get(TransmissionVars.FIELD_TORRENT_FILES);
+		// If the reply had no files, the old store was already copied over
+		if (!(oFiles instanceof List) || (oFiles instanceof TorrentFileStore)) {
+			return;
 		}
+		List<?> listUpdatedFiles = (List<?>) oFiles;
+
+		// Compact mode has an array per file instead of a map. All arrays
+		// are in the same order, and the keys are stored in "fileKeys"
+		// This saves a lot of bandwidth when you have 10k files.
+		List<?> fileKeys = MapUtils.getMapList(mapUpdatedTorrent, "fileKeys",
+				null);
+		List<?> listFileStats = MapUtils.getMapList(mapUpdatedTorrent,
+				TransmissionVars.FIELD_TORRENT_FILESTATS, null);
+		mapUpdatedTorrent.remove("fileKeys");
+		mapUpdatedTorrent.remove(TransmissionVars.FIELD_TORRENT_FILESTATS);
+
+		TorrentFileStore store = fileKeys != null && fileKeys.size() > 0
+				? TorrentFileStore.fromCompact(fileKeys, listUpdatedFiles,
+						listFileStats, fileIndexes)
+				: TorrentFileStore.fromMaps(listUpdatedFiles, listFileStats,
+						fileIndexes);
+
+		Object oOldFiles = old == null ? null
+				: old.get(TransmissionVars.FIELD_TORRENT_FILES);
+		if (oOldFiles instanceof TorrentFileStore) {
+			// Keep the old store, so adapters holding it see the update
+			TorrentFileStore oldStore = (TorrentFileStore) oOldFiles;
+			if (store != null) {
+				oldStore.merge(store);
+			}
+			mapUpdatedTorrent.put(TransmissionVars.FIELD_TORRENT_FILES, oldStore);
+		} else if (store != null) {
+			mapUpdatedTorrent.put(TransmissionVars.FIELD_TORRENT_FILES, store);
+		} else {
+			mapUpdatedTorrent.remove(TransmissionVars.FIELD_TORRENT_FILES);
+		}
+	}
 
+	/**
+	 * @return File list of a cached torrent, or null if we don't have it
+	 */
+	@Nullable
+	public TorrentFileStore getCachedFiles(long torrentID) {
+		synchronized (session.mLock) {
+			Map<?, ?> map = mapOriginal.get(torrentID, null);
+			Object o = map == null ? null
+					: map.get(TransmissionVars.FIELD_TORRENT_FILES);
+			if (!(o instanceof TorrentFileStore)) {
+				return null;
+			}
+			// touch, for LRU order
+			filesLRU.get(torrentID);
+			return (TorrentFileStore) o;
+		}
 	}
 
 	public boolean addListReceivedListener(String callID,
@@ -409,36 +486,106 @@ public class Session_Torrent
 
 		synchronized (session.mLock) {
 			mapOriginal.clear();
+			filesLRU.clear();
+			session.tag.clearIndex();
 			needsFullTorrentRefresh = true;
+			listStale = false;
 		}
 	}
 
-	public int clearFilesCaches(boolean keepLastUsedTorrentFiles) {
-		session.ensureNotDestroyed();
-
-		int num = 0;
+	/**
+	 * @return Rough heap use of the torrent maps, excluding file lists
+	 */
+	long estimateTorrentBytes() {
+		long bytes = 0;
 		synchronized (session.mLock) {
-			int size = mapOriginal.size();
-			if (size == 0) {
-				return num;
+			for (int i = 0, num = mapOriginal.size(); i < num; i++) {
+				bytes += estimateMapBytes(mapOriginal.valueAt(i));
 			}
-			for (int i = size - 1; i >= 0; i--) {
-				long torrentID = mapOriginal.keyAt(i);
-				if (keepLastUsedTorrentFiles && lastTorrentWithFiles == torrentID) {
-					continue;
+		}
+		return bytes;
+	}
+
+	private static long estimateMapBytes(Map<?, ?> map) {
+		long bytes = 48;
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			if (TransmissionVars.FIELD_TORRENT_FILES.equals(entry.getKey())) {
+				continue;
+			}
+			bytes += 32;
+			Object value = entry.getValue();
+			if (value instanceof String) {
+				bytes += 40 + 2L * ((String) value).length();
+			} else if (value instanceof Map) {
+				bytes += estimateMapBytes((Map<?, ?>) value);
+			} else if (value instanceof List) {
+				bytes += 24 + 16L * ((List<?>) value).size();
+			} else if (value != null) {
+				bytes += 16;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return Rough heap use of the cached file lists
+	 */
+	long estimateFilesBytes() {
+		long bytes = 0;
+		synchronized (session.mLock) {
+			for (Long torrentID : filesLRU.keySet()) {
+				TorrentFileStore store = getFileStore(torrentID);
+				if (store != null) {
+					bytes += store.estimateBytes();
 				}
-				Map<?, ?> map = mapOriginal.valueAt(i);
-				if (map.containsKey(TransmissionVars.FIELD_TORRENT_FILES)) {
-					map.remove(TransmissionVars.FIELD_TORRENT_FILES);
-					num++;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Drop least recently used file lists until they use no more than
+	 * targetBytes.  Unless targetBytes is 0, the most recently used file list
+	 * is kept, so a list bigger than the budget isn't dropped (and fetched
+	 * again) right after it arrives.
+	 *
+	 * @return Bytes still used
+	 */
+	long trimFilesToBytes(long targetBytes) {
+		synchronized (session.mLock) {
+			long bytes = estimateFilesBytes();
+			int keep = targetBytes > 0 ? 1 : 0;
+			Iterator<Long> iter = filesLRU.keySet().iterator();
+			while (bytes > targetBytes && filesLRU.size() > keep
+					&& iter.hasNext()) {
+				long torrentID = iter.next();
+				iter.remove();
+				TorrentFileStore store = getFileStore(torrentID);
+				if (store != null) {
+					bytes -= store.estimateBytes();
+					mapOriginal.get(torrentID).remove(
+							TransmissionVars.FIELD_TORRENT_FILES);
 				}
 			}
+			return bytes;
 		}
-		return num;
+	}
+
+	/**
+	 * Like {@link #getCachedFiles(long)}, without touching LRU order.
+	 * Caller holds session.mLock
+	 */
+	@Nullable
+	private TorrentFileStore getFileStore(long torrentID) {
+		Map<?, ?> map = mapOriginal.get(torrentID, null);
+		Object o = map == null ? null
+				: map.get(TransmissionVars.FIELD_TORRENT_FILES);
+		return (o instanceof TorrentFileStore) ? (TorrentFileStore) o : null;
 	}
 
 	public void destroy() {
 		refreshingListeners.clear();
+		changedListeners.clear();
 		lastListReceivedOn = 0;
 	}
 
@@ -446,6 +593,116 @@ public class Session_Torrent
 		return lastListReceivedOn;
 	}
 
+	/**
+	 * @return true if the torrent list was restored from the snapshot, and no
+	 * full torrent list has been received from the remote client yet
+	 */
+	public boolean isListStale() {
+		return listStale;
+	}
+
+	/**
+	 * Put torrents from a snapshot into the cache.  Does nothing if torrents
+	 * have already been received from the remote client.
+	 *
+	 * @param savedOn When the snapshot was last written.  Used as the "last
+	 *                updated" time until a live list arrives
+	 */
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	@WorkerThread
+	void restoreFromSnapshot(@NonNull List<Map> torrents, long savedOn) {
+		if (session.isDestroyed()) {
+			return;
+		}
+		TorrentListChangeSet changeSet = new TorrentListChangeSet(
+				TorrentListSnapshot.CALLID_RESTORE);
+		List<Map> restored = new ArrayList<>(torrents.size());
+		synchronized (session.mLock) {
+			if (lastListReceivedOn > 0 || mapOriginal.size() > 0) {
+				return;
+			}
+			for (Map map : torrents) {
+				Object key = map.get(TransmissionVars.FIELD_TORRENT_ID);
+				if (!(key instanceof Number)) {
+					continue;
+				}
+				long torrentID = ((Number) key).longValue();
+				map.put(TransmissionVars.FIELD_LAST_UPDATED, savedOn);
+				mapOriginal.put(torrentID, map);
+				session.tag.indexTorrent(torrentID, map);
+				changeSet.addAdded(torrentID);
+				restored.add(map);
+			}
+			if (restored.size() == 0) {
+				return;
+			}
+			listStale = true;
+			lastListReceivedOn = savedOn;
+		}
+
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "Restored " + restored.size() + " torrents from snapshot");
+		}
+
+		for (TorrentListReceivedListener l : receivedListeners) {
+			l.rpcTorrentListReceived(TorrentListSnapshot.CALLID_RESTORE, restored,
+					null, null, null);
+		}
+
+		changeSet.done();
+		for (TorrentListChangedListener l : changedListeners) {
+			l.torrentListChanged(changeSet);
+		}
+	}
+
+	/**
+	 * Remove torrents that were restored from the snapshot, but are not in the
+	 * full torrent list received from the remote client.  Clears the stale
+	 * flag.
+	 *
+	 * @param fullList Complete, non-fake, torrent list
+	 */
+	@SuppressWarnings("rawtypes")
+	void reconcileWithFullList(String callID, @NonNull List<?> fullList) {
+		if (!listStale) {
+			return;
+		}
+		Set<Long> liveIDs = new HashSet<>(fullList.size());
+		for (Object item : fullList) {
+			if (!(item instanceof Map)) {
+				continue;
+			}
+			Object key = ((Map) item).get(TransmissionVars.FIELD_TORRENT_ID);
+			if (key instanceof Number) {
+				liveIDs.add(((Number) key).longValue());
+			}
+		}
+
+		List<Long> removedIDs = new ArrayList<>();
+		synchronized (session.mLock) {
+			for (int i = 0, num = mapOriginal.size(); i < num; i++) {
+				long torrentID = mapOriginal.keyAt(i);
+				if (!liveIDs.contains(torrentID)) {
+					removedIDs.add(torrentID);
+				}
+			}
+			listStale = false;
+		}
+
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "reconcileWithFullList: " + removedIDs.size()
+					+ " snapshot torrents no longer exist");
+		}
+
+		if (removedIDs.size() > 0) {
+			addRemoveTorrents(callID, Collections.emptyList(), null, null,
+					removedIDs);
+		}
+	}
+
 	public Map<String, Object> getCachedTorrent(long id) {
 		synchronized (session.mLock) {
 			//noinspection unchecked
@@ -456,6 +713,8 @@ public class Session_Torrent
 	public void clearTorrentFromCache(long id) {
 		synchronized (session.mLock) {
 			mapOriginal.remove(id);
+			filesLRU.remove(id);
+			session.tag.unindexTorrent(id);
 		}
 	}
 
@@ -667,6 +926,35 @@ public class Session_Torrent
 		session._executeRpc(rpc -> rpc.removeTorrent(ids, deleteData, listener));
 	}
 
+	/**
+	 * Listen for field level changes to the torrent cache.  Unlike
+	 * {@link #addListReceivedListener(String, TorrentListReceivedListener)},
+	 * the current list is not fired to the new listener.
+	 */
+	public boolean addListChangedListener(TorrentListChangedListener l) {
+		session.ensureNotDestroyed();
+
+		synchronized (changedListeners) {
+			if (changedListeners.contains(l)) {
+				return false;
+			}
+			if (DEBUG_LISTENERS) {
+				Log.d(TAG, "addListChangedListener " + l);
+			}
+			changedListeners.add(l);
+		}
+		return true;
+	}
+
+	public void removeListChangedListener(TorrentListChangedListener l) {
+		synchronized (changedListeners) {
+			if (DEBUG_LISTENERS) {
+				Log.d(TAG, "removeListChangedListener " + l);
+			}
+			changedListeners.remove(l);
+		}
+	}
+
 	public void removeListReceivedListener(TorrentListReceivedListener l) {
 		synchronized (receivedListeners) {
 			if (DEBUG_LISTENERS) {
@@ -851,39 +1139,6 @@ public class Session_Torrent
 		"rawtypes",
 		"unchecked"
 	})
-	private static void mergeList(String key, Map mapTorrent, Map mapTorrentOld) {
-		// listUpdatedFiles: mapTorrent[key]. values are Map
-		// listNewFiles: copy of mapTorrentOld[key].  values are Map
-		// walk through listUpdatedFiles, putting all map values into corresponding listNewFiles map,
-		// thus maintaining Map object accross merges
-		List listOldFiles = MapUtils.getMapList(mapTorrentOld, key, null);
-		if (listOldFiles != null) {
-			// files: merge special case
-			List listUpdatedFiles = MapUtils.getMapList(mapTorrent, key, null);
-			if (listUpdatedFiles != null) {
-				List listNewFiles = new ArrayList(listOldFiles);
-				for (Object oUpdatedFile : listUpdatedFiles) {
-					if (!(oUpdatedFile instanceof Map)) {
-						continue;
-					}
-					Map mapUpdatedFile = (Map) oUpdatedFile;
-					int index = MapUtils.getMapInt(mapUpdatedFile,
-							TransmissionVars.FIELD_FILES_INDEX, -1);
-					if (index < 0 || index >= listNewFiles.size()) {
-						continue;
-					}
-					Map mapNewFile = (Map) listNewFiles.get(index);
-					synchronized (mapUpdatedFile) {
-						for (Object fileKey : mapUpdatedFile.keySet()) {
-							mapNewFile.put(fileKey, mapUpdatedFile.get(fileKey));
-						}
-					}
-				}
-				mapTorrent.put(key, listNewFiles);
-			}
-		}
-	}
-
 	public void stopTorrents(@Nullable final long[] ids) {
 		session._executeRpc(rpc -> rpc.stopTorrents(TAG, ids, null));
 	}
@@ -0,0 +1,682 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import java.util.*;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.TorrentUtils;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.util.Thunk;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * File list of one torrent, stored in columns of primitive arrays instead of
+ * one Map per file.
+ * <p>
+ * Each file's name is split into its folder and its short name.  Folders are
+ * shared between all files in them, so a torrent with 50k files in a few
+ * folders only stores each folder path once.
+ * <p>
+ * Still a {@link List} of file Maps, so code that reads
+ * {@link TransmissionVars#FIELD_TORRENT_FILES} as a list keeps working.
+ * {@link #get(int)} returns a lightweight view backed by the store; writing
+ * to it writes to the store.  Code that walks many files should use the typed
+ * accessors (ie. {@link #getLength(int)}, {@link #isWanted(int)}) instead.
+ * <p>
+ * Positions and file indexes are the same, except for stores holding a
+ * partial update (see {@link #getFileIndex(int)}).
+ */
+public class TorrentFileStore
+	extends AbstractList<Map<String, Object>>
+	implements RandomAccess
+{
+	private static final String TAG = "TorrentFileStore";
+
+	private static final String FIELD_HC = "hc";
+
+	/**
+	 * The hack to remove .dnd_az! path.
+	 * The proper way to do this would be to get the "dnd" directory
+	 * name from RPC, or have the RPC not include the "dnd" part of the
+	 * path.  The latter would be preferable.
+	 */
+	private static final String DND_FOLDER = ".dnd_az!";
+
+	private static final int COL_LENGTH = 1;
+
+	private static final int COL_BYTES_COMPLETED = 1 << 1;
+
+	private static final int COL_PRIORITY = 1 << 2;
+
+	private static final int COL_WANTED = 1 << 3;
+
+	private static final int COL_NAME = 1 << 4;
+
+	private static final int COL_HC = 1 << 5;
+
+	private final int numFiles;
+
+	/** Columns that have been filled in for at least one file */
+	private int columns;
+
+	/** File index of each position, or null when they are the same */
+	@Nullable
+	private int[] indexes;
+
+	@NonNull
+	private final long[] lengths;
+
+	@NonNull
+	private final long[] bytesCompleted;
+
+	@NonNull
+	private final byte[] priorities;
+
+	@NonNull
+	private final boolean[] wanted;
+
+	@Nullable
+	private long[] hcs;
+
+	@NonNull
+	private final int[] folderIDs;
+
+	@NonNull
+	private final String[] shortNames;
+
+	/** Folder paths, with trailing slash.  Folder 0 is root ("") */
+	private final List<String> folders = new ArrayList<>();
+
+	private final Map<String, Integer> mapFolderIDs = new HashMap<>();
+
+	/**
+	 * Values of keys that don't have their own column (ie. "fullPath",
+	 * "contentURL"), or that weren't the expected type.  Only allocated for
+	 * positions that have some.
+	 */
+	@Nullable
+	private Map<String, Object>[] extras;
+
+	/** Built on first use, thrown away when a file is renamed */
+	@Nullable
+	private volatile TorrentFolderTree folderTree;
+
+	private TorrentFileStore(int numFiles) {
+		this.numFiles = numFiles;
+		lengths = new long[numFiles];
+		bytesCompleted = new long[numFiles];
+		priorities = new byte[numFiles];
+		wanted = new boolean[numFiles];
+		Arrays.fill(wanted, true);
+		folderIDs = new int[numFiles];
+		shortNames = new String[numFiles];
+		folders.add("");
+		mapFolderIDs.put("", 0);
+	}
+
+	/**
+	 * Build from the compact format, where each file is a list of values, and
+	 * the keys for all of them are in "fileKeys".
+	 *
+	 * @param fileStats   Optional list of Maps, one per file, to merge in
+	 * @param fileIndexes File indexes of the files, when the reply only holds
+	 *                    some of them
+	 * @return null if a file doesn't have the same number of values as there
+	 * are keys
+	 */
+	@Nullable
+	static TorrentFileStore fromCompact(@NonNull List<?> fileKeys,
+			@NonNull List<?> files, @Nullable List<?> fileStats,
+			@Nullable int[] fileIndexes) {
+		int numKeys = fileKeys.size();
+		String[] keys = new String[numKeys];
+		for (int j = 0; j < numKeys; j++) {
+			keys[j] = String.valueOf(fileKeys.get(j));
+		}
+
+		int numFiles = files.size();
+		TorrentFileStore store = new TorrentFileStore(numFiles);
+		for (int i = 0; i < numFiles; i++) {
+			Object o = files.get(i);
+			if (!(o instanceof List) || ((List) o).size() != numKeys) {
+				Log.e(TAG, "fromCompact: fileKeys size mismatch keys= "
+						+ Arrays.toString(keys) + ", fileNoKeys=" + o);
+				return null;
+			}
+			List<?> values = (List<?>) o;
+			for (int j = 0; j < numKeys; j++) {
+				store.setValue(i, keys[j], values.get(j));
+			}
+		}
+		store.finishBuild(fileStats, fileIndexes);
+		return store;
+	}
+
+	/**
+	 * Build from the non-compact format, where each file is a Map.
+	 *
+	 * @param fileStats   Optional list of Maps, one per file, to merge in
+	 * @param fileIndexes File indexes of the files, when the reply only holds
+	 *                    some of them
+	 */
+	@NonNull
+	static TorrentFileStore fromMaps(@NonNull List<?> files,
+			@Nullable List<?> fileStats, @Nullable int[] fileIndexes) {
+		int numFiles = files.size();
+		TorrentFileStore store = new TorrentFileStore(numFiles);
+		for (int i = 0; i < numFiles; i++) {
+			store.setValues(i, files.get(i));
+		}
+		store.finishBuild(fileStats, fileIndexes);
+		return store;
+	}
+
+	private void setValues(int position, Object map) {
+		if (!(map instanceof Map)) {
+			return;
+		}
+		for (Map.Entry<?, ?> entry : ((Map<?, ?>) map).entrySet()) {
+			setValue(position, String.valueOf(entry.getKey()), entry.getValue());
+		}
+	}
+
+	private void finishBuild(@Nullable List<?> fileStats,
+			@Nullable int[] fileIndexes) {
+		if (fileStats != null) {
+			int num = Math.min(fileStats.size(), numFiles);
+			for (int i = 0; i < num; i++) {
+				setValues(i, fileStats.get(i));
+			}
+		}
+
+		// Files that came with an "index" already have one
+		if (indexes == null && fileIndexes != null) {
+			int[] newIndexes = new int[numFiles];
+			for (int i = 0; i < numFiles; i++) {
+				newIndexes[i] = i < fileIndexes.length ? fileIndexes[i] : i;
+			}
+			indexes = newIndexes;
+		}
+	}
+
+	/**
+	 * Copy all values in update to the files with the same file index.
+	 * Files outside of this store are skipped.
+	 */
+	void merge(@NonNull TorrentFileStore update) {
+		int updateColumns = update.columns;
+		for (int j = 0; j < update.numFiles; j++) {
+			int position = update.getFileIndex(j);
+			if (position < 0 || position >= numFiles) {
+				continue;
+			}
+			setLengthAndWanted(position,
+					(updateColumns & COL_LENGTH) != 0 ? update.lengths[j]
+							: lengths[position],
+					(updateColumns & COL_WANTED) != 0 ? update.wanted[j]
+							: wanted[position]);
+			if ((updateColumns & COL_BYTES_COMPLETED) != 0) {
+				bytesCompleted[position] = update.bytesCompleted[j];
+			}
+			if ((updateColumns & COL_PRIORITY) != 0) {
+				priorities[position] = update.priorities[j];
+			}
+			if ((updateColumns & COL_NAME) != 0) {
+				int folderID = getFolderID(update.getFolder(j));
+				if (folderID != folderIDs[position]) {
+					folderIDs[position] = folderID;
+					folderTree = null;
+				}
+				shortNames[position] = update.shortNames[j];
+			}
+			if ((updateColumns & COL_HC) != 0 && update.hcs != null) {
+				setHC(position, update.hcs[j]);
+			}
+			Map<String, Object>[] updateExtras = update.extras;
+			if (updateExtras != null && updateExtras[j] != null) {
+				for (Map.Entry<String, Object> entry : updateExtras[j].entrySet()) {
+					putExtra(position, entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		columns |= updateColumns;
+	}
+
+	/**
+	 * Store a value the way it would be put into a file Map.
+	 */
+	void setValue(int position, @NonNull String key, @Nullable Object value) {
+		if (value == null) {
+			removeExtra(position, key);
+			return;
+		}
+		switch (key) {
+			case TransmissionVars.FIELD_FILES_LENGTH:
+				if (value instanceof Number) {
+					setLengthAndWanted(position, ((Number) value).longValue(),
+							wanted[position]);
+					columns |= COL_LENGTH;
+					return;
+				}
+				break;
+			case TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED:
+				if (value instanceof Number) {
+					bytesCompleted[position] = ((Number) value).longValue();
+					columns |= COL_BYTES_COMPLETED;
+					return;
+				}
+				break;
+			case TransmissionVars.FIELD_FILESTATS_PRIORITY:
+				if (value instanceof Number) {
+					priorities[position] = ((Number) value).byteValue();
+					columns |= COL_PRIORITY;
+					return;
+				}
+				break;
+			case TransmissionVars.FIELD_FILESTATS_WANTED:
+				if (value instanceof Boolean) {
+					setWanted(position, (Boolean) value);
+					return;
+				}
+				if (value instanceof Number) {
+					setWanted(position, ((Number) value).longValue() == 1);
+					return;
+				}
+				break;
+			case TransmissionVars.FIELD_FILES_NAME:
+				if (value instanceof String) {
+					setName(position, (String) value);
+					return;
+				}
+				break;
+			case TransmissionVars.FIELD_FILES_INDEX:
+				if (value instanceof Number) {
+					int index = ((Number) value).intValue();
+					if (indexes == null) {
+						if (index == position) {
+							return;
+						}
+						int[] newIndexes = new int[numFiles];
+						for (int i = 0; i < numFiles; i++) {
+							newIndexes[i] = i;
+						}
+						indexes = newIndexes;
+					}
+					indexes[position] = index;
+					return;
+				}
+				break;
+			case FIELD_HC:
+				if (value instanceof Number) {
+					setHC(position, ((Number) value).longValue());
+					return;
+				}
+				break;
+		}
+		putExtra(position, key, value);
+	}
+
+	private void setName(int position, @NonNull String name) {
+		int posDND = name.indexOf(DND_FOLDER);
+		if (posDND >= 0 && posDND + DND_FOLDER.length() < name.length()) {
+			name = name.substring(0, posDND)
+					+ name.substring(posDND + DND_FOLDER.length() + 1);
+		}
+
+		int folderBreaksAt = AndroidUtils.lastindexOfAny(name,
+				TorrentUtils.ANYSLASH, -1);
+		int folderID;
+		if (folderBreaksAt <= 0) {
+			folderID = 0;
+			shortNames[position] = name;
+		} else {
+			folderID = getFolderID(name.substring(0, folderBreaksAt + 1));
+			shortNames[position] = name.substring(folderBreaksAt + 1);
+		}
+		if (folderID != folderIDs[position]) {
+			folderIDs[position] = folderID;
+			folderTree = null;
+		}
+		columns |= COL_NAME;
+	}
+
+	/**
+	 * Update length and wanted together, so the folder tree sees one change
+	 */
+	private synchronized void setLengthAndWanted(int position, long length,
+			boolean want) {
+		long oldLength = lengths[position];
+		boolean oldWanted = wanted[position];
+		lengths[position] = length;
+		wanted[position] = want;
+		if (folderTree != null) {
+			folderTree.fileChanged(position, oldLength, oldWanted, length, want);
+		}
+	}
+
+	/**
+	 * @return Folder hierarchy with size and wanted totals.  Built on first
+	 * call; later calls return the same tree until a file moves to another
+	 * folder.
+	 */
+	@NonNull
+	public synchronized TorrentFolderTree getFolderTree() {
+		if (folderTree == null) {
+			synchronized (folders) {
+				folderTree = new TorrentFolderTree(folders, folderIDs, lengths,
+						wanted);
+			}
+		}
+		return folderTree;
+	}
+
+	/**
+	 * @return Rough heap use of this store, in bytes
+	 */
+	public long estimateBytes() {
+		// long, long, byte, boolean, int columns
+		long bytes = 22L * numFiles;
+		if (indexes != null) {
+			bytes += 4L * numFiles;
+		}
+		if (hcs != null) {
+			bytes += 8L * numFiles;
+		}
+		for (String name : shortNames) {
+			if (name != null) {
+				bytes += 40 + 2L * name.length();
+			}
+		}
+		synchronized (folders) {
+			for (String folder : folders) {
+				// string, plus its mapFolderIDs entry
+				bytes += 72 + 2L * folder.length();
+			}
+		}
+		Map<String, Object>[] extras = this.extras;
+		if (extras != null) {
+			bytes += 4L * numFiles;
+			for (Map<String, Object> map : extras) {
+				if (map != null) {
+					bytes += 48 + 64L * map.size();
+				}
+			}
+		}
+		return bytes;
+	}
+
+	private int getFolderID(@NonNull String folder) {
+		synchronized (folders) {
+			Integer id = mapFolderIDs.get(folder);
+			if (id == null) {
+				id = folders.size();
+				folders.add(folder);
+				mapFolderIDs.put(folder, id);
+			}
+			return id;
+		}
+	}
+
+	private void setHC(int position, long hc) {
+		if (hcs == null) {
+			hcs = new long[numFiles];
+		}
+		hcs[position] = hc;
+		columns |= COL_HC;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void putExtra(int position, @NonNull String key,
+			@Nullable Object value) {
+		if (extras == null) {
+			extras = new Map[numFiles];
+		}
+		Map<String, Object> map = extras[position];
+		if (map == null) {
+			map = new HashMap<>(4);
+			extras[position] = map;
+		}
+		map.put(key, value);
+	}
+
+	private void removeExtra(int position, @NonNull String key) {
+		if (extras != null && extras[position] != null) {
+			extras[position].remove(key);
+		}
+	}
+
+	@Override
+	public int size() {
+		return numFiles;
+	}
+
+	/**
+	 * @return View of the file at position, backed by this store
+	 */
+	@Override
+	public Map<String, Object> get(int position) {
+		if (position < 0 || position >= numFiles) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + position + ", Size: " + numFiles);
+		}
+		return new FileMap(position);
+	}
+
+	public int getFileIndex(int position) {
+		return indexes == null ? position : indexes[position];
+	}
+
+	/**
+	 * @return Full name, including folder.  Builds a new String when the file
+	 * is in a folder
+	 */
+	@NonNull
+	public String getName(int position) {
+		String shortName = getShortName(position);
+		int folderID = folderIDs[position];
+		return folderID == 0 ? shortName : getFolder(position) + shortName;
+	}
+
+	/**
+	 * @return Folder the file is in, with trailing slash, or "" for root.
+	 * Files in the same folder return the same String instance.
+	 */
+	@NonNull
+	public String getFolder(int position) {
+		synchronized (folders) {
+			return folders.get(folderIDs[position]);
+		}
+	}
+
+	/**
+	 * @return Name of the file without its folder
+	 */
+	@NonNull
+	public String getShortName(int position) {
+		String shortName = shortNames[position];
+		return shortName == null ? "" : shortName;
+	}
+
+	/**
+	 * @return File size, or 0 if not known
+	 */
+	public long getLength(int position) {
+		return lengths[position];
+	}
+
+	/**
+	 * @return Bytes completed, or 0 if not known
+	 */
+	public long getBytesCompleted(int position) {
+		return bytesCompleted[position];
+	}
+
+	/**
+	 * @return One of TransmissionVars.TR_PRI_*
+	 */
+	public int getPriority(int position) {
+		return priorities[position];
+	}
+
+	/**
+	 * @return Whether file is wanted.  true if not known
+	 */
+	public boolean isWanted(int position) {
+		return wanted[position];
+	}
+
+	public void setWanted(int position, boolean want) {
+		setLengthAndWanted(position, lengths[position], want);
+		columns |= COL_WANTED;
+	}
+
+	/**
+	 * @return "hc" value the remote gave us for the file, or null.  Sent back
+	 * so the remote can skip unchanged files.
+	 */
+	@Nullable
+	public Object getHC(int position) {
+		if ((columns & COL_HC) != 0 && hcs != null) {
+			return hcs[position];
+		}
+		return getExtra(position, FIELD_HC);
+	}
+
+	@Nullable
+	private Object getExtra(int position, Object key) {
+		if (extras == null || extras[position] == null) {
+			return null;
+		}
+		return extras[position].get(key);
+	}
+
+	@Nullable
+	@Thunk
+	Object getValue(int position, Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		switch ((String) key) {
+			case TransmissionVars.FIELD_FILES_LENGTH:
+				if ((columns & COL_LENGTH) != 0) {
+					return lengths[position];
+				}
+				break;
+			case TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED:
+				if ((columns & COL_BYTES_COMPLETED) != 0) {
+					return bytesCompleted[position];
+				}
+				break;
+			case TransmissionVars.FIELD_FILESTATS_PRIORITY:
+				if ((columns & COL_PRIORITY) != 0) {
+					return (long) priorities[position];
+				}
+				break;
+			case TransmissionVars.FIELD_FILESTATS_WANTED:
+				if ((columns & COL_WANTED) != 0) {
+					return wanted[position];
+				}
+				break;
+			case TransmissionVars.FIELD_FILES_NAME:
+				if ((columns & COL_NAME) != 0) {
+					return getName(position);
+				}
+				break;
+			case TransmissionVars.FIELD_FILES_INDEX:
+				return getFileIndex(position);
+			case FIELD_HC:
+				return getHC(position);
+		}
+		return getExtra(position, key);
+	}
+
+	/**
+	 * @return Copy of the file as a plain Map
+	 */
+	@NonNull
+	@Thunk
+	Map<String, Object> toMap(int position) {
+		Map<String, Object> map = new HashMap<>();
+		if ((columns & COL_LENGTH) != 0) {
+			map.put(TransmissionVars.FIELD_FILES_LENGTH, lengths[position]);
+		}
+		if ((columns & COL_BYTES_COMPLETED) != 0) {
+			map.put(TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED,
+					bytesCompleted[position]);
+		}
+		if ((columns & COL_PRIORITY) != 0) {
+			map.put(TransmissionVars.FIELD_FILESTATS_PRIORITY,
+					(long) priorities[position]);
+		}
+		if ((columns & COL_WANTED) != 0) {
+			map.put(TransmissionVars.FIELD_FILESTATS_WANTED, wanted[position]);
+		}
+		if ((columns & COL_NAME) != 0) {
+			map.put(TransmissionVars.FIELD_FILES_NAME, getName(position));
+		}
+		if ((columns & COL_HC) != 0 && hcs != null) {
+			map.put(FIELD_HC, hcs[position]);
+		}
+		map.put(TransmissionVars.FIELD_FILES_INDEX, getFileIndex(position));
+		if (extras != null && extras[position] != null) {
+			map.putAll(extras[position]);
+		}
+		return map;
+	}
+
+	/**
+	 * One file of the store, as a Map.  Reads and writes go to the store.
+	 * Iterating builds a copy, so changes made through the entry set are lost.
+	 */
+	private final class FileMap
+		extends AbstractMap<String, Object>
+	{
+		private final int position;
+
+		FileMap(int position) {
+			this.position = position;
+		}
+
+		@Override
+		public Object get(Object key) {
+			return getValue(position, key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return getValue(position, key) != null;
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			Object old = getValue(position, key);
+			setValue(position, key, value);
+			return old;
+		}
+
+		@NonNull
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return Collections.unmodifiableMap(toMap(position)).entrySet();
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Folder hierarchy of a {@link TorrentFileStore}, with the size and wanted
+ * totals of each folder (including subfolders).
+ * <p>
+ * Built once per store by {@link TorrentFileStore#getFolderTree()}.  When a
+ * file's length or wanted state changes, the change is added to the totals of
+ * its folder and all parents, so the tree never has to be walked again.
+ * Renaming a file throws the tree away; the next call builds a new one.
+ * <p>
+ * Folders are nodes, numbered so that a parent always comes before its
+ * children.  Node 0 is the root, and holds the files that aren't in a folder.
+ */
+public class TorrentFolderTree
+{
+	private static final Pattern patternFolderSplit = Pattern.compile("[\\\\/]");
+
+	public static final int ROOT = 0;
+
+	private final int numNodes;
+
+	/** Folder path including trailing slash */
+	private final String[] paths;
+
+	/** Path of the parent, excluding name */
+	private final String[] parentPaths;
+
+	private final String[] names;
+
+	private final int[] parents;
+
+	private final int[][] children;
+
+	/** File positions directly in the folder */
+	private final int[][] files;
+
+	/** Node of each file position */
+	private final int[] fileNodes;
+
+	private final long[] sizes;
+
+	private final long[] sizesWanted;
+
+	private final int[] numFiles;
+
+	private final int[] numFilesWanted;
+
+	private long maxLength;
+
+	/**
+	 * @param folders     Folder paths with trailing slash, by folder id.
+	 *                    Folder 0 is root
+	 * @param folderIDs   Folder id of each file
+	 */
+	TorrentFolderTree(@NonNull List<String> folders, @NonNull int[] folderIDs,
+			@NonNull long[] lengths, @NonNull boolean[] wanted) {
+		List<String> listPaths = new ArrayList<>();
+		List<String> listParentPaths = new ArrayList<>();
+		List<String> listNames = new ArrayList<>();
+		List<Integer> listParents = new ArrayList<>();
+		Map<String, Integer> mapNodes = new HashMap<>();
+
+		listPaths.add("");
+		listParentPaths.add("");
+		listNames.add("");
+		listParents.add(-1);
+		mapNodes.put("", ROOT);
+
+		int numFolders = folders.size();
+		int[] folderNodes = new int[numFolders];
+		for (int folderID = 1; folderID < numFolders; folderID++) {
+			String folderWithSlash = folders.get(folderID);
+			Integer existing = mapNodes.get(folderWithSlash);
+			if (existing != null) {
+				folderNodes[folderID] = existing;
+				continue;
+			}
+
+			// add folder and parents
+			String[] folderSplit = patternFolderSplit.split(folderWithSlash);
+			int startAt = folderSplit.length > 0 && folderSplit[0].length() == 0 ? 1
+					: 0;
+			int pos = startAt;
+			int last = ROOT;
+			for (int j = startAt; j < folderSplit.length; j++) {
+				int oldPos = pos;
+				pos += folderSplit[j].length() + 1;
+				String folderWalk = folderWithSlash.substring(0, pos);
+
+				existing = mapNodes.get(folderWalk);
+				if (existing == null) {
+					int node = listPaths.size();
+					listPaths.add(folderWalk);
+					listParentPaths.add(folderWithSlash.substring(0, oldPos));
+					listNames.add(folderSplit[j]);
+					listParents.add(last);
+					mapNodes.put(folderWalk, node);
+					last = node;
+				} else {
+					last = existing;
+				}
+			}
+			folderNodes[folderID] = last;
+		}
+
+		numNodes = listPaths.size();
+		paths = listPaths.toArray(new String[0]);
+		parentPaths = listParentPaths.toArray(new String[0]);
+		names = listNames.toArray(new String[0]);
+		parents = new int[numNodes];
+		for (int node = 0; node < numNodes; node++) {
+			parents[node] = listParents.get(node);
+		}
+
+		sizes = new long[numNodes];
+		sizesWanted = new long[numNodes];
+		numFiles = new int[numNodes];
+		numFilesWanted = new int[numNodes];
+
+		int numFilePositions = folderIDs.length;
+		fileNodes = new int[numFilePositions];
+		int[] numDirectFiles = new int[numNodes];
+		for (int i = 0; i < numFilePositions; i++) {
+			int node = folderNodes[folderIDs[i]];
+			fileNodes[i] = node;
+			numDirectFiles[node]++;
+			long length = lengths[i];
+			if (length > maxLength) {
+				maxLength = length;
+			}
+			addToTotals(node, length, wanted[i], 1);
+		}
+
+		files = new int[numNodes][];
+		for (int node = 0; node < numNodes; node++) {
+			files[node] = new int[numDirectFiles[node]];
+			numDirectFiles[node] = 0;
+		}
+		for (int i = 0; i < numFilePositions; i++) {
+			int node = fileNodes[i];
+			files[node][numDirectFiles[node]++] = i;
+		}
+
+		int[] numChildren = new int[numNodes];
+		for (int node = 1; node < numNodes; node++) {
+			numChildren[parents[node]]++;
+		}
+		children = new int[numNodes][];
+		for (int node = 0; node < numNodes; node++) {
+			children[node] = new int[numChildren[node]];
+			numChildren[node] = 0;
+		}
+		for (int node = 1; node < numNodes; node++) {
+			int parent = parents[node];
+			children[parent][numChildren[parent]++] = node;
+		}
+	}
+
+	private void addToTotals(int node, long length, boolean wanted, int sign) {
+		while (node >= 0) {
+			sizes[node] += sign * length;
+			numFiles[node] += sign;
+			if (wanted) {
+				sizesWanted[node] += sign * length;
+				numFilesWanted[node] += sign;
+			}
+			node = parents[node];
+		}
+	}
+
+	/**
+	 * Move a file's old values out of its folder totals, and add its new ones.
+	 */
+	void fileChanged(int position, long oldLength, boolean oldWanted,
+			long newLength, boolean newWanted) {
+		if (oldLength == newLength && oldWanted == newWanted) {
+			return;
+		}
+		int node = fileNodes[position];
+		addToTotals(node, oldLength, oldWanted, -1);
+		addToTotals(node, newLength, newWanted, 1);
+		if (newLength > maxLength) {
+			maxLength = newLength;
+		}
+	}
+
+	public int getNodeCount() {
+		return numNodes;
+	}
+
+	/**
+	 * @return Parent node, or -1 for {@link #ROOT}
+	 */
+	public int getParent(int node) {
+		return parents[node];
+	}
+
+	/**
+	 * @return Folder path, with trailing slash
+	 */
+	@NonNull
+	public String getPath(int node) {
+		return paths[node];
+	}
+
+	/**
+	 * @return Path of the parent folder, with trailing slash
+	 */
+	@NonNull
+	public String getParentPath(int node) {
+		return parentPaths[node];
+	}
+
+	@NonNull
+	public String getName(int node) {
+		return names[node];
+	}
+
+	/**
+	 * @return Node of the folder a file is directly in
+	 */
+	public int getNode(int position) {
+		return fileNodes[position];
+	}
+
+	/**
+	 * @return File positions directly in the folder.  Do not modify.
+	 */
+	@NonNull
+	public int[] getFiles(int node) {
+		return files[node];
+	}
+
+	/**
+	 * @return File positions in the folder and all its subfolders
+	 */
+	@NonNull
+	public int[] getAllFiles(int node) {
+		int[] result = new int[numFiles[node]];
+		int count = collectFiles(node, result, 0);
+		return count == result.length ? result : Arrays.copyOf(result, count);
+	}
+
+	private int collectFiles(int node, int[] result, int count) {
+		int[] direct = files[node];
+		int num = Math.min(direct.length, result.length - count);
+		System.arraycopy(direct, 0, result, count, num);
+		count += num;
+		for (int child : children[node]) {
+			count = collectFiles(child, result, count);
+		}
+		return count;
+	}
+
+	/** Total size of files in folder and its subfolders */
+	public long getSize(int node) {
+		return sizes[node];
+	}
+
+	public long getSizeWanted(int node) {
+		return sizesWanted[node];
+	}
+
+	public int getNumFiles(int node) {
+		return numFiles[node];
+	}
+
+	public int getNumFilesWanted(int node) {
+		return numFilesWanted[node];
+	}
+
+	/**
+	 * @return Largest file length ever seen in the store
+	 */
+	public long getMaxLength() {
+		return maxLength;
+	}
+}
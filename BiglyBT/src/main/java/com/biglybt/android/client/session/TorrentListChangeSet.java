@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import java.util.*;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LongSparseArray;
+
+/**
+ * What changed in the torrent cache after one torrent list was merged in by
+ * {@link Session_Torrent}.
+ * <p>
+ * "Added" torrents weren't in the cache before, "removed" torrents no longer
+ * are.  For every other torrent in the reply, only the fields whose value
+ * differs from the cached value are recorded.  Torrents that came back
+ * unchanged are not in the change set at all.
+ * <p>
+ * Immutable once delivered to {@link TorrentListChangedListener}s.
+ */
+public class TorrentListChangeSet
+{
+	private static final long[] EMPTY_IDS = new long[0];
+
+	private final String callID;
+
+	private long[] addedIDs = EMPTY_IDS;
+
+	private int numAdded;
+
+	private long[] removedIDs = EMPTY_IDS;
+
+	private int numRemoved;
+
+	private final LongSparseArray<Set<String>> changedFieldsByID = new LongSparseArray<>();
+
+	private final Set<String> allChangedFields = new HashSet<>();
+
+	TorrentListChangeSet(String callID) {
+		this.callID = callID;
+	}
+
+	void addAdded(long torrentID) {
+		if (numAdded == addedIDs.length) {
+			addedIDs = Arrays.copyOf(addedIDs, Math.max(8, numAdded * 2));
+		}
+		addedIDs[numAdded++] = torrentID;
+	}
+
+	void addRemoved(long torrentID) {
+		if (numRemoved == removedIDs.length) {
+			removedIDs = Arrays.copyOf(removedIDs, Math.max(4, numRemoved * 2));
+		}
+		removedIDs[numRemoved++] = torrentID;
+	}
+
+	void addChangedField(long torrentID, String field) {
+		Set<String> fields = changedFieldsByID.get(torrentID);
+		if (fields == null) {
+			fields = new HashSet<>();
+			changedFieldsByID.put(torrentID, fields);
+		}
+		fields.add(field);
+		allChangedFields.add(field);
+	}
+
+	/**
+	 * Trim internal arrays.  Called once the merge is done.
+	 */
+	void done() {
+		if (addedIDs.length != numAdded) {
+			addedIDs = Arrays.copyOf(addedIDs, numAdded);
+		}
+		if (removedIDs.length != numRemoved) {
+			removedIDs = Arrays.copyOf(removedIDs, numRemoved);
+		}
+	}
+
+	public String getCallID() {
+		return callID;
+	}
+
+	/**
+	 * @return true if nothing in the cache changed
+	 */
+	public boolean isEmpty() {
+		return numAdded == 0 && numRemoved == 0 && changedFieldsByID.size() == 0;
+	}
+
+	public boolean hasAddedOrRemoved() {
+		return numAdded > 0 || numRemoved > 0;
+	}
+
+	/**
+	 * @return IDs of torrents that weren't in the cache before
+	 */
+	@NonNull
+	public long[] getAddedIDs() {
+		return addedIDs;
+	}
+
+	/**
+	 * @return IDs of torrents that were removed from the cache
+	 */
+	@NonNull
+	public long[] getRemovedIDs() {
+		return removedIDs;
+	}
+
+	public boolean wasAdded(long torrentID) {
+		return contains(addedIDs, numAdded, torrentID);
+	}
+
+	public boolean wasRemoved(long torrentID) {
+		return contains(removedIDs, numRemoved, torrentID);
+	}
+
+	/**
+	 * @return IDs of torrents that were already cached and had at least one
+	 * field change.  Does not include added or removed torrents.
+	 */
+	@NonNull
+	public long[] getChangedIDs() {
+		int size = changedFieldsByID.size();
+		long[] ids = new long[size];
+		for (int i = 0; i < size; i++) {
+			ids[i] = changedFieldsByID.keyAt(i);
+		}
+		return ids;
+	}
+
+	/**
+	 * @return Fields that changed for torrent, or null if the torrent wasn't
+	 * changed (or was added or removed)
+	 */
+	@Nullable
+	public Set<String> getChangedFields(long torrentID) {
+		Set<String> fields = changedFieldsByID.get(torrentID);
+		return fields == null ? null : Collections.unmodifiableSet(fields);
+	}
+
+	/**
+	 * @return Fields that changed on at least one torrent
+	 */
+	@NonNull
+	public Set<String> getAllChangedFields() {
+		return Collections.unmodifiableSet(allChangedFields);
+	}
+
+	/**
+	 * @return true if torrent was added, removed, or had any field change
+	 */
+	public boolean isTorrentAffected(long torrentID) {
+		return changedFieldsByID.get(torrentID) != null || wasAdded(torrentID)
+				|| wasRemoved(torrentID);
+	}
+
+	/**
+	 * @return true if any of the fields changed on any torrent
+	 */
+	public boolean anyFieldChanged(@NonNull Collection<String> fields) {
+		for (String field : fields) {
+			if (allChangedFields.contains(field)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if any of the fields changed on torrent
+	 */
+	public boolean anyFieldChanged(long torrentID, String... fields) {
+		Set<String> changedFields = changedFieldsByID.get(torrentID);
+		if (changedFields == null) {
+			return false;
+		}
+		for (String field : fields) {
+			if (changedFields.contains(field)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean contains(long[] ids, int num, long id) {
+		for (int i = 0; i < num; i++) {
+			if (ids[i] == id) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "TorrentListChangeSet{" + callID + ", added=" + numAdded
+				+ ", removed=" + numRemoved + ", changed=" + changedFieldsByID.size()
+				+ ", fields=" + allChangedFields + "}";
+	}
+}
@@ -0,0 +1,868 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+import com.biglybt.android.client.AndroidUtils;
+import com.biglybt.android.client.BiglyBTApp;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.client.rpc.TagListReceivedListener;
+import com.biglybt.util.Thunk;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.collection.LongSparseArray;
+
+/**
+ * Keeps a copy of a {@link Session}'s torrent list and tag list on disk, so
+ * the next session for the same {@link RemoteProfile} can show the list
+ * before the remote client has replied.
+ * <p>
+ * Stored as a snapshot file plus an append-only journal.  Changes reported by
+ * {@link TorrentListChangedListener} are batched and appended to the journal
+ * in the background.  When the journal grows larger than the snapshot, both
+ * are compacted into a new snapshot.
+ * <p>
+ * File list fields are not stored.  They can be huge, and are fetched when
+ * needed anyway.
+ */
+public class TorrentListSnapshot
+	implements TorrentListChangedListener, TagListReceivedListener
+{
+	private static final String TAG = "TorrentListSnapshot";
+
+	static final String CALLID_RESTORE = "snapshot";
+
+	private static final String DIR_NAME = "torrentlist";
+
+	private static final int MAGIC_SNAPSHOT = 0x42544C53;
+
+	private static final int MAGIC_JOURNAL = 0x42544C4A;
+
+	private static final byte VERSION = 1;
+
+	private static final byte RECORD_PUT_TORRENTS = 1;
+
+	private static final byte RECORD_REMOVE_TORRENTS = 2;
+
+	private static final byte RECORD_TAGS = 3;
+
+	private static final byte VALUE_NULL = 0;
+
+	private static final byte VALUE_TRUE = 1;
+
+	private static final byte VALUE_FALSE = 2;
+
+	private static final byte VALUE_LONG = 3;
+
+	private static final byte VALUE_DOUBLE = 4;
+
+	private static final byte VALUE_STRING = 5;
+
+	private static final byte VALUE_LIST = 6;
+
+	private static final byte VALUE_MAP = 7;
+
+	/** Changes are batched for this long before being written */
+	private static final long FLUSH_DELAY_MS = 5000;
+
+	/** Journal can always grow to this size before compacting */
+	private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final ScheduledExecutorService ioExecutor = Executors.newSingleThreadScheduledExecutor(
+			r -> {
+				Thread thread = new Thread(r, TAG);
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	@Thunk
+	final Session session;
+
+	private final File snapshotFile;
+
+	private final File journalFile;
+
+	private final Object lock = new Object();
+
+	/**
+	 * Torrent ids waiting to be written.  true to put, false to remove.
+	 * Guarded by {@link #lock}
+	 */
+	private final LongSparseArray<Boolean> pendingIDs = new LongSparseArray<>();
+
+	private boolean pendingTags;
+
+	private boolean flushScheduled;
+
+	private boolean destroyed;
+
+	// Following are only accessed on ioExecutor
+
+	private long generation;
+
+	private long snapshotLength;
+
+	private long journalLength;
+
+	/** false if journal can't be appended to, and must be compacted first */
+	private boolean journalValid;
+
+	private static class Contents
+	{
+		long generation;
+
+		long savedOn;
+
+		final LinkedHashMap<Long, Map> torrents = new LinkedHashMap<>();
+
+		@Nullable
+		List<Map> tags;
+
+		boolean journalValid = true;
+
+		long snapshotLength;
+
+		long journalLength;
+	}
+
+	private static class Batch
+	{
+		final List<Map> puts = new ArrayList<>();
+
+		final List<Long> removes = new ArrayList<>();
+
+		@Nullable
+		List<Map> tags;
+	}
+
+	TorrentListSnapshot(@NonNull Session session) {
+		this.session = session;
+		File dir = getDir();
+		String name = toFileName(session.getRemoteProfile().getID());
+		snapshotFile = new File(dir, name + ".snapshot");
+		journalFile = new File(dir, name + ".journal");
+	}
+
+	@NonNull
+	private static File getDir() {
+		return new File(BiglyBTApp.getContext().getFilesDir(), DIR_NAME);
+	}
+
+	@NonNull
+	private static String toFileName(String profileID) {
+		return String.valueOf(profileID).replaceAll("[^a-zA-Z0-9_-]", "_");
+	}
+
+	/**
+	 * Load the snapshot in the background, put it into the session's caches,
+	 * and start recording changes.
+	 */
+	void restore() {
+		session.torrent.addListChangedListener(this);
+		ioExecutor.execute(() -> {
+			Contents contents = read();
+			generation = contents.generation;
+			snapshotLength = contents.snapshotLength;
+			journalLength = contents.journalLength;
+			journalValid = contents.journalValid;
+
+			if (session.isDestroyed()) {
+				return;
+			}
+
+			if (contents.tags != null) {
+				session.tag.restoreFromSnapshot(contents.tags);
+			}
+			if (contents.torrents.size() > 0) {
+				session.torrent.restoreFromSnapshot(
+						new ArrayList<>(contents.torrents.values()), contents.savedOn);
+			}
+
+			session.tag.addTagListReceivedListener(this);
+
+			if (!journalValid) {
+				scheduleFlush(0);
+			}
+		});
+	}
+
+	/**
+	 * Write pending changes and stop recording.  Must be called before the
+	 * session's torrent cache is cleared.
+	 */
+	void destroy() {
+		session.torrent.removeListChangedListener(this);
+		session.tag.removeTagListReceivedListener(this);
+		Batch batch = collectPending();
+		synchronized (lock) {
+			destroyed = true;
+		}
+		if (batch != null) {
+			ioExecutor.execute(() -> write(batch));
+		}
+	}
+
+	/**
+	 * Delete the stored snapshot of a profile
+	 */
+	public static void delete(String profileID) {
+		ioExecutor.execute(() -> {
+			String name = toFileName(profileID);
+			File dir = getDir();
+			//noinspection ResultOfMethodCallIgnored
+			new File(dir, name + ".snapshot").delete();
+			//noinspection ResultOfMethodCallIgnored
+			new File(dir, name + ".journal").delete();
+		});
+	}
+
+	@Override
+	public void torrentListChanged(@NonNull TorrentListChangeSet changeSet) {
+		if (CALLID_RESTORE.equals(changeSet.getCallID())) {
+			return;
+		}
+		boolean changed = false;
+		synchronized (lock) {
+			for (long id : changeSet.getAddedIDs()) {
+				pendingIDs.put(id, Boolean.TRUE);
+				changed = true;
+			}
+			for (long id : changeSet.getChangedIDs()) {
+				Set<String> fields = changeSet.getChangedFields(id);
+				if (fields != null && hasStoredField(fields)) {
+					pendingIDs.put(id, Boolean.TRUE);
+					changed = true;
+				}
+			}
+			for (long id : changeSet.getRemovedIDs()) {
+				pendingIDs.put(id, Boolean.FALSE);
+				changed = true;
+			}
+		}
+		if (changed) {
+			scheduleFlush(FLUSH_DELAY_MS);
+		}
+	}
+
+	@Override
+	public void tagListReceived(@Nullable List<Map<?, ?>> tags) {
+		synchronized (lock) {
+			pendingTags = true;
+		}
+		scheduleFlush(FLUSH_DELAY_MS);
+	}
+
+	private void scheduleFlush(long delayMS) {
+		synchronized (lock) {
+			if (flushScheduled || destroyed) {
+				return;
+			}
+			flushScheduled = true;
+		}
+		ioExecutor.schedule(this::flush, delayMS, TimeUnit.MILLISECONDS);
+	}
+
+	@WorkerThread
+	private void flush() {
+		synchronized (lock) {
+			flushScheduled = false;
+			if (destroyed) {
+				return;
+			}
+		}
+		Batch batch = collectPending();
+		write(batch == null ? new Batch() : batch);
+	}
+
+	/**
+	 * Copy pending torrents and tags out of the session cache.  The copies are
+	 * shallow, but the session replaces torrent maps instead of changing them
+	 * when a new list arrives, so the copies are safe to encode outside of the
+	 * lock.
+	 */
+	@SuppressWarnings("rawtypes")
+	@Nullable
+	private Batch collectPending() {
+		LongSparseArray<Boolean> ids;
+		boolean tags;
+		synchronized (lock) {
+			if (pendingIDs.size() == 0 && !pendingTags) {
+				return null;
+			}
+			ids = pendingIDs.clone();
+			pendingIDs.clear();
+			tags = pendingTags;
+			pendingTags = false;
+		}
+
+		Batch batch = new Batch();
+		synchronized (session.mLock) {
+			for (int i = 0, num = ids.size(); i < num; i++) {
+				long id = ids.keyAt(i);
+				Map<String, Object> map = ids.valueAt(i)
+						? session.torrent.getCachedTorrent(id) : null;
+				if (map == null) {
+					batch.removes.add(id);
+					continue;
+				}
+				Map<Object, Object> copy = new HashMap<>(map.size());
+				for (Map.Entry<String, Object> entry : map.entrySet()) {
+					if (isStoredField(entry.getKey())) {
+						copy.put(entry.getKey(), entry.getValue());
+					}
+				}
+				batch.puts.add(copy);
+			}
+			if (tags && session.tag.mapTags != null) {
+				LongSparseArray<Map<?, ?>> mapTags = session.tag.mapTags;
+				batch.tags = new ArrayList<>(mapTags.size());
+				for (int i = 0, num = mapTags.size(); i < num; i++) {
+					Map<?, ?> mapTag = mapTags.valueAt(i);
+					if (mapTag == null) {
+						continue;
+					}
+					synchronized (mapTag) {
+						batch.tags.add(new HashMap<>(mapTag));
+					}
+				}
+			}
+		}
+		return batch;
+	}
+
+	private static boolean hasStoredField(Set<String> fields) {
+		for (String field : fields) {
+			if (isStoredField(field)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isStoredField(String field) {
+		switch (field) {
+			case TransmissionVars.FIELD_TORRENT_FILES:
+			case TransmissionVars.FIELD_TORRENT_FILESTATS:
+			case TransmissionVars.FIELD_LAST_UPDATED:
+			case "fileKeys":
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Append batch to the journal, or compact when the journal is too big or
+	 * can't be trusted.
+	 */
+	@WorkerThread
+	@Thunk
+	void write(@NonNull Batch batch) {
+		try {
+			byte[] records = encodeRecords(batch);
+			if (!journalValid || !journalFile.exists() && !snapshotFile.exists()
+					|| journalLength + records.length > Math.max(snapshotLength,
+							MIN_COMPACT_BYTES)) {
+				compact(batch);
+				return;
+			}
+			if (records.length == 0) {
+				return;
+			}
+
+			boolean newJournal = journalLength == 0 || !journalFile.exists();
+			try (FileOutputStream fos = new FileOutputStream(journalFile,
+					!newJournal)) {
+				if (newJournal) {
+					byte[] header = encodeHeader(MAGIC_JOURNAL, generation);
+					fos.write(header);
+					journalLength = header.length;
+				}
+				fos.write(records);
+			}
+			journalLength += records.length;
+			if (AndroidUtils.DEBUG) {
+				Log.d(TAG, "Appended " + batch.puts.size() + " puts, "
+						+ batch.removes.size() + " removes, tags=" + (batch.tags != null)
+						+ "; journal now " + journalLength + " bytes");
+			}
+		} catch (Throwable t) {
+			Log.e(TAG, "write", t);
+			journalValid = false;
+		}
+	}
+
+	/**
+	 * Merge snapshot, journal, and batch into a new snapshot, and start a new
+	 * journal.
+	 */
+	@WorkerThread
+	private void compact(@NonNull Batch batch)
+			throws IOException {
+		Contents contents = read();
+		for (Long id : batch.removes) {
+			contents.torrents.remove(id);
+		}
+		for (Map map : batch.puts) {
+			contents.torrents.put(getTorrentID(map), map);
+		}
+		if (batch.tags != null) {
+			contents.tags = batch.tags;
+		}
+
+		long newGeneration = contents.generation + 1;
+		Batch all = new Batch();
+		all.puts.addAll(contents.torrents.values());
+		all.tags = contents.tags;
+
+		File dir = getDir();
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Can't create " + dir);
+		}
+		File tmpFile = new File(dir, snapshotFile.getName() + ".tmp");
+		byte[] header = encodeHeader(MAGIC_SNAPSHOT, newGeneration);
+		byte[] records = encodeRecords(all);
+		try (FileOutputStream fos = new FileOutputStream(tmpFile)) {
+			fos.write(header);
+			fos.write(records);
+			fos.getFD().sync();
+		}
+		if (!tmpFile.renameTo(snapshotFile)) {
+			//noinspection ResultOfMethodCallIgnored
+			tmpFile.delete();
+			throw new IOException("Can't rename " + tmpFile);
+		}
+		// A journal with the old generation is ignored, so it doesn't matter if
+		// this fails
+		//noinspection ResultOfMethodCallIgnored
+		journalFile.delete();
+
+		generation = newGeneration;
+		snapshotLength = header.length + records.length;
+		journalLength = 0;
+		journalValid = true;
+
+		if (AndroidUtils.DEBUG) {
+			Log.d(TAG, "Compacted " + all.puts.size() + " torrents into "
+					+ snapshotLength + " bytes, generation " + generation);
+		}
+	}
+
+	/**
+	 * Read snapshot and journal.  Stops reading the journal at the first
+	 * damaged record (ie. app was killed while writing).
+	 */
+	@WorkerThread
+	@NonNull
+	private Contents read() {
+		Contents contents = new Contents();
+		if (snapshotFile.exists()) {
+			try {
+				byte[] bytes = readFile(snapshotFile);
+				DataInputStream dis = new DataInputStream(
+						new ByteArrayInputStream(bytes));
+				contents.generation = readHeader(dis, MAGIC_SNAPSHOT);
+				if (!readRecords(dis, contents)) {
+					throw new IOException("Damaged snapshot");
+				}
+				contents.snapshotLength = bytes.length;
+				contents.savedOn = snapshotFile.lastModified();
+			} catch (Throwable t) {
+				if (AndroidUtils.DEBUG) {
+					Log.e(TAG, "Can't read " + snapshotFile, t);
+				}
+				// Start over.  Journal depends on the snapshot, so it's useless too
+				contents = new Contents();
+				contents.journalValid = false;
+				return contents;
+			}
+		}
+
+		if (journalFile.exists()) {
+			try {
+				byte[] bytes = readFile(journalFile);
+				DataInputStream dis = new DataInputStream(
+						new ByteArrayInputStream(bytes));
+				long journalGeneration = readHeader(dis, MAGIC_JOURNAL);
+				if (journalGeneration != contents.generation) {
+					contents.journalValid = false;
+				} else {
+					contents.journalValid = readRecords(dis, contents);
+					contents.journalLength = bytes.length;
+					contents.savedOn = Math.max(contents.savedOn,
+							journalFile.lastModified());
+				}
+			} catch (Throwable t) {
+				if (AndroidUtils.DEBUG) {
+					Log.e(TAG, "Can't read " + journalFile, t);
+				}
+				contents.journalValid = false;
+			}
+		}
+		return contents;
+	}
+
+	private static byte[] readFile(File file)
+			throws IOException {
+		try (FileInputStream fis = new FileInputStream(file)) {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(
+					(int) Math.max(file.length(), 32));
+			byte[] buffer = new byte[8192];
+			int len;
+			while ((len = fis.read(buffer)) > 0) {
+				baos.write(buffer, 0, len);
+			}
+			return baos.toByteArray();
+		}
+	}
+
+	private static byte[] encodeHeader(int magic, long generation)
+			throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(13);
+		DataOutputStream dos = new DataOutputStream(baos);
+		dos.writeInt(magic);
+		dos.writeByte(VERSION);
+		dos.writeLong(generation);
+		return baos.toByteArray();
+	}
+
+	/**
+	 * @return generation
+	 */
+	private static long readHeader(DataInputStream dis, int magic)
+			throws IOException {
+		if (dis.readInt() != magic || dis.readByte() != VERSION) {
+			throw new IOException("Unknown format");
+		}
+		return dis.readLong();
+	}
+
+	/**
+	 * Each record is type, payload length, CRC32 of payload, and payload
+	 */
+	private static byte[] encodeRecords(@NonNull Batch batch)
+			throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(baos);
+		if (!batch.removes.isEmpty()) {
+			ValueWriter writer = new ValueWriter();
+			writer.writeVarLong(batch.removes.size());
+			for (Long id : batch.removes) {
+				writer.writeVarLong(id);
+			}
+			writeRecord(dos, RECORD_REMOVE_TORRENTS, writer.toByteArray());
+		}
+		if (!batch.puts.isEmpty()) {
+			ValueWriter writer = new ValueWriter();
+			writer.writeVarLong(batch.puts.size());
+			for (Map map : batch.puts) {
+				writer.writeValue(map);
+			}
+			writeRecord(dos, RECORD_PUT_TORRENTS, writer.toByteArray());
+		}
+		if (batch.tags != null) {
+			ValueWriter writer = new ValueWriter();
+			writer.writeValue(batch.tags);
+			writeRecord(dos, RECORD_TAGS, writer.toByteArray());
+		}
+		return baos.toByteArray();
+	}
+
+	private static void writeRecord(DataOutputStream dos, byte type,
+			byte[] payload)
+			throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		dos.writeByte(type);
+		dos.writeInt(payload.length);
+		dos.writeInt((int) crc.getValue());
+		dos.write(payload);
+	}
+
+	/**
+	 * @return false if a damaged or partial record was found.  Records before
+	 * it are still applied.
+	 */
+	@SuppressWarnings("unchecked")
+	private static boolean readRecords(DataInputStream dis, Contents contents)
+			throws IOException {
+		while (dis.available() > 0) {
+			if (dis.available() < 9) {
+				return false;
+			}
+			byte type = dis.readByte();
+			int length = dis.readInt();
+			int expectedCRC = dis.readInt();
+			if (length < 0 || length > dis.available()) {
+				return false;
+			}
+			byte[] payload = new byte[length];
+			dis.readFully(payload);
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			if ((int) crc.getValue() != expectedCRC) {
+				return false;
+			}
+
+			ValueReader reader = new ValueReader(payload);
+			switch (type) {
+				case RECORD_PUT_TORRENTS: {
+					long num = reader.readVarLong();
+					for (long i = 0; i < num; i++) {
+						Object o = reader.readValue();
+						if (o instanceof Map) {
+							Map map = (Map) o;
+							contents.torrents.put(getTorrentID(map), map);
+						}
+					}
+					break;
+				}
+				case RECORD_REMOVE_TORRENTS: {
+					long num = reader.readVarLong();
+					for (long i = 0; i < num; i++) {
+						contents.torrents.remove(reader.readVarLong());
+					}
+					break;
+				}
+				case RECORD_TAGS: {
+					Object o = reader.readValue();
+					if (o instanceof List) {
+						contents.tags = (List<Map>) o;
+					}
+					break;
+				}
+				default:
+					// Newer record type we don't know about.  Skip it.
+					break;
+			}
+		}
+		return true;
+	}
+
+	private static long getTorrentID(Map map) {
+		Object id = map.get(TransmissionVars.FIELD_TORRENT_ID);
+		return (id instanceof Number) ? ((Number) id).longValue() : -1;
+	}
+
+	/**
+	 * Writes JSON-like values.  Map keys are written once per record, and
+	 * referred to by index afterwards.
+	 */
+	private static class ValueWriter
+	{
+		private final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+		private final Map<String, Integer> keyIndexes = new HashMap<>();
+
+		void writeValue(Object o) {
+			if (o == null) {
+				baos.write(VALUE_NULL);
+			} else if (o instanceof Boolean) {
+				baos.write((Boolean) o ? VALUE_TRUE : VALUE_FALSE);
+			} else if ((o instanceof Double) || (o instanceof Float)
+					|| (o instanceof BigDecimal)) {
+				baos.write(VALUE_DOUBLE);
+				long bits = Double.doubleToLongBits(((Number) o).doubleValue());
+				for (int i = 56; i >= 0; i -= 8) {
+					baos.write((int) (bits >>> i));
+				}
+			} else if (o instanceof Number) {
+				baos.write(VALUE_LONG);
+				long l = ((Number) o).longValue();
+				writeVarLong((l << 1) ^ (l >> 63));
+			} else if (o instanceof Map) {
+				Map<?, ?> map = (Map<?, ?>) o;
+				baos.write(VALUE_MAP);
+				writeVarLong(map.size());
+				for (Map.Entry<?, ?> entry : map.entrySet()) {
+					writeKey(String.valueOf(entry.getKey()));
+					writeValue(entry.getValue());
+				}
+			} else if (o instanceof Collection) {
+				Collection<?> list = (Collection<?>) o;
+				baos.write(VALUE_LIST);
+				writeVarLong(list.size());
+				for (Object item : list) {
+					writeValue(item);
+				}
+			} else if (o instanceof Object[]) {
+				writeValue(Arrays.asList((Object[]) o));
+			} else {
+				baos.write(VALUE_STRING);
+				writeString(o.toString());
+			}
+		}
+
+		private void writeKey(String key) {
+			Integer index = keyIndexes.get(key);
+			if (index != null) {
+				writeVarLong(index + 1);
+				return;
+			}
+			keyIndexes.put(key, keyIndexes.size());
+			writeVarLong(0);
+			writeString(key);
+		}
+
+		private void writeString(String s) {
+			byte[] bytes = s.getBytes(UTF8);
+			writeVarLong(bytes.length);
+			baos.write(bytes, 0, bytes.length);
+		}
+
+		void writeVarLong(long l) {
+			while ((l & ~0x7FL) != 0) {
+				baos.write((int) ((l & 0x7F) | 0x80));
+				l >>>= 7;
+			}
+			baos.write((int) l);
+		}
+
+		byte[] toByteArray() {
+			return baos.toByteArray();
+		}
+	}
+
+	private static class ValueReader
+	{
+		private final byte[] bytes;
+
+		private int pos;
+
+		private final List<String> keys = new ArrayList<>();
+
+		ValueReader(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		Object readValue()
+				throws IOException {
+			byte type = readByte();
+			switch (type) {
+				case VALUE_NULL:
+					return null;
+				case VALUE_TRUE:
+					return Boolean.TRUE;
+				case VALUE_FALSE:
+					return Boolean.FALSE;
+				case VALUE_DOUBLE: {
+					long bits = 0;
+					for (int i = 0; i < 8; i++) {
+						bits = (bits << 8) | (readByte() & 0xFF);
+					}
+					return Double.longBitsToDouble(bits);
+				}
+				case VALUE_LONG: {
+					long zigzag = readVarLong();
+					long l = (zigzag >>> 1) ^ -(zigzag & 1);
+					// JSON decoding gives Integer for small values; keep the same types
+					if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+						return (int) l;
+					}
+					return l;
+				}
+				case VALUE_STRING:
+					return readString();
+				case VALUE_LIST: {
+					int size = readSize();
+					List<Object> list = new ArrayList<>(size);
+					for (int i = 0; i < size; i++) {
+						list.add(readValue());
+					}
+					return list;
+				}
+				case VALUE_MAP: {
+					int size = readSize();
+					Map<String, Object> map = new HashMap<>(size);
+					for (int i = 0; i < size; i++) {
+						String key = readKey();
+						map.put(key, readValue());
+					}
+					return map;
+				}
+				default:
+					throw new IOException("Unknown value type " + type);
+			}
+		}
+
+		private String readKey()
+				throws IOException {
+			long index = readVarLong();
+			if (index > 0) {
+				if (index > keys.size()) {
+					throw new IOException("Bad key index " + index);
+				}
+				return keys.get((int) index - 1);
+			}
+			String key = readString();
+			keys.add(key);
+			return key;
+		}
+
+		private String readString()
+				throws IOException {
+			int len = readSize();
+			if (pos + len > bytes.length) {
+				throw new EOFException();
+			}
+			String s = new String(bytes, pos, len, UTF8);
+			pos += len;
+			return s;
+		}
+
+		private int readSize()
+				throws IOException {
+			long l = readVarLong();
+			if (l < 0 || l > bytes.length - pos + 1L) {
+				throw new IOException("Bad size " + l);
+			}
+			return (int) l;
+		}
+
+		long readVarLong()
+				throws IOException {
+			long l = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte b = readByte();
+				l |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return l;
+				}
+			}
+			throw new IOException("Bad varint");
+		}
+
+		private byte readByte()
+				throws IOException {
+			if (pos >= bytes.length) {
+				throw new EOFException();
+			}
+			return bytes[pos++];
+		}
+	}
+}
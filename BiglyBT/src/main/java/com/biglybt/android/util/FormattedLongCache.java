@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.util;
+
+import com.biglybt.util.DisplayFormatters;
+
+import android.content.res.Resources;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Last formatted text of one long value, for a single field of a row.
+ * <p>
+ * Rows are rebound every refresh, but most of their numbers (sizes, rates
+ * of idle torrents, ETAs) haven't changed.  When the value is the same as
+ * last time, the previous String is returned, so nothing is formatted or
+ * allocated.  Otherwise the value is formatted into a reused StringBuilder
+ * with one of the {@link DisplayFormatters} append methods.
+ * <p>
+ * Not thread safe; meant to live in a ViewHolder and be used on the UI
+ * thread.
+ */
+public class FormattedLongCache
+{
+	public interface Formatter
+	{
+		void format(@NonNull StringBuilder sb, long value);
+	}
+
+	private final Formatter formatter;
+
+	private final StringBuilder sb = new StringBuilder(32);
+
+	private long lastValue;
+
+	private int lastUnitsGeneration;
+
+	private String lastText;
+
+	public FormattedLongCache(@NonNull Formatter formatter) {
+		this.formatter = formatter;
+	}
+
+	@NonNull
+	public static FormattedLongCache forByteCount() {
+		return new FormattedLongCache(DisplayFormatters::appendByteCountToKiBEtc);
+	}
+
+	/**
+	 * Transfer rate prefixed with an arrow or such.  Empty for rates &lt;= 0.
+	 */
+	@NonNull
+	public static FormattedLongCache forRate(@NonNull String prefix) {
+		return new FormattedLongCache((sb, rate) -> {
+			if (rate > 0) {
+				sb.append(prefix);
+				DisplayFormatters.appendByteCountToKiBEtcPerSec(sb, rate);
+			}
+		});
+	}
+
+	@NonNull
+	public static FormattedLongCache forTimeDiffShort(
+			@NonNull Resources resources) {
+		return new FormattedLongCache((sb,
+				secs) -> DisplayFormatters.appendPrettyTimeDiffShort(sb, resources, secs));
+	}
+
+	@NonNull
+	public String get(long value) {
+		int unitsGeneration = DisplayFormatters.getUnitsGeneration();
+		if (lastText != null && value == lastValue
+				&& unitsGeneration == lastUnitsGeneration) {
+			return lastText;
+		}
+		sb.setLength(0);
+		formatter.format(sb, value);
+		lastText = sb.toString();
+		lastValue = value;
+		lastUnitsGeneration = unitsGeneration;
+		return lastText;
+	}
+
+	/**
+	 * Force the next {@link #get(long)} to format, such as after a config
+	 * change that the value doesn't reflect.
+	 */
+	public void invalidate() {
+		lastText = null;
+	}
+}
@@ -34,6 +34,7 @@ import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
 import android.os.Build;
 import androidx.annotation.Nullable;
+import androidx.core.net.ConnectivityManagerCompat;
 import android.util.Log;
 
 public class NetworkState
@@ -226,6 +227,18 @@ public class NetworkState
 		return false;
 	}
 
+	/**
+	 * @return true if the active network may charge by usage
+	 */
+	public boolean isMetered() {
+		ConnectivityManager cm = (ConnectivityManager) applicationContext.getSystemService(
+				Context.CONNECTIVITY_SERVICE);
+		if (cm == null) {
+			return false;
+		}
+		return ConnectivityManagerCompat.isActiveNetworkMetered(cm);
+	}
+
 	public String getActiveIpAddress() {
 		String ipAddress = "127.0.0.1";
 
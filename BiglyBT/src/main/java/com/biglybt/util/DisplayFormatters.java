@@ -45,11 +45,16 @@ package com.biglybt.util;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.util.Arrays;
+import java.util.Locale;
 
 import com.biglybt.android.client.R;
 
 import android.content.res.Resources;
 
+import androidx.annotation.NonNull;
+import androidx.collection.LongSparseArray;
+import androidx.collection.SparseArrayCompat;
+
 @SuppressWarnings("ALL")
 public class DisplayFormatters
 {
@@ -107,8 +112,57 @@ public class DisplayFormatters
 
 	private static char decimalSeparator;
 
+	private static char zeroDigit = '0';
+
+	/** Bumped every time units or separators change */
+	private static volatile int unitsGeneration;
+
 	private static NumberFormat numberFormatInstance;
 
+	/** Largest precision {@link #appendDecimal} handles without NumberFormat */
+	private static final int APPEND_MAX_PRECISION = 6;
+
+	/**
+	 * Values that are this big or bigger once shifted by the precision are
+	 * passed through NumberFormat, since the double can't hold the fraction
+	 * precisely enough to round like NumberFormat does
+	 */
+	private static final double APPEND_MAX_SHIFTED = 1e15;
+
+	private static final long[] POWERS_OF_TEN = {
+		1L,
+		10L,
+		100L,
+		1000L,
+		10000L,
+		100000L,
+		1000000L,
+		10000000L,
+		100000000L,
+		1000000000L,
+		10000000000L,
+		100000000000L,
+		1000000000000L,
+		10000000000000L,
+		100000000000000L,
+		1000000000000000L,
+		10000000000000000L,
+		100000000000000000L,
+		1000000000000000000L
+	};
+
+	private static final int QUANTITY_CACHE_MAX = 512;
+
+	/** Plural strings by (resID &lt;&lt; 32 | quantity), for quantityStringRes */
+	private static final LongSparseArray<String> quantityStringCache = new LongSparseArray<>();
+
+	/** resWrap templates split around the %s: prefix, suffix */
+	private static final SparseArrayCompat<String[]> wrapTemplateCache = new SparseArrayCompat<>();
+
+	private static Resources quantityStringRes;
+
+	private static Locale quantityStringLocale;
+
 	static {
 /*
 		COConfigurationManager.addAndFireParameterListeners( 
@@ -268,7 +322,19 @@ public class DisplayFormatters
 		percentage_format.setMinimumFractionDigits(1);
 		percentage_format.setMaximumFractionDigits(1);
 
-		decimalSeparator = new DecimalFormatSymbols().getDecimalSeparator();
+		DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+		decimalSeparator = symbols.getDecimalSeparator();
+		zeroDigit = symbols.getZeroDigit();
+
+		unitsGeneration++;
+	}
+
+	/**
+	 * @return Value that changes whenever {@link #setUnits()} is called.
+	 * Formatted text cached from an earlier generation is stale.
+	 */
+	public static int getUnitsGeneration() {
+		return unitsGeneration;
 	}
 
 	private static String getUnit(String key) {
@@ -432,6 +498,43 @@ public class DisplayFormatters
 				+ (rate ? units_rate[unitIndex] : units[unitIndex]);
 	}
 
+	/**
+	 * Same as {@link #formatByteCountToKiBEtc(long)}, but appends to
+	 * <code>sb</code>.  Doesn't allocate, as long as <code>sb</code> has room.
+	 */
+	public static void appendByteCountToKiBEtc(@NonNull StringBuilder sb,
+			long n) {
+		appendByteCountToKiBEtc(sb, n, false, TRUNCZEROS_NO, -1);
+	}
+
+	public static void appendByteCountToKiBEtcPerSec(@NonNull StringBuilder sb,
+			long n) {
+		appendByteCountToKiBEtc(sb, n, true, TRUNCZEROS_NO, -1);
+	}
+
+	public static void appendByteCountToKiBEtc(@NonNull StringBuilder sb,
+			long n, boolean rate, boolean bTruncateZeros, int precision) {
+		double dbl = (rate && use_units_rate_bits) ? n * 8 : n;
+
+		int unitIndex = UNIT_B;
+
+		long div = force_si_values ? 1024 : (use_si_units ? 1024 : 1000);
+
+		while (dbl >= div && unitIndex < unitsStopAt) {
+
+			dbl /= div;
+			unitIndex++;
+		}
+
+		if (precision < 0) {
+			precision = UNITS_PRECISION[unitIndex];
+		}
+
+		// see formatByteCountToKiBEtc for why rates round and the rest truncate
+		appendDecimal(sb, dbl, precision, bTruncateZeros, rate);
+		sb.append(rate ? units_rate[unitIndex] : units[unitIndex]);
+	}
+
 	public static String formatByteCountToKiBEtc(long n, boolean rate,
 			boolean bTruncateZeros, int precision, int minUnit) {
 		double dbl = (rate && use_units_rate_bits) ? n * 8 : n;
@@ -1064,6 +1167,96 @@ return( TimeFormatter.formatColon( time / 1000 ));
 		return nf.format(tValue);
 	}
 
+	/**
+	 * Same as {@link #formatDecimal(double, int)}, but appends to
+	 * <code>sb</code>.
+	 */
+	public static void appendDecimal(@NonNull StringBuilder sb, double value,
+			int precision) {
+		appendDecimal(sb, value, precision, TRUNCZEROS_NO, ROUND_NO);
+	}
+
+	/**
+	 * Same as {@link #formatDecimal(double, int, boolean, boolean)}, but appends
+	 * to <code>sb</code>.
+	 * <p>
+	 * Digits are written directly (using the locale's zero digit and decimal
+	 * separator), so nothing is allocated as long as <code>sb</code> has room.
+	 * Negative values, very large values and high precisions go through
+	 * NumberFormat like {@link #formatDecimal(double, int, boolean, boolean)}.
+	 */
+	public static void appendDecimal(@NonNull StringBuilder sb, double value,
+			int precision, boolean bTruncateZeros, boolean bRound) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			sb.append(INFINITY_STRING);
+			return;
+		}
+
+		// NumberFormat caps fraction digits at 3 when none of the min/max
+		// settings force more
+		if (value < 0 || precision < 0 || precision > APPEND_MAX_PRECISION
+				|| (!bRound && bTruncateZeros && precision > 3)) {
+			sb.append(formatDecimal(value, precision, bTruncateZeros, bRound));
+			return;
+		}
+
+		long shift = POWERS_OF_TEN[precision];
+		double shifted = value * shift;
+		if (shifted >= APPEND_MAX_SHIFTED) {
+			sb.append(formatDecimal(value, precision, bTruncateZeros, bRound));
+			return;
+		}
+		long scaled = (long) shifted;
+		if (bRound) {
+			double remainder = shifted - scaled;
+			if (Math.abs(remainder - 0.5) < 1e-3) {
+				// Too close to call; NumberFormat rounds HALF_EVEN on the exact
+				// binary value, which the multiply above may have lost
+				sb.append(formatDecimal(value, precision, bTruncateZeros, bRound));
+				return;
+			}
+			if (remainder > 0.5) {
+				scaled++;
+			}
+		}
+
+		appendDigits(sb, scaled / shift, 1);
+
+		long fraction = scaled % shift;
+		int numFractionDigits = precision;
+		if (bTruncateZeros) {
+			while (numFractionDigits > 0 && fraction % 10 == 0) {
+				fraction /= 10;
+				numFractionDigits--;
+			}
+		}
+		if (numFractionDigits > 0) {
+			sb.append(decimalSeparator);
+			appendDigits(sb, fraction, numFractionDigits);
+		}
+	}
+
+	/**
+	 * Append a non-negative number, zero padded to minDigits, in the locale's
+	 * digits
+	 */
+	private static void appendDigits(StringBuilder sb, long n, int minDigits) {
+		int numDigits = 1;
+		while (numDigits < POWERS_OF_TEN.length && n >= POWERS_OF_TEN[numDigits]) {
+			numDigits++;
+		}
+		for (int i = numDigits; i < minDigits; i++) {
+			sb.append(zeroDigit);
+		}
+		char zero = zeroDigit;
+		for (int i = numDigits - 1; i >= 0; i--) {
+			long pow = POWERS_OF_TEN[i];
+			int digit = (int) (n / pow);
+			sb.append((char) (zero + digit));
+			n -= digit * pow;
+		}
+	}
+
 	/**
 	 * Attempts vaguely smart string truncation by searching for largest token and truncating that
 	 */
@@ -1192,6 +1385,160 @@ return( TimeFormatter.formatColon( time / 1000 ));
 				R.string.time_ago);
 	}
 
+	/**
+	 * Same as {@link #prettyFormatTimeDiffShort(Resources, long)}, but appends
+	 * to <code>sb</code>.
+	 */
+	public static void appendPrettyTimeDiffShort(@NonNull StringBuilder sb,
+			@NonNull Resources res, long time_secs) {
+		appendPrettyTimeDiff(sb, res, time_secs, TIME_RES_SHORT, " ", 0);
+	}
+
+	/**
+	 * Same as {@link #prettyFormatTimeDiff(Resources, long)}, but appends to
+	 * <code>sb</code>.
+	 */
+	public static void appendPrettyTimeDiff(@NonNull StringBuilder sb,
+			@NonNull Resources res, long time_secs) {
+		appendPrettyTimeDiff(sb, res, time_secs, TIME_RES, ", ",
+				R.string.time_ago);
+	}
+
+	/**
+	 * Same as
+	 * {@link #prettyFormatTimeDiff(Resources, long, int[], String, int)}, but
+	 * appends to <code>sb</code>.
+	 * <p>
+	 * Plural strings and the resWrap template are cached per Resources and
+	 * locale, so repeat values don't allocate.
+	 */
+	public static void appendPrettyTimeDiff(@NonNull StringBuilder sb,
+			@NonNull Resources res, long time_secs, int[] TIME_RES, String sep,
+			int resWrap) {
+		if (time_secs < 0) {
+			return;
+		}
+
+		int end = 4;
+		while (getTimeSection(time_secs, end) == 0 && end > 0) {
+			end--;
+		}
+
+		synchronized (quantityStringCache) {
+			String[] wrap = null;
+			if (resWrap != 0) {
+				wrap = getWrapTemplate(res, resWrap);
+				if (wrap == null) {
+					// Template we can't split; let Resources do the formatting
+					sb.append(res.getString(resWrap,
+							prettyFormatTimeDiff(res, time_secs, TIME_RES, sep, 0)));
+					return;
+				}
+				sb.append(wrap[0]);
+			}
+
+			appendTimeSection(sb, res, TIME_RES, end, getTimeSection(time_secs, end));
+			end--;
+			if (end >= 0) {
+				sb.append(sep);
+				appendTimeSection(sb, res, TIME_RES, end,
+						getTimeSection(time_secs, end));
+			}
+
+			if (wrap != null) {
+				sb.append(wrap[1]);
+			}
+		}
+	}
+
+	/**
+	 * @param section 0 secs, 1 mins, 2 hours, 3 days, 4 years
+	 */
+	private static int getTimeSection(long time_secs, int section) {
+		switch (section) {
+			case 0:
+				return (int) time_secs % 60;
+			case 1:
+				return (int) (time_secs / 60) % 60;
+			case 2:
+				return (int) (time_secs / 3600) % 24;
+			case 3:
+				return (int) (time_secs / 86400) % 365;
+			default:
+				return (int) (time_secs / 31536000);
+		}
+	}
+
+	private static void appendTimeSection(StringBuilder sb, Resources res,
+			int[] TIME_RES, int section, int val) {
+		if (section == 3 && TIME_RES.length > 5 && (val >= 28 || val % 7 == 0)) {
+			sb.append(getQuantityString(res, TIME_RES[5], val / 7));
+		} else {
+			sb.append(getQuantityString(res, TIME_RES[section], val));
+		}
+	}
+
+	/**
+	 * Must be called while synchronized on quantityStringCache
+	 */
+	private static String getQuantityString(Resources res, int resID,
+			int quantity) {
+		validateQuantityStringCache(res);
+		long key = ((long) resID << 32) | (quantity & 0xFFFFFFFFL);
+		String s = quantityStringCache.get(key);
+		if (s == null) {
+			if (quantityStringCache.size() >= QUANTITY_CACHE_MAX) {
+				quantityStringCache.clear();
+			}
+			s = res.getQuantityString(resID, quantity, quantity);
+			quantityStringCache.put(key, s);
+		}
+		return s;
+	}
+
+	/**
+	 * Must be called while synchronized on quantityStringCache
+	 *
+	 * @return prefix and suffix around the template's only format specifier, or
+	 * null if the template isn't that simple
+	 */
+	private static String[] getWrapTemplate(Resources res, int resWrap) {
+		validateQuantityStringCache(res);
+		String[] wrap = wrapTemplateCache.get(resWrap);
+		if (wrap == null) {
+			String template = res.getString(resWrap);
+			String spec = "%1$s";
+			int pos = template.indexOf(spec);
+			if (pos < 0) {
+				spec = "%s";
+				pos = template.indexOf(spec);
+			}
+			String prefix = pos < 0 ? "" : template.substring(0, pos);
+			String suffix = pos < 0 ? "" : template.substring(pos + spec.length());
+			if (pos < 0 || prefix.indexOf('%') >= 0 || suffix.indexOf('%') >= 0) {
+				// empty array marks "not splittable"
+				wrap = new String[0];
+			} else {
+				wrap = new String[] {
+					prefix,
+					suffix
+				};
+			}
+			wrapTemplateCache.put(resWrap, wrap);
+		}
+		return wrap.length == 0 ? null : wrap;
+	}
+
+	private static void validateQuantityStringCache(Resources res) {
+		Locale locale = res.getConfiguration().locale;
+		if (res != quantityStringRes || locale != quantityStringLocale) {
+			quantityStringCache.clear();
+			wrapTemplateCache.clear();
+			quantityStringRes = res;
+			quantityStringLocale = locale;
+		}
+	}
+
 	/**
 	 * Format time into two time sections, the first chunk trimmed, the second
 	 * with always with 2 digits.  Sections are *d, **h, **m, **s.  Section
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package android.util;
+
+import java.util.Arrays;
+
+/**
+ * Desktop JVM stand-in for the framework class, which is a no-op in the
+ * mockable android.jar.  Same sorted-keys layout, so costs are comparable.
+ */
+@SuppressWarnings("unchecked")
+public class SparseArray<E>
+	implements Cloneable
+{
+	private int[] keys;
+
+	private Object[] values;
+
+	private int size;
+
+	public SparseArray() {
+		this(10);
+	}
+
+	public SparseArray(int initialCapacity) {
+		keys = new int[Math.max(initialCapacity, 1)];
+		values = new Object[keys.length];
+	}
+
+	@Override
+	public SparseArray<E> clone() {
+		try {
+			SparseArray<E> clone = (SparseArray<E>) super.clone();
+			clone.keys = keys.clone();
+			clone.values = values.clone();
+			return clone;
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	public E get(int key) {
+		return get(key, null);
+	}
+
+	public E get(int key, E valueIfKeyNotFound) {
+		int i = Arrays.binarySearch(keys, 0, size, key);
+		return i < 0 ? valueIfKeyNotFound : (E) values[i];
+	}
+
+	public void delete(int key) {
+		int i = Arrays.binarySearch(keys, 0, size, key);
+		if (i >= 0) {
+			removeAt(i);
+		}
+	}
+
+	public void remove(int key) {
+		delete(key);
+	}
+
+	public void removeAt(int index) {
+		System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+		System.arraycopy(values, index + 1, values, index, size - index - 1);
+		size--;
+		values[size] = null;
+	}
+
+	public void put(int key, E value) {
+		int i = Arrays.binarySearch(keys, 0, size, key);
+		if (i >= 0) {
+			values[i] = value;
+			return;
+		}
+		insertAt(~i, key, value);
+	}
+
+	public void append(int key, E value) {
+		if (size > 0 && key <= keys[size - 1]) {
+			put(key, value);
+			return;
+		}
+		insertAt(size, key, value);
+	}
+
+	private void insertAt(int index, int key, Object value) {
+		if (size == keys.length) {
+			int newLength = size * 2;
+			keys = Arrays.copyOf(keys, newLength);
+			values = Arrays.copyOf(values, newLength);
+		}
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(values, index, values, index + 1, size - index);
+		keys[index] = key;
+		values[index] = value;
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int keyAt(int index) {
+		return keys[index];
+	}
+
+	public E valueAt(int index) {
+		return (E) values[index];
+	}
+
+	public void setValueAt(int index, E value) {
+		values[index] = value;
+	}
+
+	public int indexOfKey(int key) {
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	public int indexOfValue(E value) {
+		for (int i = 0; i < size; i++) {
+			if (values[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public void clear() {
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+	}
+}
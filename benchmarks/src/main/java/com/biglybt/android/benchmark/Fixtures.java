@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+import com.biglybt.android.client.TransmissionVars;
+
+/**
+ * Synthetic RPC replies, shaped like what a busy remote client sends us.
+ * <p>
+ * Everything is generated from a fixed seed, so runs are comparable.
+ */
+public class Fixtures
+{
+	public static final int NUM_TORRENTS = 10000;
+
+	public static final int NUM_FILES = 200000;
+
+	public static final int NUM_PEERS = 2000;
+
+	public static final long SEED = 0x5EEDL;
+
+	private static final String[] WORDS = {
+		"ubuntu",
+		"debian",
+		"the",
+		"linux",
+		"archive",
+		"collection",
+		"live",
+		"concert",
+		"lecture",
+		"season",
+		"complete",
+		"dataset",
+		"open",
+		"source",
+		"ISO",
+		"1080p",
+		"remaster",
+		"podcast",
+		"audiobook",
+		"Übersicht",
+		"日本語",
+		"[mirror]",
+		"2019",
+		"v2.1",
+	};
+
+	private static final String[] FOLDER_WORDS = {
+		"Disc",
+		"Season",
+		"Extras",
+		"Data",
+		"Images",
+		"Docs",
+		"Part",
+		"Samples",
+		"src",
+		"lib",
+	};
+
+	private static final String[] EXTENSIONS = {
+		".mkv",
+		".iso",
+		".txt",
+		".flac",
+		".jpg",
+		".pdf",
+		".zip",
+		".nfo",
+	};
+
+	private static final String[] CLIENTS = {
+		"BiglyBT 1.8.0.0",
+		"Transmission 2.94",
+		"qBittorrent 4.1.5",
+		"uTorrent 3.5.5",
+		"Deluge 1.3.15",
+		"libtorrent (Rasterbar) 1.1.12",
+	};
+
+	private static final String[] CCS = {
+		"US",
+		"DE",
+		"JP",
+		"BR",
+		"CA",
+		"FR",
+		"",
+	};
+
+	private Fixtures() {
+	}
+
+	private static String name(Random random, int numWords) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < numWords; i++) {
+			if (i > 0) {
+				sb.append(random.nextInt(4) == 0 ? '.' : ' ');
+			}
+			sb.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Full torrent-get list, the way the torrent list refresh asks for it
+	 */
+	public static List<Map<String, Object>> torrents(int count, long seed) {
+		Random random = new Random(seed);
+		long now = 1550000000L;
+		List<Map<String, Object>> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Map<String, Object> map = new HashMap<>();
+			long id = i + 1;
+			long size = (long) (Math.pow(10, 5 + random.nextDouble() * 6));
+			double pctDone = random.nextInt(3) == 0 ? 1.0 : random.nextDouble();
+			boolean active = random.nextInt(10) == 0;
+			map.put(TransmissionVars.FIELD_TORRENT_ID, id);
+			map.put(TransmissionVars.FIELD_TORRENT_NAME,
+					name(random, 2 + random.nextInt(6)));
+			map.put(TransmissionVars.FIELD_TORRENT_HASH_STRING,
+					String.format(Locale.US, "%040x", id * 0x9E3779B97F4A7C15L));
+			map.put(TransmissionVars.FIELD_TORRENT_STATUS,
+					active ? (pctDone < 1 ? 4 : 6) : 0);
+			map.put(TransmissionVars.FIELD_TORRENT_PERCENT_DONE, pctDone);
+			map.put(TransmissionVars.FIELD_TORRENT_IS_COMPLETE, pctDone >= 1);
+			map.put(TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE, size);
+			map.put(TransmissionVars.FIELD_TORRENT_LEFT_UNTIL_DONE,
+					(long) (size * (1 - pctDone)));
+			map.put(TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD,
+					active && pctDone < 1 ? random.nextInt(5000000) : 0);
+			map.put(TransmissionVars.FIELD_TORRENT_RATE_UPLOAD,
+					active ? random.nextInt(500000) : 0);
+			map.put(TransmissionVars.FIELD_TORRENT_ETA,
+					active && pctDone < 1 ? random.nextInt(100000) : -1);
+			map.put(TransmissionVars.FIELD_TORRENT_DATE_ADDED,
+					now - random.nextInt(5 * 365 * 86400));
+			map.put(TransmissionVars.FIELD_TORRENT_POSITION, i + 1);
+			map.put(TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO,
+					random.nextDouble() * 5);
+			map.put(TransmissionVars.FIELD_TORRENT_DOWNLOADED_EVER,
+					(long) (size * pctDone));
+			map.put(TransmissionVars.FIELD_TORRENT_UPLOADED_EVER,
+					(long) (size * random.nextDouble() * 3));
+			map.put(TransmissionVars.FIELD_TORRENT_FILE_COUNT,
+					1 + random.nextInt(50));
+			map.put(TransmissionVars.FIELD_TORRENT_ERROR, 0);
+			map.put(TransmissionVars.FIELD_TORRENT_TAG_UIDS, Arrays.asList(
+					(long) (random.nextInt(3) + 1), (long) (random.nextInt(20) + 10)));
+			list.add(map);
+		}
+		return list;
+	}
+
+	/**
+	 * The partial refresh sent every few seconds: just the fields that move,
+	 * for the torrents that are active.
+	 */
+	public static List<Map<String, Object>> activeTorrentUpdates(
+			List<Map<String, Object>> torrents, long seed) {
+		Random random = new Random(seed);
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (Map<String, Object> torrent : torrents) {
+			Object status = torrent.get(TransmissionVars.FIELD_TORRENT_STATUS);
+			if (!(status instanceof Number) || ((Number) status).intValue() == 0) {
+				continue;
+			}
+			Map<String, Object> map = new HashMap<>();
+			map.put(TransmissionVars.FIELD_TORRENT_ID,
+					torrent.get(TransmissionVars.FIELD_TORRENT_ID));
+			map.put(TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD,
+					random.nextInt(5000000));
+			map.put(TransmissionVars.FIELD_TORRENT_RATE_UPLOAD,
+					random.nextInt(500000));
+			map.put(TransmissionVars.FIELD_TORRENT_ETA, random.nextInt(100000));
+			map.put(TransmissionVars.FIELD_TORRENT_PERCENT_DONE,
+					torrent.get(TransmissionVars.FIELD_TORRENT_PERCENT_DONE));
+			map.put(TransmissionVars.FIELD_TORRENT_STATUS, status);
+			list.add(map);
+		}
+		return list;
+	}
+
+	/**
+	 * A torrent with its file list in compact form ("fileKeys" plus one value
+	 * list per file), nested a few folders deep
+	 */
+	public static Map<String, Object> torrentWithFiles(long torrentID,
+			int numFiles, long seed) {
+		Random random = new Random(seed);
+
+		int numFolders = Math.max(1, numFiles / 100);
+		String[] folders = new String[numFolders];
+		for (int i = 0; i < numFolders; i++) {
+			int depth = 1 + random.nextInt(4);
+			StringBuilder sb = new StringBuilder();
+			for (int d = 0; d < depth; d++) {
+				sb.append(FOLDER_WORDS[random.nextInt(FOLDER_WORDS.length)]).append(
+						' ').append(random.nextInt(d == 0 ? 8 : 30)).append('/');
+			}
+			folders[i] = sb.toString();
+		}
+
+		List<Object> fileKeys = Arrays.asList(TransmissionVars.FIELD_FILES_NAME,
+				TransmissionVars.FIELD_FILES_LENGTH,
+				TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED,
+				TransmissionVars.FIELD_FILESTATS_WANTED,
+				TransmissionVars.FIELD_FILESTATS_PRIORITY);
+		List<Object> files = new ArrayList<>(numFiles);
+		for (int i = 0; i < numFiles; i++) {
+			String folder = folders[random.nextInt(numFolders)];
+			String name = folder + name(random, 1 + random.nextInt(3)) + '-' + i
+					+ EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+			long length = (long) Math.pow(10, 2 + random.nextDouble() * 7);
+			long completed = random.nextBoolean() ? length
+					: (long) (length * random.nextDouble());
+			files.add(Arrays.asList(name, length, completed,
+					random.nextInt(10) != 0, random.nextInt(3) - 1));
+		}
+
+		Map<String, Object> map = new HashMap<>();
+		map.put(TransmissionVars.FIELD_TORRENT_ID, torrentID);
+		map.put(TransmissionVars.FIELD_TORRENT_NAME, "Files " + numFiles);
+		map.put(TransmissionVars.FIELD_TORRENT_FILE_COUNT, numFiles);
+		map.put("fileKeys", fileKeys);
+		map.put(TransmissionVars.FIELD_TORRENT_FILES, files);
+		return map;
+	}
+
+	/**
+	 * Peer list of one torrent, as returned with the "peers" field
+	 */
+	public static List<Map<String, Object>> peers(int count, long seed) {
+		Random random = new Random(seed);
+		List<Map<String, Object>> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Map<String, Object> map = new HashMap<>();
+			map.put(TransmissionVars.FIELD_PEERS_ADDRESS,
+					(random.nextInt(223) + 1) + "." + random.nextInt(256) + "."
+							+ random.nextInt(256) + "." + random.nextInt(256));
+			map.put(TransmissionVars.FIELD_PEERS_PORT, 1024 + random.nextInt(60000));
+			map.put(TransmissionVars.FIELD_PEERS_CLIENT_NAME,
+					CLIENTS[random.nextInt(CLIENTS.length)]);
+			map.put(TransmissionVars.FIELD_PEERS_CC, CCS[random.nextInt(CCS.length)]);
+			map.put(TransmissionVars.FIELD_PEERS_PROGRESS, random.nextDouble());
+			map.put(TransmissionVars.FIELD_PEERS_RATE_TO_CLIENT_BPS,
+					random.nextInt(8) == 0 ? random.nextInt(1000000) : 0);
+			map.put(TransmissionVars.FIELD_PEERS_RATE_TO_PEER_BPS,
+					random.nextInt(8) == 0 ? random.nextInt(200000) : 0);
+			map.put(TransmissionVars.FIELD_PEERS_FLAGSTR, "DEHXI");
+			map.put(TransmissionVars.FIELD_PEERS_IS_ENCRYPTED, random.nextBoolean());
+			map.put(TransmissionVars.FIELD_PEERS_IS_INCOMING, random.nextBoolean());
+			map.put(TransmissionVars.FIELD_PEERS_IS_UTP, random.nextBoolean());
+			map.put(TransmissionVars.FIELD_PEERS_CLIENT_CHOKED, random.nextBoolean());
+			map.put(TransmissionVars.FIELD_PEERS_PEER_CHOKED, random.nextBoolean());
+			list.add(map);
+		}
+		return list;
+	}
+
+	/**
+	 * Wrap a torrent list the way a torrent-get reply is
+	 */
+	public static Map<String, Object> torrentGetReply(List<?> torrents) {
+		Map<String, Object> arguments = new HashMap<>();
+		arguments.put("torrents", torrents);
+		Map<String, Object> reply = new HashMap<>();
+		reply.put("result", "success");
+		reply.put("tag", 1);
+		reply.put("arguments", arguments);
+		return reply;
+	}
+
+	/**
+	 * The RPC layer hands us maps it doesn't keep, and addRemoveTorrents
+	 * writes into them, so every run needs its own copies.
+	 */
+	public static List<Map<String, Object>> copyMaps(
+			List<Map<String, Object>> list) {
+		List<Map<String, Object>> copy = new ArrayList<>(list.size());
+		for (Map<String, Object> map : list) {
+			copy.add(new HashMap<>(map));
+		}
+		return copy;
+	}
+
+	/**
+	 * Set a field, final or not.  For filling in the pieces of mocked objects
+	 * whose constructors never ran.
+	 */
+	public static void setField(Object target, Class<?> declaringClass,
+			String name, Object value) {
+		try {
+			Field field = declaringClass.getDeclaredField(name);
+			field.setAccessible(true);
+			field.set(target, value);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(
+					"Can't set " + declaringClass.getSimpleName() + "." + name, e);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.benchmark;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.JSONUtils;
+
+/**
+ * Decoding of RPC replies: the full torrent list, one torrent's file list
+ * in compact form, and one torrent's peers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class JSONUtilsBenchmark
+{
+	@Param({
+		"torrents",
+		"files",
+		"peers"
+	})
+	public String reply;
+
+	private String json;
+
+	@Setup
+	public void setup() {
+		List<?> torrents;
+		switch (reply) {
+			case "torrents":
+				torrents = Fixtures.torrents(Fixtures.NUM_TORRENTS, Fixtures.SEED);
+				break;
+			case "files":
+				torrents = Collections.singletonList(Fixtures.torrentWithFiles(1,
+						Fixtures.NUM_FILES, Fixtures.SEED));
+				break;
+			case "peers":
+				Map<String, Object> torrent = new HashMap<>();
+				torrent.put(TransmissionVars.FIELD_TORRENT_ID, 1L);
+				torrent.put(TransmissionVars.FIELD_TORRENT_PEERS,
+						Fixtures.peers(Fixtures.NUM_PEERS, Fixtures.SEED));
+				torrents = Collections.singletonList(torrent);
+				break;
+			default:
+				throw new IllegalArgumentException(reply);
+		}
+		json = JSONUtils.encodeToJSON(Fixtures.torrentGetReply(torrents));
+	}
+
+	@Benchmark
+	public Map<String, Object> decodeJSON() {
+		return JSONUtils.decodeJSON(json);
+	}
+}
@@ -0,0 +1,592 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.benchmark.mockrpc;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.JSONUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A Transmission RPC endpoint, with BiglyBT's extensions, serving a
+ * {@link SyntheticSwarm}.  For load testing the client's refresh path on a
+ * desktop, without a real remote client whose torrents change on their own.
+ * <p>
+ * Handles:
+ * <ul>
+ * <li>The X-Transmission-Session-Id handshake (409 until the client sends
+ * the current id; see {@link #rotateSessionID()})</li>
+ * <li>Basic auth, when {@link #setCredentials} is set</li>
+ * <li>session-get, session-stats, tags-get-list and batch</li>
+ * <li>torrent-get, with "recently-active", "file-fields", "mapPerFile"
+ * (compact files with "fileKeys"), "file-indexes-*" and "files-hc-*"</li>
+ * <li>gzip requests and replies</li>
+ * </ul>
+ * Like Vuze's xmwebui, "recently-active" means changed since the last
+ * "recently-active" request.  There's one such marker per server, so point
+ * only one client at it.
+ */
+public class MockRPCServer
+	implements Closeable
+{
+	public static final String RPC_PATH = "/transmission/rpc";
+
+	private static final String HEADER_SESSION_ID = "X-Transmission-Session-Id";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final String RESULT_SUCCESS = "success";
+
+	private static final String IDS_RECENTLY_ACTIVE = "recently-active";
+
+	private static final String METHOD_TAGS_GET_LIST = "tags-get-list";
+
+	private static final String METHOD_BATCH = "batch";
+
+	/** File fields sent when the client doesn't ask for specific ones */
+	private static final List<String> DEFAULT_FILE_FIELDS = Arrays.asList(
+			TransmissionVars.FIELD_FILES_NAME, TransmissionVars.FIELD_FILES_LENGTH,
+			TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED,
+			TransmissionVars.FIELD_FILESTATS_WANTED,
+			TransmissionVars.FIELD_FILESTATS_PRIORITY);
+
+	private final SyntheticSwarm swarm;
+
+	private final HttpServer server;
+
+	private final ExecutorService executor;
+
+	private final Random random = new Random();
+
+	private volatile String sessionID;
+
+	private volatile int azRPCVersion = 7;
+
+	private volatile boolean supportsBatch = true;
+
+	private volatile boolean rejectBatch;
+
+	private volatile boolean gzipReplies = true;
+
+	private volatile long replyDelayMS;
+
+	private volatile String authorization;
+
+	/** Guarded by swarm */
+	private long recentlyActiveTick = -1;
+
+	private final AtomicLong numRequests = new AtomicLong();
+
+	private final AtomicLong numConflicts = new AtomicLong();
+
+	private final AtomicLong bytesReceived = new AtomicLong();
+
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	private final Map<String, AtomicLong> mapMethodCounts = new ConcurrentHashMap<>();
+
+	/**
+	 * @param port 0 for any free port
+	 */
+	public MockRPCServer(SyntheticSwarm swarm, int port)
+			throws IOException {
+		this.swarm = swarm;
+		rotateSessionID();
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext(RPC_PATH, this::handle);
+		executor = Executors.newFixedThreadPool(4);
+		server.setExecutor(executor);
+	}
+
+	public MockRPCServer start() {
+		server.start();
+		return this;
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * @return URL of the RPC endpoint, for the loopback interface
+	 */
+	public String getURL() {
+		return "http://127.0.0.1:" + getPort() + RPC_PATH;
+	}
+
+	public SyntheticSwarm getSwarm() {
+		return swarm;
+	}
+
+	/**
+	 * Make up a new session id, so the next request of every client gets a 409
+	 * and has to retry, like after the remote client restarts
+	 */
+	public void rotateSessionID() {
+		sessionID = Long.toHexString(random.nextLong());
+	}
+
+	/**
+	 * "az-rpc-version" reported by session-get.  Clients only use compact file
+	 * lists and string "files-hc-*" for 7 and up.  Negative to report a plain
+	 * Transmission.
+	 */
+	public void setAzRPCVersion(int azRPCVersion) {
+		this.azRPCVersion = azRPCVersion;
+	}
+
+	public void setSupportsBatch(boolean supportsBatch) {
+		this.supportsBatch = supportsBatch;
+	}
+
+	/**
+	 * Keep advertising "method:batch" in session-get, but fail every batch
+	 * call, like a remote client whose batch support is broken
+	 */
+	public void setRejectBatch(boolean rejectBatch) {
+		this.rejectBatch = rejectBatch;
+	}
+
+	/**
+	 * Gzip replies when the client accepts it.  On by default, since that's
+	 * what real remote clients do.
+	 */
+	public void setGzipReplies(boolean gzipReplies) {
+		this.gzipReplies = gzipReplies;
+	}
+
+	/**
+	 * Wait this long before each reply, to stand in for a slow network or a
+	 * busy remote client
+	 */
+	public void setReplyDelayMS(long replyDelayMS) {
+		this.replyDelayMS = replyDelayMS;
+	}
+
+	/**
+	 * @param user null to allow any request
+	 */
+	public void setCredentials(String user, String password) {
+		authorization = user == null ? null
+				: "Basic " + Base64.getEncoder().encodeToString(
+						(user + ":" + password).getBytes(UTF_8));
+	}
+
+	/**
+	 * @return HTTP requests handled, including 401s and 409s
+	 */
+	public long getRequestCount() {
+		return numRequests.get();
+	}
+
+	/**
+	 * @return Requests turned away with a 409 for a missing or old session id
+	 */
+	public long getConflictCount() {
+		return numConflicts.get();
+	}
+
+	/**
+	 * @return Request body bytes, as sent (compressed, if gzipped)
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	/**
+	 * @return Reply body bytes, as sent (compressed, if gzipped)
+	 */
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	/**
+	 * @return Calls handled per method.  Calls in a batch count separately.
+	 */
+	public Map<String, Long> getMethodCounts() {
+		Map<String, Long> map = new TreeMap<>();
+		for (Map.Entry<String, AtomicLong> entry : mapMethodCounts.entrySet()) {
+			map.put(entry.getKey(), entry.getValue().get());
+		}
+		return map;
+	}
+
+	private void handle(HttpExchange exchange)
+			throws IOException {
+		numRequests.incrementAndGet();
+		try {
+			String auth = authorization;
+			if (auth != null && !auth.equals(
+					exchange.getRequestHeaders().getFirst("Authorization"))) {
+				exchange.getResponseHeaders().set("WWW-Authenticate",
+						"Basic realm=\"Transmission\"");
+				sendText(exchange, 401, "<h1>401: Unauthorized</h1>");
+				return;
+			}
+
+			String currentSessionID = sessionID;
+			if (!currentSessionID.equals(
+					exchange.getRequestHeaders().getFirst(HEADER_SESSION_ID))) {
+				// The client only sees a 409 when the body isn't JSON, which is what
+				// Transmission sends anyway
+				numConflicts.incrementAndGet();
+				exchange.getResponseHeaders().set(HEADER_SESSION_ID,
+						currentSessionID);
+				sendText(exchange, 409, "<h1>409: Conflict</h1>"
+						+ "<p>Your request had an invalid session-id header.</p>");
+				return;
+			}
+
+			Map<String, Object> request = JSONUtils.decodeJSON(readRequest(exchange));
+			Map<String, Object> reply = handleCall(request);
+
+			long delay = replyDelayMS;
+			if (delay > 0) {
+				Thread.sleep(delay);
+			}
+			sendJSON(exchange, JSONUtils.encodeToJSON(reply));
+		} catch (Throwable t) {
+			t.printStackTrace();
+			sendText(exchange, 500, "<h1>500: Server Error</h1><p>" + t + "</p>");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * @return JSON of the request, from the POST body, or the "json" query
+	 * parameter of a GET
+	 */
+	private String readRequest(HttpExchange exchange)
+			throws IOException {
+		if ("GET".equals(exchange.getRequestMethod())) {
+			String query = exchange.getRequestURI().getRawQuery();
+			if (query != null) {
+				for (String param : query.split("&")) {
+					if (param.startsWith("json=")) {
+						return URLDecoder.decode(param.substring(5), "UTF-8");
+					}
+				}
+			}
+			return "{}";
+		}
+
+		InputStream is = new CountingInputStream(exchange.getRequestBody());
+		if ("gzip".equalsIgnoreCase(
+				exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+			is = new GZIPInputStream(is);
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(512);
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = is.read(buffer)) >= 0) {
+			baos.write(buffer, 0, read);
+		}
+		return new String(baos.toByteArray(), UTF_8);
+	}
+
+	private void sendJSON(HttpExchange exchange, String json)
+			throws IOException {
+		byte[] bytes = json.getBytes(UTF_8);
+		exchange.getResponseHeaders().set("Content-Type",
+				"application/json; charset=UTF-8");
+		String acceptEncoding = exchange.getRequestHeaders().getFirst(
+				"Accept-Encoding");
+		if (gzipReplies && acceptEncoding != null
+				&& acceptEncoding.contains("gzip")) {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(
+					bytes.length / 4 + 64);
+			GZIPOutputStream gzip = new GZIPOutputStream(baos);
+			gzip.write(bytes);
+			gzip.close();
+			bytes = baos.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+		exchange.sendResponseHeaders(200, bytes.length);
+		exchange.getResponseBody().write(bytes);
+		bytesSent.addAndGet(bytes.length);
+	}
+
+	private void sendText(HttpExchange exchange, int code, String html)
+			throws IOException {
+		byte[] bytes = html.getBytes(UTF_8);
+		exchange.getResponseHeaders().set("Content-Type",
+				"text/html; charset=UTF-8");
+		exchange.sendResponseHeaders(code, bytes.length);
+		exchange.getResponseBody().write(bytes);
+		bytesSent.addAndGet(bytes.length);
+	}
+
+	private Map<String, Object> handleCall(Map<?, ?> request) {
+		String method = String.valueOf(request.get("method"));
+		Object oArguments = request.get("arguments");
+		Map<?, ?> arguments = oArguments instanceof Map ? (Map<?, ?>) oArguments
+				: Collections.emptyMap();
+
+		AtomicLong count = mapMethodCounts.get(method);
+		if (count == null) {
+			mapMethodCounts.putIfAbsent(method, new AtomicLong());
+			count = mapMethodCounts.get(method);
+		}
+		count.incrementAndGet();
+
+		Map<String, Object> replyArguments;
+		switch (method) {
+			case TransmissionVars.METHOD_SESSION_GET:
+				replyArguments = sessionGet();
+				break;
+			case TransmissionVars.METHOD_SESSION_STATS:
+				replyArguments = swarm.getSessionStats();
+				break;
+			case TransmissionVars.METHOD_TORRENT_GET:
+				replyArguments = torrentGet(arguments);
+				break;
+			case METHOD_TAGS_GET_LIST:
+			case "tags-get":
+				replyArguments = new HashMap<>();
+				replyArguments.put("tags",
+						swarm.getTags(getStringList(arguments.get("fields"))));
+				break;
+			case METHOD_BATCH:
+				replyArguments = supportsBatch && !rejectBatch ? batch(arguments)
+						: null;
+				break;
+			default:
+				replyArguments = null;
+				break;
+		}
+
+		Map<String, Object> reply = new HashMap<>();
+		if (replyArguments == null) {
+			reply.put("result", "method name not recognized");
+		} else {
+			reply.put("result", RESULT_SUCCESS);
+			reply.put("arguments", replyArguments);
+		}
+		Object tag = request.get("tag");
+		if (tag != null) {
+			reply.put("tag", tag);
+		}
+		return reply;
+	}
+
+	private Map<String, Object> sessionGet() {
+		List<String> supports = new ArrayList<>();
+		supports.add("rpc:receive-gzip");
+		supports.add("method:" + METHOD_TAGS_GET_LIST);
+		if (supportsBatch) {
+			supports.add("method:" + METHOD_BATCH);
+		}
+
+		Map<String, Object> map = new HashMap<>();
+		map.put("rpc-version", 15);
+		map.put("rpc-version-minimum", 1);
+		map.put("version", "2.84 (mock)");
+		int version = azRPCVersion;
+		if (version >= 0) {
+			map.put("az-rpc-version", version);
+			map.put("az-version", "5.7.6.0");
+			map.put("biglybt-version", "1.8.0.0");
+			map.put("rpc-supports", supports);
+		}
+		map.put("download-dir", "/mock/downloads");
+		map.put("peer-port", 6881);
+		return map;
+	}
+
+	private Map<String, Object> batch(Map<?, ?> arguments) {
+		Object oRequests = arguments.get("requests");
+		List<Object> replies = new ArrayList<>();
+		if (oRequests instanceof List) {
+			for (Object o : (List<?>) oRequests) {
+				if (o instanceof Map) {
+					replies.add(handleCall((Map<?, ?>) o));
+				}
+			}
+		}
+		Map<String, Object> map = new HashMap<>();
+		map.put("replies", replies);
+		return map;
+	}
+
+	private Map<String, Object> torrentGet(Map<?, ?> arguments) {
+		List<String> fields = getStringList(arguments.get("fields"));
+		boolean wantFiles = fields == null
+				|| fields.contains(TransmissionVars.FIELD_TORRENT_FILES);
+		boolean wantFileStats = fields != null
+				&& fields.contains(TransmissionVars.FIELD_TORRENT_FILESTATS);
+
+		List<String> fileFields = getStringList(
+				arguments.get(TransmissionVars.ARG_TORRENT_GET_FILE_FIELDS));
+		List<String> fileKeys = new ArrayList<>();
+		fileKeys.add(TransmissionVars.FIELD_FILES_INDEX);
+		fileKeys.add(SyntheticSwarm.FIELD_HC);
+		fileKeys.addAll(fileFields == null || fileFields.isEmpty()
+				? DEFAULT_FILE_FIELDS : fileFields);
+		boolean compact = Boolean.FALSE.equals(arguments.get("mapPerFile"));
+
+		Object ids = arguments.get(TransmissionVars.ARG_IDS);
+		List<Object> torrents = new ArrayList<>();
+		List<Long> removed = null;
+		synchronized (swarm) {
+			long[] torrentIDs;
+			if (IDS_RECENTLY_ACTIVE.equals(ids)) {
+				torrentIDs = swarm.getTorrentIDsChangedSince(recentlyActiveTick);
+				removed = swarm.getTorrentIDsRemovedSince(recentlyActiveTick);
+				recentlyActiveTick = swarm.getTick();
+			} else if (ids instanceof Number) {
+				torrentIDs = new long[] {
+					((Number) ids).longValue()
+				};
+			} else if (ids instanceof List) {
+				List<?> list = (List<?>) ids;
+				torrentIDs = new long[list.size()];
+				for (int i = 0; i < torrentIDs.length; i++) {
+					Object o = list.get(i);
+					torrentIDs[i] = o instanceof Number ? ((Number) o).longValue() : -1;
+				}
+			} else {
+				torrentIDs = swarm.getTorrentIDs();
+			}
+
+			for (long id : torrentIDs) {
+				Map<String, Object> torrent = swarm.getTorrent(id, fields);
+				if (torrent == null) {
+					continue;
+				}
+				if (wantFiles) {
+					torrent.put(TransmissionVars.FIELD_TORRENT_FILES,
+							swarm.getFiles(id, fileKeys,
+									getIntArray(arguments.get("file-indexes-" + id)),
+									getHCs(arguments.get("files-hc-" + id)), compact));
+					if (compact) {
+						torrent.put("fileKeys", fileKeys);
+					}
+				}
+				if (wantFileStats) {
+					torrent.put(TransmissionVars.FIELD_TORRENT_FILESTATS,
+							swarm.getFileStats(id));
+				}
+				torrents.add(torrent);
+			}
+		}
+
+		Map<String, Object> map = new HashMap<>();
+		map.put("torrents", torrents);
+		if (removed != null && !removed.isEmpty()) {
+			map.put("removed", removed);
+		}
+		return map;
+	}
+
+	private static List<String> getStringList(Object o) {
+		if (!(o instanceof List)) {
+			return null;
+		}
+		List<?> list = (List<?>) o;
+		List<String> strings = new ArrayList<>(list.size());
+		for (Object item : list) {
+			strings.add(String.valueOf(item));
+		}
+		return strings;
+	}
+
+	private static int[] getIntArray(Object o) {
+		if (!(o instanceof List)) {
+			return null;
+		}
+		List<?> list = (List<?>) o;
+		int[] ints = new int[list.size()];
+		for (int i = 0; i < ints.length; i++) {
+			Object item = list.get(i);
+			ints[i] = item instanceof Number ? ((Number) item).intValue() : -1;
+		}
+		return ints;
+	}
+
+	/**
+	 * "files-hc-*" is a list, or from az-rpc-version 7 on, a comma separated
+	 * String.  Files the client has no hc for are null in both.
+	 */
+	private static Long[] getHCs(Object o) {
+		List<?> list;
+		if (o instanceof String) {
+			list = Arrays.asList(((String) o).split(",", -1));
+		} else if (o instanceof List) {
+			list = (List<?>) o;
+		} else {
+			return null;
+		}
+		Long[] hcs = new Long[list.size()];
+		for (int i = 0; i < hcs.length; i++) {
+			Object item = list.get(i);
+			if (item instanceof Number) {
+				hcs[i] = ((Number) item).longValue();
+			} else if (item instanceof String) {
+				try {
+					hcs[i] = Long.parseLong((String) item);
+				} catch (NumberFormatException ignore) {
+				}
+			}
+		}
+		return hcs;
+	}
+
+	private class CountingInputStream
+		extends FilterInputStream
+	{
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read()
+				throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				bytesReceived.incrementAndGet();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len)
+				throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				bytesReceived.addAndGet(read);
+			}
+			return read;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.benchmark.mockrpc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a {@link MockRPCServer} until killed, so the app on a device or
+ * emulator can be pointed at it (as a remote client, port and no auth).
+ * <p>
+ * Arguments are key=value:
+ * <pre>
+ * port=9091         torrents=1000     maxFiles=100
+ * active=0.1        flip=0.005        adds=0          removes=0
+ * tickMS=3000       delayMS=0         azRPC=7         batch=true
+ * user=             password=         seed=...
+ * </pre>
+ */
+public class MockRPCServerMain
+{
+	private MockRPCServerMain() {
+	}
+
+	public static void main(String[] args)
+			throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int i = arg.indexOf('=');
+			if (i <= 0) {
+				System.err.println("Ignoring " + arg + "; expected key=value");
+				continue;
+			}
+			options.put(arg.substring(0, i), arg.substring(i + 1));
+		}
+
+		SyntheticSwarm.Script script = new SyntheticSwarm.Script();
+		script.torrents(getInt(options, "torrents", 1000));
+		script.maxFilesPerTorrent(getInt(options, "maxFiles", 100));
+		script.activeFraction(getFloat(options, "active", 0.1f));
+		script.flipFraction(getFloat(options, "flip", 0.005f));
+		script.addsPerTick(getInt(options, "adds", 0));
+		script.removesPerTick(getInt(options, "removes", 0));
+		if (options.containsKey("seed")) {
+			script.seed(Long.parseLong(options.get("seed")));
+		}
+		int tickMS = getInt(options, "tickMS", 3000);
+		script.secondsPerTick(Math.max(1, tickMS / 1000));
+
+		SyntheticSwarm swarm = new SyntheticSwarm(script);
+		MockRPCServer server = new MockRPCServer(swarm,
+				getInt(options, "port", 9091));
+		server.setReplyDelayMS(getInt(options, "delayMS", 0));
+		server.setAzRPCVersion(getInt(options, "azRPC", 7));
+		server.setSupportsBatch(!"false".equals(options.get("batch")));
+		if (options.containsKey("user")) {
+			server.setCredentials(options.get("user"), options.get("password"));
+		}
+		server.start();
+		System.out.println("Serving " + swarm.getTorrentCount()
+				+ " torrents on port " + server.getPort() + MockRPCServer.RPC_PATH);
+
+		ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+		ticker.scheduleAtFixedRate(swarm::tick, tickMS, tickMS,
+				TimeUnit.MILLISECONDS);
+		ticker.scheduleAtFixedRate(
+				() -> System.out.println("tick " + swarm.getTick() + ": "
+						+ server.getRequestCount() + " requests ("
+						+ server.getConflictCount() + " 409s), "
+						+ (server.getBytesSent() / 1024) + " KiB sent, "
+						+ server.getMethodCounts()),
+				60, 60, TimeUnit.SECONDS);
+	}
+
+	private static int getInt(Map<String, String> options, String key,
+			int def) {
+		String s = options.get(key);
+		return s == null ? def : Integer.parseInt(s);
+	}
+
+	private static float getFloat(Map<String, String> options, String key,
+			float def) {
+		String s = options.get(key);
+		return s == null ? def : Float.parseFloat(s);
+	}
+}
@@ -0,0 +1,891 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.benchmark.mockrpc;
+
+import java.util.*;
+
+import com.biglybt.android.benchmark.Fixtures;
+import com.biglybt.android.client.TransmissionVars;
+
+/**
+ * A made up remote client: torrents, their files and tags, changing a little
+ * on every {@link #tick()}.
+ * <p>
+ * Everything comes from the {@link Script}'s seed, so two runs of the same
+ * script see the same torrents and the same changes.  File lists are only
+ * built the first time someone asks for them, since most torrents never get
+ * their files looked at.
+ * <p>
+ * All methods are synchronized.  Callers that need several of them to see
+ * the same tick (like a whole RPC reply) can synchronize on the swarm.
+ */
+public class SyntheticSwarm
+{
+	public interface Event
+	{
+		void apply(SyntheticSwarm swarm);
+	}
+
+	/**
+	 * How the swarm starts out, and how it changes each tick.  Setters return
+	 * the script, so they can be chained.
+	 */
+	public static class Script
+	{
+		int numTorrents = 1000;
+
+		int maxFilesPerTorrent = 100;
+
+		int numCategories = 4;
+
+		int numTags = 16;
+
+		float activeFraction = 0.1f;
+
+		float flipFraction = 0.005f;
+
+		int addsPerTick;
+
+		int removesPerTick;
+
+		int secondsPerTick = 3;
+
+		long seed = Fixtures.SEED;
+
+		final TreeMap<Integer, List<Event>> events = new TreeMap<>();
+
+		public Script torrents(int numTorrents) {
+			this.numTorrents = numTorrents;
+			return this;
+		}
+
+		/**
+		 * Each torrent gets between 1 and this many files
+		 */
+		public Script maxFilesPerTorrent(int maxFilesPerTorrent) {
+			this.maxFilesPerTorrent = maxFilesPerTorrent;
+			return this;
+		}
+
+		/**
+		 * @param numCategories User categories, on top of "All" and
+		 *                      "Uncategorized"
+		 * @param numTags       Manual tags
+		 */
+		public Script tags(int numCategories, int numTags) {
+			this.numCategories = numCategories;
+			this.numTags = numTags;
+			return this;
+		}
+
+		/**
+		 * Fraction of torrents that start out downloading or seeding
+		 */
+		public Script activeFraction(float activeFraction) {
+			this.activeFraction = activeFraction;
+			return this;
+		}
+
+		/**
+		 * Fraction of torrents that start or stop each tick
+		 */
+		public Script flipFraction(float flipFraction) {
+			this.flipFraction = flipFraction;
+			return this;
+		}
+
+		public Script addsPerTick(int addsPerTick) {
+			this.addsPerTick = addsPerTick;
+			return this;
+		}
+
+		public Script removesPerTick(int removesPerTick) {
+			this.removesPerTick = removesPerTick;
+			return this;
+		}
+
+		/**
+		 * Simulated time between ticks, for download progress
+		 */
+		public Script secondsPerTick(int secondsPerTick) {
+			this.secondsPerTick = secondsPerTick;
+			return this;
+		}
+
+		public Script seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * Run event at the end of the given tick, after the scripted changes
+		 */
+		public Script at(int tick, Event event) {
+			List<Event> list = events.get(tick);
+			if (list == null) {
+				list = new ArrayList<>(1);
+				events.put(tick, list);
+			}
+			list.add(event);
+			return this;
+		}
+	}
+
+	private static final class Torrent
+	{
+		final long id;
+
+		final String name;
+
+		final String hashString;
+
+		final long size;
+
+		final long dateAdded;
+
+		final int numFiles;
+
+		final List<Long> tagUIDs;
+
+		long downloaded;
+
+		long uploaded;
+
+		int status;
+
+		int rateDownload;
+
+		int rateUpload;
+
+		int position;
+
+		long dateActivity;
+
+		long changedTick;
+
+		Files files;
+
+		Torrent(long id, String name, long size, long dateAdded, int numFiles,
+				List<Long> tagUIDs) {
+			this.id = id;
+			this.name = name;
+			this.hashString = String.format(Locale.US, "%040x",
+					id * 0x9E3779B97F4A7C15L);
+			this.size = size;
+			this.dateAdded = dateAdded;
+			this.numFiles = numFiles;
+			this.tagUIDs = tagUIDs;
+		}
+
+		boolean isActive() {
+			return status == TransmissionVars.TR_STATUS_DOWNLOAD
+					|| status == TransmissionVars.TR_STATUS_SEED;
+		}
+	}
+
+	/**
+	 * Files of a torrent, filled in order as the torrent downloads
+	 */
+	private static final class Files
+	{
+		final String[] names;
+
+		final long[] lengths;
+
+		final long[] completed;
+
+		final boolean[] wanted;
+
+		final int[] priorities;
+
+		final long[] hcs;
+
+		/** Files before this one are complete */
+		int numFilled;
+
+		long filledBytes;
+
+		Files(int numFiles) {
+			names = new String[numFiles];
+			lengths = new long[numFiles];
+			completed = new long[numFiles];
+			wanted = new boolean[numFiles];
+			priorities = new int[numFiles];
+			hcs = new long[numFiles];
+		}
+
+		void fill(long downloaded) {
+			int num = lengths.length;
+			long left = downloaded - filledBytes;
+			while (numFilled < num && left >= lengths[numFilled]) {
+				int i = numFilled;
+				if (completed[i] != lengths[i]) {
+					completed[i] = lengths[i];
+					updateHC(i);
+				}
+				left -= lengths[i];
+				filledBytes += lengths[i];
+				numFilled++;
+			}
+			if (numFilled < num && completed[numFilled] != left) {
+				completed[numFilled] = left;
+				updateHC(numFilled);
+			}
+		}
+
+		void updateHC(int i) {
+			long hc = names[i].hashCode();
+			hc = hc * 31 + lengths[i];
+			hc = hc * 31 + completed[i];
+			hc = hc * 31 + (wanted[i] ? 1 : 0);
+			hc = hc * 31 + priorities[i];
+			hcs[i] = hc;
+		}
+	}
+
+	private static final String[] WORDS = {
+		"ubuntu",
+		"debian",
+		"the",
+		"linux",
+		"archive",
+		"collection",
+		"live",
+		"concert",
+		"lecture",
+		"season",
+		"complete",
+		"dataset",
+		"open",
+		"source",
+		"1080p",
+		"podcast",
+		"Übersicht",
+		"日本語",
+		"2019",
+	};
+
+	private static final String[] EXTENSIONS = {
+		".mkv",
+		".iso",
+		".txt",
+		".flac",
+		".jpg",
+		".pdf",
+	};
+
+	/** Tag type of categories.  TagType.TT_DOWNLOAD_CATEGORY in the core */
+	private static final int TAG_TYPE_CATEGORY = 1;
+
+	/** TagType.TT_DOWNLOAD_MANUAL in the core */
+	private static final int TAG_TYPE_MANUAL = 3;
+
+	private static final int CATEGORY_TYPE_USER = 0;
+
+	private static final int CATEGORY_TYPE_ALL = 1;
+
+	private static final int CATEGORY_TYPE_UNCATEGORIZED = 2;
+
+	private static final long FIRST_TAG_UID = 100;
+
+	/**
+	 * File field with a hash of the file's state.  Clients send it back, so
+	 * files that haven't changed can be skipped.
+	 */
+	public static final String FIELD_HC = "hc";
+
+	private static final long NOW = 1550000000L;
+
+	private final Script script;
+
+	private final Random random;
+
+	private final Map<Long, Torrent> mapTorrents = new LinkedHashMap<>();
+
+	/** Same torrents as mapTorrents, for picking random ones */
+	private final List<Torrent> listTorrents = new ArrayList<>();
+
+	private final List<Map<String, Object>> listTags = new ArrayList<>();
+
+	/** Pairs of (tick, torrent id) */
+	private final List<long[]> listRemoved = new ArrayList<>();
+
+	private long tick;
+
+	private long nextTorrentID = 1;
+
+	public SyntheticSwarm(Script script) {
+		this.script = script;
+		random = new Random(script.seed);
+
+		addTag("All", TAG_TYPE_CATEGORY, CATEGORY_TYPE_ALL);
+		addTag("Uncategorized", TAG_TYPE_CATEGORY, CATEGORY_TYPE_UNCATEGORIZED);
+		for (int i = 0; i < script.numCategories; i++) {
+			addTag("Category " + (i + 1), TAG_TYPE_CATEGORY, CATEGORY_TYPE_USER);
+		}
+		for (int i = 0; i < script.numTags; i++) {
+			addTag(WORDS[i % WORDS.length] + " " + (i + 1), TAG_TYPE_MANUAL, -1);
+		}
+
+		int numActive = (int) (script.numTorrents * script.activeFraction);
+		for (int i = 0; i < script.numTorrents; i++) {
+			Torrent torrent = addTorrent();
+			if (i < numActive) {
+				start(torrent);
+			}
+		}
+		Collections.shuffle(listTorrents, random);
+		int position = 1;
+		mapTorrents.clear();
+		for (Torrent torrent : listTorrents) {
+			torrent.position = position++;
+			mapTorrents.put(torrent.id, torrent);
+		}
+	}
+
+	private void addTag(String name, int type, int categoryType) {
+		Map<String, Object> map = new HashMap<>();
+		map.put(TransmissionVars.FIELD_TAG_UID, FIRST_TAG_UID + listTags.size());
+		map.put(TransmissionVars.FIELD_TAG_NAME, name);
+		map.put(TransmissionVars.FIELD_TAG_TYPE, type);
+		map.put(TransmissionVars.FIELD_TAG_TYPENAME,
+				type == TAG_TYPE_CATEGORY ? "Category" : "Manual");
+		if (categoryType >= 0) {
+			map.put(TransmissionVars.FIELD_TAG_CATEGORY_TYPE, categoryType);
+		}
+		map.put(TransmissionVars.FIELD_TAG_VISIBLE, true);
+		map.put(TransmissionVars.FIELD_TAG_CANBEPUBLIC, type == TAG_TYPE_MANUAL);
+		map.put(TransmissionVars.FIELD_TAG_PUBLIC, false);
+		map.put(TransmissionVars.FIELD_TAG_GROUP, "");
+		map.put(TransmissionVars.FIELD_TAG_COLOR, "#"
+				+ Integer.toHexString(0x1000000 | random.nextInt(0x1000000)).substring(
+						1));
+		listTags.add(map);
+	}
+
+	private Torrent addTorrent() {
+		long id = nextTorrentID++;
+		StringBuilder sb = new StringBuilder();
+		int numWords = 2 + random.nextInt(6);
+		for (int i = 0; i < numWords; i++) {
+			if (i > 0) {
+				sb.append(random.nextInt(4) == 0 ? '.' : ' ');
+			}
+			sb.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		long size = (long) Math.pow(10, 5 + random.nextDouble() * 6);
+		int numFiles = 1 + random.nextInt(Math.max(1, script.maxFilesPerTorrent));
+
+		// "All", a category or "Uncategorized", and maybe a few manual tags
+		List<Long> tagUIDs = new ArrayList<>(4);
+		tagUIDs.add(FIRST_TAG_UID);
+		int category = random.nextInt(script.numCategories + 1);
+		tagUIDs.add(FIRST_TAG_UID + 1 + category);
+		int numManual = script.numTags == 0 ? 0 : random.nextInt(3);
+		for (int i = 0; i < numManual; i++) {
+			Long uid = FIRST_TAG_UID + 2 + script.numCategories
+					+ random.nextInt(script.numTags);
+			if (!tagUIDs.contains(uid)) {
+				tagUIDs.add(uid);
+			}
+		}
+
+		Torrent torrent = new Torrent(id, sb.toString(), size,
+				NOW + tick * script.secondsPerTick
+						- (tick == 0 ? random.nextInt(5 * 365 * 86400) : 0),
+				numFiles, tagUIDs);
+		if (random.nextInt(3) == 0) {
+			torrent.downloaded = size;
+		} else {
+			torrent.downloaded = (long) (size * random.nextDouble());
+		}
+		torrent.uploaded = (long) (torrent.downloaded * random.nextDouble() * 3);
+		torrent.dateActivity = torrent.dateAdded;
+		torrent.position = mapTorrents.size() + 1;
+		torrent.changedTick = tick;
+		mapTorrents.put(id, torrent);
+		listTorrents.add(torrent);
+		return torrent;
+	}
+
+	private void start(Torrent torrent) {
+		torrent.status = torrent.downloaded < torrent.size
+				? TransmissionVars.TR_STATUS_DOWNLOAD : TransmissionVars.TR_STATUS_SEED;
+		randomizeRates(torrent);
+	}
+
+	private void stop(Torrent torrent) {
+		torrent.status = TransmissionVars.TR_STATUS_STOPPED;
+		torrent.rateDownload = 0;
+		torrent.rateUpload = 0;
+	}
+
+	private void randomizeRates(Torrent torrent) {
+		torrent.rateDownload = torrent.status == TransmissionVars.TR_STATUS_DOWNLOAD
+				? random.nextInt(5000000) : 0;
+		torrent.rateUpload = random.nextInt(4) == 0 ? 0 : random.nextInt(500000);
+	}
+
+	/**
+	 * Move time forward: active torrents transfer and change rates, some
+	 * torrents start or stop, torrents are added and removed, and then the
+	 * script's events for this tick run.
+	 */
+	public synchronized void tick() {
+		tick++;
+		long now = NOW + tick * script.secondsPerTick;
+
+		int numFlips = (int) (listTorrents.size() * script.flipFraction);
+		for (int i = 0; i < numFlips; i++) {
+			Torrent torrent = listTorrents.get(random.nextInt(listTorrents.size()));
+			if (torrent.isActive()) {
+				stop(torrent);
+			} else {
+				start(torrent);
+			}
+			torrent.changedTick = tick;
+		}
+
+		for (Torrent torrent : listTorrents) {
+			if (!torrent.isActive()) {
+				continue;
+			}
+			torrent.downloaded = Math.min(torrent.size,
+					torrent.downloaded
+							+ (long) torrent.rateDownload * script.secondsPerTick);
+			torrent.uploaded += (long) torrent.rateUpload * script.secondsPerTick;
+			if (torrent.status == TransmissionVars.TR_STATUS_DOWNLOAD
+					&& torrent.downloaded >= torrent.size) {
+				torrent.status = TransmissionVars.TR_STATUS_SEED;
+			}
+			randomizeRates(torrent);
+			if (torrent.files != null) {
+				torrent.files.fill(torrent.downloaded);
+			}
+			torrent.dateActivity = now;
+			torrent.changedTick = tick;
+		}
+
+		for (int i = 0; i < script.removesPerTick && !listTorrents.isEmpty(); i++) {
+			removeTorrent(listTorrents.get(random.nextInt(listTorrents.size())).id);
+		}
+		for (int i = 0; i < script.addsPerTick; i++) {
+			start(addTorrent());
+		}
+
+		List<Event> events = script.events.get((int) tick);
+		if (events != null) {
+			for (Event event : events) {
+				event.apply(this);
+			}
+		}
+	}
+
+	public synchronized long getTick() {
+		return tick;
+	}
+
+	public synchronized int getTorrentCount() {
+		return listTorrents.size();
+	}
+
+	/**
+	 * For scripted events.  The new torrent is started.
+	 *
+	 * @return id of the new torrent
+	 */
+	public synchronized long addTorrentNow() {
+		Torrent torrent = addTorrent();
+		start(torrent);
+		return torrent.id;
+	}
+
+	public synchronized boolean removeTorrent(long id) {
+		Torrent torrent = mapTorrents.remove(id);
+		if (torrent == null) {
+			return false;
+		}
+		listTorrents.remove(torrent);
+		listRemoved.add(new long[] {
+			tick,
+			id
+		});
+		return true;
+	}
+
+	/**
+	 * For scripted events: start or stop every torrent at once, like a user
+	 * hitting "Start All"
+	 */
+	public synchronized void setAllActive(boolean active) {
+		for (Torrent torrent : listTorrents) {
+			if (torrent.isActive() == active) {
+				continue;
+			}
+			if (active) {
+				start(torrent);
+			} else {
+				stop(torrent);
+			}
+			torrent.changedTick = tick;
+		}
+	}
+
+	/**
+	 * @return Ids of all torrents, in queue order
+	 */
+	public synchronized long[] getTorrentIDs() {
+		long[] ids = new long[listTorrents.size()];
+		int i = 0;
+		for (Torrent torrent : mapTorrents.values()) {
+			ids[i++] = torrent.id;
+		}
+		return ids;
+	}
+
+	/**
+	 * @return Ids of torrents that changed after the given tick
+	 */
+	public synchronized long[] getTorrentIDsChangedSince(long sinceTick) {
+		long[] ids = new long[listTorrents.size()];
+		int num = 0;
+		for (Torrent torrent : mapTorrents.values()) {
+			if (torrent.changedTick > sinceTick) {
+				ids[num++] = torrent.id;
+			}
+		}
+		return Arrays.copyOf(ids, num);
+	}
+
+	/**
+	 * @return Ids of torrents removed after the given tick
+	 */
+	public synchronized List<Long> getTorrentIDsRemovedSince(long sinceTick) {
+		List<Long> ids = new ArrayList<>();
+		for (long[] removed : listRemoved) {
+			if (removed[0] > sinceTick) {
+				ids.add(removed[1]);
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Build a torrent map the way torrent-get returns it.  Fields the swarm
+	 * doesn't know about are left out, like a remote client on an older
+	 * version would.  Use {@link #getFiles} for "files" and "fileStats".
+	 *
+	 * @param fields null for all the fields the swarm knows about
+	 * @return null if there's no torrent with that id
+	 */
+	public synchronized Map<String, Object> getTorrent(long id,
+			Collection<String> fields) {
+		Torrent torrent = mapTorrents.get(id);
+		if (torrent == null) {
+			return null;
+		}
+		Map<String, Object> map = new HashMap<>();
+		map.put(TransmissionVars.FIELD_TORRENT_ID, id);
+		if (fields == null) {
+			fields = Arrays.asList(TransmissionVars.FIELD_TORRENT_NAME,
+					TransmissionVars.FIELD_TORRENT_HASH_STRING,
+					TransmissionVars.FIELD_TORRENT_STATUS,
+					TransmissionVars.FIELD_TORRENT_PERCENT_DONE,
+					TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE,
+					TransmissionVars.FIELD_TORRENT_LEFT_UNTIL_DONE,
+					TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD,
+					TransmissionVars.FIELD_TORRENT_RATE_UPLOAD,
+					TransmissionVars.FIELD_TORRENT_ETA,
+					TransmissionVars.FIELD_TORRENT_ERROR,
+					TransmissionVars.FIELD_TORRENT_ERROR_STRING,
+					TransmissionVars.FIELD_TORRENT_DATE_ACTIVITY,
+					TransmissionVars.FIELD_TORRENT_DATE_ADDED,
+					TransmissionVars.FIELD_TORRENT_POSITION,
+					TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO,
+					TransmissionVars.FIELD_TORRENT_DOWNLOADED_EVER,
+					TransmissionVars.FIELD_TORRENT_UPLOADED_EVER,
+					TransmissionVars.FIELD_TORRENT_FILE_COUNT,
+					TransmissionVars.FIELD_TORRENT_IS_COMPLETE,
+					TransmissionVars.FIELD_TORRENT_TAG_UIDS);
+		}
+		for (String field : fields) {
+			Object value = getValue(torrent, field);
+			if (value != null) {
+				map.put(field, value);
+			}
+		}
+		return map;
+	}
+
+	private static Object getValue(Torrent torrent, String field) {
+		switch (field) {
+			case TransmissionVars.FIELD_TORRENT_NAME:
+				return torrent.name;
+			case TransmissionVars.FIELD_TORRENT_HASH_STRING:
+				return torrent.hashString;
+			case TransmissionVars.FIELD_TORRENT_STATUS:
+				return torrent.status;
+			case TransmissionVars.FIELD_TORRENT_PERCENT_DONE:
+				return torrent.size == 0 ? 1.0
+						: (double) torrent.downloaded / torrent.size;
+			case TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE:
+			case "totalSize":
+				return torrent.size;
+			case TransmissionVars.FIELD_TORRENT_LEFT_UNTIL_DONE:
+				return torrent.size - torrent.downloaded;
+			case TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD:
+				return torrent.rateDownload;
+			case TransmissionVars.FIELD_TORRENT_RATE_UPLOAD:
+				return torrent.rateUpload;
+			case TransmissionVars.FIELD_TORRENT_ETA:
+				return torrent.rateDownload > 0
+						? (torrent.size - torrent.downloaded) / torrent.rateDownload : -1;
+			case TransmissionVars.FIELD_TORRENT_ERROR:
+				return 0;
+			case TransmissionVars.FIELD_TORRENT_ERROR_STRING:
+				return "";
+			case TransmissionVars.FIELD_TORRENT_DATE_ACTIVITY:
+				return torrent.dateActivity;
+			case TransmissionVars.FIELD_TORRENT_DATE_ADDED:
+				return torrent.dateAdded;
+			case TransmissionVars.FIELD_TORRENT_POSITION:
+				return torrent.position;
+			case TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO:
+				return torrent.downloaded == 0 ? -1.0
+						: (double) torrent.uploaded / torrent.downloaded;
+			case TransmissionVars.FIELD_TORRENT_DOWNLOADED_EVER:
+				return torrent.downloaded;
+			case TransmissionVars.FIELD_TORRENT_UPLOADED_EVER:
+				return torrent.uploaded;
+			case TransmissionVars.FIELD_TORRENT_FILE_COUNT:
+				return torrent.numFiles;
+			case TransmissionVars.FIELD_TORRENT_IS_COMPLETE:
+				return torrent.downloaded >= torrent.size;
+			case TransmissionVars.FIELD_TORRENT_TAG_UIDS:
+				return torrent.tagUIDs;
+			case TransmissionVars.FIELD_TORRENT_PRIORITIES:
+				// Only used by old clients to count files
+				return Collections.nCopies(torrent.numFiles, 0);
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * @return Number of files the torrent has, or -1 if there's no torrent
+	 * with that id
+	 */
+	public synchronized int getFileCount(long id) {
+		Torrent torrent = mapTorrents.get(id);
+		return torrent == null ? -1 : torrent.numFiles;
+	}
+
+	/**
+	 * Files of a torrent, the way torrent-get returns them.
+	 *
+	 * @param keys        File fields to send, in order.  Include "index" and
+	 *                    "hc" for them to be sent.
+	 * @param fileIndexes Files to send, or null for all
+	 * @param knownHCs    "hc" the client has for each file of fileIndexes (or
+	 *                    of the torrent, if that's null), with null entries
+	 *                    for files it doesn't have.  Files whose hc hasn't
+	 *                    changed are left out.  null to send all.
+	 * @param compact     One list of values per file, in the order of keys,
+	 *                    instead of a map per file
+	 * @return null if there's no torrent with that id
+	 */
+	public synchronized List<Object> getFiles(long id, List<String> keys,
+			int[] fileIndexes, Long[] knownHCs, boolean compact) {
+		Torrent torrent = mapTorrents.get(id);
+		if (torrent == null) {
+			return null;
+		}
+		Files files = getFiles(torrent);
+		int num = fileIndexes == null ? torrent.numFiles : fileIndexes.length;
+		List<Object> list = new ArrayList<>(num);
+		for (int i = 0; i < num; i++) {
+			int fileIndex = fileIndexes == null ? i : fileIndexes[i];
+			if (fileIndex < 0 || fileIndex >= torrent.numFiles) {
+				continue;
+			}
+			Long knownHC = knownHCs == null || i >= knownHCs.length ? null
+					: knownHCs[i];
+			if (knownHC != null && knownHC == files.hcs[fileIndex]) {
+				continue;
+			}
+			if (compact) {
+				List<Object> values = new ArrayList<>(keys.size());
+				for (String key : keys) {
+					values.add(getFileValue(files, fileIndex, key));
+				}
+				list.add(values);
+			} else {
+				Map<String, Object> map = new HashMap<>();
+				for (String key : keys) {
+					Object value = getFileValue(files, fileIndex, key);
+					if (value != null) {
+						map.put(key, value);
+					}
+				}
+				list.add(map);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Transmission style "fileStats": a map of progress and settings for every
+	 * file
+	 *
+	 * @return null if there's no torrent with that id
+	 */
+	public synchronized List<Object> getFileStats(long id) {
+		return getFiles(id,
+				Arrays.asList(TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED,
+						TransmissionVars.FIELD_FILESTATS_WANTED,
+						TransmissionVars.FIELD_FILESTATS_PRIORITY),
+				null, null, false);
+	}
+
+	private static Object getFileValue(Files files, int fileIndex,
+			String field) {
+		switch (field) {
+			case TransmissionVars.FIELD_FILES_INDEX:
+				return fileIndex;
+			case FIELD_HC:
+				return files.hcs[fileIndex];
+			case TransmissionVars.FIELD_FILES_NAME:
+				return files.names[fileIndex];
+			case TransmissionVars.FIELD_FILES_LENGTH:
+				return files.lengths[fileIndex];
+			case TransmissionVars.FIELD_FILESTATS_BYTES_COMPLETED:
+				return files.completed[fileIndex];
+			case TransmissionVars.FIELD_FILESTATS_WANTED:
+				return files.wanted[fileIndex];
+			case TransmissionVars.FIELD_FILESTATS_PRIORITY:
+				return files.priorities[fileIndex];
+			default:
+				return null;
+		}
+	}
+
+	private Files getFiles(Torrent torrent) {
+		if (torrent.files != null) {
+			return torrent.files;
+		}
+		int numFiles = torrent.numFiles;
+		Random fileRandom = new Random(script.seed ^ torrent.id);
+		Files files = new Files(numFiles);
+
+		int numFolders = Math.max(1, numFiles / 50);
+		String[] folders = new String[numFolders];
+		for (int i = 0; i < numFolders; i++) {
+			folders[i] = numFiles == 1 ? ""
+					: "Disc " + (i + 1) + "/"
+							+ (fileRandom.nextBoolean() ? "Extras " + i + "/" : "");
+		}
+
+		// Split the torrent size between the files
+		double[] weights = new double[numFiles];
+		double totalWeight = 0;
+		for (int i = 0; i < numFiles; i++) {
+			weights[i] = Math.pow(10, fileRandom.nextDouble() * 4);
+			totalWeight += weights[i];
+		}
+		long assigned = 0;
+		for (int i = 0; i < numFiles; i++) {
+			long length = i == numFiles - 1 ? torrent.size - assigned
+					: (long) (torrent.size * (weights[i] / totalWeight));
+			assigned += length;
+			files.lengths[i] = length;
+			files.names[i] = folders[fileRandom.nextInt(numFolders)]
+					+ WORDS[fileRandom.nextInt(WORDS.length)] + "-" + i
+					+ EXTENSIONS[fileRandom.nextInt(EXTENSIONS.length)];
+			files.wanted[i] = fileRandom.nextInt(20) != 0;
+			files.priorities[i] = fileRandom.nextInt(10) == 0 ? 1 : 0;
+			files.updateHC(i);
+		}
+		files.fill(torrent.downloaded);
+		torrent.files = files;
+		return files;
+	}
+
+	/**
+	 * @param fields null for all fields; otherwise tag fields, like
+	 *               tags-get-list's "fields" argument
+	 */
+	public synchronized List<Map<String, Object>> getTags(
+			Collection<String> fields) {
+		Map<Long, Integer> counts = new HashMap<>();
+		for (Torrent torrent : listTorrents) {
+			for (Long uid : torrent.tagUIDs) {
+				Integer count = counts.get(uid);
+				counts.put(uid, count == null ? 1 : count + 1);
+			}
+		}
+		List<Map<String, Object>> list = new ArrayList<>(listTags.size());
+		for (Map<String, Object> tag : listTags) {
+			Object uid = tag.get(TransmissionVars.FIELD_TAG_UID);
+			Integer count = counts.get(uid);
+			Map<String, Object> map;
+			if (fields == null) {
+				map = new HashMap<>(tag);
+			} else {
+				map = new HashMap<>();
+				for (String field : fields) {
+					Object value = tag.get(field);
+					if (value != null) {
+						map.put(field, value);
+					}
+				}
+				map.put(TransmissionVars.FIELD_TAG_UID, uid);
+			}
+			if (fields == null
+					|| fields.contains(TransmissionVars.FIELD_TAG_COUNT)) {
+				map.put(TransmissionVars.FIELD_TAG_COUNT, count == null ? 0 : count);
+			}
+			list.add(map);
+		}
+		return list;
+	}
+
+	/**
+	 * Totals, like session-stats returns them
+	 */
+	public synchronized Map<String, Object> getSessionStats() {
+		long downloadSpeed = 0;
+		long uploadSpeed = 0;
+		int numActive = 0;
+		for (Torrent torrent : listTorrents) {
+			downloadSpeed += torrent.rateDownload;
+			uploadSpeed += torrent.rateUpload;
+			if (torrent.isActive()) {
+				numActive++;
+			}
+		}
+		Map<String, Object> map = new HashMap<>();
+		map.put(TransmissionVars.TR_SESSION_STATS_DOWNLOAD_SPEED, downloadSpeed);
+		map.put(TransmissionVars.TR_SESSION_STATS_UPLOAD_SPEED, uploadSpeed);
+		map.put(TransmissionVars.TR_SESSION_STATS_ACTIVE_TORRENT_COUNT,
+				numActive);
+		map.put(TransmissionVars.TR_SESSION_STATS_PAUSED_TORRENT_COUNT,
+				listTorrents.size() - numActive);
+		map.put(TransmissionVars.TR_SESSION_STATS_TORRENT_COUNT,
+				listTorrents.size());
+		return map;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.adapter;
+
+import java.util.List;
+
+import com.biglybt.android.client.session.Session;
+
+import androidx.lifecycle.Lifecycle;
+import android.util.SparseIntArray;
+
+/**
+ * Stands in for the adapter a filter normally reports to.  Published items
+ * are kept, so a benchmark can hand them back to JMH.
+ */
+public class BenchmarkTalkback<T extends Comparable<T>>
+	implements SessionAdapterFilterTalkback<T>
+{
+	private final Session session;
+
+	public List<T> items;
+
+	public BenchmarkTalkback(Session session) {
+		this.session = session;
+	}
+
+	@Override
+	public Session getSession() {
+		return session;
+	}
+
+	@Override
+	public void removeAllItems() {
+		items = null;
+	}
+
+	@Override
+	public boolean setItems(List<T> values, SparseIntArray countsByViewType) {
+		items = values;
+		return true;
+	}
+
+	@Override
+	public boolean isLifeCycleAtLeast(Lifecycle.State state) {
+		return true;
+	}
+
+	@Override
+	public void performingFilteringChanged(int filterState, int oldState) {
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.adapter;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.biglybt.android.adapter.SortDefinition;
+import com.biglybt.android.benchmark.Fixtures;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.client.session.BenchmarkSession;
+import com.biglybt.android.client.session.Session;
+
+/**
+ * Sorting the torrent list with {@link TorrentListSorter}:
+ * {@link com.biglybt.android.adapter.ComparatorMapFields#sort(List)}, which
+ * pulls each torrent's sort keys once (and reuses them between sorts, as
+ * happens between refreshes), against Collections.sort with the sorter as
+ * a Comparator, which pulls them on every compare.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Thread)
+public class ComparatorMapFieldsBenchmark
+{
+	@Param({
+		"name",
+		"size",
+		"complete,position"
+	})
+	public String sortBy;
+
+	private TorrentListSorter sorter;
+
+	private List<TorrentListAdapterItem> items;
+
+	@Setup
+	public void setup() {
+		Session session = BenchmarkSession.create();
+		List<Map<String, Object>> torrents = Fixtures.torrents(
+				Fixtures.NUM_TORRENTS, Fixtures.SEED);
+		BenchmarkSession.addRemoveTorrents(session, torrents, null);
+
+		String[] fields;
+		switch (sortBy) {
+			case "name":
+				fields = new String[] {
+					TransmissionVars.FIELD_TORRENT_NAME
+				};
+				break;
+			case "size":
+				fields = new String[] {
+					TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE
+				};
+				break;
+			default:
+				fields = new String[] {
+					TransmissionVars.FIELD_TORRENT_IS_COMPLETE,
+					TransmissionVars.FIELD_TORRENT_POSITION
+				};
+				break;
+		}
+		sorter = new TorrentListSorter(
+				new BenchmarkTalkback<TorrentListAdapterItem>(session),
+				new SortDefinition(0, sortBy, fields, SortDefinition.SORT_ASC), true);
+
+		// Shuffled, so neither sort gets a presorted run
+		items = new ArrayList<>(torrents.size());
+		for (Map<String, Object> torrent : torrents) {
+			items.add(new TorrentListAdapterTorrentItem(
+					((Number) torrent.get(TransmissionVars.FIELD_TORRENT_ID)).longValue()));
+		}
+		Collections.shuffle(items, new Random(Fixtures.SEED));
+	}
+
+	@Benchmark
+	public List<TorrentListAdapterItem> sort() {
+		List<TorrentListAdapterItem> list = new ArrayList<>(items);
+		sorter.sort(list);
+		return list;
+	}
+
+	@Benchmark
+	public List<TorrentListAdapterItem> collectionsSort() {
+		List<TorrentListAdapterItem> list = new ArrayList<>(items);
+		Collections.sort(list, sorter);
+		return list;
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.adapter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.biglybt.android.adapter.ComparatorMapFields;
+import com.biglybt.android.adapter.SortDefinition;
+import com.biglybt.android.benchmark.Fixtures;
+import com.biglybt.android.client.session.*;
+
+/**
+ * File list of one big torrent: a filter pass in tree and flat (name
+ * sorted) mode, and building the folder tree of a fresh file store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FilesTreeFilterBenchmark
+{
+	private static final long TORRENT_ID = 1;
+
+	/** Sort definition ids from FilesTreeFilter.createSortDefinitions */
+	private static final int SORT_TREE = 0;
+
+	private static final int SORT_NAME = 1;
+
+	@State(Scope.Thread)
+	public static class Filtering
+	{
+		@Param({
+			"tree",
+			"name"
+		})
+		public String mode;
+
+		@Param({
+			"",
+			"disc"
+		})
+		public String constraint;
+
+		FilesTreeFilter filter;
+
+		@Setup
+		public void setup() {
+			Session session = BenchmarkSession.create();
+			Map<String, Object> torrent = Fixtures.torrentWithFiles(TORRENT_ID,
+					Fixtures.NUM_FILES, Fixtures.SEED);
+			BenchmarkSession.addRemoveTorrents(session,
+					Collections.singletonList(torrent), null);
+			filter = new FilesTreeFilter(TORRENT_ID,
+					new BenchmarkTalkback<FilesAdapterItem>(session));
+
+			// Not setSortDefinition, which would kick off an async refilter
+			SortDefinition sortDefinition = filter.getSortDefinitions().get(
+					"tree".equals(mode) ? SORT_TREE : SORT_NAME);
+			ComparatorMapFields<FilesAdapterItem> sorter = filter.getSorter();
+			sorter.setSortFields(sortDefinition);
+			sorter.setAsc(true);
+		}
+
+		@TearDown
+		public void tearDown() {
+			filter.destroy();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class FolderTree
+	{
+		Map<String, Object> torrent;
+
+		TorrentFileStore store;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			torrent = Fixtures.torrentWithFiles(TORRENT_ID, Fixtures.NUM_FILES,
+					Fixtures.SEED);
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() {
+			store = BenchmarkSession.buildFileStore(torrent);
+		}
+	}
+
+	@Benchmark
+	public Object performFiltering(Filtering state) {
+		return state.filter.performFiltering2(state.constraint);
+	}
+
+	@Benchmark
+	public TorrentFolderTree buildFolderTree(FolderTree state) {
+		return state.store.getFolderTree();
+	}
+}
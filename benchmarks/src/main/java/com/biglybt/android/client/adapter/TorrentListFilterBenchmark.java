@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.adapter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.biglybt.android.benchmark.Fixtures;
+import com.biglybt.android.client.session.BenchmarkSession;
+import com.biglybt.android.client.session.Session;
+
+/**
+ * One filter pass over the torrent list: copy the cached list, filter by
+ * name, sort with the default sort, and build sections.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Thread)
+public class TorrentListFilterBenchmark
+{
+	@Param({
+		"",
+		"linux",
+		"the li"
+	})
+	public String constraint;
+
+	@Param({
+		"false",
+		"true"
+	})
+	public boolean buildLetters;
+
+	private TorrentListFilter filter;
+
+	@Setup
+	public void setup() {
+		Session session = BenchmarkSession.create();
+		BenchmarkSession.addRemoveTorrents(session,
+				Fixtures.torrents(Fixtures.NUM_TORRENTS, Fixtures.SEED), null);
+		filter = new TorrentListFilter(
+				new BenchmarkTalkback<TorrentListAdapterItem>(session));
+		filter.setBuildLetters(buildLetters);
+	}
+
+	@TearDown
+	public void tearDown() {
+		filter.destroy();
+	}
+
+	@Benchmark
+	public Object performFiltering() {
+		return filter.performFiltering2(constraint);
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.rpc;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.biglybt.android.benchmark.mockrpc.MockRPCServer;
+import com.biglybt.android.benchmark.mockrpc.SyntheticSwarm;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.client.session.BenchmarkSession;
+import com.biglybt.android.client.session.Session;
+import com.biglybt.android.client.session.TorrentFileStore;
+
+/**
+ * Torrent list refreshes end to end, against a {@link MockRPCServer} on
+ * loopback: request, HTTP (gzipped, like a real remote client), streaming
+ * decode with {@link TorrentGetReplyDecoder}, and the merge into the
+ * session's torrent list.
+ * <p>
+ * The swarm ticks before each recently-active and file list refresh (not
+ * measured), so there's always something that changed.  File list
+ * refreshes send back the "hc" of each cached file, so only the files that
+ * changed come back, as on a device.
+ * <p>
+ * {@link TransmissionRPC} itself needs a Looper, so its request building and
+ * 409 retry are mirrored here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Thread)
+public class RPCRefreshBenchmark
+{
+	private static final String HEADER_SESSION_ID = "X-Transmission-Session-Id";
+
+	private static final List<String> BASIC_FIELDS = Arrays.asList(
+			TransmissionVars.FIELD_TORRENT_ID,
+			TransmissionVars.FIELD_TORRENT_HASH_STRING,
+			TransmissionVars.FIELD_TORRENT_NAME,
+			TransmissionVars.FIELD_TORRENT_PERCENT_DONE,
+			TransmissionVars.FIELD_TORRENT_SIZE_WHEN_DONE,
+			TransmissionVars.FIELD_TORRENT_RATE_UPLOAD,
+			TransmissionVars.FIELD_TORRENT_RATE_DOWNLOAD,
+			TransmissionVars.FIELD_TORRENT_ERROR,
+			TransmissionVars.FIELD_TORRENT_ERROR_STRING,
+			TransmissionVars.FIELD_TORRENT_ETA,
+			TransmissionVars.FIELD_TORRENT_DATE_ACTIVITY,
+			TransmissionVars.FIELD_TORRENT_POSITION,
+			TransmissionVars.FIELD_TORRENT_UPLOAD_RATIO,
+			TransmissionVars.FIELD_TORRENT_DATE_ADDED,
+			TransmissionVars.FIELD_TORRENT_LEFT_UNTIL_DONE,
+			TransmissionVars.FIELD_TORRENT_TAG_UIDS,
+			TransmissionVars.FIELD_TORRENT_STATUS,
+			TransmissionVars.FIELD_TORRENT_FILE_COUNT);
+
+	private static final List<String> FILE_FIELDS = Arrays.asList(
+			TransmissionVars.FIELD_TORRENT_ID, TransmissionVars.FIELD_TORRENT_FILES);
+
+	@Param({
+		"1000",
+		"10000"
+	})
+	public int numTorrents;
+
+	private SyntheticSwarm swarm;
+
+	private MockRPCServer server;
+
+	private RestJsonClient client;
+
+	private Map<String, String> headers;
+
+	private Session session;
+
+	private long torrentWithFilesID;
+
+	@Setup(Level.Trial)
+	public void setupTrial()
+			throws IOException, RPCException {
+		swarm = new SyntheticSwarm(new SyntheticSwarm.Script().torrents(
+				numTorrents).maxFilesPerTorrent(5000).flipFraction(0.002f));
+		server = new MockRPCServer(swarm, 0).start();
+		client = RestJsonClient.getInstance(false, false);
+		session = BenchmarkSession.create();
+
+		// First call of the client; gets the session id (409) out of the way
+		Map<String, Object> request = new HashMap<>();
+		request.put("method", TransmissionVars.METHOD_SESSION_GET);
+		call(request, null);
+
+		fullRefresh();
+		recentlyActiveRefresh();
+
+		int maxFiles = 0;
+		for (long id : swarm.getTorrentIDs()) {
+			int numFiles = swarm.getFileCount(id);
+			if (numFiles > maxFiles) {
+				maxFiles = numFiles;
+				torrentWithFilesID = id;
+			}
+		}
+		fileRefresh();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownTrial() {
+		server.close();
+	}
+
+	@Setup(Level.Invocation)
+	public void tick() {
+		swarm.tick();
+	}
+
+	@Benchmark
+	public int fullRefresh()
+			throws RPCException {
+		return refresh(null, BASIC_FIELDS, null);
+	}
+
+	@Benchmark
+	public int recentlyActiveRefresh()
+			throws RPCException {
+		return refresh("recently-active", BASIC_FIELDS, null);
+	}
+
+	@Benchmark
+	public int fileRefresh()
+			throws RPCException {
+		Map<String, Object> arguments = new HashMap<>();
+		arguments.put(TransmissionVars.ARG_TORRENT_GET_FILE_FIELDS,
+				new String[0]);
+		arguments.put("mapPerFile", false);
+		TorrentFileStore files = session.torrent.getCachedFiles(
+				torrentWithFilesID);
+		if (files != null) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < files.size(); i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append(files.getHC(i));
+			}
+			arguments.put("files-hc-" + torrentWithFilesID, sb.toString());
+		}
+		return refresh(new long[] {
+			torrentWithFilesID
+		}, FILE_FIELDS, arguments);
+	}
+
+	/**
+	 * @return Number of torrents in the reply
+	 */
+	private int refresh(Object ids, List<String> fields,
+			Map<String, Object> extraArguments)
+			throws RPCException {
+		Map<String, Object> arguments = new HashMap<>();
+		arguments.put("fields", fields);
+		if (ids != null) {
+			arguments.put(TransmissionVars.ARG_IDS, ids);
+		}
+		if (extraArguments != null) {
+			arguments.putAll(extraArguments);
+		}
+		Map<String, Object> request = new HashMap<>();
+		request.put("method", TransmissionVars.METHOD_TORRENT_GET);
+		request.put("arguments", arguments);
+
+		Map<?, ?> reply = call(request,
+				new TorrentGetReplyDecoder(fields, false, true));
+		Map<?, ?> replyArguments = (Map<?, ?>) reply.get("arguments");
+		List<?> torrents = (List<?>) replyArguments.get("torrents");
+		BenchmarkSession.addRemoveTorrents(session, torrents,
+				(List<?>) replyArguments.get("removed"));
+		return torrents.size();
+	}
+
+	private Map<?, ?> call(Map<String, Object> request,
+			JsonReplyDecoder decoder)
+			throws RPCException {
+		String method = String.valueOf(request.get("method"));
+		try {
+			return client.connect(method, server.getURL(), request, headers, null,
+					null, decoder, null);
+		} catch (RPCException e) {
+			if (e.getResponseCode() != 409) {
+				throw e;
+			}
+			headers = e.getFirstHeader(HEADER_SESSION_ID);
+			return client.connect(method, server.getURL(), request, headers, null,
+					null, decoder, null);
+		}
+	}
+}
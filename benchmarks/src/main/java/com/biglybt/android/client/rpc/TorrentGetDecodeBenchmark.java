@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.rpc;
+
+import java.io.StringReader;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.biglybt.android.benchmark.Fixtures;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.util.JSONUtils;
+import com.biglybt.android.util.MapUtils;
+
+/**
+ * The same "torrent-get" reply, decoded the way it was before
+ * {@link TorrentGetReplyDecoder} (generic {@link JSONUtils#decodeJSON(java.io.Reader)},
+ * then the file count and isComplete fixups over the list), and with
+ * {@link TorrentGetReplyDecoder}.
+ * <p>
+ * Both read from a Reader, like the streaming path of
+ * {@link RestJsonClientOkHttp}.  Run with the GC profiler (the jmh task
+ * does) to compare allocations per reply.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TorrentGetDecodeBenchmark
+{
+	@Param({
+		"1000",
+		"10000"
+	})
+	public int numTorrents;
+
+	private String json;
+
+	private List<String> fields;
+
+	@Setup
+	public void setup() {
+		List<Map<String, Object>> torrents = Fixtures.torrents(numTorrents,
+				Fixtures.SEED);
+		fields = new ArrayList<>(torrents.get(0).keySet());
+		json = JSONUtils.encodeToJSON(Fixtures.torrentGetReply(torrents));
+	}
+
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	@Benchmark
+	public List decodeJSONAndFixup() {
+		Map<String, Object> reply = JSONUtils.decodeJSON(new StringReader(json));
+		Map arguments = MapUtils.getMapMap(reply, "arguments",
+				Collections.EMPTY_MAP);
+		List list = MapUtils.getMapList(arguments, "torrents",
+				Collections.EMPTY_LIST);
+
+		// getTorrents' reply handling, as it was, before the remote is known to
+		// send fileCount
+		for (Object o : list) {
+			if (!(o instanceof Map)) {
+				continue;
+			}
+			Map map = (Map) o;
+			if (map.containsKey(TransmissionVars.FIELD_TORRENT_FILE_COUNT)) {
+				continue;
+			}
+			int fileCount = MapUtils.getMapList(map,
+					TransmissionVars.FIELD_TORRENT_PRIORITIES,
+					Collections.EMPTY_LIST).size();
+			if (fileCount > 0) {
+				map.put(TransmissionVars.FIELD_TORRENT_FILE_COUNT, fileCount);
+			}
+		}
+
+		if (fields.contains(TransmissionVars.FIELD_TORRENT_PERCENT_DONE)) {
+			for (Object o : list) {
+				if (!(o instanceof Map)) {
+					continue;
+				}
+				Map map = (Map) o;
+				float donePct = MapUtils.getMapFloat(map,
+						TransmissionVars.FIELD_TORRENT_PERCENT_DONE, 0);
+				map.put(TransmissionVars.FIELD_TORRENT_IS_COMPLETE, donePct >= 1);
+			}
+		}
+		return list;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	public List torrentGetReplyDecoder()
+			throws Exception {
+		TorrentGetReplyDecoder decoder = new TorrentGetReplyDecoder(fields, true,
+				true);
+		Map<?, ?> reply = decoder.decode(new StringReader(json));
+		Map arguments = MapUtils.getMapMap(reply, "arguments",
+				Collections.EMPTY_MAP);
+		return MapUtils.getMapList(arguments, "torrents", Collections.EMPTY_LIST);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import com.biglybt.android.benchmark.Fixtures;
+import com.biglybt.android.client.BiglyBTApp;
+import com.biglybt.android.client.TransmissionVars;
+import com.biglybt.android.client.rpc.TransmissionRPC;
+
+import android.app.Application;
+import android.content.res.Resources;
+
+/**
+ * A {@link Session} that can live outside of Android.
+ * <p>
+ * The session itself is a Mockito mock (a real one wants network state,
+ * profiles and an Activity), but its {@link Session_Torrent} is real, so
+ * torrent list merging, caching and lookups run the production code.
+ */
+public class BenchmarkSession
+{
+	private static final String CALL_ID = "benchmark";
+
+	private BenchmarkSession() {
+	}
+
+	public static Session create() {
+		installApplicationContext();
+
+		Session session = mock(Session.class);
+		RemoteProfile remoteProfile = mock(RemoteProfile.class);
+		when(session.getRemoteProfile()).thenReturn(remoteProfile);
+		// Skip the open options lookup; no Activity to open it in
+		when(remoteProfile.isAddTorrentSilently()).thenReturn(true);
+
+		Fixtures.setField(session, Session.class, "mLock", new Object());
+		Fixtures.setField(session, Session.class, "remoteProfile", remoteProfile);
+		Fixtures.setField(session, Session.class, "transmissionRPC",
+				mock(TransmissionRPC.class));
+		Fixtures.setField(session, Session.class, "refreshScheduler",
+				new RefreshScheduler());
+		Fixtures.setField(session, Session.class, "tag", mock(Session_Tag.class));
+		Fixtures.setField(session, Session.class, "torrent",
+				new Session_Torrent(session));
+		return session;
+	}
+
+	/**
+	 * Sort definitions get their names from string arrays, through the
+	 * Application context.  Every array has entries in the "value,name" form
+	 * some lists need.
+	 */
+	private static void installApplicationContext() {
+		String[] array = new String[64];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = i + ",Item " + i;
+		}
+		Resources resources = mock(Resources.class);
+		when(resources.getStringArray(anyInt())).thenReturn(array);
+		Application application = mock(Application.class);
+		when(application.getResources()).thenReturn(resources);
+		when(application.getApplicationContext()).thenReturn(application);
+
+		Fixtures.setField(null, BiglyBTApp.class, "applicationContext",
+				application);
+	}
+
+	/**
+	 * Feed a torrent-get reply into the session, like the RPC layer does
+	 */
+	public static void addRemoveTorrents(Session session, List<?> added,
+			List<?> removed) {
+		session.torrent.addRemoveTorrents(CALL_ID, added, null, null, removed);
+	}
+
+	/**
+	 * @param torrent Map from {@link Fixtures#torrentWithFiles}
+	 */
+	public static TorrentFileStore buildFileStore(Map<String, Object> torrent) {
+		return TorrentFileStore.fromCompact((List<?>) torrent.get("fileKeys"),
+				(List<?>) torrent.get(TransmissionVars.FIELD_TORRENT_FILES), null,
+				null);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.session;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.biglybt.android.benchmark.Fixtures;
+
+/**
+ * {@link Session_Torrent#addRemoveTorrents}: the first full list, the
+ * periodic partial refresh, and a file list merged into a torrent that
+ * already has one (mergeFiles).
+ * <p>
+ * addRemoveTorrents keeps and writes into the maps it's given, so each
+ * invocation gets fresh copies.  The copying is done in an
+ * invocation-level setup and isn't measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SessionTorrentBenchmark
+{
+	@State(Scope.Thread)
+	public static class FullList
+	{
+		List<Map<String, Object>> torrents;
+
+		Session session;
+
+		List<Map<String, Object>> reply;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			torrents = Fixtures.torrents(Fixtures.NUM_TORRENTS, Fixtures.SEED);
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() {
+			session = BenchmarkSession.create();
+			reply = Fixtures.copyMaps(torrents);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class PartialUpdate
+	{
+		List<Map<String, Object>> updates;
+
+		Session session;
+
+		List<Map<String, Object>> reply;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			List<Map<String, Object>> torrents = Fixtures.torrents(
+					Fixtures.NUM_TORRENTS, Fixtures.SEED);
+			updates = Fixtures.activeTorrentUpdates(torrents, Fixtures.SEED);
+			session = BenchmarkSession.create();
+			BenchmarkSession.addRemoveTorrents(session, torrents, null);
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() {
+			reply = Fixtures.copyMaps(updates);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class FileList
+	{
+		Map<String, Object> torrentWithFiles;
+
+		Session session;
+
+		List<Map<String, Object>> reply;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			torrentWithFiles = Fixtures.torrentWithFiles(1, Fixtures.NUM_FILES,
+					Fixtures.SEED);
+			session = BenchmarkSession.create();
+			BenchmarkSession.addRemoveTorrents(session,
+					Fixtures.copyMaps(Collections.singletonList(torrentWithFiles)),
+					null);
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() {
+			reply = Fixtures.copyMaps(Collections.singletonList(torrentWithFiles));
+		}
+	}
+
+	@Benchmark
+	public Session addFullList(FullList state) {
+		BenchmarkSession.addRemoveTorrents(state.session, state.reply, null);
+		return state.session;
+	}
+
+	@Benchmark
+	public Session addPartialUpdate(PartialUpdate state) {
+		BenchmarkSession.addRemoveTorrents(state.session, state.reply, null);
+		return state.session;
+	}
+
+	@Benchmark
+	public TorrentFileStore mergeFiles(FileList state) {
+		BenchmarkSession.addRemoveTorrents(state.session, state.reply, null);
+		return state.session.torrent.getCachedFiles(1);
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.android.client.rpc;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.biglybt.android.benchmark.mockrpc.MockRPCServer;
+import com.biglybt.android.benchmark.mockrpc.SyntheticSwarm;
+import com.biglybt.android.client.session.BenchmarkSession;
+import com.biglybt.android.client.session.Session;
+
+/**
+ * {@link RPCBatch} through a real {@link TransmissionRPC}, against a
+ * {@link MockRPCServer}: one HTTP request per batch when the remote supports
+ * it, and one per call when it doesn't, or when it rejects a batch.
+ * <p>
+ * Only method calls go through the sequential path here.  A torrent-get
+ * sent on its own checks for the UI thread, which needs a Looper.
+ */
+public class RPCBatchTest
+{
+	private static final int NUM_TORRENTS = 50;
+
+	private static final long TIMEOUT_SECS = 10;
+
+	private static final String METHOD_TAGS_GET_LIST = "tags-get-list";
+
+	private static final String METHOD_BATCH = "batch";
+
+	private MockRPCServer server;
+
+	private TransmissionRPC rpc;
+
+	@Before
+	public void setUp()
+			throws IOException {
+		server = new MockRPCServer(new SyntheticSwarm(
+				new SyntheticSwarm.Script().torrents(NUM_TORRENTS)), 0).start();
+	}
+
+	@After
+	public void tearDown() {
+		if (rpc != null) {
+			rpc.destroy();
+		}
+		server.close();
+	}
+
+	@Test
+	public void batchIsOneRoundTrip()
+			throws InterruptedException {
+		connect();
+		assertTrue(rpc.getSupports(RPCSupports.SUPPORTS_BATCH));
+
+		long requestsBefore = server.getRequestCount();
+		Replies replies = new Replies(3);
+		rpc.createBatch("test", RPCDispatcher.PRIORITY_REFRESH).addSessionStats(
+				null, replies).addCall(METHOD_TAGS_GET_LIST, null,
+						replies).addAllTorrents("test", replies).send();
+		replies.await();
+
+		assertEquals(1, server.getRequestCount() - requestsBefore);
+		assertEquals(Long.valueOf(1), getBatchCount());
+		assertEquals(Collections.emptyList(), replies.failures);
+		assertEquals(NUM_TORRENTS, replies.numTorrents.get());
+		assertTrue(rpc.getSupports(RPCSupports.SUPPORTS_BATCH));
+	}
+
+	@Test
+	public void rejectedBatchFallsBackToSequential()
+			throws InterruptedException {
+		server.setRejectBatch(true);
+		connect();
+		assertTrue(rpc.getSupports(RPCSupports.SUPPORTS_BATCH));
+
+		// Batch goes out, gets rejected, then each call is sent on its own
+		long requestsBefore = server.getRequestCount();
+		Replies replies = new Replies(3);
+		rpc.createBatch("test", RPCDispatcher.PRIORITY_REFRESH).addSessionStats(
+				null, replies).addCall(METHOD_TAGS_GET_LIST, null,
+						replies).addAllTorrents("test", replies).send();
+		replies.await();
+
+		assertEquals(1 + 3, server.getRequestCount() - requestsBefore);
+		assertEquals(Collections.emptyList(), replies.failures);
+		assertEquals(NUM_TORRENTS, replies.numTorrents.get());
+		assertFalse(rpc.getSupports(RPCSupports.SUPPORTS_BATCH));
+
+		// Batches aren't tried again
+		requestsBefore = server.getRequestCount();
+		replies = new Replies(2);
+		rpc.createBatch("test2", RPCDispatcher.PRIORITY_REFRESH).addSessionStats(
+				null, replies).addCall(METHOD_TAGS_GET_LIST, null, replies).send();
+		replies.await();
+
+		assertEquals(2, server.getRequestCount() - requestsBefore);
+		assertEquals(Long.valueOf(1), getBatchCount());
+		assertEquals(Collections.emptyList(), replies.failures);
+	}
+
+	@Test
+	public void unsupportedBatchIsSequential()
+			throws InterruptedException {
+		server.setSupportsBatch(false);
+		connect();
+		assertFalse(rpc.getSupports(RPCSupports.SUPPORTS_BATCH));
+
+		long requestsBefore = server.getRequestCount();
+		Replies replies = new Replies(2);
+		rpc.createBatch("test", RPCDispatcher.PRIORITY_REFRESH).addSessionStats(
+				null, replies).addCall(METHOD_TAGS_GET_LIST, null, replies).send();
+		replies.await();
+
+		assertEquals(2, server.getRequestCount() - requestsBefore);
+		assertNull(getBatchCount());
+		assertEquals(Collections.emptyList(), replies.failures);
+	}
+
+	/**
+	 * Create the RPC and wait for its session-get (and the 409 before it)
+	 */
+	private void connect()
+			throws InterruptedException {
+		Session session = BenchmarkSession.create();
+		when(session.getRemoteProfile().getNick()).thenReturn("mock");
+
+		CountDownLatch latch = new CountDownLatch(1);
+		rpc = new TransmissionRPC(session, server.getURL());
+		rpc.addSessionSettingsReceivedListener(map -> latch.countDown());
+		assertTrue("session-get",
+				latch.await(TIMEOUT_SECS, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * @return "batch" calls the server saw, or null if none
+	 */
+	private Long getBatchCount() {
+		return server.getMethodCounts().get(METHOD_BATCH);
+	}
+
+	private static class Replies
+		implements ReplyMapReceivedListener, TorrentListReceivedListener
+	{
+		private final CountDownLatch latch;
+
+		final List<String> failures = Collections.synchronizedList(
+				new ArrayList<>());
+
+		final AtomicInteger numTorrents = new AtomicInteger();
+
+		Replies(int numCalls) {
+			latch = new CountDownLatch(numCalls);
+		}
+
+		void await()
+				throws InterruptedException {
+			assertTrue("replies", latch.await(TIMEOUT_SECS, TimeUnit.SECONDS));
+		}
+
+		@Override
+		public void rpcSuccess(String requestID, Map<?, ?> optionalMap) {
+			latch.countDown();
+		}
+
+		@Override
+		public void rpcFailure(String requestID, String message) {
+			failures.add(requestID + ": " + message);
+			latch.countDown();
+		}
+
+		@Override
+		public void rpcError(String requestID, Exception e) {
+			failures.add(requestID + ": " + e);
+			latch.countDown();
+		}
+
+		@Override
+		public void rpcTorrentListReceived(String callID,
+				List<?> addedTorrentMaps, List<String> fields, int[] fileIndexes,
+				List<?> removedTorrentIDs) {
+			numTorrents.addAndGet(addedTorrentMaps.size());
+			latch.countDown();
+		}
+	}
+}
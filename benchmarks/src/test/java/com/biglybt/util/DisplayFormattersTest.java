@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) Azureus Software, Inc, All Rights Reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package com.biglybt.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.biglybt.android.util.FormattedLongCache;
+
+import android.content.res.Configuration;
+import android.content.res.Resources;
+
+/**
+ * The append variants of {@link DisplayFormatters} against their String
+ * versions: same text for random inputs, and (almost) no allocations once
+ * warmed up.  Allocations are counted per thread with
+ * {@link com.sun.management.ThreadMXBean}.
+ */
+public class DisplayFormattersTest
+{
+	private static final int NUM_RANDOM_INPUTS = 200000;
+
+	private static final long SEED = 0x5EEDL;
+
+	/** Byte counts and rates of a typical torrent list refresh */
+	private static final int NUM_ROW_VALUES = 1000;
+
+	/** ETAs; small, since each distinct one caches its plural strings */
+	private static final int NUM_TIME_VALUES = 100;
+
+	private static final int NUM_ROUNDS = 20;
+
+	private static com.sun.management.ThreadMXBean threadMXBean;
+
+	private static Resources resources;
+
+	@BeforeClass
+	public static void setUpClass() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			threadMXBean = (com.sun.management.ThreadMXBean) bean;
+			if (threadMXBean.isThreadAllocatedMemorySupported()) {
+				threadMXBean.setThreadAllocatedMemoryEnabled(true);
+			} else {
+				threadMXBean = null;
+			}
+		}
+		resources = createResources();
+	}
+
+	/**
+	 * Resources whose plurals and templates are made up, but stable, so both
+	 * versions get the same strings.  A subclass rather than a mock, since
+	 * every call to a mock allocates.
+	 */
+	@SuppressWarnings("deprecation")
+	private static Resources createResources() {
+		final Configuration configuration = new Configuration();
+		configuration.locale = Locale.getDefault();
+		return new Resources(null, null, null) {
+			@Override
+			public Configuration getConfiguration() {
+				return configuration;
+			}
+
+			@Override
+			public String getQuantityString(int id, int quantity,
+					Object... formatArgs) {
+				return formatArgs[0] + " #" + id + "/" + quantity;
+			}
+
+			@Override
+			public String getString(int id) {
+				return "%1$s ago #" + id;
+			}
+
+			@Override
+			public String getString(int id, Object... formatArgs) {
+				return String.format(getString(id), formatArgs);
+			}
+		};
+	}
+
+	@Test
+	public void appendMatchesFormat() {
+		Random random = new Random(SEED);
+		StringBuilder sb = new StringBuilder(64);
+		for (int i = 0; i < NUM_RANDOM_INPUTS; i++) {
+			long n = randomByteCount(random);
+
+			sb.setLength(0);
+			DisplayFormatters.appendByteCountToKiBEtc(sb, n);
+			assertEquals("bytes " + n,
+					DisplayFormatters.formatByteCountToKiBEtc(n), sb.toString());
+
+			sb.setLength(0);
+			DisplayFormatters.appendByteCountToKiBEtcPerSec(sb, n);
+			assertEquals("rate " + n,
+					DisplayFormatters.formatByteCountToKiBEtcPerSec(n), sb.toString());
+
+			// Up to 1e6, with up to 6 decimals
+			double value = random.nextDouble() * Math.pow(10, random.nextInt(7));
+			if (random.nextInt(20) == 0) {
+				value = -value;
+			}
+			int precision = random.nextInt(7);
+			boolean truncateZeros = random.nextBoolean();
+			boolean round = random.nextBoolean();
+			sb.setLength(0);
+			DisplayFormatters.appendDecimal(sb, value, precision, truncateZeros,
+					round);
+			assertEquals(
+					"decimal " + value + "/" + precision + "/" + truncateZeros + "/"
+							+ round,
+					DisplayFormatters.formatDecimal(value, precision, truncateZeros,
+							round),
+					sb.toString());
+
+			long secs = randomTimeSecs(random);
+
+			sb.setLength(0);
+			DisplayFormatters.appendPrettyTimeDiffShort(sb, resources, secs);
+			assertEquals("time short " + secs,
+					DisplayFormatters.prettyFormatTimeDiffShort(resources, secs),
+					sb.toString());
+
+			sb.setLength(0);
+			DisplayFormatters.appendPrettyTimeDiff(sb, resources, secs);
+			assertEquals("time " + secs,
+					DisplayFormatters.prettyFormatTimeDiff(resources, secs),
+					sb.toString());
+		}
+	}
+
+	@Test
+	public void appendDoesNotAllocate() {
+		assumeTrue("ThreadMXBean can't count allocations", threadMXBean != null);
+
+		Random random = new Random(SEED);
+		long[] values = new long[NUM_ROW_VALUES];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = randomByteCount(random);
+		}
+		long[] times = new long[NUM_TIME_VALUES];
+		for (int i = 0; i < times.length; i++) {
+			times[i] = randomTimeSecs(random);
+		}
+		StringBuilder sb = new StringBuilder(256);
+
+		// Warm up, and fill the plural string cache
+		for (int i = 0; i < NUM_ROUNDS; i++) {
+			appendAll(sb, values, times);
+			formatAll(values, times);
+		}
+
+		long before = getAllocatedBytes();
+		int numCalls = 0;
+		for (int i = 0; i < NUM_ROUNDS; i++) {
+			numCalls += appendAll(sb, values, times);
+		}
+		long appendBytes = getAllocatedBytes() - before;
+
+		before = getAllocatedBytes();
+		for (int i = 0; i < NUM_ROUNDS; i++) {
+			formatAll(values, times);
+		}
+		long formatBytes = getAllocatedBytes() - before;
+
+		// Rates that round to within a hair of a tie go through NumberFormat
+		assertTrue("append allocated " + appendBytes + " bytes in " + numCalls
+				+ " calls", appendBytes < numCalls);
+		assertTrue("append allocated " + appendBytes + ", String versions "
+				+ formatBytes, appendBytes * 100 < formatBytes);
+	}
+
+	@Test
+	public void formattedLongCacheHitsDoNotAllocate() {
+		assumeTrue("ThreadMXBean can't count allocations", threadMXBean != null);
+
+		FormattedLongCache sizeCache = FormattedLongCache.forByteCount();
+		FormattedLongCache rateCache = FormattedLongCache.forRate("\u25BC ");
+		FormattedLongCache etaCache = FormattedLongCache.forTimeDiffShort(
+				resources);
+		String size = sizeCache.get(123456789L);
+		String rate = rateCache.get(98765L);
+		String eta = etaCache.get(4000L);
+
+		int numHits = 100000;
+		long before = getAllocatedBytes();
+		for (int i = 0; i < numHits; i++) {
+			sizeCache.get(123456789L);
+			rateCache.get(98765L);
+			etaCache.get(4000L);
+		}
+		long hitBytes = getAllocatedBytes() - before;
+
+		// Only the counter's own bookkeeping
+		assertTrue("cache hits allocated " + hitBytes + " bytes",
+				hitBytes < 1024);
+		assertEquals(DisplayFormatters.formatByteCountToKiBEtc(123456789L), size);
+		assertEquals(
+				"\u25BC " + DisplayFormatters.formatByteCountToKiBEtcPerSec(98765L),
+				rate);
+		assertEquals(DisplayFormatters.prettyFormatTimeDiffShort(resources, 4000L),
+				eta);
+	}
+
+	private static int appendAll(StringBuilder sb, long[] values, long[] times) {
+		int numCalls = 0;
+		for (long n : values) {
+			sb.setLength(0);
+			DisplayFormatters.appendByteCountToKiBEtc(sb, n);
+			sb.setLength(0);
+			DisplayFormatters.appendByteCountToKiBEtcPerSec(sb, n);
+			numCalls += 2;
+		}
+		for (long secs : times) {
+			sb.setLength(0);
+			DisplayFormatters.appendPrettyTimeDiffShort(sb, resources, secs);
+			numCalls++;
+		}
+		return numCalls;
+	}
+
+	private static void formatAll(long[] values, long[] times) {
+		for (long n : values) {
+			DisplayFormatters.formatByteCountToKiBEtc(n);
+			DisplayFormatters.formatByteCountToKiBEtcPerSec(n);
+		}
+		for (long secs : times) {
+			DisplayFormatters.prettyFormatTimeDiffShort(resources, secs);
+		}
+	}
+
+	/**
+	 * @return Non-negative, spread evenly over orders of magnitude (B to PB)
+	 */
+	private static long randomByteCount(Random random) {
+		return (random.nextLong() >>> 1) >>> (10 + random.nextInt(53));
+	}
+
+	/**
+	 * @return Seconds, up to ~10 years, spread over orders of magnitude
+	 */
+	private static long randomTimeSecs(Random random) {
+		return (long) (random.nextDouble() * Math.pow(10, random.nextInt(9)));
+	}
+
+	private static long getAllocatedBytes() {
+		return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}